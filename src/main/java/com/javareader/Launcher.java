@@ -0,0 +1,38 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.NdjsonReport;
+import javafx.application.Application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Entry point of the jar. It is not an Application itself, so the JavaFX launcher does not start
+ * the toolkit before main runs and the --stdin mode works on machines without a display.
+ */
+public class Launcher {
+
+    public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--stdin")) {
+            System.exit(runStdin(System.in, System.out, System.err));
+        }
+        Application.launch(Main.class, args);
+    }
+
+    /**
+     * Headless streaming mode: source on stdin, one JSON violation per line on stdout. Returns the
+     * exit status: 0 when clean, 1 when violations were found, 2 when the input could not be read.
+     */
+    public static int runStdin(InputStream in, OutputStream out, PrintStream err) {
+        try {
+            return NdjsonReport.analyze(new CodeAnalyzer(), in, out);
+        } catch (IOException e) {
+            err.println("Error reading input: " + e.getMessage());
+            return 2;
+        }
+    }
+}
@@ -32,6 +32,9 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * Starts the UI; the jar's entry point is {@link Launcher}, which also handles --stdin
+     */
     public static void main(String[] args) {
         launch(args);
     }
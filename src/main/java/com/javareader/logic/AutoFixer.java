@@ -0,0 +1,425 @@
+package com.javareader.logic;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the fixes the rules already know and applies them to files. One lexer pass over a file
+ * collects text edits: leading whitespace of over-indented lines is rewritten so each level is at
+ * most 2 spaces deeper than its parent, and string literals repeated inside the first top-level
+ * class are replaced by a {@code private static final String} constant named by
+ * {@link RuleChecker#suggestConstantName}. Overlapping edits are dropped, the rest are applied in
+ * one sorted pass and the file is written atomically in its original format. Files are fixed in
+ * parallel, one task per file.
+ */
+public class AutoFixer {
+
+    private static final int INDENT_STEP = 2;
+
+    private final RuleChecker ruleChecker = new RuleChecker();
+    private final DocumentSaver documentSaver = new DocumentSaver();
+
+    /**
+     * Returns the fixes for a file's lines, as edits to the lines joined with '\n' (each line
+     * terminated, as in {@link PieceTable#fromLines}), sorted and non-overlapping
+     */
+    public List<TextEdit> collectEdits(List<String> lines) {
+        return new FilePass(lines).collect();
+    }
+
+    /**
+     * Applies the fixes to the file and writes it back through a temporary file; returns the number
+     * of edits applied. A file without fixes is not rewritten.
+     */
+    public int fixFile(Path file) throws IOException {
+        TextFileFormat format = TextFileFormat.detect(file);
+        List<String> lines = format.readLines(file);
+        List<TextEdit> edits = collectEdits(lines);
+        if (edits.isEmpty()) return 0;
+        String text = apply(PieceTable.fromLines(lines).getText(), edits);
+        documentSaver.save(new PieceTable(text), file, format);
+        return edits.size();
+    }
+
+    /**
+     * Returns the number of edits {@link #fixFile} would apply, without writing anything
+     */
+    public int countEdits(Path file) throws IOException {
+        return collectEdits(TextFileFormat.detect(file).readLines(file)).size();
+    }
+
+    /**
+     * Fixes the files in parallel on the given number of threads and waits for all of them.
+     * Results are in the order of the files; a file that failed carries its error.
+     */
+    public List<FileResult> fixAll(List<Path> files, int threads) throws InterruptedException {
+        return forAll(files, threads, this::fixFile);
+    }
+
+    /**
+     * Dry run of {@link #fixAll}: the results carry the number of edits each file would get, and no
+     * file is written
+     */
+    public List<FileResult> previewAll(List<Path> files, int threads) throws InterruptedException {
+        return forAll(files, threads, this::countEdits);
+    }
+
+    private List<FileResult> forAll(List<Path> files, int threads, FileTask perFile) throws InterruptedException {
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), task -> {
+            Thread thread = new Thread(task, "auto-fixer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(pool.submit(() -> perFile.run(file)));
+            }
+            List<FileResult> results = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.add(new FileResult(files.get(i), futures.get(i).get(), null));
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    results.add(new FileResult(files.get(i), 0, cause));
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private interface FileTask {
+        int run(Path file) throws IOException;
+    }
+
+    /**
+     * Sorts the edits by offset and drops every edit overlapping an earlier kept one. Two edits at
+     * the same offset overlap unless neither inserts there.
+     */
+    public static List<TextEdit> nonOverlapping(List<TextEdit> edits) {
+        List<TextEdit> sorted = new ArrayList<>(edits);
+        sorted.sort(Comparator.comparingInt(TextEdit::getOffset));
+        List<TextEdit> kept = new ArrayList<>(sorted.size());
+        TextEdit previous = null;
+        for (TextEdit edit : sorted) {
+            if (previous != null && (edit.getOffset() < previous.getEnd()
+                    || edit.getOffset() == previous.getOffset() && (edit.getLength() == 0 || previous.getLength() == 0))) {
+                continue;
+            }
+            kept.add(edit);
+            previous = edit;
+        }
+        return kept;
+    }
+
+    /**
+     * Applies the edits to the text in one pass, copying the text between them once
+     */
+    public static String apply(CharSequence text, List<TextEdit> edits) {
+        List<TextEdit> kept = nonOverlapping(edits);
+        int size = text.length();
+        for (TextEdit edit : kept) {
+            if (edit.getEnd() > text.length()) {
+                throw new IndexOutOfBoundsException("Edit " + edit + " outside text of length " + text.length());
+            }
+            size += edit.getReplacement().length() - edit.getLength();
+        }
+        StringBuilder sb = new StringBuilder(size);
+        int copied = 0;
+        for (TextEdit edit : kept) {
+            sb.append(text, copied, edit.getOffset()).append(edit.getReplacement());
+            copied = edit.getEnd();
+        }
+        sb.append(text, copied, text.length());
+        return sb.toString();
+    }
+
+    /**
+     * Collects the edits of one file; one instance per file, so files can be fixed concurrently
+     */
+    private class FilePass {
+        private final List<String> lines;
+        private final int[] lineStarts;
+        private final JavaLexer lexer = new JavaLexer();
+        private final List<TextEdit> edits = new ArrayList<>();
+        // Terminated string literals as (line, token start, token end) triples
+        private int[] literals = new int[48];
+        private int literalCount;
+        private final Set<String> identifiers = new HashSet<>();
+        // Stack of (original indentation, fixed indentation) of the enclosing lines
+        private int[] indentStack = new int[32];
+        private int indentDepth;
+        private int braceDepth;
+        private boolean classKeywordSeen;
+        // Position just after the '{' opening the first top-level class, and its closing '}'
+        private int bodyLine = -1;
+        private int bodyColumn;
+        private int bodyIndent;
+        private int bodyEndLine = -1;
+        private int bodyEndColumn;
+
+        FilePass(List<String> lines) {
+            this.lines = lines;
+            this.lineStarts = new int[lines.size()];
+            int offset = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                lineStarts[i] = offset;
+                offset += lines.get(i).length() + 1;
+            }
+        }
+
+        List<TextEdit> collect() {
+            JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+            int state = JavaLexer.STATE_CODE;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                int startState = state;
+                state = lexer.lexLine(line, state, tokens);
+                // Whitespace at the start of a text block line is part of the string
+                if (startState != JavaLexer.STATE_TEXT_BLOCK) {
+                    fixIndentation(i, line);
+                }
+                scanTokens(i, line, tokens);
+            }
+            fixRepeatedLiterals();
+            return nonOverlapping(edits);
+        }
+
+        // Maps each deeper original level to at most INDENT_STEP more than its parent's fixed level
+        private void fixIndentation(int i, String line) {
+            if (line.trim().isEmpty()) return;
+            int original = ruleChecker.getIndentationLevel(line);
+            while (indentDepth > 0 && indentStack[2 * (indentDepth - 1)] > original) {
+                indentDepth--;
+            }
+            int fixed;
+            if (indentDepth == 0) {
+                fixed = original;
+            } else {
+                int parentOriginal = indentStack[2 * (indentDepth - 1)];
+                int parentFixed = indentStack[2 * (indentDepth - 1) + 1];
+                fixed = parentFixed + Math.min(original - parentOriginal, INDENT_STEP);
+            }
+            if (indentDepth == 0 || indentStack[2 * (indentDepth - 1)] != original) {
+                if (2 * indentDepth + 2 > indentStack.length) {
+                    indentStack = Arrays.copyOf(indentStack, indentStack.length * 2);
+                }
+                indentStack[2 * indentDepth] = original;
+                indentStack[2 * indentDepth + 1] = fixed;
+                indentDepth++;
+            }
+            // Constants are declared at the indentation of the first member
+            if (bodyLine >= 0 && bodyIndent < 0 && bodyEndLine < 0) {
+                bodyIndent = fixed;
+            }
+            if (fixed != original) {
+                int whitespace = 0;
+                while (line.charAt(whitespace) == ' ' || line.charAt(whitespace) == '\t') {
+                    whitespace++;
+                }
+                edits.add(new TextEdit(lineStarts[i], whitespace, spaces(fixed)));
+            }
+        }
+
+        // Tracks braces to find the first top-level class body, and remembers literals and identifiers
+        private void scanTokens(int i, String line, JavaLexer.Tokens tokens) {
+            int previousType = -1;
+            for (int t = 0; t < tokens.size(); t++) {
+                JavaLexer.TokenType type = tokens.type(t);
+                int start = tokens.start(t);
+                int end = tokens.end(t);
+                if (type == JavaLexer.TokenType.IDENTIFIER) {
+                    identifiers.add(line.substring(start, end));
+                } else if (type == JavaLexer.TokenType.STRING && isTerminated(line, start, end)) {
+                    addLiteral(i, start, end);
+                } else if (type == JavaLexer.TokenType.KEYWORD && braceDepth == 0 && bodyLine < 0
+                        && JavaLexer.regionEquals(line, start, end, "class") && previousType != '.') {
+                    classKeywordSeen = true;
+                } else if (type == JavaLexer.TokenType.PUNCTUATION && end - start == 1) {
+                    char c = line.charAt(start);
+                    if (c == '{') {
+                        if (braceDepth == 0 && classKeywordSeen && bodyLine < 0) {
+                            bodyLine = i;
+                            bodyColumn = end;
+                            bodyIndent = -1;
+                        }
+                        braceDepth++;
+                    } else if (c == '}' && braceDepth > 0) {
+                        braceDepth--;
+                        if (braceDepth == 0 && bodyLine >= 0 && bodyEndLine < 0) {
+                            bodyEndLine = i;
+                            bodyEndColumn = start;
+                        }
+                    }
+                }
+                if (type != JavaLexer.TokenType.WHITESPACE && type != JavaLexer.TokenType.COMMENT) {
+                    previousType = type == JavaLexer.TokenType.PUNCTUATION ? line.charAt(start) : 0;
+                }
+            }
+        }
+
+        private void addLiteral(int line, int start, int end) {
+            if (3 * literalCount + 3 > literals.length) {
+                literals = Arrays.copyOf(literals, literals.length * 2);
+            }
+            literals[3 * literalCount] = line;
+            literals[3 * literalCount + 1] = start;
+            literals[3 * literalCount + 2] = end;
+            literalCount++;
+        }
+
+        // Declares one constant per repeated literal at the top of the class body and uses it everywhere in it
+        private void fixRepeatedLiterals() {
+            if (bodyLine < 0 || bodyEndLine < 0) return;
+            // Only occurrences inside the body count, as the constant replaces no others
+            Map<String, Integer> counts = new HashMap<>();
+            for (int k = 0; k < literalCount; k++) {
+                if (insideBody(k)) counts.merge(literalText(k), 1, Integer::sum);
+            }
+            Map<String, String> names = new LinkedHashMap<>();
+            Set<String> taken = new HashSet<>(identifiers);
+            for (int k = 0; k < literalCount; k++) {
+                String literal = literalText(k);
+                if (!insideBody(k) || counts.get(literal) < 2 || names.containsKey(literal)) continue;
+                if (literal.length() < RepeatedStringDetector.MIN_LITERAL_LENGTH) continue;
+                if (!hasLetterOrDigit(literal)) continue;
+                String name = ruleChecker.suggestConstantName(literal);
+                // An existing identifier of that name may already be this constant or something else; leave it alone
+                if (!taken.add(name)) continue;
+                names.put(literal, name);
+            }
+            if (names.isEmpty()) return;
+
+            int memberIndent = bodyIndent >= 0 ? bodyIndent : ruleChecker.getIndentationLevel(lines.get(bodyLine)) + INDENT_STEP;
+            StringBuilder declarations = new StringBuilder();
+            for (Map.Entry<String, String> entry : names.entrySet()) {
+                declarations.append('\n').append(spaces(memberIndent)).append("private static final String ")
+                    .append(entry.getValue()).append(" = \"").append(entry.getKey()).append("\";");
+            }
+            edits.add(new TextEdit(lineStarts[bodyLine] + bodyColumn, 0, declarations.toString()));
+            for (int k = 0; k < literalCount; k++) {
+                String name = names.get(literalText(k));
+                if (name != null && insideBody(k)) {
+                    int line = literals[3 * k];
+                    int start = literals[3 * k + 1];
+                    edits.add(new TextEdit(lineStarts[line] + start, literals[3 * k + 2] - start, name));
+                }
+            }
+        }
+
+        private String literalText(int k) {
+            return lines.get(literals[3 * k]).substring(literals[3 * k + 1] + 1, literals[3 * k + 2] - 1);
+        }
+
+        private boolean insideBody(int k) {
+            int line = literals[3 * k];
+            int start = literals[3 * k + 1];
+            boolean afterOpen = line > bodyLine || line == bodyLine && start >= bodyColumn;
+            boolean beforeClose = line < bodyEndLine || line == bodyEndLine && start < bodyEndColumn;
+            return afterOpen && beforeClose;
+        }
+    }
+
+    // True when the string token ends with its own closing quote, not an escaped one
+    private static boolean isTerminated(CharSequence line, int start, int end) {
+        int k = start + 1;
+        while (k < end) {
+            char c = line.charAt(k);
+            if (c == '\\') {
+                k += 2;
+            } else if (c == '"') {
+                return k == end - 1;
+            } else {
+                k++;
+            }
+        }
+        return false;
+    }
+
+    // suggestConstantName needs at least one letter or digit to build a name from
+    private static boolean hasLetterOrDigit(String literal) {
+        for (int k = 0; k < literal.length(); k++) {
+            char c = literal.charAt(k);
+            if (c < 128 && Character.isLetterOrDigit(c)) return true;
+        }
+        return false;
+    }
+
+    private static String spaces(int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, ' ');
+        return new String(chars);
+    }
+
+    /**
+     * Replacement of {@code length} characters at an offset
+     */
+    public static class TextEdit {
+        private final int offset;
+        private final int length;
+        private final String replacement;
+
+        public TextEdit(int offset, int length, String replacement) {
+            if (offset < 0 || length < 0) {
+                throw new IllegalArgumentException("Negative edit range " + offset + "+" + length);
+            }
+            this.offset = offset;
+            this.length = length;
+            this.replacement = replacement;
+        }
+
+        public int getOffset() { return offset; }
+        public int getLength() { return length; }
+        public int getEnd() { return offset + length; }
+        public String getReplacement() { return replacement; }
+
+        @Override
+        public String toString() {
+            return offset + "+" + length + " -> \"" + replacement + "\"";
+        }
+    }
+
+    /**
+     * Outcome of fixing one file
+     */
+    public static class FileResult {
+        private final Path file;
+        private final int editCount;
+        private final Exception error;
+
+        public FileResult(Path file, int editCount, Exception error) {
+            this.file = file;
+            this.editCount = editCount;
+            this.error = error;
+        }
+
+        public Path getFile() { return file; }
+
+        /**
+         * Number of edits applied; 0 when the file needed none or failed
+         */
+        public int getEditCount() { return editCount; }
+
+        /**
+         * The failure, or null if the file was fixed or needed no fixes
+         */
+        public Exception getError() { return error; }
+    }
+}
@@ -0,0 +1,311 @@
+package com.javareader.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Analyzes many files in parallel on a fixed pool of worker threads, one CodeAnalyzer per worker.
+ * Results are reported per file as they complete. Every file also goes into one shared
+ * DuplicateBlockDetector, so blocks duplicated across files are reported when the batch ends.
+ * Zip and jar archives are read in place through the zip file system; their .java entries are
+ * analyzed like files and named "archive.jar!/path/Entry.java".
+ */
+public class BatchAnalyzer {
+
+    private final ExecutorService pool;
+    private final ThreadLocal<CodeAnalyzer> analyzers = ThreadLocal.withInitial(CodeAnalyzer::new);
+
+    public BatchAnalyzer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public BatchAnalyzer(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "batch-analyzer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Expands the given files and folders into the .java files and archives they contain, in path
+     * order and without duplicates
+     */
+    public static List<Path> expand(List<Path> paths) throws IOException {
+        Set<Path> files = new LinkedHashSet<>();
+        for (Path path : paths) {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(walk.filter(file -> isJavaFile(file) || isArchive(file)).sorted()
+                        .collect(Collectors.toList()));
+                }
+            } else if (isJavaFile(path) || isArchive(path)) {
+                files.add(path);
+            }
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static boolean isJavaFile(Path path) {
+        return Files.isRegularFile(path) && path.getFileName().toString().toLowerCase().endsWith(".java");
+    }
+
+    /**
+     * True for .zip and .jar files, whose entries are analyzed without extracting them
+     */
+    public static boolean isArchive(Path path) {
+        String name = path.getFileName().toString().toLowerCase();
+        return Files.isRegularFile(path) && (name.endsWith(".zip") || name.endsWith(".jar"));
+    }
+
+    /**
+     * Name of a file relative to the batch's common parent, with '/' separators; this is how files
+     * are named in duplicate-block details
+     */
+    public static String relativeName(Path base, Path file) {
+        return base == null ? file.getFileName().toString() : base.relativize(file).toString().replace('\\', '/');
+    }
+
+    /**
+     * Closest directory containing every file, or null if they share none
+     */
+    public static Path commonParent(List<Path> files) {
+        if (files.isEmpty()) return null;
+        Path common = files.get(0).toAbsolutePath().getParent();
+        for (Path file : files) {
+            Path absolute = file.toAbsolutePath();
+            while (common != null && !absolute.startsWith(common)) {
+                common = common.getParent();
+            }
+        }
+        return common;
+    }
+
+    /**
+     * Queues the files and archives for analysis and returns at once; the listener is called from
+     * the worker threads. Archive entries stay readable until the batch is closed.
+     */
+    public Batch analyze(List<Path> files, Listener listener) {
+        Batch batch = newBatch(files);
+        batch.start(listener);
+        return batch;
+    }
+
+    /**
+     * Creates a batch for the files without starting it, so the caller can publish the batch
+     * before any result arrives; see {@link Batch#start}
+     */
+    public Batch newBatch(List<Path> files) {
+        return new Batch(new ArrayList<>(files));
+    }
+
+    /**
+     * Stops the worker threads; queued files are dropped
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Receives the results of a batch, on the worker threads
+     */
+    public interface Listener {
+        void fileAnalyzed(Path file, String name, CodeAnalyzer.AnalysisResult result);
+
+        void fileFailed(Path file, String name, Exception error);
+
+        /**
+         * Called once after the last file; {@code crossFileDuplicates} only holds blocks whose two
+         * copies are in different files, named as in {@link #relativeName}
+         */
+        void finished(List<DuplicateBlockDetector.DuplicateBlock> crossFileDuplicates, boolean cancelled);
+    }
+
+    /**
+     * One submitted set of files
+     */
+    public class Batch implements Closeable {
+        private final List<Path> files;
+        // Set by start() before any task is queued; the pool hands it to the workers
+        private Listener listener;
+        // Queued tasks not done yet; opening an archive adds one per entry
+        private final AtomicInteger remaining;
+        private final AtomicInteger total;
+        private final Queue<FileSystem> archives = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final DuplicateBlockDetector duplicates = new DuplicateBlockDetector();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final CodeAnalyzer.ProgressListener cancelCheck = new CodeAnalyzer.ProgressListener() {
+            @Override
+            public void progress(int linesDone, int totalLines, Map<CodeAnalyzer.ViolationType, Integer> counts) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+        };
+
+        private Batch(List<Path> files) {
+            int archiveCount = (int) files.stream().filter(BatchAnalyzer::isArchive).count();
+            this.files = files;
+            this.remaining = new AtomicInteger(files.size());
+            this.total = new AtomicInteger(files.size() - archiveCount);
+        }
+
+        /**
+         * Queues the files; the listener is called from the worker threads. A batch starts once.
+         */
+        public void start(Listener listener) {
+            if (this.listener != null) {
+                throw new IllegalStateException("Batch already started");
+            }
+            this.listener = listener;
+            if (files.isEmpty()) {
+                finish();
+                return;
+            }
+            Path base = commonParent(files);
+            for (Path file : files) {
+                String name = relativeName(base, file);
+                if (isArchive(file)) {
+                    pool.execute(() -> openArchive(file, name));
+                } else {
+                    pool.execute(() -> run(file, name));
+                }
+            }
+        }
+
+        private void openArchive(Path archive, String name) {
+            try {
+                if (cancelled.get()) return;
+                FileSystem zip = FileSystems.newFileSystem(archive, (ClassLoader) null);
+                archives.add(zip);
+                List<Path> entries;
+                try (Stream<Path> walk = Files.walk(zip.getPath("/"))) {
+                    entries = walk.filter(BatchAnalyzer::isJavaFile).sorted().collect(Collectors.toList());
+                }
+                // Count the entries before queueing them so the batch cannot finish early
+                remaining.addAndGet(entries.size());
+                total.addAndGet(entries.size());
+                for (Path entry : entries) {
+                    pool.execute(() -> run(entry, name + "!" + entry));
+                }
+            } catch (IOException | RuntimeException e) {
+                listener.fileFailed(archive, name, e);
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private void run(Path file, String name) {
+            try {
+                if (cancelled.get()) return;
+                // One read serves both the analysis and the duplicate index
+                SourceFile source = SourceFile.read(file);
+                CodeAnalyzer.AnalysisResult result = analyzers.get().analyzeSource(source, cancelCheck);
+                duplicates.addFile(name, source.getLines());
+                completed.incrementAndGet();
+                listener.fileAnalyzed(file, name, result);
+            } catch (CancellationException e) {
+                // Counted as done below; the batch reports itself cancelled
+            } catch (IOException | RuntimeException e) {
+                listener.fileFailed(file, name, e);
+            } finally {
+                if (remaining.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
+
+        private void finish() {
+            try {
+                List<DuplicateBlockDetector.DuplicateBlock> crossFile = new ArrayList<>();
+                if (!cancelled.get()) {
+                    for (DuplicateBlockDetector.DuplicateBlock block : duplicates.findDuplicates()) {
+                        if (!block.getFileA().equals(block.getFileB())) {
+                            crossFile.add(block);
+                        }
+                    }
+                }
+                listener.finished(Collections.unmodifiableList(crossFile), cancelled.get());
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Skips the files not started yet and stops the running ones at their next progress check
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        /**
+         * Number of files analyzed so far
+         */
+        public int getCompletedCount() {
+            return completed.get();
+        }
+
+        /**
+         * Number of files in the batch, including the entries of the archives opened so far
+         */
+        public int getTotalCount() {
+            return total.get();
+        }
+
+        /**
+         * Closes the archives opened by the batch; their entries can no longer be read
+         */
+        @Override
+        public void close() throws IOException {
+            cancel();
+            IOException failure = null;
+            for (FileSystem archive; (archive = archives.poll()) != null; ) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure != null) throw failure;
+        }
+
+        /**
+         * Waits for the batch to finish; returns false on timeout
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return done.await(timeout, unit);
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package com.javareader.logic;
 
+import com.javareader.logic.rules.LineContext;
+import com.javareader.logic.rules.Rule;
+import com.javareader.logic.rules.RuleSet;
+
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -11,10 +17,27 @@ import java.util.stream.Collectors;
  */
 public class CodeAnalyzer {
     
+    // Lines between two progress reports
+    private static final int PROGRESS_INTERVAL = 2048;
+    static final ProgressListener NO_PROGRESS = (linesDone, totalLines, counts) -> { };
+    // Bump whenever a built-in rule changes what it reports, so stored results are recomputed
+    private static final int RULES_VERSION = 1;
+
     private final RuleChecker ruleChecker;
     private final HighlightUtil highlightUtil;
+    private final JavaLexer lexer;
+    private final RuleSet customRules;
     
     public CodeAnalyzer() {
+        this(RuleSet.installed());
+    }
+
+    /**
+     * Creates an analyzer that also applies the given pluggable rules
+     */
+    public CodeAnalyzer(RuleSet customRules) {
+        this.customRules = customRules;
+        this.lexer = new JavaLexer();
         this.ruleChecker = new RuleChecker();
         this.highlightUtil = new HighlightUtil();
     }
@@ -23,119 +46,260 @@ public class CodeAnalyzer {
      * Analyzes a Java file for code violations
      */
     public AnalysisResult analyzeFile(Path filePath) throws IOException {
+        return analyzeFile(filePath, NO_PROGRESS);
+    }
+
+    /**
+     * Analyzes a Java file, reporting running counts to the listener as lines are processed.
+     * Throws CancellationException once the listener reports cancellation.
+     */
+    public AnalysisResult analyzeFile(Path filePath, ProgressListener listener) throws IOException {
+        return analyzeSource(readJavaFile(filePath, listener), listener);
+    }
+
+    /**
+     * Reads a Java file for {@link #analyzeSource}, for callers that need its lines afterwards.
+     * Throws IllegalArgumentException for files that are not .java files.
+     */
+    public static SourceFile readJavaFile(Path filePath, ProgressListener listener) throws IOException {
         if (!filePath.toString().toLowerCase().endsWith(".java")) {
             throw new IllegalArgumentException("File must be a .java file");
         }
         
-        List<String> lines = Files.readAllLines(filePath);
+        return SourceFile.read(filePath, listener);
+    }
+
+    /**
+     * Analyzes a file that was already read
+     */
+    public AnalysisResult analyzeSource(SourceFile source) {
+        return analyzeSource(source, NO_PROGRESS);
+    }
+
+    /**
+     * Analyzes a file that was already read, reporting progress like {@link #analyzeFile(Path, ProgressListener)}
+     */
+    public AnalysisResult analyzeSource(SourceFile source, ProgressListener listener) {
+        return analyzeLines(source.getLines(), listener);
+    }
+    
+    /**
+     * Analyzes Java code from a String for code violations
+     */
+    public AnalysisResult analyzeString(String code) {
+        return analyzeString(code, NO_PROGRESS);
+    }
+
+    /**
+     * Analyzes Java code from a String, reporting progress like {@link #analyzeFile(Path, ProgressListener)}
+     */
+    public AnalysisResult analyzeString(String code, ProgressListener listener) {
+        return analyzeLines(Arrays.asList(code.split("\r?\n")), listener);
+    }
+
+    /**
+     * Analyzes code already split into lines, for callers that go on using the lines
+     */
+    public AnalysisResult analyzeLines(List<String> lines, ProgressListener listener) {
+        return analyzeLines(lines, LineMetrics.fromLines(lines), listener);
+    }
+
+    /**
+     * Analyzes code read line by line, handing each violation to the sink as soon as its rule
+     * fires. Line rules fire while their line is read; whole-file rules (repeated strings and
+     * duplicate blocks) fire at the end of input. Lines are split as Files.readAllLines splits
+     * them, so the result matches analyzeFile on the same text.
+     */
+    public AnalysisResult analyzeStream(BufferedReader reader, Consumer<Violation> sink) throws IOException {
+        List<String> lines = new ArrayList<>();
+        LineMetrics metrics = new LineMetrics(16);
         List<Violation> violations = new ArrayList<>();
+        LinePass pass = new LinePass(lines, metrics, violation -> {
+            violations.add(violation);
+            sink.accept(violation);
+        });
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lines.add(line);
+            metrics.addLine(line);
+            pass.addLine();
+        }
+        pass.finish();
+        return new AnalysisResult(violations);
+    }
+
+    /**
+     * Applies the rules to the lines in a single pass; see {@link LinePass}
+     */
+    private AnalysisResult analyzeLines(List<String> lines, LineMetrics metrics, ProgressListener listener) {
+        List<Violation> violations = new ArrayList<>();
+        ProgressCounter progress = new ProgressCounter(listener, lines.size());
+        LinePass pass = new LinePass(lines, metrics, violations::add);
+        for (int i = 0; i < lines.size(); i++) {
+            if (i % PROGRESS_INTERVAL == 0 && i > 0) {
+                progress.report(violations, i);
+            }
+            pass.addLine();
+        }
+        pass.finish();
+        progress.report(violations, lines.size());
         
-        // Check each line for violations
-        int i = 0;
-        while (i < lines.size()) {
+        return new AnalysisResult(violations);
+    }
+
+    /**
+     * One pass of the rules over lines that may still be arriving. Each line is lexed once,
+     * carrying the lexer state across lines, and the token-based rules read that token stream;
+     * length, indentation and empty-line checks read the line metrics. Line rules only look back,
+     * so a line's violations are reported when it is added.
+     */
+    private class LinePass {
+        private final List<String> lines;
+        private final LineMetrics metrics;
+        private final Consumer<Violation> sink;
+        private final RepeatedStringDetector repeatedStringDetector = new RepeatedStringDetector();
+        private final DuplicateBlockDetector duplicateBlockDetector = new DuplicateBlockDetector();
+        private final DuplicateBlockDetector.FileBuilder duplicateBlocks = duplicateBlockDetector.newFile("");
+        private final JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        private final LineContext ruleContext = new LineContext();
+        private final RuleSet.Sink customSink;
+        private int next;
+        private int lexerState = JavaLexer.STATE_CODE;
+        private int previousNonBlank = -1;
+        // Indentation of the improper-indentation run being propagated, or -1
+        private int runIndent = -1;
+
+        LinePass(List<String> lines, LineMetrics metrics, Consumer<Violation> sink) {
+            this.lines = lines;
+            this.metrics = metrics;
+            this.sink = sink;
+            this.customSink = (rule, lineNumber, message) -> {
+                String detail = message != null ? rule.getName() + ": " + message : rule.getName();
+                sink.accept(new Violation(ViolationType.CUSTOM, lineNumber, lines.get(lineNumber - 1), detail));
+            };
+        }
+
+        // Applies the line rules to the next line of the list, whose metrics must already be present
+        void addLine() {
+            int i = next++;
             String line = lines.get(i);
             int lineNumber = i + 1;
+            int startState = lexerState;
+            lexerState = lexer.lexLine(line, lexerState, tokens);
+            repeatedStringDetector.addLine(line, lineNumber, startState, tokens);
+            duplicateBlocks.addLine(line, lineNumber, tokens);
+            // Pluggable rules see every line; the run propagation below only skips the built-in rules
+            customRules.checkLine(ruleContext, lines, i, tokens, customSink);
+
+            // Lines continuing a propagated run are only marked, no other rule applies to them
+            if (runIndent >= 0) {
+                if (!metrics.isBlank(i) && metrics.indentation(i) == runIndent) {
+                    sink.accept(new Violation(ViolationType.IMPROPER_INDENTATION, lineNumber, line));
+                    previousNonBlank = i;
+                    return;
+                }
+                runIndent = -1;
+            }
             
             // Check line length
-            if (ruleChecker.checkLineLength(line)) {
-                violations.add(new Violation(ViolationType.LINE_TOO_LONG, lineNumber, line));
+            if (ruleChecker.checkLineLength(metrics.length(i))) {
+                sink.accept(new Violation(ViolationType.LINE_TOO_LONG, lineNumber, line));
             }
             
-            // Check indentation (now requires all lines and current index)
-            int indentCheck = ruleChecker.checkIndentationType(line, lines, i);
-            if (indentCheck == 1) { // >2 spaces rule, propagate
-                int badIndent = ruleChecker.getIndentationLevel(line);
-                int j = i;
-                while (j < lines.size() && ruleChecker.getIndentationLevel(lines.get(j)) == badIndent && !lines.get(j).trim().isEmpty()) {
-                    int badLineNumber = j + 1;
-                    boolean alreadyAdded = violations.stream().anyMatch(v -> v.getType() == ViolationType.IMPROPER_INDENTATION && v.getLineNumber() == badLineNumber);
-                    if (!alreadyAdded) {
-                        violations.add(new Violation(ViolationType.IMPROPER_INDENTATION, badLineNumber, lines.get(j)));
-                    }
-                    j++;
-                }
-                i = j;
-                continue;
+            // Check indentation against the previous non-blank line
+            int indentCheck = ruleChecker.checkIndentationType(metrics, i, previousNonBlank);
+            if (indentCheck == 1) { // >2 spaces rule, propagate to the following lines with the same indentation
+                sink.accept(new Violation(ViolationType.IMPROPER_INDENTATION, lineNumber, line));
+                runIndent = metrics.indentation(i);
+                previousNonBlank = i;
+                return;
             } else if (indentCheck == 2) { // dot-at-start rule, only mark this line
-                violations.add(new Violation(ViolationType.IMPROPER_INDENTATION, lineNumber, line));
+                sink.accept(new Violation(ViolationType.IMPROPER_INDENTATION, lineNumber, line));
             }
             
             // Check consecutive empty lines
-            if (ruleChecker.checkConsecutiveEmptyLines(lines, i)) {
-                violations.add(new Violation(ViolationType.EMPTY_LINE, lineNumber, line));
+            if (ruleChecker.checkConsecutiveEmptyLines(metrics, i)) {
+                sink.accept(new Violation(ViolationType.EMPTY_LINE, lineNumber, line));
             }
             
             // Check naming conventions
-            if (ruleChecker.checkNamingConventions(line)) {
-                violations.add(new Violation(ViolationType.NAMING_CONVENTION, lineNumber, line));
+            if (ruleChecker.checkNamingConventions(line, tokens)) {
+                sink.accept(new Violation(ViolationType.NAMING_CONVENTION, lineNumber, line));
+            }
+            // Check for lines ending with '=' (ignoring trailing comments)
+            if (ruleChecker.checkEndsWithEquals(line, tokens)) {
+                sink.accept(new Violation(ViolationType.LINE_ENDS_WITH_EQUALS, lineNumber, line));
             }
-            // Check for lines ending with '='
-            if (line.trim().endsWith("=")) {
-                violations.add(new Violation(ViolationType.LINE_ENDS_WITH_EQUALS, lineNumber, line));
+            if (!metrics.isBlank(i)) {
+                previousNonBlank = i;
             }
-            i++;
         }
-        
-        // Check for repeated string literals
-        Map<String, List<Integer>> repeatedStrings = ruleChecker.findRepeatedStrings(lines);
-        for (Map.Entry<String, List<Integer>> entry : repeatedStrings.entrySet()) {
-            for (Integer lineNum : entry.getValue()) {
-                violations.add(new Violation(ViolationType.REPEATED_STRING, lineNum, lines.get(lineNum - 1)));
+
+        // Applies the whole-file rules once every line has been added
+        void finish() {
+            // Check for repeated string literals
+            Map<String, List<Integer>> repeatedStrings = repeatedStringDetector.findRepeated(n -> lines.get(n - 1));
+            for (Map.Entry<String, List<Integer>> entry : repeatedStrings.entrySet()) {
+                for (Integer lineNum : entry.getValue()) {
+                    sink.accept(new Violation(ViolationType.REPEATED_STRING, lineNum, lines.get(lineNum - 1)));
+                }
+            }
+            
+            // Check for blocks duplicated within the file
+            duplicateBlocks.finish();
+            for (Violation violation : DuplicateBlockDetector.violationsFor("", lines, duplicateBlockDetector.findDuplicates())) {
+                sink.accept(violation);
             }
+
+            customRules.checkFile(lines, customSink);
         }
-        
-        return new AnalysisResult(violations);
     }
-    
+
     /**
-     * Analyzes Java code from a String for code violations
+     * Keeps running per-type counts, adding only the violations found since the last report
      */
-    public AnalysisResult analyzeString(String code) {
-        List<String> lines = Arrays.asList(code.split("\r?\n"));
-        List<Violation> violations = new ArrayList<>();
-        int i = 0;
-        while (i < lines.size()) {
-            String line = lines.get(i);
-            int lineNumber = i + 1;
-            if (ruleChecker.checkLineLength(line)) {
-                violations.add(new Violation(ViolationType.LINE_TOO_LONG, lineNumber, line));
-            }
-            int indentCheck = ruleChecker.checkIndentationType(line, lines, i);
-            if (indentCheck == 1) { // >2 spaces rule, propagate
-                int badIndent = ruleChecker.getIndentationLevel(line);
-                int j = i;
-                while (j < lines.size() && ruleChecker.getIndentationLevel(lines.get(j)) == badIndent && !lines.get(j).trim().isEmpty()) {
-                    int badLineNumber = j + 1;
-                    boolean alreadyAdded = violations.stream().anyMatch(v -> v.getType() == ViolationType.IMPROPER_INDENTATION && v.getLineNumber() == badLineNumber);
-                    if (!alreadyAdded) {
-                        violations.add(new Violation(ViolationType.IMPROPER_INDENTATION, badLineNumber, lines.get(j)));
-                    }
-                    j++;
-                }
-                i = j;
-                continue;
-            } else if (indentCheck == 2) { // dot-at-start rule, only mark this line
-                violations.add(new Violation(ViolationType.IMPROPER_INDENTATION, lineNumber, line));
-            }
-            if (ruleChecker.checkConsecutiveEmptyLines(lines, i)) {
-                violations.add(new Violation(ViolationType.EMPTY_LINE, lineNumber, line));
+    private static class ProgressCounter {
+        private final ProgressListener listener;
+        private final int totalLines;
+        private final int[] counts = new int[ViolationType.values().length];
+        private int counted;
+
+        ProgressCounter(ProgressListener listener, int totalLines) {
+            this.listener = listener;
+            this.totalLines = totalLines;
+        }
+
+        void report(List<Violation> violations, int linesDone) {
+            if (listener == NO_PROGRESS) return;
+            if (listener.isCancelled()) {
+                throw new CancellationException("Analysis cancelled");
             }
-            if (ruleChecker.checkNamingConventions(line)) {
-                violations.add(new Violation(ViolationType.NAMING_CONVENTION, lineNumber, line));
+            for (; counted < violations.size(); counted++) {
+                counts[violations.get(counted).getType().ordinal()]++;
             }
-            // Check for lines ending with '='
-            if (line.trim().endsWith("=")) {
-                violations.add(new Violation(ViolationType.LINE_ENDS_WITH_EQUALS, lineNumber, line));
+            Map<ViolationType, Integer> snapshot = new EnumMap<>(ViolationType.class);
+            for (ViolationType type : ViolationType.values()) {
+                snapshot.put(type, counts[type.ordinal()]);
             }
-            i++;
+            listener.progress(linesDone, totalLines, snapshot);
         }
-        Map<String, List<Integer>> repeatedStrings = ruleChecker.findRepeatedStrings(lines);
-        for (Map.Entry<String, List<Integer>> entry : repeatedStrings.entrySet()) {
-            for (Integer lineNum : entry.getValue()) {
-                violations.add(new Violation(ViolationType.REPEATED_STRING, lineNum, lines.get(lineNum - 1)));
-            }
+    }
+
+    /**
+     * Receives running results while a file is analyzed; called on the analyzing thread
+     */
+    public interface ProgressListener {
+        /**
+         * {@code counts} holds the violations found so far per type; whole-file rules such as
+         * repeated strings only appear in the final report, where linesDone equals totalLines
+         */
+        void progress(int linesDone, int totalLines, Map<ViolationType, Integer> counts);
+
+        /**
+         * Polled at every report; returning true stops the analysis
+         */
+        default boolean isCancelled() {
+            return false;
         }
-        return new AnalysisResult(violations);
     }
     
     /**
@@ -144,6 +308,26 @@ public class CodeAnalyzer {
     public HighlightUtil getHighlightUtil() {
         return highlightUtil;
     }
+
+    /**
+     * Hash of everything that decides what this analyzer reports: the built-in rules' version, the
+     * violation types and the pluggable rules with their versions. Results stored under another
+     * fingerprint are stale.
+     */
+    public long getFingerprint() {
+        StringBuilder key = new StringBuilder().append(RULES_VERSION);
+        for (ViolationType type : ViolationType.values()) {
+            key.append('|').append(type.name());
+        }
+        List<Rule> rules = new ArrayList<>(customRules.getLineRules());
+        rules.addAll(customRules.getFileRules());
+        for (Rule rule : rules) {
+            Package rulePackage = rule.getClass().getPackage();
+            key.append('|').append(rule.getClass().getName()).append(':').append(rule.getName())
+                .append(':').append(rulePackage == null ? null : rulePackage.getImplementationVersion());
+        }
+        return Hashing.hash64(key, 0, key.length());
+    }
     
     /**
      * Analysis result containing all violations found
@@ -182,37 +366,77 @@ public class CodeAnalyzer {
         private final ViolationType type;
         private final int lineNumber;
         private final String line;
+        private final String detail;
         
         public Violation(ViolationType type, int lineNumber, String line) {
+            this(type, lineNumber, line, null);
+        }
+        
+        public Violation(ViolationType type, int lineNumber, String line, String detail) {
             this.type = type;
             this.lineNumber = lineNumber;
             this.line = line;
+            this.detail = detail;
         }
         
         public ViolationType getType() { return type; }
         public int getLineNumber() { return lineNumber; }
         public String getLine() { return line; }
+        /** Extra information, e.g. the other location of a duplicated block; null if none */
+        public String getDetail() { return detail; }
     }
     
     /**
      * Types of code violations
      */
     public enum ViolationType {
-        LINE_TOO_LONG("Line exceeds 120 characters"),
-        IMPROPER_INDENTATION("Improper indentation"),
-        REPEATED_STRING("Repeated string literal"),
-        EMPTY_LINE("Empty line"),
-        NAMING_CONVENTION("Naming convention violation"),
-        LINE_ENDS_WITH_EQUALS("Line ends with '='");
+        LINE_TOO_LONG("Line exceeds 120 characters", 0),
+        IMPROPER_INDENTATION("Improper indentation", 1),
+        REPEATED_STRING("Repeated string literal", 2),
+        EMPTY_LINE("Empty line", 3),
+        NAMING_CONVENTION("Naming convention violation", 4),
+        LINE_ENDS_WITH_EQUALS("Line ends with '='", 6),
+        DUPLICATE_BLOCK("Duplicated code block", 5),
+        // Reported by pluggable rules; the detail names the rule
+        CUSTOM("Custom rule violation", 7);
+
+        /**
+         * Most severe type first; a line with several violations is shown as its most severe one
+         */
+        public static final Comparator<ViolationType> SEVERITY_ORDER = Comparator.comparingInt(ViolationType::getSeverity);
         
         private final String description;
+        private final int severity;
         
-        ViolationType(String description) {
+        ViolationType(String description, int severity) {
             this.description = description;
+            this.severity = severity;
         }
         
         public String getDescription() {
             return description;
         }
+
+        /**
+         * Rank of the type, 0 being the most severe; independent of the declaration order, which
+         * persisted data may depend on
+         */
+        public int getSeverity() {
+            return severity;
+        }
+
+        /**
+         * Returns the most severe type among the violations, or null if there are none
+         */
+        public static ViolationType mostSevere(List<Violation> violations) {
+            if (violations == null) return null;
+            ViolationType mostSevere = null;
+            for (Violation v : violations) {
+                if (mostSevere == null || SEVERITY_ORDER.compare(v.getType(), mostSevere) < 0) {
+                    mostSevere = v.getType();
+                }
+            }
+            return mostSevere;
+        }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,147 @@
+package com.javareader.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a document back to disk in its original format. The pieces are encoded through fixed-size
+ * buffers into a temporary file next to the target, which is synced and then moved over the target,
+ * so a crash leaves either the old or the new file and never a partial one.
+ */
+public class DocumentSaver {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * Saves the document to the given path, translating '\n' to the format's line separator
+     */
+    public void save(PieceTable document, Path target, TextFileFormat format) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, "." + target.getFileName(), ".tmp");
+        try {
+            copyPermissions(target, temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ChannelTextWriter writer = new ChannelTextWriter(channel, format, document.length());
+                writer.writeBytes(format.getBomBytes());
+                document.forEachChunk(writer);
+                writer.finish();
+                channel.force(true);
+            }
+            moveIntoPlace(temp, target);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    // Temporary files are created owner-only; the replaced file keeps the target's permissions
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (!Files.exists(from)) return;
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Encodes document chunks into the channel through one char buffer and one byte buffer
+     */
+    private static class ChannelTextWriter implements PieceTable.ChunkConsumer {
+        private final FileChannel channel;
+        private final CharsetEncoder encoder;
+        private final String lineSeparator;
+        private final boolean keepFinalSeparator;
+        private final int documentLength;
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer bytes;
+        private int position;
+
+        ChannelTextWriter(FileChannel channel, TextFileFormat format, int documentLength) {
+            this.channel = channel;
+            // Characters the original charset cannot hold fail the save instead of being silently replaced
+            this.encoder = format.getCharset().newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT);
+            this.lineSeparator = format.getLineSeparator();
+            this.keepFinalSeparator = format.endsWithLineSeparator();
+            this.documentLength = documentLength;
+            this.bytes = ByteBuffer.allocate((int) Math.ceil(BUFFER_SIZE * encoder.maxBytesPerChar()));
+        }
+
+        @Override
+        public void accept(CharSequence source, int start, int end) throws IOException {
+            for (int k = start; k < end; k++, position++) {
+                char c = source.charAt(k);
+                if (c != '\n') {
+                    put(c);
+                } else if (keepFinalSeparator || position != documentLength - 1) {
+                    for (int s = 0; s < lineSeparator.length(); s++) {
+                        put(lineSeparator.charAt(s));
+                    }
+                }
+            }
+        }
+
+        void writeBytes(byte[] data) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        void finish() throws IOException {
+            chars.flip();
+            encode(true);
+            bytes.clear();
+            CoderResult result = encoder.flush(bytes);
+            if (result.isError()) result.throwException();
+            drainBytes();
+        }
+
+        private void put(char c) throws IOException {
+            if (!chars.hasRemaining()) {
+                chars.flip();
+                encode(false);
+                // A trailing high surrogate stays in the buffer until its pair arrives
+                chars.compact();
+            }
+            chars.put(c);
+        }
+
+        private void encode(boolean endOfInput) throws IOException {
+            while (true) {
+                bytes.clear();
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isError()) result.throwException();
+                drainBytes();
+                if (!result.isOverflow()) return;
+            }
+        }
+
+        private void drainBytes() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+}
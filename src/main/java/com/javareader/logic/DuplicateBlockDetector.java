@@ -0,0 +1,342 @@
+package com.javareader.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Finds blocks of code duplicated within or across files.
+ * Every line is normalized to a hash of its tokens with whitespace and comments dropped and
+ * literals masked, so blocks that differ only in layout, comments or constant values still match.
+ * Lines without code (blank, comment-only, braces-only) are skipped. Rabin-Karp rolling hashes over
+ * windows of {@code windowLines} normalized lines go into a concurrent index; windows that collide
+ * are verified line by line and adjacent matches are merged into maximal blocks. Within a file,
+ * a match between two windows of a run of lines repeating a unit shorter than a window (a table of
+ * {@code map.put(...)} calls, say) is not a copy of a block and is dropped.
+ * Files may be added from several threads at once.
+ */
+public class DuplicateBlockDetector {
+
+    public static final int DEFAULT_WINDOW_LINES = 6;
+
+    private static final long BASE = 0x9E3779B97F4A7C15L;
+    private static final long LITERAL_HASH = 0x5DEECE66DL;
+    private static final long TOKEN_SEPARATOR = 0x2545F4914F6CDD1DL;
+
+    private final int windowLines;
+    // BASE^(windowLines - 1), to remove the outgoing line from the rolling hash
+    private final long outgoingFactor;
+    private final JavaLexer lexer = new JavaLexer();
+    private final List<SourceFile> files = new ArrayList<>();
+    // Window hash -> first location seen, packed as fileId << 32 | window index
+    private final ConcurrentHashMap<Long, Long> index = new ConcurrentHashMap<>();
+    private final Queue<long[]> collisions = new ConcurrentLinkedQueue<>();
+
+    public DuplicateBlockDetector() {
+        this(DEFAULT_WINDOW_LINES);
+    }
+
+    public DuplicateBlockDetector(int windowLines) {
+        if (windowLines < 1) {
+            throw new IllegalArgumentException("Window must span at least one line");
+        }
+        this.windowLines = windowLines;
+        long factor = 1;
+        for (int k = 1; k < windowLines; k++) {
+            factor *= BASE;
+        }
+        this.outgoingFactor = factor;
+    }
+
+    /**
+     * Lexes and adds a whole file
+     */
+    public void addFile(String name, List<String> lines) {
+        FileBuilder builder = newFile(name);
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        int state = JavaLexer.STATE_CODE;
+        for (int i = 0; i < lines.size(); i++) {
+            state = lexer.lexLine(lines.get(i), state, tokens);
+            builder.addLine(lines.get(i), i + 1, tokens);
+        }
+        builder.finish();
+    }
+
+    /**
+     * Starts a file whose lines are fed one at a time by a caller that already lexes them
+     */
+    public FileBuilder newFile(String name) {
+        return new FileBuilder(name);
+    }
+
+    /**
+     * Returns every duplicated block found among the files added so far
+     */
+    public List<DuplicateBlock> findDuplicates() {
+        List<long[]> pairs = new ArrayList<>();
+        for (long[] pair : collisions) {
+            if (sameWindow(pair[0], pair[1]) && !insidePeriodicRun(pair[0], pair[1])) {
+                // Files indexed concurrently can collide in either order; keep the earlier location first
+                pairs.add(pair[0] < pair[1] ? pair : new long[] {pair[1], pair[0]});
+            }
+        }
+        // Group by file pair and diagonal (offset between the two windows), then by position
+        pairs.sort(Comparator.<long[]>comparingLong(p -> p[0] >>> 32)
+                .thenComparingLong(p -> p[1] >>> 32)
+                .thenComparingLong(p -> (long) (int) p[1] - (int) p[0])
+                .thenComparingLong(p -> (int) p[0]));
+
+        List<DuplicateBlock> blocks = new ArrayList<>();
+        int k = 0;
+        while (k < pairs.size()) {
+            long[] first = pairs.get(k);
+            int startA = (int) first[0];
+            int startB = (int) first[1];
+            int endA = startA;
+            int next = k + 1;
+            while (next < pairs.size() && sameDiagonal(first, pairs.get(next)) && (int) pairs.get(next)[0] <= endA + 1) {
+                endA = Math.max(endA, (int) pairs.get(next)[0]);
+                next++;
+            }
+            SourceFile fileA = file(first[0]);
+            SourceFile fileB = file(first[1]);
+            int span = endA - startA + windowLines - 1;
+            blocks.add(new DuplicateBlock(
+                fileA.name, fileA.lineNumbers[startA], fileA.lineNumbers[startA + span],
+                fileB.name, fileB.lineNumbers[startB], fileB.lineNumbers[startB + span]));
+            k = next;
+        }
+        return blocks;
+    }
+
+    /**
+     * Builds one DUPLICATE_BLOCK violation per line of each block located in the given file;
+     * the detail names the other copy. {@code lines} are the file's lines.
+     */
+    public static List<CodeAnalyzer.Violation> violationsFor(String name, List<String> lines, List<DuplicateBlock> blocks) {
+        List<CodeAnalyzer.Violation> violations = new ArrayList<>();
+        BitSet marked = new BitSet(lines.size() + 1);
+        for (DuplicateBlock block : blocks) {
+            if (block.getFileA().equals(name)) {
+                mark(violations, marked, lines, block.getStartLineA(), block.getEndLineA(),
+                    "Duplicate of " + block.describeB(name));
+            }
+            if (block.getFileB().equals(name)) {
+                mark(violations, marked, lines, block.getStartLineB(), block.getEndLineB(),
+                    "Duplicate of " + block.describeA(name));
+            }
+        }
+        return violations;
+    }
+
+    private static void mark(List<CodeAnalyzer.Violation> violations, BitSet marked, List<String> lines,
+                             int startLine, int endLine, String detail) {
+        for (int line = startLine; line <= endLine && line <= lines.size(); line++) {
+            if (!marked.get(line)) {
+                marked.set(line);
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK,
+                    line, lines.get(line - 1), detail));
+            }
+        }
+    }
+
+    private boolean sameWindow(long locationA, long locationB) {
+        long[] hashesA = file(locationA).hashes;
+        long[] hashesB = file(locationB).hashes;
+        int startA = (int) locationA;
+        int startB = (int) locationB;
+        for (int k = 0; k < windowLines; k++) {
+            if (hashesA[startA + k] != hashesB[startB + k]) return false;
+        }
+        return true;
+    }
+
+    // Whether the lines from one window through the end of a later window of the same file repeat with
+    // a period shorter than a window; the match is then explained by the repetition, not by a copy
+    private boolean insidePeriodicRun(long locationA, long locationB) {
+        if (locationA >>> 32 != locationB >>> 32) return false;
+        int first = (int) Math.min(locationA, locationB);
+        int end = (int) Math.max(locationA, locationB) + windowLines;
+        int[][] reach = file(locationA).periodReach(windowLines);
+        for (int period = 1; period < windowLines; period++) {
+            if (reach[period][first] >= end - period) return true;
+        }
+        return false;
+    }
+
+    private static boolean sameDiagonal(long[] a, long[] b) {
+        return a[0] >>> 32 == b[0] >>> 32 && a[1] >>> 32 == b[1] >>> 32
+                && (int) a[1] - (int) a[0] == (int) b[1] - (int) b[0];
+    }
+
+    private SourceFile file(long location) {
+        synchronized (files) {
+            return files.get((int) (location >>> 32));
+        }
+    }
+
+    private void index(SourceFile file) {
+        int fileId;
+        synchronized (files) {
+            fileId = files.size();
+            files.add(file);
+        }
+        long rolling = 0;
+        for (int k = 0; k < file.count; k++) {
+            if (k >= windowLines) {
+                rolling -= file.hashes[k - windowLines] * outgoingFactor;
+            }
+            rolling = rolling * BASE + file.hashes[k];
+            if (k < windowLines - 1) continue;
+            int window = k - windowLines + 1;
+            long location = (long) fileId << 32 | window;
+            Long previous = index.putIfAbsent(Hashing.mix(rolling), location);
+            if (previous != null && !overlaps(previous, location)) {
+                collisions.add(new long[] {previous, location});
+            }
+        }
+    }
+
+    // A window repeating right after itself in the same file (e.g. a run of identical lines) is not a copy
+    private boolean overlaps(long locationA, long locationB) {
+        return locationA >>> 32 == locationB >>> 32 && Math.abs((int) locationA - (int) locationB) < windowLines;
+    }
+
+    /**
+     * Collects the normalized line hashes of one file; not thread-safe, one builder per thread
+     */
+    public class FileBuilder {
+        private final String name;
+        private long[] hashes = new long[256];
+        private int[] lineNumbers = new int[256];
+        private int count;
+
+        private FileBuilder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Adds a lexed line; lines without code are skipped
+         */
+        public void addLine(CharSequence line, int lineNumber, JavaLexer.Tokens tokens) {
+            long h = 0;
+            boolean hasCode = false;
+            for (int t = 0; t < tokens.size(); t++) {
+                JavaLexer.TokenType type = tokens.type(t);
+                switch (type) {
+                    case WHITESPACE:
+                    case COMMENT:
+                        continue;
+                    case STRING:
+                    case CHAR:
+                    case TEXT_BLOCK:
+                    case NUMBER:
+                        h = (h ^ LITERAL_HASH) * BASE;
+                        break;
+                    case PUNCTUATION:
+                        h = (h ^ line.charAt(tokens.start(t))) * BASE;
+                        break;
+                    default:
+                        hasCode = true;
+                        for (int k = tokens.start(t); k < tokens.end(t); k++) {
+                            h = (h ^ line.charAt(k)) * BASE;
+                        }
+                        break;
+                }
+                h ^= TOKEN_SEPARATOR;
+            }
+            if (!hasCode) return;
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                lineNumbers = Arrays.copyOf(lineNumbers, count * 2);
+            }
+            hashes[count] = Hashing.mix(h);
+            lineNumbers[count] = lineNumber;
+            count++;
+        }
+
+        /**
+         * Indexes the file's windows; the builder must not be used afterwards
+         */
+        public void finish() {
+            index(new SourceFile(name, hashes, lineNumbers, count));
+        }
+    }
+
+    private static class SourceFile {
+        final String name;
+        final long[] hashes;
+        final int[] lineNumbers;
+        final int count;
+
+        // periodReach[p][i]: first line j >= i whose hash differs from line j + p (or count - p)
+        private int[][] periodReach;
+
+        SourceFile(String name, long[] hashes, int[] lineNumbers, int count) {
+            this.name = name;
+            this.hashes = hashes;
+            this.lineNumbers = lineNumbers;
+            this.count = count;
+        }
+
+        // Built on first use by findDuplicates, for files holding a repeated window only
+        synchronized int[][] periodReach(int windowLines) {
+            if (periodReach == null) {
+                periodReach = new int[windowLines][];
+                for (int period = 1; period < windowLines; period++) {
+                    int[] reach = new int[count];
+                    for (int i = count - 1; i >= 0; i--) {
+                        reach[i] = i + period >= count || hashes[i] != hashes[i + period] ? i : reach[i + 1];
+                    }
+                    periodReach[period] = reach;
+                }
+            }
+            return periodReach;
+        }
+    }
+
+    /**
+     * A block of lines in file A duplicated in file B (possibly the same file)
+     */
+    public static class DuplicateBlock {
+        private final String fileA;
+        private final int startLineA;
+        private final int endLineA;
+        private final String fileB;
+        private final int startLineB;
+        private final int endLineB;
+
+        public DuplicateBlock(String fileA, int startLineA, int endLineA, String fileB, int startLineB, int endLineB) {
+            this.fileA = fileA;
+            this.startLineA = startLineA;
+            this.endLineA = endLineA;
+            this.fileB = fileB;
+            this.startLineB = startLineB;
+            this.endLineB = endLineB;
+        }
+
+        public String getFileA() { return fileA; }
+        public int getStartLineA() { return startLineA; }
+        public int getEndLineA() { return endLineA; }
+        public String getFileB() { return fileB; }
+        public int getStartLineB() { return startLineB; }
+        public int getEndLineB() { return endLineB; }
+
+        String describeA(String viewer) {
+            return describe(viewer, fileA, startLineA, endLineA);
+        }
+
+        String describeB(String viewer) {
+            return describe(viewer, fileB, startLineB, endLineB);
+        }
+
+        private static String describe(String viewer, String file, int start, int end) {
+            return (file.equals(viewer) ? "lines " : file + ":") + start + "-" + end;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.javareader.logic;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 64-bit hashing of char regions without allocating substrings
+ */
+public final class Hashing {
+
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private Hashing() {
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars of the region, finished with a 64-bit mixer so that the
+     * low bits are usable directly as a hash table index
+     */
+    public static long hash64(CharSequence s, int from, int to) {
+        long h = FNV_OFFSET;
+        for (int k = from; k < to; k++) {
+            h = (h ^ s.charAt(k)) * FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    /**
+     * FNV-1a over a byte range, e.g. a file's raw content
+     */
+    public static long hash64(byte[] bytes, int from, int to) {
+        long h = FNV_OFFSET;
+        for (int k = from; k < to; k++) {
+            h = (h ^ (bytes[k] & 0xFF)) * FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    /**
+     * FNV-1a over the remaining bytes of a buffer; same value as the byte[] overload for the same bytes
+     */
+    public static long hash64(ByteBuffer bytes) {
+        long h = FNV_OFFSET;
+        for (int k = bytes.position(); k < bytes.limit(); k++) {
+            h = (h ^ (bytes.get(k) & 0xFF)) * FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    /**
+     * MurmurHash3 fmix64 finalizer
+     */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,6 +3,9 @@ package com.javareader.logic;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * Utility class for highlighting code violations in the UI
  */
@@ -15,6 +18,32 @@ public class HighlightUtil {
     public static final Color EMPTY_LINE_COLOR = Color.PURPLE;
     public static final Color NAMING_CONVENTION_COLOR = Color.GREEN;
     public static final Color ENDS_WITH_EQUALS_COLOR = Color.MAGENTA;
+    public static final Color DUPLICATE_BLOCK_COLOR = Color.TEAL;
+    public static final Color CUSTOM_RULE_COLOR = Color.SADDLEBROWN;
+    
+    // Color scheme for syntax highlighting
+    public static final Color CODE_COLOR = Color.web("#333333");
+    public static final Color KEYWORD_COLOR = Color.web("#0033B3");
+    public static final Color STRING_COLOR = Color.web("#067D17");
+    public static final Color NUMBER_COLOR = Color.web("#1750EB");
+    public static final Color COMMENT_COLOR = Color.web("#8C8C8C");
+    public static final Color ANNOTATION_COLOR = Color.web("#9E880D");
+    
+    // Style classes (see styles/style.css) and CSS strings resolved once per violation type
+    private static final Map<CodeAnalyzer.ViolationType, String> STYLE_CLASSES = new EnumMap<>(CodeAnalyzer.ViolationType.class);
+    private static final Map<CodeAnalyzer.ViolationType, String> CSS_STYLES = new EnumMap<>(CodeAnalyzer.ViolationType.class);
+    
+    static {
+        HighlightUtil util = new HighlightUtil();
+        for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+            STYLE_CLASSES.put(type, "violation-" + type.name().toLowerCase().replace('_', '-'));
+            Color color = util.getColorForViolation(type);
+            CSS_STYLES.put(type, String.format("-fx-background-color: rgba(%.0f, %.0f, %.0f, 0.3); -fx-font-weight: bold;",
+                color.getRed() * 255,
+                color.getGreen() * 255,
+                color.getBlue() * 255));
+        }
+    }
     
     /**
      * Gets the color for a specific violation type
@@ -33,11 +62,37 @@ public class HighlightUtil {
                 return NAMING_CONVENTION_COLOR;
             case LINE_ENDS_WITH_EQUALS:
                 return ENDS_WITH_EQUALS_COLOR;
+            case DUPLICATE_BLOCK:
+                return DUPLICATE_BLOCK_COLOR;
+            case CUSTOM:
+                return CUSTOM_RULE_COLOR;
             default:
                 return Color.BLACK;
         }
     }
     
+    /**
+     * Gets the syntax highlighting color for a lexer token type
+     */
+    public Color getColorForToken(JavaLexer.TokenType type) {
+        switch (type) {
+            case KEYWORD:
+                return KEYWORD_COLOR;
+            case STRING:
+            case CHAR:
+            case TEXT_BLOCK:
+                return STRING_COLOR;
+            case NUMBER:
+                return NUMBER_COLOR;
+            case COMMENT:
+                return COMMENT_COLOR;
+            case ANNOTATION:
+                return ANNOTATION_COLOR;
+            default:
+                return CODE_COLOR;
+        }
+    }
+    
     /**
      * Creates a styled Text object for displaying code with violations
      */
@@ -52,11 +107,14 @@ public class HighlightUtil {
      * Gets the CSS style for a violation type
      */
     public String getCssStyleForViolation(CodeAnalyzer.ViolationType type) {
-        Color color = getColorForViolation(type);
-        return String.format("-fx-background-color: rgba(%.0f, %.0f, %.0f, 0.3); -fx-font-weight: bold;",
-            color.getRed() * 255,
-            color.getGreen() * 255,
-            color.getBlue() * 255);
+        return CSS_STYLES.get(type);
+    }
+    
+    /**
+     * Gets the style class used to highlight a line with the given violation type
+     */
+    public String getStyleClassForViolation(CodeAnalyzer.ViolationType type) {
+        return STYLE_CLASSES.get(type);
     }
     
     /**
@@ -76,6 +134,10 @@ public class HighlightUtil {
                 return "Green: Naming convention violation (should be camelCase)";
             case LINE_ENDS_WITH_EQUALS:
                 return "Magenta: Line ends with '=' (possible incomplete assignment)";
+            case DUPLICATE_BLOCK:
+                return "Teal: Duplicated code block (consider extracting a method)";
+            case CUSTOM:
+                return "Brown: Custom rule violation (see the rule name in the details)";
             default:
                 return "Unknown violation";
         }
@@ -98,6 +160,10 @@ public class HighlightUtil {
                 return "Naming convention";
             case LINE_ENDS_WITH_EQUALS:
                 return "Ends with '='";
+            case DUPLICATE_BLOCK:
+                return "Duplicate block";
+            case CUSTOM:
+                return "Custom rule";
             default:
                 return "Unknown violation";
         }
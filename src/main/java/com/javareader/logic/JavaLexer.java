@@ -0,0 +1,306 @@
+package com.javareader.logic;
+
+import java.util.Arrays;
+
+/**
+ * Hand-written, line-oriented Java tokenizer.
+ * Each call lexes a single line starting from the lexer state the previous line ended in
+ * (plain code, inside a block comment or inside a text block), so callers can cache
+ * the state per line and re-lex only what changed.
+ */
+public class JavaLexer {
+
+    /** Line starts in ordinary code */
+    public static final int STATE_CODE = 0;
+    /** Line starts inside an unterminated block comment */
+    public static final int STATE_BLOCK_COMMENT = 1;
+    /** Line starts inside an unterminated text block */
+    public static final int STATE_TEXT_BLOCK = 2;
+
+    private static final String[] KEYWORDS = {
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+        "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+        "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+        "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+        "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+        "volatile", "while", "true", "false", "null", "var", "record", "yield"
+    };
+
+    // Longest operators first so the scan below always takes the maximal munch
+    private static final String[] OPERATORS = {
+        ">>>=", "<<=", ">>=", ">>>", "->", "::", "++", "--", "&&", "||", "==", "!=", "<=", ">=",
+        "+=", "-=", "*=", "/=", "&=", "|=", "^=", "%=", "<<", ">>"
+    };
+
+    // Open-addressing table of keywords so lookups never allocate a substring
+    private static final String[] KEYWORD_TABLE = new String[128];
+
+    static {
+        for (String keyword : KEYWORDS) {
+            int slot = hash(keyword, 0, keyword.length()) & (KEYWORD_TABLE.length - 1);
+            while (KEYWORD_TABLE[slot] != null) {
+                slot = (slot + 1) & (KEYWORD_TABLE.length - 1);
+            }
+            KEYWORD_TABLE[slot] = keyword;
+        }
+    }
+
+    /**
+     * Lexes one line (without its line terminator) into {@code out}.
+     * Returns the state the next line starts in.
+     */
+    public int lexLine(CharSequence line, int state, Tokens out) {
+        out.clear();
+        int length = line.length();
+        int i = 0;
+        if (state == STATE_BLOCK_COMMENT) {
+            int close = indexOf(line, "*/", 0);
+            if (close < 0) {
+                out.add(0, length, TokenType.COMMENT);
+                return STATE_BLOCK_COMMENT;
+            }
+            i = close + 2;
+            out.add(0, i, TokenType.COMMENT);
+        } else if (state == STATE_TEXT_BLOCK) {
+            int close = findTextBlockEnd(line, 0);
+            if (close < 0) {
+                out.add(0, length, TokenType.TEXT_BLOCK);
+                return STATE_TEXT_BLOCK;
+            }
+            i = close;
+            out.add(0, i, TokenType.TEXT_BLOCK);
+        }
+
+        while (i < length) {
+            char c = line.charAt(i);
+            int start = i;
+            if (c == ' ' || c == '\t' || c == '\f') {
+                while (i < length && ((c = line.charAt(i)) == ' ' || c == '\t' || c == '\f')) i++;
+                out.add(start, i, TokenType.WHITESPACE);
+            } else if (c == '/' && i + 1 < length && line.charAt(i + 1) == '/') {
+                out.add(start, length, TokenType.COMMENT);
+                i = length;
+            } else if (c == '/' && i + 1 < length && line.charAt(i + 1) == '*') {
+                int close = indexOf(line, "*/", i + 2);
+                if (close < 0) {
+                    out.add(start, length, TokenType.COMMENT);
+                    return STATE_BLOCK_COMMENT;
+                }
+                i = close + 2;
+                out.add(start, i, TokenType.COMMENT);
+            } else if (c == '"' && i + 2 < length && line.charAt(i + 1) == '"' && line.charAt(i + 2) == '"') {
+                int close = findTextBlockEnd(line, i + 3);
+                if (close < 0) {
+                    out.add(start, length, TokenType.TEXT_BLOCK);
+                    return STATE_TEXT_BLOCK;
+                }
+                i = close;
+                out.add(start, i, TokenType.TEXT_BLOCK);
+            } else if (c == '"' || c == '\'') {
+                i = findQuoteEnd(line, i + 1, c);
+                out.add(start, i, c == '"' ? TokenType.STRING : TokenType.CHAR);
+            } else if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(line.charAt(i + 1)))) {
+                i = scanNumber(line, i);
+                out.add(start, i, TokenType.NUMBER);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                i = scanIdentifier(line, i + 1);
+                out.add(start, i, isKeyword(line, start, i) ? TokenType.KEYWORD : TokenType.IDENTIFIER);
+            } else if (c == '@' && i + 1 < length && Character.isJavaIdentifierStart(line.charAt(i + 1))) {
+                i = scanIdentifier(line, i + 2);
+                out.add(start, i, TokenType.ANNOTATION);
+            } else if (c == '.' && i + 2 < length && line.charAt(i + 1) == '.' && line.charAt(i + 2) == '.') {
+                i += 3;
+                out.add(start, i, TokenType.PUNCTUATION);
+            } else if (c == '(' || c == ')' || c == '{' || c == '}' || c == '[' || c == ']'
+                    || c == ';' || c == ',' || c == '.' || c == '@') {
+                i++;
+                out.add(start, i, TokenType.PUNCTUATION);
+            } else {
+                i += operatorLength(line, i);
+                out.add(start, i, TokenType.OPERATOR);
+            }
+        }
+        return STATE_CODE;
+    }
+
+    /**
+     * Returns true if the given region of the line is a Java keyword or literal keyword
+     */
+    public static boolean isKeyword(CharSequence s, int from, int to) {
+        int slot = hash(s, from, to) & (KEYWORD_TABLE.length - 1);
+        String candidate;
+        while ((candidate = KEYWORD_TABLE[slot]) != null) {
+            if (regionEquals(s, from, to, candidate)) {
+                return true;
+            }
+            slot = (slot + 1) & (KEYWORD_TABLE.length - 1);
+        }
+        return false;
+    }
+
+    /**
+     * Compares a region of a char sequence with a string without allocating
+     */
+    public static boolean regionEquals(CharSequence s, int from, int to, String expected) {
+        if (to - from != expected.length()) return false;
+        for (int k = 0; k < expected.length(); k++) {
+            if (s.charAt(from + k) != expected.charAt(k)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence s, int from, int to) {
+        int h = 0;
+        for (int k = from; k < to; k++) {
+            h = 31 * h + s.charAt(k);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int scanIdentifier(CharSequence line, int i) {
+        while (i < line.length() && Character.isJavaIdentifierPart(line.charAt(i))) i++;
+        return i;
+    }
+
+    private static int scanNumber(CharSequence line, int i) {
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            if (isDigit(c) || c == '.' || c == '_' || Character.isLetter(c)) {
+                i++;
+                // Signed exponent, e.g. 1e-5 or 0x1p+3
+                if ((c == 'e' || c == 'E' || c == 'p' || c == 'P') && i < length
+                        && (line.charAt(i) == '+' || line.charAt(i) == '-')) {
+                    i++;
+                }
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int findQuoteEnd(CharSequence line, int i, char quote) {
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        // Unterminated literals stop at the end of the line
+        return length;
+    }
+
+    // Returns the index just past the closing """ or -1 if the text block continues
+    private static int findTextBlockEnd(CharSequence line, int i) {
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"' && i + 2 < length && line.charAt(i + 1) == '"' && line.charAt(i + 2) == '"') {
+                return i + 3;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(CharSequence line, String needle, int from) {
+        int last = line.length() - needle.length();
+        for (int i = from; i <= last; i++) {
+            if (line.charAt(i) == needle.charAt(0) && line.charAt(i + 1) == needle.charAt(1)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int operatorLength(CharSequence line, int i) {
+        for (String op : OPERATORS) {
+            int end = i + op.length();
+            if (end <= line.length() && regionEquals(line, i, end, op)) {
+                return op.length();
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Kinds of tokens produced by the lexer
+     */
+    public enum TokenType {
+        WHITESPACE,
+        KEYWORD,
+        IDENTIFIER,
+        ANNOTATION,
+        STRING,
+        CHAR,
+        TEXT_BLOCK,
+        NUMBER,
+        COMMENT,
+        OPERATOR,
+        PUNCTUATION;
+
+        private static final TokenType[] VALUES = values();
+
+        public static TokenType fromOrdinal(int ordinal) {
+            return VALUES[ordinal];
+        }
+    }
+
+    /**
+     * Reusable token buffer for one line; backed by primitive arrays so lexing does not allocate per token
+     */
+    public static class Tokens {
+        private int[] starts = new int[32];
+        private int[] ends = new int[32];
+        private byte[] types = new byte[32];
+        private int size;
+
+        public void clear() {
+            size = 0;
+        }
+
+        void add(int start, int end, TokenType type) {
+            if (size == starts.length) {
+                int capacity = size * 2;
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                types = Arrays.copyOf(types, capacity);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            types[size] = (byte) type.ordinal();
+            size++;
+        }
+
+        public int size() { return size; }
+        public int start(int index) { return starts[index]; }
+        public int end(int index) { return ends[index]; }
+        public TokenType type(int index) { return TokenType.fromOrdinal(types[index]); }
+
+        /**
+         * Copies the tokens into a packed {start, end, type} array suitable for caching
+         */
+        public int[] toRuns() {
+            int[] runs = new int[size * 3];
+            for (int k = 0; k < size; k++) {
+                runs[k * 3] = starts[k];
+                runs[k * 3 + 1] = ends[k];
+                runs[k * 3 + 2] = types[k];
+            }
+            return runs;
+        }
+    }
+}
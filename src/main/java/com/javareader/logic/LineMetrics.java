@@ -0,0 +1,113 @@
+package com.javareader.logic;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the line-local rules need to know about each decoded line, in primitive arrays: length in
+ * chars, indentation and the first and last non-blank characters. Those characters are kept as
+ * bytes: ASCII characters as themselves, anything else as a non-ASCII marker, 0 for blank lines.
+ */
+public class LineMetrics {
+
+    private static final byte NON_ASCII = (byte) 0x80;
+
+    private int size;
+    private int[] lengths;
+    private int[] indentations;
+    private byte[] firstChars;
+    private byte[] lastChars;
+
+    LineMetrics(int capacity) {
+        lengths = new int[capacity];
+        indentations = new int[capacity];
+        firstChars = new byte[capacity];
+        lastChars = new byte[capacity];
+    }
+
+    /**
+     * Measures every line of a decoded file
+     */
+    public static LineMetrics fromLines(List<String> lines) {
+        LineMetrics metrics = new LineMetrics(Math.max(16, lines.size()));
+        for (String line : lines) {
+            metrics.addLine(line);
+        }
+        return metrics;
+    }
+
+    /**
+     * Measures one more decoded line, for lines that arrive one at a time
+     */
+    void addLine(String line) {
+        int indentation = 0;
+        int k = 0;
+        for (; k < line.length(); k++) {
+            char c = line.charAt(k);
+            if (c == ' ') {
+                indentation++;
+            } else if (c == '\t') {
+                indentation += 4;
+            } else {
+                break;
+            }
+        }
+        // Blank means String.trim() would leave nothing: every char is <= ' '
+        int first = k;
+        while (first < line.length() && line.charAt(first) <= ' ') first++;
+        byte firstChar = 0;
+        byte lastChar = 0;
+        if (first < line.length()) {
+            int last = line.length() - 1;
+            while (line.charAt(last) <= ' ') last--;
+            firstChar = toByte(line.charAt(first));
+            lastChar = toByte(line.charAt(last));
+        }
+        if (size == lengths.length) {
+            int capacity = size * 2;
+            lengths = Arrays.copyOf(lengths, capacity);
+            indentations = Arrays.copyOf(indentations, capacity);
+            firstChars = Arrays.copyOf(firstChars, capacity);
+            lastChars = Arrays.copyOf(lastChars, capacity);
+        }
+        lengths[size] = line.length();
+        indentations[size] = indentation;
+        firstChars[size] = firstChar;
+        lastChars[size] = lastChar;
+        size++;
+    }
+
+    private static byte toByte(char c) {
+        return c < 0x80 ? (byte) c : NON_ASCII;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Line length in UTF-16 chars, as String.length() reports it
+     */
+    public int length(int line) {
+        return lengths[line];
+    }
+
+    /**
+     * Leading whitespace width with tabs counted as 4 spaces
+     */
+    public int indentation(int line) {
+        return indentations[line];
+    }
+
+    public boolean isBlank(int line) {
+        return firstChars[line] == 0;
+    }
+
+    public byte firstChar(int line) {
+        return firstChars[line];
+    }
+
+    public byte lastChar(int line) {
+        return lastChars[line];
+    }
+}
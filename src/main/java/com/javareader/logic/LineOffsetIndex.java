@@ -0,0 +1,187 @@
+package com.javareader.logic;
+
+import java.util.Arrays;
+
+/**
+ * Start offsets of the lines of a text, kept current under edits. Line lengths (including the
+ * '\n') are held in a Fenwick tree, so a line start or the line holding an offset is found in
+ * O(log n), and an edit inside one line costs O(log n). Edits that add or remove line breaks shift
+ * the lengths of the following lines with one array copy and rebuild only the tree nodes from the
+ * edited line on, so they cost time proportional to the lines after the edit, without rescanning text.
+ */
+public class LineOffsetIndex {
+
+    // lengths[i] is the length of line i; the last line has no terminator
+    private int[] lengths;
+    // Fenwick tree over lengths, 1-based: tree[i] covers lengths (i - lowbit(i), i]
+    private int[] tree;
+    private int lineCount;
+    private int length;
+
+    public LineOffsetIndex(CharSequence text) {
+        lengths = new int[16];
+        int lineStart = 0;
+        for (int k = 0; k < text.length(); k++) {
+            if (text.charAt(k) == '\n') {
+                appendLength(k + 1 - lineStart);
+                lineStart = k + 1;
+            }
+        }
+        appendLength(text.length() - lineStart);
+        length = text.length();
+        rebuild(0);
+    }
+
+    private void appendLength(int lineLength) {
+        if (lineCount == lengths.length) {
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+        lengths[lineCount++] = lineLength;
+    }
+
+    /**
+     * Number of lines, counting a final unterminated (possibly empty) line
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Offset of the first character of the given 0-based line
+     */
+    public int getLineStart(int line) {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " outside text of " + lineCount + " lines");
+        }
+        int sum = 0;
+        for (int i = line; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 0-based line holding the character at the offset; the end of the text belongs to the last line
+     */
+    public int getLineOfOffset(int offset) {
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside text of length " + length);
+        }
+        // Descend the tree for the largest line count whose lengths sum to at most the offset
+        int line = 0;
+        int remaining = offset;
+        for (int step = Integer.highestOneBit(Math.max(1, lineCount)); step > 0; step >>= 1) {
+            int next = line + step;
+            if (next <= lineCount && tree[next] <= remaining) {
+                line = next;
+                remaining -= tree[next];
+            }
+        }
+        return Math.min(line, lineCount - 1);
+    }
+
+    /**
+     * Records an insertion of the text at the offset
+     */
+    public void insert(int offset, CharSequence text) {
+        if (text.length() == 0) return;
+        int line = getLineOfOffset(offset);
+        int column = offset - getLineStart(line);
+        int firstBreak = indexOfBreak(text, 0);
+        length += text.length();
+        if (firstBreak < 0) {
+            add(line, text.length());
+            return;
+        }
+        // The line is split: its head gets the text up to the first break, its tail follows the last line of text
+        int tail = lengths[line] - column;
+        int[] inserted = new int[8];
+        int count = 0;
+        inserted[count++] = column + firstBreak + 1;
+        int lineStart = firstBreak + 1;
+        for (int k = indexOfBreak(text, lineStart); k >= 0; k = indexOfBreak(text, lineStart)) {
+            if (count == inserted.length) inserted = Arrays.copyOf(inserted, count * 2);
+            inserted[count++] = k + 1 - lineStart;
+            lineStart = k + 1;
+        }
+        if (count == inserted.length) inserted = Arrays.copyOf(inserted, count + 1);
+        inserted[count++] = text.length() - lineStart + tail;
+        replaceLines(line, 1, inserted, count);
+    }
+
+    /**
+     * Records a deletion of {@code count} characters starting at the offset
+     */
+    public void delete(int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > length) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + count + " outside text of length " + length);
+        }
+        if (count == 0) return;
+        int first = getLineOfOffset(offset);
+        int last = getLineOfOffset(offset + count);
+        length -= count;
+        if (first == last) {
+            add(first, -count);
+            return;
+        }
+        // Lines first..last merge into one holding what is left of them
+        int merged = getLineStart(last) + lengths[last] - getLineStart(first) - count;
+        replaceLines(first, last - first + 1, new int[] {merged}, 1);
+    }
+
+    // Replaces lines [from, from + removed) with the given lengths and rebuilds the tree from there
+    private void replaceLines(int from, int removed, int[] inserted, int insertedCount) {
+        int newCount = lineCount - removed + insertedCount;
+        if (newCount > lengths.length) {
+            lengths = Arrays.copyOf(lengths, Math.max(newCount, lengths.length * 2));
+        }
+        System.arraycopy(lengths, from + removed, lengths, from + insertedCount, lineCount - from - removed);
+        System.arraycopy(inserted, 0, lengths, from, insertedCount);
+        lineCount = newCount;
+        rebuild(from);
+    }
+
+    private void add(int line, int delta) {
+        lengths[line] += delta;
+        for (int i = line + 1; i <= lineCount; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Recomputes the tree nodes above the first {@code from} lines, whose lengths are unchanged.
+     * Nodes up to {@code from} only cover those lines and stay valid; the ones among them whose parent
+     * lies beyond are exactly the nodes on the query path of {@code from}. The rest is the usual
+     * linear-time construction, each node passing its sum on to its parent.
+     */
+    private void rebuild(int from) {
+        if (tree == null || tree.length < lineCount + 1) {
+            tree = new int[lengths.length + 1];
+            from = 0;
+        }
+        System.arraycopy(lengths, from, tree, from + 1, lineCount - from);
+        for (int i = from; i > 0; i -= i & -i) {
+            int parent = i + (i & -i);
+            if (parent <= lineCount) {
+                tree[parent] += tree[i];
+            }
+        }
+        for (int i = from + 1; i <= lineCount; i++) {
+            int parent = i + (i & -i);
+            if (parent <= lineCount) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private static int indexOfBreak(CharSequence text, int from) {
+        for (int k = from; k < text.length(); k++) {
+            if (text.charAt(k) == '\n') return k;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,156 @@
+package com.javareader.logic;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-line cache of lexer start states and token runs used for syntax coloring.
+ * Lines are lexed lazily up to the highest line requested; after an edit only the
+ * changed lines are re-lexed, continuing until the start state of the next line
+ * matches the cached one again.
+ */
+public class LineTokenCache {
+
+    private static final int[] NO_RUNS = new int[0];
+
+    private final JavaLexer lexer = new JavaLexer();
+    private final JavaLexer.Tokens scratch = new JavaLexer.Tokens();
+    private List<String> lines;
+    // startStates[i] is the lexer state at the start of line i; valid for i <= lexedCount
+    private byte[] startStates = new byte[16];
+    private int[][] runs = new int[16][];
+    private int lineCount;
+    // Lines [0, lexedCount) have up-to-date runs
+    private int lexedCount;
+
+    /**
+     * Replaces the cached document; nothing is lexed until lines are requested
+     */
+    public void reset(List<String> newLines) {
+        this.lines = newLines;
+        this.lineCount = newLines.size();
+        ensureCapacity(lineCount + 1);
+        Arrays.fill(runs, 0, runs.length, null);
+        startStates[0] = JavaLexer.STATE_CODE;
+        lexedCount = 0;
+    }
+
+    /**
+     * Brings the cache in line with a new version of the document by re-lexing only
+     * the range between the common prefix and suffix of the old and new lines.
+     */
+    public void update(List<String> newLines) {
+        if (lines == null) {
+            reset(newLines);
+            return;
+        }
+        int oldCount = lineCount;
+        int newCount = newLines.size();
+        int prefix = 0;
+        int maxPrefix = Math.min(oldCount, newCount);
+        while (prefix < maxPrefix && lines.get(prefix).equals(newLines.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && lines.get(oldCount - 1 - suffix).equals(newLines.get(newCount - 1 - suffix))) {
+            suffix++;
+        }
+        linesReplaced(newLines, prefix, oldCount - prefix - suffix, newCount - prefix - suffix);
+    }
+
+    /**
+     * Records that {@code removedCount} lines starting at {@code firstLine} were replaced by
+     * {@code insertedCount} lines; {@code newLines} is the full document after the edit.
+     * Returns the number of lines that had to be re-lexed.
+     */
+    public int linesReplaced(List<String> newLines, int firstLine, int removedCount, int insertedCount) {
+        int delta = insertedCount - removedCount;
+        int oldCount = lineCount;
+        int tailStart = firstLine + removedCount;
+        int state = startStates[firstLine];
+        int lexedState = startStates[lexedCount];
+        this.lines = newLines;
+        this.lineCount = oldCount + delta;
+        ensureCapacity(lineCount + 1);
+        // Shift the cached entries of the untouched tail (including the trailing end state)
+        if (delta != 0 && tailStart <= oldCount) {
+            System.arraycopy(startStates, tailStart, startStates, tailStart + delta, oldCount + 1 - tailStart);
+            System.arraycopy(runs, tailStart, runs, tailStart + delta, oldCount + 1 - tailStart);
+            if (delta < 0) {
+                Arrays.fill(runs, lineCount + 1, oldCount + 1, null);
+            }
+        }
+        if (lexedCount <= firstLine) {
+            // The edit is beyond anything lexed so far; lazy lexing will pick it up
+            startStates[lexedCount] = (byte) lexedState;
+            return 0;
+        }
+        boolean tailValid = lexedCount > tailStart;
+        int validTailEnd = tailValid ? lexedCount + delta : firstLine + insertedCount;
+        int relexed = 0;
+        int line = firstLine;
+        while (line < lineCount) {
+            if (line >= firstLine + insertedCount) {
+                if (!tailValid || line >= validTailEnd) {
+                    // Past the previously lexed region; leave the rest to lazy lexing
+                    break;
+                }
+                if (startStates[line] == state) {
+                    // Converged: every later cached line is still valid
+                    lexedCount = validTailEnd;
+                    return relexed;
+                }
+            }
+            startStates[line] = (byte) state;
+            state = lexer.lexLine(lines.get(line), state, scratch);
+            runs[line] = scratch.toRuns();
+            relexed++;
+            line++;
+        }
+        startStates[line] = (byte) state;
+        lexedCount = line;
+        return relexed;
+    }
+
+    /**
+     * Returns the packed {start, end, type} token runs for a line, lexing up to it if needed
+     */
+    public int[] getRuns(int line) {
+        if (line < 0 || line >= lineCount) return NO_RUNS;
+        lexUpTo(line + 1);
+        return runs[line];
+    }
+
+    /**
+     * Returns the lexer state at the start of a line; lines past the end report the state
+     * at the end of the document and negative lines the initial state
+     */
+    public int getStartState(int line) {
+        int clamped = Math.max(0, Math.min(line, lineCount));
+        lexUpTo(clamped);
+        return startStates[clamped];
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    private void lexUpTo(int end) {
+        int state = startStates[lexedCount];
+        while (lexedCount < end) {
+            state = lexer.lexLine(lines.get(lexedCount), state, scratch);
+            runs[lexedCount] = scratch.toRuns();
+            lexedCount++;
+            startStates[lexedCount] = (byte) state;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (startStates.length < capacity) {
+            int newCapacity = Math.max(capacity, startStates.length * 2);
+            startStates = Arrays.copyOf(startStates, newCapacity);
+            runs = Arrays.copyOf(runs, newCapacity);
+        }
+    }
+}
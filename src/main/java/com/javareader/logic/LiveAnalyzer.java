@@ -0,0 +1,142 @@
+package com.javareader.logic;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Analyzes text while it is being edited, on one background thread. Each submitted snapshot gets
+ * a generation number; only the newest snapshot waits in a single slot, so snapshots replaced
+ * before their turn are never analyzed, and an analysis already running is cancelled at its next
+ * progress check once a newer snapshot arrives. Only the result of the newest snapshot reaches the
+ * listener. Debouncing keystrokes is left to the caller.
+ */
+public class LiveAnalyzer {
+
+    private final Analysis analysis;
+    private final Listener listener;
+    private final ExecutorService worker;
+    private final AtomicLong latest = new AtomicLong();
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public LiveAnalyzer(Analysis analysis, Listener listener) {
+        this.analysis = analysis;
+        this.listener = listener;
+        this.worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "live-analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the text for analysis in place of any snapshot still waiting; returns its generation
+     */
+    public long submit(String text) {
+        return submit(() -> text);
+    }
+
+    /**
+     * Same as {@link #submit(String)} for text built on the worker thread, e.g. from a document
+     * snapshot; a snapshot replaced before its turn is never built
+     */
+    public long submit(Supplier<String> text) {
+        long generation = latest.incrementAndGet();
+        pending.set(new Snapshot(generation, text));
+        if (draining.compareAndSet(false, true)) {
+            worker.execute(this::drain);
+        }
+        return generation;
+    }
+
+    /**
+     * Drops the waiting snapshot and stops the running analysis; nothing submitted so far is reported
+     */
+    public void cancel() {
+        latest.incrementAndGet();
+        pending.set(null);
+    }
+
+    /**
+     * True while no newer snapshot was submitted or cancelled after the given generation
+     */
+    public boolean isCurrent(long generation) {
+        return latest.get() == generation;
+    }
+
+    /**
+     * Stops the worker thread
+     */
+    public void shutdown() {
+        cancel();
+        worker.shutdownNow();
+    }
+
+    private void drain() {
+        while (true) {
+            Snapshot snapshot = pending.getAndSet(null);
+            if (snapshot == null) {
+                draining.set(false);
+                // A snapshot submitted after the slot was found empty would otherwise wait for the next one
+                if (pending.get() == null || !draining.compareAndSet(false, true)) return;
+                continue;
+            }
+            analyze(snapshot);
+        }
+    }
+
+    private void analyze(Snapshot snapshot) {
+        if (!isCurrent(snapshot.generation)) return;
+        CodeAnalyzer.ProgressListener cancelCheck = new CodeAnalyzer.ProgressListener() {
+            @Override
+            public void progress(int linesDone, int totalLines, Map<CodeAnalyzer.ViolationType, Integer> counts) {
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return !isCurrent(snapshot.generation);
+            }
+        };
+        try {
+            CodeAnalyzer.AnalysisResult result = analysis.analyze(snapshot.text.get(), cancelCheck);
+            if (isCurrent(snapshot.generation)) {
+                listener.analyzed(snapshot.generation, result);
+            }
+        } catch (CancellationException e) {
+            // Superseded while running
+        } catch (RuntimeException e) {
+            // Half-typed code must not stop live analysis; the next edit is analyzed afresh
+        }
+    }
+
+    /**
+     * Analyzes one snapshot, stopping when {@code cancelCheck} reports cancellation
+     */
+    public interface Analysis {
+        CodeAnalyzer.AnalysisResult analyze(String text, CodeAnalyzer.ProgressListener cancelCheck);
+    }
+
+    /**
+     * Receives the result of the newest snapshot, on the worker thread; the caller should check
+     * {@link #isCurrent} again once on its own thread
+     */
+    public interface Listener {
+        void analyzed(long generation, CodeAnalyzer.AnalysisResult result);
+    }
+
+    private static class Snapshot {
+        final long generation;
+        final Supplier<String> text;
+
+        Snapshot(long generation, Supplier<String> text) {
+            this.generation = generation;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.javareader.logic;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from long keys to small counts, backed by a long[] and a byte[].
+ * Keys are expected to be well-mixed hashes; counts saturate at {@link #MAX_COUNT}.
+ */
+public class LongCountTable {
+
+    public static final int MAX_COUNT = Byte.MAX_VALUE;
+    private static final int MIN_CAPACITY = 64;
+
+    private long[] keys;
+    private byte[] counts;
+    private int size;
+    // Key 0 marks an empty slot, so its count is kept outside the arrays
+    private int zeroCount;
+
+    public LongCountTable() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongCountTable(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        counts = new byte[capacity];
+    }
+
+    /**
+     * Adds one occurrence of the key and returns its new (saturated) count
+     */
+    public int increment(long key) {
+        if (key == 0) {
+            if (zeroCount == 0) size++;
+            return zeroCount = Math.min(MAX_COUNT, zeroCount + 1);
+        }
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                if (counts[slot] < MAX_COUNT) counts[slot]++;
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++size > keys.length * 3 / 4) {
+            grow();
+        }
+        return 1;
+    }
+
+    /**
+     * Returns the (saturated) count of the key, 0 if absent
+     */
+    public int count(long key) {
+        if (key == 0) return zeroCount;
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) return counts[slot];
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Number of distinct keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the distinct keys in table order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        if (zeroCount > 0) result[n++] = 0L;
+        for (long key : keys) {
+            if (key != 0) result[n++] = key;
+        }
+        return result;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(counts, (byte) 0);
+        size = 0;
+        zeroCount = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        byte[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new byte[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == 0) continue;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = oldCounts[i];
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.javareader.logic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes violations as newline-delimited JSON, one object per line, flushing after each record so
+ * a reading process sees every violation as soon as it is found. Violation records look like
+ * {"line":12,"type":"NAMING_CONVENTION","text":"int bad_name;"} with an optional "detail"; the last
+ * record is {"done":true,"violations":3}.
+ */
+public class NdjsonReport {
+
+    private final Writer out;
+    private final StringBuilder record = new StringBuilder(256);
+
+    public NdjsonReport(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Analyzes UTF-8 source read from the input, writing each violation as it is found; returns the
+     * exit status for the command line: 0 when clean, 1 when violations were found
+     */
+    public static int analyze(CodeAnalyzer analyzer, InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        NdjsonReport report = new NdjsonReport(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            CodeAnalyzer.AnalysisResult result = analyzer.analyzeStream(reader, report::write);
+            report.writeDone(result.getViolations().size());
+            return result.getViolations().isEmpty() ? 0 : 1;
+        } catch (UncheckedIOException e) {
+            // Whoever reads the output went away, e.g. a closed pipe
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes and flushes one violation record; an I/O failure stops the analysis
+     */
+    public void write(CodeAnalyzer.Violation violation) {
+        record.setLength(0);
+        record.append("{\"line\":").append(violation.getLineNumber())
+              .append(",\"type\":\"").append(violation.getType().name()).append('"')
+              .append(",\"text\":");
+        appendString(record, violation.getLine());
+        if (violation.getDetail() != null) {
+            record.append(",\"detail\":");
+            appendString(record, violation.getDetail());
+        }
+        record.append("}\n");
+        flushRecord();
+    }
+
+    /**
+     * Writes the closing record after the last violation
+     */
+    public void writeDone(int violationCount) {
+        record.setLength(0);
+        record.append("{\"done\":true,\"violations\":").append(violationCount).append("}\n");
+        flushRecord();
+    }
+
+    private void flushRecord() {
+        try {
+            out.append(record);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the text as a JSON string literal
+     */
+    static void appendString(StringBuilder sb, String text) {
+        sb.append('"');
+        for (int k = 0; k < text.length(); k++) {
+            char c = text.charAt(k);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,340 @@
+package com.javareader.logic;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Piece-table text document: the loaded text is never copied or modified, inserted text is
+ * appended to a separate buffer and the document is a list of pieces pointing into either.
+ * Edits cost time proportional to the edit and the number of pieces, not the document size, except
+ * for keeping line starts current: they are kept in a LineOffsetIndex, so finding a line costs
+ * O(log n) and an edit within a line O(log n), but an edit adding or removing line breaks costs time
+ * proportional to the number of lines after it.
+ * Line terminators inside the document are always '\n'.
+ */
+public class PieceTable {
+
+    private final String original;
+    // Append-only: text never changes once appended, so snapshots share the array without copying
+    private char[] added = new char[64];
+    private int addedLength;
+    private final List<Piece> pieces = new ArrayList<>();
+    private int length;
+    private final LineOffsetIndex lineIndex;
+    private boolean modified;
+    // Text built for the current content, dropped by the next edit
+    private String text;
+
+    public PieceTable(String text) {
+        this.original = text;
+        this.text = text;
+        this.length = text.length();
+        this.lineIndex = new LineOffsetIndex(text);
+        if (length > 0) {
+            pieces.add(new Piece(false, 0, length));
+        }
+    }
+
+    /**
+     * Creates a document from lines, terminating every line with '\n'
+     */
+    public static PieceTable fromLines(List<String> lines) {
+        int size = 0;
+        for (String line : lines) {
+            size += line.length() + 1;
+        }
+        StringBuilder sb = new StringBuilder(size);
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return new PieceTable(sb.toString());
+    }
+
+    /**
+     * Inserts text at the given character offset
+     */
+    public void insert(int offset, String text) {
+        if (offset < 0 || offset > length) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " outside document of length " + length);
+        }
+        if (text.isEmpty()) return;
+        int addStart = addedLength;
+        appendAdded(text);
+        lineIndex.insert(offset, text);
+        length += text.length();
+        modified = true;
+        this.text = null;
+
+        int position = 0;
+        for (int i = 0; i < pieces.size(); i++) {
+            Piece piece = pieces.get(i);
+            if (offset == position) {
+                Piece previous = i > 0 ? pieces.get(i - 1) : null;
+                if (previous != null && previous.inAdded && previous.start + previous.length == addStart) {
+                    // Typing right after the previous insertion just grows that piece
+                    previous.length += text.length();
+                } else {
+                    pieces.add(i, new Piece(true, addStart, text.length()));
+                }
+                return;
+            }
+            if (offset < position + piece.length) {
+                int split = offset - position;
+                Piece tail = new Piece(piece.inAdded, piece.start + split, piece.length - split);
+                piece.length = split;
+                pieces.add(i + 1, new Piece(true, addStart, text.length()));
+                pieces.add(i + 2, tail);
+                return;
+            }
+            position += piece.length;
+        }
+        // Appending: extend the last piece when it already ends at the tail of the add buffer (typing)
+        Piece last = pieces.isEmpty() ? null : pieces.get(pieces.size() - 1);
+        if (last != null && last.inAdded && last.start + last.length == addStart) {
+            last.length += text.length();
+        } else {
+            pieces.add(new Piece(true, addStart, text.length()));
+        }
+    }
+
+    /**
+     * Deletes {@code count} characters starting at the given offset
+     */
+    public void delete(int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > length) {
+            throw new IndexOutOfBoundsException("Range " + offset + "+" + count + " outside document of length " + length);
+        }
+        if (count == 0) return;
+        lineIndex.delete(offset, count);
+        int end = offset + count;
+        int position = 0;
+        int i = 0;
+        while (i < pieces.size() && position < end) {
+            Piece piece = pieces.get(i);
+            int pieceStart = position;
+            int pieceEnd = position + piece.length;
+            position = pieceEnd;
+            if (pieceEnd <= offset) {
+                i++;
+                continue;
+            }
+            int cutStart = Math.max(offset, pieceStart) - pieceStart;
+            int cutEnd = Math.min(end, pieceEnd) - pieceStart;
+            if (cutStart == 0 && cutEnd == piece.length) {
+                pieces.remove(i);
+            } else if (cutStart == 0) {
+                piece.start += cutEnd;
+                piece.length -= cutEnd;
+                i++;
+            } else if (cutEnd == piece.length) {
+                piece.length = cutStart;
+                i++;
+            } else {
+                Piece tail = new Piece(piece.inAdded, piece.start + cutEnd, piece.length - cutEnd);
+                piece.length = cutStart;
+                pieces.add(i + 1, tail);
+                i += 2;
+            }
+        }
+        length -= count;
+        modified = true;
+        text = null;
+    }
+
+    /**
+     * Replaces {@code count} characters at the given offset with new text
+     */
+    public void replace(int offset, int count, String text) {
+        delete(offset, count);
+        insert(offset, text);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Number of lines, counting a final unterminated (possibly empty) line
+     */
+    public int getLineCount() {
+        return lineIndex.getLineCount();
+    }
+
+    /**
+     * Returns the offset of the first character of the given 0-based line
+     */
+    public int getLineStart(int line) {
+        if (line < 0 || line >= lineIndex.getLineCount()) {
+            throw new IndexOutOfBoundsException("Line " + line + " outside document of " + getLineCount() + " lines");
+        }
+        return lineIndex.getLineStart(line);
+    }
+
+    /**
+     * Returns the 0-based line holding the character at the offset
+     */
+    public int getLineOfOffset(int offset) {
+        return lineIndex.getLineOfOffset(offset);
+    }
+
+    /**
+     * Returns the offsets of all non-overlapping occurrences of the text, in document order.
+     * Repeated searches between two edits reuse the text of the document.
+     */
+    public int[] findAll(String text) {
+        if (text.isEmpty()) return new int[0];
+        String content = getText();
+        int[] offsets = new int[16];
+        int count = 0;
+        for (int at = content.indexOf(text); at >= 0; at = content.indexOf(text, at + text.length())) {
+            if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+            offsets[count++] = at;
+        }
+        return Arrays.copyOf(offsets, count);
+    }
+
+    public boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Marks the current content as the saved state
+     */
+    public void markSaved() {
+        modified = false;
+    }
+
+    /**
+     * Returns the whole document as a String, built once per edit
+     */
+    public String getText() {
+        if (text == null) {
+            text = snapshot().getText();
+        }
+        return text;
+    }
+
+    /**
+     * Freezes the current content in time proportional to the number of pieces, not the document
+     * size; the text of the snapshot can then be built on another thread while editing goes on
+     */
+    public Snapshot snapshot() {
+        int[] layout = new int[pieces.size() * 3];
+        int k = 0;
+        for (Piece piece : pieces) {
+            layout[k++] = piece.inAdded ? 1 : 0;
+            layout[k++] = piece.start;
+            layout[k++] = piece.length;
+        }
+        return new Snapshot(original, added, layout, length);
+    }
+
+    /**
+     * Returns the document split into lines, with the same convention as Files.readAllLines
+     * (a trailing line terminator does not start a new line)
+     */
+    public List<String> toLines() {
+        List<String> lines = new ArrayList<>(lineIndex.getLineCount());
+        StringBuilder current = new StringBuilder();
+        for (Piece piece : pieces) {
+            CharSequence source = source(piece);
+            int segmentStart = piece.start;
+            int end = piece.start + piece.length;
+            for (int k = piece.start; k < end; k++) {
+                if (source.charAt(k) == '\n') {
+                    current.append(source, segmentStart, k);
+                    lines.add(current.toString());
+                    current.setLength(0);
+                    segmentStart = k + 1;
+                }
+            }
+            current.append(source, segmentStart, end);
+        }
+        if (current.length() > 0) {
+            lines.add(current.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * Streams the document piece by piece without building the full text
+     */
+    public void forEachChunk(ChunkConsumer consumer) throws IOException {
+        for (Piece piece : pieces) {
+            consumer.accept(source(piece), piece.start, piece.start + piece.length);
+        }
+    }
+
+    private CharSequence source(Piece piece) {
+        return piece.inAdded ? CharBuffer.wrap(added, 0, addedLength) : original;
+    }
+
+    private void appendAdded(String text) {
+        if (addedLength + text.length() > added.length) {
+            added = Arrays.copyOf(added, Math.max(added.length * 2, addedLength + text.length()));
+        }
+        text.getChars(0, text.length(), added, addedLength);
+        addedLength += text.length();
+    }
+
+    /**
+     * The content of a document at one edit. The loaded text and the add buffer are shared, not
+     * copied, as neither ever changes where the pieces of the snapshot point. A snapshot may be read
+     * on another thread once handed over through a thread-safe channel.
+     */
+    public static class Snapshot {
+        private final String original;
+        private final char[] added;
+        // (inAdded, start, length) of each piece
+        private final int[] layout;
+        private final int length;
+
+        private Snapshot(String original, char[] added, int[] layout, int length) {
+            this.original = original;
+            this.added = added;
+            this.layout = layout;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        /**
+         * Builds the text of the snapshot
+         */
+        public String getText() {
+            StringBuilder sb = new StringBuilder(length);
+            for (int k = 0; k < layout.length; k += 3) {
+                if (layout[k] == 1) {
+                    sb.append(added, layout[k + 1], layout[k + 2]);
+                } else {
+                    sb.append(original, layout[k + 1], layout[k + 1] + layout[k + 2]);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Receives consecutive chunks of the document
+     */
+    public interface ChunkConsumer {
+        void accept(CharSequence source, int start, int end) throws IOException;
+    }
+
+    private static class Piece {
+        final boolean inAdded;
+        int start;
+        int length;
+
+        Piece(boolean inAdded, int start, int length) {
+            this.inAdded = inAdded;
+            this.start = start;
+            this.length = length;
+        }
+    }
+}
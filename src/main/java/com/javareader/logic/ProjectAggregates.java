@@ -0,0 +1,160 @@
+package com.javareader.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Violation totals per file and per package of a project, maintained incrementally: updating a
+ * file subtracts its previous counts from its package and adds the new ones, so no change ever
+ * re-sums the project. Thread-safe; the getters return copies.
+ */
+public class ProjectAggregates {
+
+    private static final int TYPE_COUNT = CodeAnalyzer.ViolationType.values().length;
+    private static final String[] SOURCE_ROOTS = {"src/main/java/", "src/test/java/", "src/"};
+
+    private final Map<String, Totals> files = new HashMap<>();
+    private final Map<String, Totals> packages = new HashMap<>();
+
+    /**
+     * Sets the counts of a file; returns false if they did not change
+     */
+    public synchronized boolean update(String path, int lineCount, Map<CodeAnalyzer.ViolationType, Integer> violationCounts) {
+        int[] counts = new int[TYPE_COUNT];
+        for (Map.Entry<CodeAnalyzer.ViolationType, Integer> entry : violationCounts.entrySet()) {
+            counts[entry.getKey().ordinal()] = entry.getValue();
+        }
+        Totals previous = files.get(path);
+        if (previous != null && previous.lineCount == lineCount && Arrays.equals(previous.counts, counts)) {
+            return false;
+        }
+        Totals file = new Totals(1, lineCount, counts);
+        Totals pkg = packages.computeIfAbsent(packageOf(path), name -> new Totals(0, 0, new int[TYPE_COUNT]));
+        if (previous != null) {
+            pkg.subtract(previous);
+        }
+        pkg.add(file);
+        files.put(path, file);
+        return true;
+    }
+
+    /**
+     * Drops a file; returns false if it was not known
+     */
+    public synchronized boolean remove(String path) {
+        Totals previous = files.remove(path);
+        if (previous == null) return false;
+        String name = packageOf(path);
+        Totals pkg = packages.get(name);
+        pkg.subtract(previous);
+        if (pkg.fileCount == 0) {
+            packages.remove(name);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the totals of a file, or null
+     */
+    public synchronized Totals getFile(String path) {
+        Totals totals = files.get(path);
+        return totals == null ? null : totals.copy();
+    }
+
+    /**
+     * Returns the totals of a package, or null once its last file is removed
+     */
+    public synchronized Totals getPackage(String name) {
+        Totals totals = packages.get(name);
+        return totals == null ? null : totals.copy();
+    }
+
+    /**
+     * Returns the paths of all files, in no particular order
+     */
+    public synchronized List<String> getFilePaths() {
+        return new ArrayList<>(files.keySet());
+    }
+
+    public synchronized void clear() {
+        files.clear();
+        packages.clear();
+    }
+
+    public synchronized int getFileCount() {
+        return files.size();
+    }
+
+    public synchronized int getPackageCount() {
+        return packages.size();
+    }
+
+    /**
+     * Package name of a project-relative path, from the directories below the usual source roots;
+     * "(default)" for files directly in a root
+     */
+    public static String packageOf(String path) {
+        String dir = path.lastIndexOf('/') < 0 ? "" : path.substring(0, path.lastIndexOf('/') + 1);
+        for (String root : SOURCE_ROOTS) {
+            int at = dir.indexOf(root);
+            if (at == 0 || (at > 0 && dir.charAt(at - 1) == '/')) {
+                dir = dir.substring(at + root.length());
+                break;
+            }
+        }
+        return dir.isEmpty() ? "(default)" : dir.substring(0, dir.length() - 1).replace('/', '.');
+    }
+
+    /**
+     * Line and violation totals of a file or package
+     */
+    public static class Totals {
+        private int fileCount;
+        private int lineCount;
+        private final int[] counts;
+
+        private Totals(int fileCount, int lineCount, int[] counts) {
+            this.fileCount = fileCount;
+            this.lineCount = lineCount;
+            this.counts = counts;
+        }
+
+        private void add(Totals other) {
+            fileCount += other.fileCount;
+            lineCount += other.lineCount;
+            for (int t = 0; t < counts.length; t++) {
+                counts[t] += other.counts[t];
+            }
+        }
+
+        private void subtract(Totals other) {
+            fileCount -= other.fileCount;
+            lineCount -= other.lineCount;
+            for (int t = 0; t < counts.length; t++) {
+                counts[t] -= other.counts[t];
+            }
+        }
+
+        private Totals copy() {
+            return new Totals(fileCount, lineCount, counts.clone());
+        }
+
+        public int getFileCount() { return fileCount; }
+        public int getLineCount() { return lineCount; }
+
+        public int getCount(CodeAnalyzer.ViolationType type) {
+            return counts[type.ordinal()];
+        }
+
+        public int getTotal() {
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.javareader.logic;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent per-file summaries of a project: content hash, size and modification time, line count,
+ * violation counts per type and the hashes of the file's distinct string literals.
+ *
+ * The index is an append-only binary file, read with positional channel reads; it is never mapped,
+ * since a live mapping would stop it being truncated or replaced on Windows. Updating a file appends
+ * a new record and flags the old one dead in place, so a re-index writes only the changed entries.
+ * When dead records outweigh live ones the file is compacted into a fresh copy and swapped in.
+ * A record cut short by a crash is ignored on load and overwritten by the next append. A file of
+ * another format version is discarded on load, and one written by an analyzer with another
+ * fingerprint is discarded by the next re-index.
+ *
+ * Header layout: int magic, int version, long analyzer fingerprint, short type count, then per
+ * violation type a short name length and the name (UTF-8). Record counts follow the order of the
+ * header's type names, so they are read back by name whatever the current enum order.
+ *
+ * Record layout: int length (of the rest), byte flags, short path length, path (UTF-8),
+ * long content hash, long size, long modified time, int line count, int[] counts,
+ * int literal count, long[] literal hashes.
+ */
+public class ProjectIndex {
+
+    public static final String DEFAULT_FILE_NAME = ".javareader.idx";
+
+    private static final int MAGIC = 0x4A524958; // "JRIX"
+    private static final int VERSION = 2;
+    private static final byte FLAG_DEAD = 1;
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    private final Path indexFile;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private FileChannel channel;
+    private long fingerprint;
+    // Current enum types in the order of the header's type names; null where a name is unknown
+    private CodeAnalyzer.ViolationType[] columns;
+    private long appendPosition;
+    private long liveBytes;
+    private long deadBytes;
+
+    private ProjectIndex(Path indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Opens the index file, creating it if missing. A file that is not an index is replaced.
+     */
+    public static ProjectIndex open(Path indexFile) throws IOException {
+        ProjectIndex index = new ProjectIndex(indexFile);
+        index.load();
+        return index;
+    }
+
+    /**
+     * Opens the index kept in the project root
+     */
+    public static ProjectIndex forProject(Path root) throws IOException {
+        return open(root.resolve(DEFAULT_FILE_NAME));
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            reset(0);
+            return;
+        }
+        ByteBuffer content = ByteBuffer.allocate((int) size);
+        readFully(content, 0);
+        content.flip();
+        if (!readHeader(content)) {
+            reset(0);
+            return;
+        }
+        long position = content.position();
+        while (position + 4 <= size) {
+            int length = content.getInt((int) position);
+            long end = position + 4 + length;
+            if (length <= 0 || end > size) break;
+            if ((content.get((int) position + 4) & FLAG_DEAD) == 0) {
+                Entry entry = readEntry(content, (int) position);
+                Entry replaced = entries.put(entry.path, entry);
+                if (replaced != null) {
+                    // A crash between append and marking the old record dead leaves two live copies
+                    markDead(replaced);
+                }
+                liveBytes += 4 + length;
+            } else {
+                deadBytes += 4 + length;
+            }
+            position = end;
+        }
+        appendPosition = position;
+        if (appendPosition < size) {
+            // Drop the torn tail
+            channel.truncate(appendPosition);
+        }
+        if (!hasCurrentTypes()) {
+            // Appended records must hold a count for every current type
+            compact();
+        }
+    }
+
+    // Reads the header into fingerprint and columns; false when the file is not an index of this version
+    private boolean readHeader(ByteBuffer content) {
+        try {
+            if (content.getInt() != MAGIC || content.getInt() != VERSION) return false;
+            long storedFingerprint = content.getLong();
+            CodeAnalyzer.ViolationType[] storedColumns = new CodeAnalyzer.ViolationType[content.getShort() & 0xFFFF];
+            for (int c = 0; c < storedColumns.length; c++) {
+                byte[] name = new byte[content.getShort() & 0xFFFF];
+                content.get(name);
+                storedColumns[c] = typeNamed(new String(name, StandardCharsets.UTF_8));
+            }
+            fingerprint = storedFingerprint;
+            columns = storedColumns;
+            return true;
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    private static CodeAnalyzer.ViolationType typeNamed(String name) {
+        for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+            if (type.name().equals(name)) return type;
+        }
+        return null;
+    }
+
+    private boolean hasCurrentTypes() {
+        return Arrays.equals(columns, CodeAnalyzer.ViolationType.values());
+    }
+
+    /**
+     * Empties the file and writes a header with the current types and the given fingerprint
+     */
+    private void reset(long newFingerprint) throws IOException {
+        CodeAnalyzer.ViolationType[] types = CodeAnalyzer.ViolationType.values();
+        byte[][] names = new byte[types.length][];
+        int headerSize = 4 + 4 + 8 + 2;
+        for (int t = 0; t < types.length; t++) {
+            names[t] = types[t].name().getBytes(StandardCharsets.UTF_8);
+            headerSize += 2 + names[t].length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(headerSize);
+        header.putInt(MAGIC).putInt(VERSION).putLong(newFingerprint).putShort((short) types.length);
+        for (byte[] name : names) {
+            header.putShort((short) name.length).put(name);
+        }
+        header.flip();
+        channel.truncate(0);
+        writeFully(header, 0);
+        fingerprint = newFingerprint;
+        columns = types;
+        appendPosition = header.limit();
+        entries.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+    }
+
+    private Entry readEntry(ByteBuffer content, int position) {
+        int p = position + 5;
+        int pathLength = content.getShort(p) & 0xFFFF;
+        p += 2;
+        byte[] pathBytes = new byte[pathLength];
+        for (int k = 0; k < pathLength; k++) {
+            pathBytes[k] = content.get(p + k);
+        }
+        p += pathLength;
+        long contentHash = content.getLong(p);
+        long size = content.getLong(p + 8);
+        long modified = content.getLong(p + 16);
+        int lineCount = content.getInt(p + 24);
+        p += 28;
+        int[] counts = new int[CodeAnalyzer.ViolationType.values().length];
+        for (CodeAnalyzer.ViolationType type : columns) {
+            // Types added since the record was written count as 0, removed ones are dropped
+            if (type != null) counts[type.ordinal()] = content.getInt(p);
+            p += 4;
+        }
+        int literalCount = content.getInt(p);
+        return new Entry(new String(pathBytes, StandardCharsets.UTF_8), contentHash, size, modified,
+            lineCount, counts, literalCount, position, p + 4);
+    }
+
+    /**
+     * Fingerprint of the analyzer whose results the index holds
+     */
+    public synchronized long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns the summary of the given file, or null
+     */
+    public synchronized Entry get(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Returns all live summaries
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * Returns the files with the most violations, most first
+     */
+    public synchronized List<Entry> topOffenders(int limit) {
+        return entries.values().stream()
+            .sorted(Comparator.comparingInt(Entry::getTotalViolations).reversed())
+            .limit(limit)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the literal hashes of an entry from the index file
+     */
+    public synchronized long[] getLiteralHashes(Entry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 * entry.literalCount);
+        readFully(buffer, entry.literalOffset);
+        buffer.flip();
+        long[] hashes = new long[entry.literalCount];
+        for (int k = 0; k < hashes.length; k++) {
+            hashes[k] = buffer.getLong();
+        }
+        return hashes;
+    }
+
+    /**
+     * Stores a new summary for the file, replacing any previous one
+     */
+    public synchronized Entry put(String path, long contentHash, long size, long modified, int lineCount,
+                                  Map<CodeAnalyzer.ViolationType, Integer> violationCounts, long[] literalHashes) throws IOException {
+        CodeAnalyzer.ViolationType[] types = CodeAnalyzer.ViolationType.values();
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        if (pathBytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Path too long for the index: " + path);
+        }
+        int length = 1 + 2 + pathBytes.length + 8 * 3 + 4 + 4 * types.length + 4 + 8 * literalHashes.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length).put((byte) 0).putShort((short) pathBytes.length).put(pathBytes);
+        record.putLong(contentHash).putLong(size).putLong(modified).putInt(lineCount);
+        int[] counts = new int[types.length];
+        for (CodeAnalyzer.ViolationType type : types) {
+            counts[type.ordinal()] = violationCounts.getOrDefault(type, 0);
+            record.putInt(counts[type.ordinal()]);
+        }
+        int literalOffset = (int) appendPosition + record.position() + 4;
+        record.putInt(literalHashes.length);
+        for (long hash : literalHashes) {
+            record.putLong(hash);
+        }
+        record.flip();
+        long position = appendPosition;
+        writeFully(record, position);
+        appendPosition += record.limit();
+        liveBytes += record.limit();
+
+        Entry entry = new Entry(path, contentHash, size, modified, lineCount, counts,
+            literalHashes.length, (int) position, literalOffset);
+        Entry replaced = entries.put(path, entry);
+        if (replaced != null) {
+            markDead(replaced);
+        }
+        return entry;
+    }
+
+    /**
+     * Drops the summary of a file that no longer exists
+     */
+    public synchronized void remove(String path) throws IOException {
+        Entry removed = entries.remove(path);
+        if (removed != null) {
+            markDead(removed);
+        }
+    }
+
+    private void markDead(Entry entry) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        readFully(lengthBuffer, entry.recordOffset);
+        lengthBuffer.flip();
+        int recordBytes = 4 + lengthBuffer.getInt();
+        writeFully(ByteBuffer.wrap(new byte[] {FLAG_DEAD}), entry.recordOffset + 4);
+        liveBytes -= recordBytes;
+        deadBytes += recordBytes;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of index file: " + indexFile);
+            }
+            position += read;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Flushes the appended records to disk
+     */
+    public synchronized void flush() throws IOException {
+        channel.truncate(appendPosition);
+        channel.force(false);
+    }
+
+    /**
+     * Rewrites the index with only the live records when dead records outweigh them
+     */
+    public synchronized boolean compactIfWasteful() throws IOException {
+        if (deadBytes < MIN_COMPACT_BYTES || deadBytes < liveBytes) return false;
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrites the index with only the live records and atomically replaces the old file
+     */
+    public synchronized void compact() throws IOException {
+        List<Entry> live = new ArrayList<>(entries.values());
+        List<long[]> literals = new ArrayList<>();
+        for (Entry entry : live) {
+            literals.add(getLiteralHashes(entry));
+        }
+        Path temp = Files.createTempFile(indexFile.toAbsolutePath().getParent(), indexFile.getFileName().toString(), ".tmp");
+        ProjectIndex fresh = new ProjectIndex(temp);
+        try {
+            fresh.load();
+            fresh.reset(fingerprint);
+            for (int k = 0; k < live.size(); k++) {
+                Entry entry = live.get(k);
+                fresh.put(entry.path, entry.contentHash, entry.size, entry.modified, entry.lineCount,
+                    entry.getViolationCounts(), literals.get(k));
+            }
+            fresh.flush();
+            fresh.close();
+            close();
+            try {
+                Files.move(temp, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            fresh.close();
+            Files.deleteIfExists(temp);
+        }
+        entries.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+        load();
+    }
+
+    /**
+     * Brings the index up to date with the .java files under the root. Files whose size and
+     * modification time are unchanged are skipped; files whose content hash is unchanged are not
+     * re-analyzed. An index built by an analyzer with another fingerprint is emptied first, so
+     * every file is analyzed again. Returns the number of files (re-)analyzed.
+     */
+    public int reindex(Path root, CodeAnalyzer analyzer) throws IOException {
+        long analyzerFingerprint = analyzer.getFingerprint();
+        synchronized (this) {
+            if (fingerprint != analyzerFingerprint) {
+                reset(analyzerFingerprint);
+            }
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(p -> p.toString().endsWith(".java") && Files.isRegularFile(p))
+                .collect(Collectors.toList());
+        }
+        Set<String> seen = new HashSet<>();
+        int analyzed = 0;
+        for (Path file : files) {
+            String key = relativeName(root, file);
+            seen.add(key);
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            Entry existing = get(key);
+            if (existing != null && existing.size == size && existing.modified == modified) continue;
+
+            // One read serves both the hash and the analysis, so they always describe the same content
+            SourceFile source = SourceFile.read(file);
+            long contentHash = Hashing.hash64(source.getContent());
+            if (existing != null && existing.contentHash == contentHash) {
+                // Touched but unchanged: carry the summary over with the new timestamp
+                put(key, contentHash, size, modified, existing.lineCount, existing.getViolationCounts(),
+                    getLiteralHashes(existing));
+                continue;
+            }
+            List<String> lines = source.getLines();
+            CodeAnalyzer.AnalysisResult result = analyzer.analyzeSource(source);
+            RepeatedStringDetector literals = new RepeatedStringDetector();
+            literals.addLines(lines);
+            put(key, contentHash, size, modified, lines.size(), result.getViolationCounts(), literals.literalHashes());
+            analyzed++;
+        }
+        for (String key : keys()) {
+            if (!seen.contains(key)) {
+                remove(key);
+            }
+        }
+        compactIfWasteful();
+        flush();
+        return analyzed;
+    }
+
+    private synchronized List<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Path of the file relative to the root, with '/' separators
+     */
+    public static String relativeName(Path root, Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    public synchronized void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Summary of one source file
+     */
+    public static class Entry {
+        private final String path;
+        private final long contentHash;
+        private final long size;
+        private final long modified;
+        private final int lineCount;
+        private final int[] counts;
+        private final int literalCount;
+        private final int recordOffset;
+        private final int literalOffset;
+
+        Entry(String path, long contentHash, long size, long modified, int lineCount, int[] counts,
+              int literalCount, int recordOffset, int literalOffset) {
+            this.path = path;
+            this.contentHash = contentHash;
+            this.size = size;
+            this.modified = modified;
+            this.lineCount = lineCount;
+            this.counts = counts;
+            this.literalCount = literalCount;
+            this.recordOffset = recordOffset;
+            this.literalOffset = literalOffset;
+        }
+
+        public String getPath() { return path; }
+        public long getContentHash() { return contentHash; }
+        public long getSize() { return size; }
+        public long getModified() { return modified; }
+        public int getLineCount() { return lineCount; }
+        public int getLiteralCount() { return literalCount; }
+
+        public int getCount(CodeAnalyzer.ViolationType type) {
+            return counts[type.ordinal()];
+        }
+
+        public int getTotalViolations() {
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        public Map<CodeAnalyzer.ViolationType, Integer> getViolationCounts() {
+            Map<CodeAnalyzer.ViolationType, Integer> result = new EnumMap<>(CodeAnalyzer.ViolationType.class);
+            for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+                if (counts[type.ordinal()] > 0) result.put(type, counts[type.ordinal()]);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.javareader.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Two-pass repeated string literal detector.
+ * The first pass only counts 64-bit hashes of the literals in a primitive table and remembers which
+ * lines hold literals; the second pass re-lexes just those lines and builds line lists for the
+ * literals whose hash was seen at least twice. Hash collisions are resolved there by the real text.
+ */
+public class RepeatedStringDetector {
+
+    // Literals this short are likely not meaningful
+    static final int MIN_LITERAL_LENGTH = 3;
+
+    private final JavaLexer lexer = new JavaLexer();
+    private final LongCountTable counts = new LongCountTable();
+    // Packed (lineNumber << 2 | lexer start state) of every line holding a literal
+    private int[] literalLines = new int[64];
+    private int literalLineCount;
+
+    /**
+     * First pass over a whole file: lexes and counts every line
+     */
+    public void addLines(List<String> lines) {
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        int state = JavaLexer.STATE_CODE;
+        for (int i = 0; i < lines.size(); i++) {
+            int startState = state;
+            state = lexer.lexLine(lines.get(i), state, tokens);
+            addLine(lines.get(i), i + 1, startState, tokens);
+        }
+    }
+
+    /**
+     * First pass: counts the literals of one lexed line
+     */
+    public void addLine(CharSequence line, int lineNumber, int startState, JavaLexer.Tokens tokens) {
+        boolean hasLiteral = false;
+        for (int t = 0; t < tokens.size(); t++) {
+            if (tokens.type(t) != JavaLexer.TokenType.STRING) continue;
+            int start = tokens.start(t) + 1;
+            int end = literalEnd(line, start, tokens.end(t));
+            if (end - start >= MIN_LITERAL_LENGTH) {
+                counts.increment(Hashing.hash64(line, start, end));
+                hasLiteral = true;
+            }
+        }
+        if (hasLiteral) {
+            if (literalLineCount == literalLines.length) {
+                literalLines = Arrays.copyOf(literalLines, literalLineCount * 2);
+            }
+            literalLines[literalLineCount++] = lineNumber << 2 | startState;
+        }
+    }
+
+    /**
+     * Second pass: returns the literals (source text between the quotes) that occur more than once,
+     * with the 1-based line number of every occurrence. {@code lineByNumber} must return the same
+     * lines that were passed to {@link #addLine}.
+     */
+    public Map<String, List<Integer>> findRepeated(IntFunction<String> lineByNumber) {
+        Map<String, List<Integer>> candidates = new HashMap<>();
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        for (int k = 0; k < literalLineCount; k++) {
+            int lineNumber = literalLines[k] >>> 2;
+            String line = lineByNumber.apply(lineNumber);
+            lexer.lexLine(line, literalLines[k] & 3, tokens);
+            for (int t = 0; t < tokens.size(); t++) {
+                if (tokens.type(t) != JavaLexer.TokenType.STRING) continue;
+                int start = tokens.start(t) + 1;
+                int end = literalEnd(line, start, tokens.end(t));
+                if (end - start >= MIN_LITERAL_LENGTH && counts.count(Hashing.hash64(line, start, end)) >= 2) {
+                    candidates.computeIfAbsent(line.substring(start, end), key -> new ArrayList<>()).add(lineNumber);
+                }
+            }
+        }
+        // Distinct literals sharing a hash both became candidates; drop the ones that really occur once
+        candidates.values().removeIf(lineNumbers -> lineNumbers.size() < 2);
+        return candidates;
+    }
+
+    /**
+     * Returns the distinct literal hashes counted so far
+     */
+    public long[] literalHashes() {
+        return counts.keys();
+    }
+
+    /**
+     * Number of distinct literal hashes counted so far
+     */
+    public int distinctLiterals() {
+        return counts.size();
+    }
+
+    // Unterminated literals run to the end of the line without a closing quote
+    private static int literalEnd(CharSequence line, int contentStart, int tokenEnd) {
+        return tokenEnd > contentStart && line.charAt(tokenEnd - 1) == '"' ? tokenEnd - 1 : tokenEnd;
+    }
+}
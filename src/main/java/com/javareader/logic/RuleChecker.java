@@ -1,7 +1,6 @@
 package com.javareader.logic;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * Implements specific code review rules for Java files
@@ -10,14 +9,20 @@ public class RuleChecker {
     
     private static final int MAX_LINE_LENGTH = 120;
     private static final int MAX_INDENTATION_SPACES = 2;
-    private static final Pattern CAMEL_CASE_PATTERN = Pattern.compile("^[a-z][a-zA-Z0-9]*$");
-    private static final Pattern STRING_LITERAL_PATTERN = Pattern.compile("\"([^\"]*)\"");
+    private final JavaLexer lexer = new JavaLexer();
     
     /**
      * Checks if a line exceeds the maximum allowed length
      */
     public boolean checkLineLength(String line) {
-        return line.length() > MAX_LINE_LENGTH;
+        return checkLineLength(line.length());
+    }
+
+    /**
+     * Checks a line length already measured in chars, e.g. by LineMetrics
+     */
+    public boolean checkLineLength(int length) {
+        return length > MAX_LINE_LENGTH;
     }
     
     /**
@@ -86,6 +91,26 @@ public class RuleChecker {
         return 0;
     }
     
+    /**
+     * Same as {@link #checkIndentationType(String, List, int)} on scanned line metrics;
+     * {@code previousNonBlank} is the index of the closest earlier non-blank line, or -1
+     */
+    public int checkIndentationType(LineMetrics metrics, int index, int previousNonBlank) {
+        if (metrics.isBlank(index) || previousNonBlank < 0) {
+            return 0;
+        }
+        if (metrics.indentation(index) - metrics.indentation(previousNonBlank) > 2) {
+            return 1; // propagate
+        }
+        if (metrics.firstChar(index) == '.') {
+            byte previousLast = metrics.lastChar(previousNonBlank);
+            if (!(previousLast == ')' || previousLast == ']' || previousLast == '}' || previousLast == ',' || previousLast == ';')) {
+                return 2; // dot-at-start, only mark this line
+            }
+        }
+        return 0;
+    }
+
     /**
      * Gets the indentation level of a line (number of leading spaces)
      */
@@ -128,89 +153,134 @@ public class RuleChecker {
         return line.trim().isEmpty();
     }
     
+    /**
+     * Checks if the last token of a lexed line, ignoring comments, is an operator ending in '='
+     * (an assignment or comparison continued on the next line)
+     */
+    public boolean checkEndsWithEquals(CharSequence line, JavaLexer.Tokens tokens) {
+        for (int t = tokens.size() - 1; t >= 0; t--) {
+            JavaLexer.TokenType type = tokens.type(t);
+            if (type == JavaLexer.TokenType.WHITESPACE || type == JavaLexer.TokenType.COMMENT) continue;
+            return type == JavaLexer.TokenType.OPERATOR && line.charAt(tokens.end(t) - 1) == '=';
+        }
+        return false;
+    }
+
     /**
      * Checks if variable/method names follow camelCase conventions
      */
     public boolean checkNamingConventions(String line) {
-        // Look for variable declarations and method calls
-        String trimmedLine = line.trim();
-        
-        // Check for variable declarations: type variableName = value;
-        if (trimmedLine.contains("=") && !trimmedLine.contains("==")) {
-            String[] parts = trimmedLine.split("=");
-            if (parts.length >= 2) {
-                String beforeEquals = parts[0].trim();
-                String[] beforeParts = beforeEquals.split("\\s+");
-                if (beforeParts.length >= 2) {
-                    String variableName = beforeParts[beforeParts.length - 1];
-                    if (!isValidCamelCase(variableName)) {
-                        return true;
-                    }
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        lexer.lexLine(line, JavaLexer.STATE_CODE, tokens);
+        return checkNamingConventions(line, tokens);
+    }
+
+    /**
+     * Checks the declared variable (the identifier right before the first '=') and the first
+     * called or declared method (the identifier right before the first '(') on an already lexed line.
+     * Keywords, annotations, qualified calls, constructors and names inside strings or comments are skipped;
+     * constants declared {@code final} may use UPPER_SNAKE_CASE.
+     */
+    public boolean checkNamingConventions(CharSequence line, JavaLexer.Tokens tokens) {
+        int previous = -1;
+        int beforePrevious = -1;
+        int significantCount = 0;
+        boolean isFinal = false;
+        boolean declarationChecked = false;
+        boolean callChecked = false;
+        for (int t = 0; t < tokens.size() && !(declarationChecked && callChecked); t++) {
+            JavaLexer.TokenType type = tokens.type(t);
+            if (type == JavaLexer.TokenType.WHITESPACE || type == JavaLexer.TokenType.COMMENT) continue;
+            int start = tokens.start(t);
+            int end = tokens.end(t);
+            if (!declarationChecked && type == JavaLexer.TokenType.OPERATOR && end - start == 1 && line.charAt(start) == '=') {
+                declarationChecked = true;
+                // Declaration: at least a type and a name before the '=', e.g. "int count =" or "List<String> names ="
+                if (significantCount >= 2 && tokens.type(previous) == JavaLexer.TokenType.IDENTIFIER
+                        && isTypeEnd(line, tokens, beforePrevious)
+                        && !isValidCamelCase(line, tokens.start(previous), tokens.end(previous))
+                        && !(isFinal && isConstantName(line, tokens.start(previous), tokens.end(previous)))) {
+                    return true;
                 }
-            }
-        }
-        
-        // Check for method calls: methodName(
-        if (trimmedLine.contains("(") && !trimmedLine.contains("if") && 
-            !trimmedLine.contains("for") && !trimmedLine.contains("while")) {
-            String beforeParen = trimmedLine.substring(0, trimmedLine.indexOf("(")).trim();
-            String[] parts = beforeParen.split("\\s+");
-            if (parts.length > 0) {
-                String methodName = parts[parts.length - 1];
-                if (!isValidCamelCase(methodName) && !methodName.contains(".")) {
+            } else if (!callChecked && type == JavaLexer.TokenType.PUNCTUATION && line.charAt(start) == '(') {
+                callChecked = true;
+                if (previous >= 0 && tokens.type(previous) == JavaLexer.TokenType.IDENTIFIER
+                        && !isQualifiedOrConstructed(line, tokens, beforePrevious)
+                        && !Character.isUpperCase(line.charAt(tokens.start(previous)))
+                        && !isValidCamelCase(line, tokens.start(previous), tokens.end(previous))) {
                     return true;
                 }
+            } else if (type == JavaLexer.TokenType.KEYWORD && JavaLexer.regionEquals(line, start, end, "final")) {
+                isFinal = true;
             }
+            beforePrevious = previous;
+            previous = t;
+            significantCount++;
         }
-        
         return false;
     }
-    
+
+    // A type name, primitive type, generic '>' or array ']' can precede a declared name
+    private static boolean isTypeEnd(CharSequence line, JavaLexer.Tokens tokens, int t) {
+        if (t < 0) return false;
+        JavaLexer.TokenType type = tokens.type(t);
+        if (type == JavaLexer.TokenType.IDENTIFIER || type == JavaLexer.TokenType.KEYWORD) return true;
+        char last = line.charAt(tokens.end(t) - 1);
+        return last == '>' || last == ']';
+    }
+
+    // "obj.method(" and "new Type(" name something other than a method declared or called here
+    private static boolean isQualifiedOrConstructed(CharSequence line, JavaLexer.Tokens tokens, int t) {
+        if (t < 0) return false;
+        int start = tokens.start(t);
+        int end = tokens.end(t);
+        return (tokens.type(t) == JavaLexer.TokenType.PUNCTUATION && line.charAt(start) == '.')
+                || (tokens.type(t) == JavaLexer.TokenType.OPERATOR && JavaLexer.regionEquals(line, start, end, "::"))
+                || (tokens.type(t) == JavaLexer.TokenType.KEYWORD && JavaLexer.regionEquals(line, start, end, "new"));
+    }
+
     /**
      * Validates if a name follows camelCase convention
      */
-    private boolean isValidCamelCase(String name) {
-        if (name == null || name.isEmpty()) {
+    private boolean isValidCamelCase(CharSequence name, int from, int to) {
+        if (from >= to) {
             return false;
         }
-        
-        // Remove any trailing characters that might be part of the declaration
-        name = name.replaceAll("[;,\\s]+$", "");
-        
-        // Check if it's a valid camelCase identifier
-        return CAMEL_CASE_PATTERN.matcher(name).matches();
+        char first = name.charAt(from);
+        if (first < 'a' || first > 'z') {
+            return false;
+        }
+        for (int k = from + 1; k < to; k++) {
+            char c = name.charAt(k);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // UPPER_SNAKE_CASE, the convention for static final constants
+    private static boolean isConstantName(CharSequence name, int from, int to) {
+        char first = name.charAt(from);
+        if (first < 'A' || first > 'Z') {
+            return false;
+        }
+        for (int k = from + 1; k < to; k++) {
+            char c = name.charAt(k);
+            if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_')) {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
      * Finds repeated string literals in the code
      */
     public Map<String, List<Integer>> findRepeatedStrings(List<String> lines) {
-        Map<String, List<Integer>> stringOccurrences = new HashMap<>();
-        Map<String, List<Integer>> repeatedStrings = new HashMap<>();
-        
-        // Find all string literals and their line numbers
-        for (int i = 0; i < lines.size(); i++) {
-            String line = lines.get(i);
-            java.util.regex.Matcher matcher = STRING_LITERAL_PATTERN.matcher(line);
-            
-            while (matcher.find()) {
-                String stringLiteral = matcher.group(1);
-                // Skip empty strings and very short strings (likely not meaningful)
-                if (stringLiteral.length() > 2) {
-                    stringOccurrences.computeIfAbsent(stringLiteral, k -> new ArrayList<>())
-                        .add(i + 1); // Line numbers are 1-indexed
-                }
-            }
-        }
-        
-        // Find strings that appear more than once
-        for (Map.Entry<String, List<Integer>> entry : stringOccurrences.entrySet()) {
-            if (entry.getValue().size() >= 2) {
-                repeatedStrings.put(entry.getKey(), entry.getValue());
-            }
-        }
-        
-        return repeatedStrings;
+        RepeatedStringDetector detector = new RepeatedStringDetector();
+        detector.addLines(lines);
+        return detector.findRepeated(lineNumber -> lines.get(lineNumber - 1));
     }
     
     /**
@@ -246,6 +316,13 @@ public class RuleChecker {
         String curr = lines.get(currentLineIndex).trim();
         return prev.isEmpty() && curr.isEmpty();
     }
+
+    /**
+     * Same as {@link #checkConsecutiveEmptyLines(List, int)} on scanned line metrics
+     */
+    public boolean checkConsecutiveEmptyLines(LineMetrics metrics, int currentLineIndex) {
+        return currentLineIndex > 0 && metrics.isBlank(currentLineIndex - 1) && metrics.isBlank(currentLineIndex);
+    }
     
     /**
      * Propagates improper indentation: if a line is marked as improper indentation,
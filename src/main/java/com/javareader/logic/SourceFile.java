@@ -0,0 +1,103 @@
+package com.javareader.logic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A source file read from disk once: its raw bytes, detected format and decoded lines. The
+ * analyzer checks the lines, and callers that need the content or the lines afterwards, such as
+ * the project index and the duplicate-block index, reuse them instead of reading the file again.
+ */
+public class SourceFile {
+
+    // Bytes read between two cancellation checks
+    private static final int READ_BLOCK = 1 << 20;
+
+    private final Path path;
+    private final byte[] content;
+    private final TextFileFormat format;
+    private final List<String> lines;
+
+    private SourceFile(Path path, byte[] content, TextFileFormat format, List<String> lines) {
+        this.path = path;
+        this.content = content;
+        this.format = format;
+        this.lines = lines;
+    }
+
+    /**
+     * Reads the whole file into memory with a single read and decodes it
+     */
+    public static SourceFile read(Path path) throws IOException {
+        return read(path, CodeAnalyzer.NO_PROGRESS);
+    }
+
+    /**
+     * Reads the whole file into memory and decodes it, checking the listener for cancellation
+     * between blocks. Throws CancellationException once it reports cancellation.
+     */
+    public static SourceFile read(Path path, CodeAnalyzer.ProgressListener listener) throws IOException {
+        byte[] content = readBytes(path, listener);
+        TextFileFormat format = TextFileFormat.detect(ByteBuffer.wrap(content));
+        List<String> lines = format.decodeLines(content);
+        if (listener.isCancelled()) {
+            throw new CancellationException();
+        }
+        return new SourceFile(path, content, format, lines);
+    }
+
+    private static byte[] readBytes(Path path, CodeAnalyzer.ProgressListener listener) throws IOException {
+        if (listener == CodeAnalyzer.NO_PROGRESS) {
+            return Files.readAllBytes(path);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            long size = Files.size(path);
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("File too large to read: " + path);
+            }
+            byte[] content = new byte[(int) size];
+            int filled = 0;
+            while (true) {
+                if (listener.isCancelled()) {
+                    throw new CancellationException();
+                }
+                if (filled == content.length) {
+                    // The file grew since its size was taken
+                    int next = in.read();
+                    if (next < 0) break;
+                    content = Arrays.copyOf(content, Math.max(2 * content.length, READ_BLOCK));
+                    content[filled++] = (byte) next;
+                }
+                int read = in.read(content, filled, Math.min(READ_BLOCK, content.length - filled));
+                if (read < 0) break;
+                filled += read;
+            }
+            return filled == content.length ? content : Arrays.copyOf(content, filled);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public TextFileFormat getFormat() {
+        return format;
+    }
+
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * The file content as read, including any byte-order mark; read-only
+     */
+    public ByteBuffer getContent() {
+        return ByteBuffer.wrap(content).asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,213 @@
+package com.javareader.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * On-disk format of a text file: charset, byte-order mark, line separator and whether the
+ * last line is terminated. Detected when a file is loaded so it can be written back unchanged.
+ */
+public class TextFileFormat {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final Charset charset;
+    private final boolean bom;
+    private final String lineSeparator;
+    private final boolean endsWithLineSeparator;
+
+    public TextFileFormat(Charset charset, boolean bom, String lineSeparator, boolean endsWithLineSeparator) {
+        this.charset = charset;
+        this.bom = bom;
+        this.lineSeparator = lineSeparator;
+        this.endsWithLineSeparator = endsWithLineSeparator;
+    }
+
+    /**
+     * Format used for text that did not come from a file: UTF-8, no BOM, '\n' line endings
+     */
+    public static TextFileFormat defaultFormat() {
+        return new TextFileFormat(StandardCharsets.UTF_8, false, "\n", true);
+    }
+
+    /**
+     * Scans the file once with a fixed-size buffer. The charset is UTF-8 when the bytes decode
+     * strictly as UTF-8, otherwise ISO-8859-1. The line separator is the most frequent of
+     * "\r\n", "\n" and "\r".
+     */
+    public static TextFileFormat detect(Path path) throws IOException {
+        Detector detector = new Detector();
+        ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (true) {
+                // Bytes before this position are an incomplete UTF-8 sequence carried over from the last read
+                int fresh = bytes.position();
+                boolean endOfInput = channel.read(bytes) < 0;
+                bytes.flip();
+                detector.feed(bytes, fresh, endOfInput);
+                if (endOfInput) break;
+                if (detector.utf8) {
+                    bytes.compact();
+                } else {
+                    bytes.clear();
+                }
+            }
+        }
+        return detector.finish();
+    }
+
+    /**
+     * Same as {@link #detect(Path)} on content already in memory; the buffer is not modified
+     */
+    public static TextFileFormat detect(ByteBuffer content) {
+        Detector detector = new Detector();
+        ByteBuffer bytes = content.duplicate();
+        detector.feed(bytes, bytes.position(), true);
+        return detector.finish();
+    }
+
+    /**
+     * Decodes file content in this format into lines, split like Files.readAllLines and without
+     * the byte-order mark
+     */
+    public List<String> decodeLines(byte[] content) {
+        int offset = bom && content.length >= UTF8_BOM.length && content[0] == UTF8_BOM[0]
+                && content[1] == UTF8_BOM[1] && content[2] == UTF8_BOM[2] ? UTF8_BOM.length : 0;
+        String text = new String(content, offset, content.length - offset, charset);
+        List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int k = 0; k < text.length(); k++) {
+            char c = text.charAt(k);
+            if (c == '\n' || c == '\r') {
+                lines.add(text.substring(lineStart, k));
+                if (c == '\r' && k + 1 < text.length() && text.charAt(k + 1) == '\n') k++;
+                lineStart = k + 1;
+            }
+        }
+        if (lineStart < text.length()) {
+            lines.add(text.substring(lineStart));
+        }
+        return lines;
+    }
+
+    /**
+     * Decides the format from bytes fed in order
+     */
+    private static class Detector {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        boolean utf8 = true;
+        private boolean bom = false;
+        private boolean firstRead = true;
+        private boolean previousCr = false;
+        private byte last = 0;
+        private long crlf, lf, cr;
+
+        // Counts the bytes from {@code fresh} on and decodes the remaining ones, leaving an incomplete tail
+        void feed(ByteBuffer bytes, int fresh, boolean endOfInput) {
+            if (firstRead) {
+                bom = startsWithBom(bytes);
+                firstRead = false;
+            }
+            // Separators are single bytes in both candidate charsets, so count them on the raw bytes
+            for (int i = fresh; i < bytes.limit(); i++) {
+                byte b = bytes.get(i);
+                if (b == '\n') {
+                    if (previousCr) {
+                        crlf++;
+                    } else {
+                        lf++;
+                    }
+                } else if (previousCr) {
+                    cr++;
+                }
+                previousCr = b == '\r';
+                last = b;
+            }
+            if (utf8) {
+                CoderResult result;
+                do {
+                    chars.clear();
+                    result = decoder.decode(bytes, chars, endOfInput);
+                } while (result.isOverflow());
+                if (result.isError()) {
+                    utf8 = false;
+                }
+            }
+        }
+
+        TextFileFormat finish() {
+            if (previousCr) cr++;
+            if (utf8) {
+                chars.clear();
+                utf8 = !decoder.flush(chars).isError();
+            }
+            String separator = "\n";
+            if (crlf > 0 && crlf >= lf && crlf >= cr) {
+                separator = "\r\n";
+            } else if (cr > lf) {
+                separator = "\r";
+            }
+            boolean terminated = last == '\n' || last == '\r';
+            return new TextFileFormat(utf8 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1,
+                    utf8 && bom, separator, terminated);
+        }
+    }
+
+    private static boolean startsWithBom(ByteBuffer bytes) {
+        if (bytes.remaining() < UTF8_BOM.length) return false;
+        for (int i = 0; i < UTF8_BOM.length; i++) {
+            if (bytes.get(bytes.position() + i) != UTF8_BOM[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the file as lines in this format, without the byte-order mark
+     */
+    public List<String> readLines(Path path) throws IOException {
+        List<String> lines = Files.readAllLines(path, charset);
+        if (bom && !lines.isEmpty() && lines.get(0).startsWith("\uFEFF")) {
+            lines.set(0, lines.get(0).substring(1));
+        }
+        return lines;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public boolean hasBom() {
+        return bom;
+    }
+
+    public String getLineSeparator() {
+        return lineSeparator;
+    }
+
+    public boolean endsWithLineSeparator() {
+        return endsWithLineSeparator;
+    }
+
+    /**
+     * Returns the byte-order mark to write before the content, or an empty array
+     */
+    public byte[] getBomBytes() {
+        return bom ? UTF8_BOM.clone() : new byte[0];
+    }
+}
@@ -0,0 +1,220 @@
+package com.javareader.logic;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache whose entries carry an approximate heap cost in bytes. Entries are
+ * evicted oldest first whenever the total cost exceeds the budget, less the part reserved for
+ * memory the owner holds outside the cache, such as the view on screen. While watching a
+ * {@link LowMemorySignal}, each signal halves the cache instead of waiting for the budget, so
+ * cached views give way before the application runs out of memory.
+ */
+public class ViewCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long budget;
+    private long reserved;
+    private long weight;
+    private Runnable unsubscribe;
+
+    public ViewCache(long budgetBytes) {
+        this.budget = budgetBytes;
+    }
+
+    /**
+     * Returns the value and marks it as most recently used, or null if it is not cached
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Caches the value with its approximate cost, evicting older entries to stay within the budget.
+     * A value costing more than the whole budget is not cached.
+     */
+    public synchronized void put(K key, V value, long cost) {
+        remove(key);
+        if (cost > available()) return;
+        entries.put(key, new Entry<>(value, cost));
+        weight += cost;
+        trimTo(available());
+    }
+
+    /**
+     * True if the key is cached; unlike {@link #get} it does not mark the entry as used
+     */
+    public synchronized boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry == null) return null;
+        weight -= entry.cost;
+        return entry.value;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Total cost of the cached entries
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    public synchronized void setBudget(long budgetBytes) {
+        this.budget = budgetBytes;
+        trimTo(available());
+    }
+
+    /**
+     * Sets the part of the budget taken by memory held outside the cache, evicting entries to fit
+     * what is left
+     */
+    public synchronized void setReserved(long reservedBytes) {
+        this.reserved = Math.max(0, reservedBytes);
+        trimTo(available());
+    }
+
+    public synchronized long getReserved() {
+        return reserved;
+    }
+
+    private long available() {
+        return Math.max(0, budget - reserved);
+    }
+
+    /**
+     * Evicts least recently used entries until the total cost is at most the target
+     */
+    public synchronized void trimTo(long targetWeight) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (weight > targetWeight && iterator.hasNext()) {
+            weight -= iterator.next().cost;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Reacts to memory pressure by dropping the older half of the cache
+     */
+    public synchronized void onLowMemory() {
+        trimTo(weight / 2);
+    }
+
+    /**
+     * Calls {@link #onLowMemory} on every signal until {@link #unwatch}; a cache watches at most one
+     * signal, so a second call is ignored
+     */
+    public synchronized void watch(LowMemorySignal signal) {
+        if (unsubscribe != null) return;
+        unsubscribe = signal.subscribe(this::onLowMemory);
+    }
+
+    /**
+     * Stops reacting to the watched signal
+     */
+    public synchronized void unwatch() {
+        if (unsubscribe == null) return;
+        unsubscribe.run();
+        unsubscribe = null;
+    }
+
+    public synchronized boolean isWatching() {
+        return unsubscribe != null;
+    }
+
+    /**
+     * Source of low-memory notifications
+     */
+    public interface LowMemorySignal {
+        /**
+         * Starts calling the listener on low memory; the returned action stops it
+         */
+        Runnable subscribe(Runnable listener);
+    }
+
+    /**
+     * Signals when a heap memory pool crosses the given fraction of its maximum. Usage thresholds
+     * are JVM-wide, so a lower threshold already set by someone else is kept, and the thresholds
+     * stay armed after unsubscribing.
+     */
+    public static LowMemorySignal heapThreshold(double fraction) {
+        return listener -> {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                long max = pool.getUsage().getMax();
+                if (pool.getType() != MemoryType.HEAP || max <= 0) continue;
+                long threshold = (long) (max * fraction);
+                if (pool.isUsageThresholdSupported()) {
+                    long current = pool.getUsageThreshold();
+                    if (current == 0 || current > threshold) pool.setUsageThreshold(threshold);
+                }
+                if (pool.isCollectionUsageThresholdSupported()) {
+                    long current = pool.getCollectionUsageThreshold();
+                    if (current == 0 || current > threshold) pool.setCollectionUsageThreshold(threshold);
+                }
+            }
+            NotificationListener heapListener = (Notification notification, Object handback) -> {
+                String type = notification.getType();
+                if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(type)
+                        || MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+                    listener.run();
+                }
+            };
+            NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+            emitter.addNotificationListener(heapListener, null, null);
+            return () -> {
+                try {
+                    emitter.removeNotificationListener(heapListener);
+                } catch (ListenerNotFoundException e) {
+                    // Already gone
+                }
+            };
+        };
+    }
+
+    /**
+     * Approximate heap cost of a list of lines: object headers, references and two bytes per char
+     */
+    public static long estimateLines(List<String> lines) {
+        long cost = 16 + 8L * lines.size();
+        for (String line : lines) {
+            cost += 40 + 2L * line.length();
+        }
+        return cost;
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long cost;
+
+        Entry(V value, long cost) {
+            this.value = value;
+            this.cost = cost;
+        }
+    }
+}
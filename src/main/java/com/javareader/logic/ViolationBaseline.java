@@ -0,0 +1,229 @@
+package com.javareader.logic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A recorded set of known violations, so that later runs report only new ones.
+ *
+ * Each violation is reduced to a 64-bit fingerprint of its file's project-relative path, type,
+ * whitespace-normalized line and the normalized neighbouring non-blank lines. Line numbers are not
+ * part of it, so code moving up or down keeps its fingerprint; editing the line or its neighbours
+ * makes it new. Fingerprints are kept per file as a multiset in a LongCountTable (about 12 bytes
+ * per entry), so a baseline of a million violations costs one hash probe per violation to match.
+ * Identical fingerprints are counted up to {@link LongCountTable#MAX_COUNT}. Recording a file
+ * again replaces what was recorded for it before.
+ */
+public class ViolationBaseline {
+
+    private static final int MAGIC = 0x4A524242; // "JRBB"
+    private static final int VERSION = 2;
+    private static final long COMBINE = 0x9E3779B97F4A7C15L;
+    private static final long BLANK_HASH = 0x2545F4914F6CDD1DL;
+
+    // Fingerprints per project-relative file path
+    private final Map<String, LongCountTable> files = new HashMap<>();
+
+    /**
+     * Records the violations of a file in place of any recorded for it before; {@code lines} are
+     * the file's lines and {@code fileName} its path as returned by {@link #fileKey}
+     */
+    public synchronized void record(String fileName, List<CodeAnalyzer.Violation> violations, List<String> lines) {
+        LongCountTable fingerprints = new LongCountTable(violations.size());
+        for (CodeAnalyzer.Violation violation : violations) {
+            fingerprints.increment(fingerprint(fileName, violation, lines));
+        }
+        if (fingerprints.size() == 0) {
+            files.remove(fileName);
+        } else {
+            files.put(fileName, fingerprints);
+        }
+    }
+
+    /**
+     * Returns the violations of a file that are not in the baseline. A fingerprint recorded n times
+     * suppresses its first n occurrences in the file.
+     */
+    public synchronized List<CodeAnalyzer.Violation> filterNew(String fileName, List<CodeAnalyzer.Violation> violations, List<String> lines) {
+        LongCountTable fingerprints = files.get(fileName);
+        if (fingerprints == null) {
+            return new ArrayList<>(violations);
+        }
+        List<CodeAnalyzer.Violation> fresh = new ArrayList<>();
+        LongCountTable seen = new LongCountTable();
+        for (CodeAnalyzer.Violation violation : violations) {
+            long fingerprint = fingerprint(fileName, violation, lines);
+            int known = fingerprints.count(fingerprint);
+            if (known == 0 || seen.increment(fingerprint) > known) {
+                fresh.add(violation);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Number of distinct fingerprints
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (LongCountTable fingerprints : files.values()) {
+            size += fingerprints.size();
+        }
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    public synchronized void clear() {
+        files.clear();
+    }
+
+    /**
+     * Key of a file in the baseline: its path relative to the project root with '/' separators, or
+     * its absolute path when it lies outside the root or there is no root. A relative path is taken
+     * as relative to the root already.
+     */
+    public static String fileKey(Path root, Path file) {
+        if (!file.isAbsolute()) {
+            return file.normalize().toString().replace('\\', '/');
+        }
+        Path absolute = file.normalize();
+        if (root != null) {
+            Path base = root.toAbsolutePath().normalize();
+            if (absolute.startsWith(base)) {
+                return base.relativize(absolute).toString().replace('\\', '/');
+            }
+        }
+        return absolute.toString().replace('\\', '/');
+    }
+
+    /**
+     * Fingerprint of a violation: file path, type, normalized line and the normalized previous and
+     * next non-blank lines
+     */
+    public static long fingerprint(String fileName, CodeAnalyzer.Violation violation, List<String> lines) {
+        int index = violation.getLineNumber() - 1;
+        String line = index >= 0 && index < lines.size() ? lines.get(index) : violation.getLine();
+        long h = Hashing.hash64(fileName, 0, fileName.length());
+        h = combine(h, violation.getType().ordinal());
+        h = combine(h, normalizedHash(line));
+        h = combine(h, neighbourHash(lines, index, -1));
+        h = combine(h, neighbourHash(lines, index, 1));
+        return h;
+    }
+
+    private static long combine(long h, long value) {
+        return Hashing.mix(h * COMBINE + value);
+    }
+
+    private static long neighbourHash(List<String> lines, int index, int step) {
+        for (int k = index + step; k >= 0 && k < lines.size(); k += step) {
+            long hash = normalizedHash(lines.get(k));
+            if (hash != BLANK_HASH) return hash;
+        }
+        return BLANK_HASH;
+    }
+
+    // Hash of the line with leading and trailing whitespace dropped and inner runs collapsed to one space
+    private static long normalizedHash(String line) {
+        if (line == null) return BLANK_HASH;
+        long h = 0;
+        boolean any = false;
+        boolean pendingSpace = false;
+        for (int k = 0; k < line.length(); k++) {
+            char c = line.charAt(k);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = any;
+                continue;
+            }
+            if (pendingSpace) {
+                h = (h ^ ' ') * COMBINE;
+                pendingSpace = false;
+            }
+            h = (h ^ c) * COMBINE;
+            any = true;
+        }
+        return any ? Hashing.mix(h) : BLANK_HASH;
+    }
+
+    /**
+     * Writes the baseline to a file, replacing it atomically
+     */
+    public synchronized void save(Path file) throws IOException {
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), "." + file.getFileName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(files.size());
+                for (Map.Entry<String, LongCountTable> entry : files.entrySet()) {
+                    LongCountTable fingerprints = entry.getValue();
+                    long[] keys = fingerprints.keys();
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(keys.length);
+                    for (long key : keys) {
+                        out.writeLong(key);
+                        out.writeByte(fingerprints.count(key));
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads a baseline written by {@link #save}
+     */
+    public static ViolationBaseline load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a baseline file: " + file.getFileName());
+            }
+            if (in.readInt() != VERSION) {
+                // Older baselines keyed files by bare name and cannot be matched any more
+                throw new IOException("Baseline from another version, record it again: " + file.getFileName());
+            }
+            int fileCount = in.readInt();
+            if (fileCount < 0) {
+                throw new IOException("Corrupt baseline file: " + file.getFileName());
+            }
+            ViolationBaseline baseline = new ViolationBaseline();
+            for (int f = 0; f < fileCount; f++) {
+                String fileName = in.readUTF();
+                int size = in.readInt();
+                if (size < 0) {
+                    throw new IOException("Corrupt baseline file: " + file.getFileName());
+                }
+                LongCountTable fingerprints = new LongCountTable(size);
+                for (int k = 0; k < size; k++) {
+                    long key = in.readLong();
+                    int count = in.readByte();
+                    for (int c = 0; c < count; c++) {
+                        fingerprints.increment(key);
+                    }
+                }
+                baseline.files.put(fileName, fingerprints);
+            }
+            return baseline;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.javareader.logic.rules;
+
+/**
+ * Rough cost of a rule per line (line and window rules) or per file (whole-file rules).
+ * Cheap line rules run first on each line; expensive whole-file rules are started first so the
+ * longest task does not run last.
+ */
+public enum Cost {
+    CHEAP,
+    MODERATE,
+    EXPENSIVE
+}
@@ -0,0 +1,49 @@
+package com.javareader.logic.rules;
+
+import com.javareader.logic.JavaLexer;
+
+import java.util.List;
+
+/**
+ * The line being checked by line and window rules, with its tokens and the lines before it.
+ * One context is reused for every line of a pass.
+ */
+public class LineContext {
+
+    private List<String> lines;
+    private int index;
+    private JavaLexer.Tokens tokens;
+
+    void set(List<String> lines, int index, JavaLexer.Tokens tokens) {
+        this.lines = lines;
+        this.index = index;
+        this.tokens = tokens;
+    }
+
+    /**
+     * 1-based number of the line
+     */
+    public int getLineNumber() {
+        return index + 1;
+    }
+
+    public String getLine() {
+        return lines.get(index);
+    }
+
+    /**
+     * Tokens of the line, lexed with the state carried over from the previous lines
+     */
+    public JavaLexer.Tokens getTokens() {
+        return tokens;
+    }
+
+    /**
+     * The line {@code back} lines before this one, or null before the start of the file. Window
+     * rules read at most {@link Rule#getWindow()} lines back.
+     */
+    public String getPreviousLine(int back) {
+        int previous = index - back;
+        return previous >= 0 && back > 0 ? lines.get(previous) : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.javareader.logic.rules;
+
+/**
+ * How much of a file a rule reads to judge one line
+ */
+public enum Locality {
+    /** Only the line itself; fused into the single line pass */
+    LINE,
+    /** The line and up to {@link Rule#getWindow()} lines before it; also runs in the line pass */
+    WINDOW,
+    /** The whole file; runs after the line pass, in parallel with other whole-file rules */
+    FILE
+}
@@ -0,0 +1,11 @@
+package com.javareader.logic.rules;
+
+/**
+ * Receives the violations a rule finds
+ */
+public interface Reporter {
+    /**
+     * Reports a violation on the 1-based line; the message may be null
+     */
+    void report(int lineNumber, String message);
+}
@@ -0,0 +1,43 @@
+package com.javareader.logic.rules;
+
+import java.util.List;
+
+/**
+ * A code review rule loaded through {@link java.util.ServiceLoader}. Jars add rules by listing
+ * their classes in {@code META-INF/services/com.javareader.logic.rules.Rule}. Violations of these
+ * rules are reported with the CUSTOM type and the rule name in their detail.
+ * One instance checks every file, possibly on several threads at once, so rules keep no state
+ * between calls.
+ */
+public interface Rule {
+
+    /**
+     * Short unique name shown with each violation
+     */
+    String getName();
+
+    String getDescription();
+
+    Locality getLocality();
+
+    Cost getCost();
+
+    /**
+     * Lines before the current one that a WINDOW rule reads
+     */
+    default int getWindow() {
+        return 0;
+    }
+
+    /**
+     * Checks one line; called in order for every line when the locality is LINE or WINDOW
+     */
+    default void checkLine(LineContext context, Reporter reporter) {
+    }
+
+    /**
+     * Checks the whole file; called once after the line pass when the locality is FILE
+     */
+    default void checkFile(List<String> lines, Reporter reporter) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.javareader.logic.rules;
+
+/**
+ * Thrown when a pluggable rule fails or reports a line outside the file. It names the rule, so the
+ * failure is not mistaken for a problem with the file being analyzed.
+ */
+public class RuleFailureException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String ruleName;
+
+    public RuleFailureException(Rule rule, String problem) {
+        super("Rule " + rule.getName() + " " + problem);
+        this.ruleName = rule.getName();
+    }
+
+    public RuleFailureException(Rule rule, RuntimeException cause) {
+        super("Rule " + rule.getName() + " failed: " + cause, cause);
+        this.ruleName = rule.getName();
+    }
+
+    public String getRuleName() {
+        return ruleName;
+    }
+}
@@ -0,0 +1,193 @@
+package com.javareader.logic.rules;
+
+import com.javareader.logic.JavaLexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rules ordered for scheduling by their metadata: line and window rules by rising cost, checked
+ * together on each line of the single pass; whole-file rules started by falling cost and checked in
+ * parallel once the pass is done.
+ */
+public class RuleSet {
+
+    // Idle whole-file rule threads end after this long
+    private static final long IDLE_SECONDS = 30;
+
+    private static volatile RuleSet installed;
+
+    private final List<Rule> lineRules = new ArrayList<>();
+    private final List<Rule> fileRules = new ArrayList<>();
+    // Runs whole-file rules when there are several; a slow rule only holds up this set's own threads
+    private final ThreadPoolExecutor filePool;
+
+    public RuleSet(List<? extends Rule> rules) {
+        for (Rule rule : rules) {
+            if (rule.getLocality() == Locality.FILE) {
+                fileRules.add(rule);
+            } else {
+                lineRules.add(rule);
+            }
+        }
+        // Stable sorts keep the declaration order within a cost class
+        lineRules.sort(Comparator.comparing(Rule::getCost));
+        fileRules.sort(Comparator.comparing(Rule::getCost).reversed());
+        this.filePool = fileRules.size() > 1
+            ? newFilePool(Math.min(fileRules.size(), Runtime.getRuntime().availableProcessors())) : null;
+    }
+
+    private static ThreadPoolExecutor newFilePool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), task -> {
+                Thread thread = new Thread(task, "file-rule-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * The rules found on the class path, loaded once
+     */
+    public static RuleSet installed() {
+        RuleSet rules = installed;
+        if (rules == null) {
+            synchronized (RuleSet.class) {
+                if (installed == null) {
+                    List<Rule> loaded = new ArrayList<>();
+                    for (Rule rule : ServiceLoader.load(Rule.class)) {
+                        loaded.add(rule);
+                    }
+                    installed = new RuleSet(loaded);
+                }
+                rules = installed;
+            }
+        }
+        return rules;
+    }
+
+    public static RuleSet empty() {
+        return new RuleSet(Collections.<Rule>emptyList());
+    }
+
+    public boolean isEmpty() {
+        return lineRules.isEmpty() && fileRules.isEmpty();
+    }
+
+    /**
+     * Line and window rules in the order they run on each line
+     */
+    public List<Rule> getLineRules() {
+        return Collections.unmodifiableList(lineRules);
+    }
+
+    /**
+     * Whole-file rules in the order they are started
+     */
+    public List<Rule> getFileRules() {
+        return Collections.unmodifiableList(fileRules);
+    }
+
+    /**
+     * Runs the line and window rules on line {@code index} of the lines read so far.
+     * A rule that throws or reports a line not read yet fails with a RuleFailureException.
+     */
+    public void checkLine(LineContext context, List<String> lines, int index, JavaLexer.Tokens tokens, Sink sink) {
+        if (lineRules.isEmpty()) return;
+        context.set(lines, index, tokens);
+        for (Rule rule : lineRules) {
+            Reporter reporter = reporter(rule, lines.size(), sink);
+            try {
+                rule.checkLine(context, reporter);
+            } catch (RuleFailureException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new RuleFailureException(rule, e);
+            }
+        }
+    }
+
+    /**
+     * Runs the whole-file rules, in parallel on this set's own bounded pool when there are several,
+     * and passes on their violations rule by rule in start order. A rule that throws or reports a
+     * line outside the file fails with a RuleFailureException.
+     */
+    public void checkFile(List<String> lines, Sink sink) {
+        if (fileRules.isEmpty()) return;
+        List<String> view = Collections.unmodifiableList(lines);
+        if (fileRules.size() == 1) {
+            Rule rule = fileRules.get(0);
+            checkFile(rule, view, reporter(rule, lines.size(), sink));
+            return;
+        }
+        List<CompletableFuture<List<Found>>> results = new ArrayList<>();
+        for (Rule rule : fileRules) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                List<Found> found = new ArrayList<>();
+                checkFile(rule, view, reporter(rule, view.size(),
+                    (reporting, lineNumber, message) -> found.add(new Found(lineNumber, message))));
+                return found;
+            }, filePool));
+        }
+        for (int r = 0; r < fileRules.size(); r++) {
+            List<Found> found;
+            try {
+                found = results.get(r).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+            for (Found violation : found) {
+                sink.accept(fileRules.get(r), violation.lineNumber, violation.message);
+            }
+        }
+    }
+
+    private static void checkFile(Rule rule, List<String> lines, Reporter reporter) {
+        try {
+            rule.checkFile(lines, reporter);
+        } catch (RuleFailureException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new RuleFailureException(rule, e);
+        }
+    }
+
+    // Passes on the rule's violations after checking that each names one of the lines
+    private static Reporter reporter(Rule rule, int lineCount, Sink sink) {
+        return (lineNumber, message) -> {
+            if (lineNumber < 1 || lineNumber > lineCount) {
+                throw new RuleFailureException(rule, "reported line " + lineNumber + " outside " + lineCount + " lines");
+            }
+            sink.accept(rule, lineNumber, message);
+        };
+    }
+
+    private static class Found {
+        final int lineNumber;
+        final String message;
+
+        Found(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Receives each violation with the rule that reported it
+     */
+    public interface Sink {
+        void accept(Rule rule, int lineNumber, String message);
+    }
+}
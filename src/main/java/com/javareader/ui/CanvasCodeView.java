@@ -0,0 +1,410 @@
+package com.javareader.ui;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.HighlightUtil;
+import com.javareader.logic.JavaLexer;
+import com.javareader.logic.LineTokenCache;
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Alternative code renderer that paints monospaced code directly onto a Canvas.
+ * Only the lines inside the viewport are drawn; fonts, colours and glyph metrics are resolved
+ * once and the per-line layout (tab expansion, colour segments) is cached between repaints.
+ */
+public class CanvasCodeView extends Region {
+
+    private static final Font CODE_FONT = Font.font("Consolas", FontWeight.NORMAL, 12);
+    private static final Font GUTTER_FONT = Font.font("Consolas", FontWeight.BOLD, 12);
+    private static final double LINE_HEIGHT = 18;
+    private static final double PADDING = 8;
+    private static final int TAB_WIDTH = 4;
+    private static final int LAYOUT_CACHE_SIZE = 1024;
+    private static final Color BACKGROUND_COLOR = Color.web("#f8f8f8");
+    private static final Color GUTTER_COLOR = Color.web("#eeeeee");
+    private static final Color LINE_NUMBER_COLOR = Color.web("#666666");
+    private static final Color HIGHLIGHT_BACKGROUND = Color.web("#E3F2FD");
+    private static final Color HIGHLIGHT_BORDER = Color.web("#2196F3");
+    private static final Color INDENT_HIGHLIGHT = Color.ORANGE;
+    private static final Color FIND_MATCH_COLOR = Color.web("#FFEB3B", 0.8);
+
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar vbar = new ScrollBar();
+    private final ScrollBar hbar = new ScrollBar();
+    private final double charWidth;
+    private final Color[] tokenColors;
+    private final Color[] violationColors;
+    private final Map<Integer, LineLayout> layoutCache = new LinkedHashMap<Integer, LineLayout>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, LineLayout> eldest) {
+            return size() > LAYOUT_CACHE_SIZE;
+        }
+    };
+    private List<String> lines = Collections.emptyList();
+    private LineTokenCache tokenCache;
+    // Most severe violation type ordinal per line, -1 when clean
+    private byte[] lineTypes = new byte[0];
+    private int maxColumns;
+    private int highlightedLine = -1;
+    // Find matches sorted by line: 0-based line and column of each
+    private int[] matchLines = new int[0];
+    private int[] matchColumns = new int[0];
+    private int matchLength;
+    private IntConsumer onLineClicked;
+    private Runnable onViewportChanged;
+
+    public CanvasCodeView() {
+        Text probe = new Text("M");
+        probe.setFont(CODE_FONT);
+        this.charWidth = probe.getLayoutBounds().getWidth();
+
+        HighlightUtil highlightUtil = new HighlightUtil();
+        JavaLexer.TokenType[] tokenTypes = JavaLexer.TokenType.values();
+        this.tokenColors = new Color[tokenTypes.length];
+        for (JavaLexer.TokenType type : tokenTypes) {
+            tokenColors[type.ordinal()] = highlightUtil.getColorForToken(type);
+        }
+        CodeAnalyzer.ViolationType[] violationTypes = CodeAnalyzer.ViolationType.values();
+        this.violationColors = new Color[violationTypes.length];
+        for (CodeAnalyzer.ViolationType type : violationTypes) {
+            Color color = highlightUtil.getColorForViolation(type);
+            violationColors[type.ordinal()] = new Color(color.getRed(), color.getGreen(), color.getBlue(), 0.3);
+        }
+
+        vbar.setOrientation(Orientation.VERTICAL);
+        hbar.setOrientation(Orientation.HORIZONTAL);
+        vbar.valueProperty().addListener((obs, oldValue, newValue) -> viewportChanged());
+        hbar.valueProperty().addListener((obs, oldValue, newValue) -> redraw());
+        getChildren().addAll(canvas, vbar, hbar);
+        setStyle("-fx-background-color: #f8f8f8;");
+
+        setOnScroll(event -> {
+            vbar.setValue(clamp(vbar.getValue() - event.getDeltaY(), vbar.getMax()));
+            hbar.setValue(clamp(hbar.getValue() - event.getDeltaX(), hbar.getMax()));
+            event.consume();
+        });
+        canvas.setOnMouseClicked(event -> {
+            if (onLineClicked == null || event.getX() < gutterWidth()) return;
+            int line = 1 + (int) ((event.getY() + vbar.getValue()) / LINE_HEIGHT);
+            if (line <= lines.size()) {
+                onLineClicked.accept(line);
+            }
+        });
+    }
+
+    /**
+     * Sets the lines to display together with the token cache used for colouring them
+     */
+    public void setDocument(List<String> lines, LineTokenCache tokenCache) {
+        this.lines = lines != null ? lines : Collections.<String>emptyList();
+        this.tokenCache = tokenCache;
+        layoutCache.clear();
+        int longest = 0;
+        for (String line : this.lines) {
+            longest = Math.max(longest, line.length());
+        }
+        this.maxColumns = longest;
+        this.lineTypes = new byte[this.lines.size()];
+        java.util.Arrays.fill(lineTypes, (byte) -1);
+        vbar.setValue(0);
+        hbar.setValue(0);
+        requestLayout();
+        redraw();
+    }
+
+    /**
+     * Sets the violations to paint as line backgrounds
+     */
+    public void setViolations(Map<Integer, List<CodeAnalyzer.Violation>> violationsByLine) {
+        java.util.Arrays.fill(lineTypes, (byte) -1);
+        if (violationsByLine != null) {
+            for (Map.Entry<Integer, List<CodeAnalyzer.Violation>> entry : violationsByLine.entrySet()) {
+                int index = entry.getKey() - 1;
+                if (index < 0 || index >= lineTypes.length) continue;
+                CodeAnalyzer.ViolationType mostSevere = CodeAnalyzer.ViolationType.mostSevere(entry.getValue());
+                if (mostSevere != null) {
+                    lineTypes[index] = (byte) mostSevere.ordinal();
+                }
+            }
+        }
+        redraw();
+    }
+
+    /**
+     * Sets the find matches to paint behind the text; lines and columns are 0-based and sorted by line
+     */
+    public void setFindMatches(int[] lines, int[] columns, int length) {
+        this.matchLines = lines;
+        this.matchColumns = columns;
+        this.matchLength = length;
+        redraw();
+    }
+
+    public void setHighlightedLine(int lineNumber) {
+        this.highlightedLine = lineNumber;
+        redraw();
+    }
+
+    public void setOnLineClicked(IntConsumer onLineClicked) {
+        this.onLineClicked = onLineClicked;
+    }
+
+    public void setOnViewportChanged(Runnable onViewportChanged) {
+        this.onViewportChanged = onViewportChanged;
+    }
+
+    /**
+     * Scrolls so that the given 1-based line is roughly centred in the viewport
+     */
+    public void scrollToLine(int lineNumber) {
+        double target = (lineNumber - 1) * LINE_HEIGHT - (canvas.getHeight() - LINE_HEIGHT) / 2;
+        vbar.setValue(clamp(target, vbar.getMax()));
+    }
+
+    /**
+     * Returns the visible region as {start, end} fractions of the whole document
+     */
+    public double[] getViewportFraction() {
+        double total = lines.size() * LINE_HEIGHT;
+        if (total <= 0) return new double[] {0, 0};
+        double start = vbar.getValue() / total;
+        return new double[] {start, Math.min(1, start + canvas.getHeight() / total)};
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        double barWidth = vbar.prefWidth(-1);
+        double barHeight = hbar.prefHeight(-1);
+        double canvasWidth = Math.max(0, width - barWidth);
+        double canvasHeight = Math.max(0, height - barHeight);
+        vbar.resizeRelocate(canvasWidth, 0, barWidth, canvasHeight);
+        hbar.resizeRelocate(0, canvasHeight, canvasWidth, barHeight);
+        canvas.setWidth(canvasWidth);
+        canvas.setHeight(canvasHeight);
+        updateScrollRanges();
+        redraw();
+    }
+
+    private void updateScrollRanges() {
+        double contentHeight = lines.size() * LINE_HEIGHT;
+        double contentWidth = gutterWidth() + maxColumns * charWidth + 2 * PADDING;
+        vbar.setMax(Math.max(0, contentHeight - canvas.getHeight()));
+        vbar.setVisibleAmount(canvas.getHeight());
+        vbar.setUnitIncrement(LINE_HEIGHT);
+        vbar.setBlockIncrement(Math.max(LINE_HEIGHT, canvas.getHeight() - LINE_HEIGHT));
+        hbar.setMax(Math.max(0, contentWidth - canvas.getWidth()));
+        hbar.setVisibleAmount(canvas.getWidth());
+        hbar.setUnitIncrement(charWidth * 4);
+        vbar.setValue(clamp(vbar.getValue(), vbar.getMax()));
+        hbar.setValue(clamp(hbar.getValue(), hbar.getMax()));
+    }
+
+    private void viewportChanged() {
+        redraw();
+        if (onViewportChanged != null) {
+            onViewportChanged.run();
+        }
+    }
+
+    /**
+     * Repaints the lines currently inside the viewport
+     */
+    public void redraw() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(0, 0, width, height);
+        if (width <= 0 || height <= 0 || lines.isEmpty()) return;
+
+        double scrollTop = vbar.getValue();
+        double scrollLeft = hbar.getValue();
+        double gutter = gutterWidth();
+        int first = (int) (scrollTop / LINE_HEIGHT);
+        int last = Math.min(lines.size() - 1, (int) ((scrollTop + height) / LINE_HEIGHT));
+        int firstColumn = (int) (scrollLeft / charWidth);
+        int visibleColumns = (int) ((width - gutter) / charWidth) + 2;
+        gc.setTextBaseline(VPos.CENTER);
+
+        // Code area, clipped so horizontally scrolled text never paints over the gutter
+        gc.save();
+        gc.beginPath();
+        gc.rect(gutter, 0, width - gutter, height);
+        gc.clip();
+        gc.setFont(CODE_FONT);
+        int match = firstMatchAtOrAfter(first);
+        for (int index = first; index <= last; index++) {
+            double top = index * LINE_HEIGHT - scrollTop;
+            double textLeft = gutter + PADDING - scrollLeft;
+            LineLayout layout = getLayout(index);
+            if (lineTypes[index] >= 0) {
+                gc.setFill(violationColors[lineTypes[index]]);
+                gc.fillRect(gutter, top, width - gutter, LINE_HEIGHT);
+                if (lineTypes[index] == CodeAnalyzer.ViolationType.IMPROPER_INDENTATION.ordinal() && layout.indentColumns > 0) {
+                    gc.setFill(INDENT_HIGHLIGHT);
+                    gc.fillRect(textLeft, top + 1, layout.indentColumns * charWidth, LINE_HEIGHT - 2);
+                }
+            } else if (index + 1 == highlightedLine) {
+                gc.setFill(HIGHLIGHT_BACKGROUND);
+                gc.fillRect(gutter, top, width - gutter, LINE_HEIGHT);
+            }
+            if (index + 1 == highlightedLine) {
+                gc.setStroke(HIGHLIGHT_BORDER);
+                gc.setLineWidth(2);
+                gc.strokeRect(gutter + 1, top + 1, width - gutter - 2, LINE_HEIGHT - 2);
+            }
+            gc.setFill(FIND_MATCH_COLOR);
+            for (; match < matchLines.length && matchLines[match] == index; match++) {
+                gc.fillRect(textLeft + matchColumns[match] * charWidth, top + 2, matchLength * charWidth, LINE_HEIGHT - 4);
+            }
+            double y = top + LINE_HEIGHT / 2;
+            for (int s = 0; s < layout.texts.length; s++) {
+                int startColumn = layout.columns[s];
+                int endColumn = startColumn + layout.texts[s].length();
+                if (endColumn < firstColumn || startColumn > firstColumn + visibleColumns) continue;
+                gc.setFill(tokenColors[layout.types[s]]);
+                gc.fillText(layout.texts[s], textLeft + startColumn * charWidth, y);
+            }
+        }
+        gc.restore();
+
+        // Gutter with line numbers
+        gc.setFill(GUTTER_COLOR);
+        gc.fillRect(0, 0, gutter, height);
+        gc.setFont(GUTTER_FONT);
+        for (int index = first; index <= last; index++) {
+            double top = index * LINE_HEIGHT - scrollTop;
+            if (index + 1 == highlightedLine) {
+                gc.setFill(HIGHLIGHT_BORDER);
+                gc.fillRect(0, top, gutter, LINE_HEIGHT);
+                gc.setFill(Color.WHITE);
+            } else {
+                gc.setFill(LINE_NUMBER_COLOR);
+            }
+            String number = Integer.toString(index + 1);
+            gc.fillText(number, gutter - PADDING - number.length() * charWidth, top + LINE_HEIGHT / 2);
+        }
+    }
+
+    // Binary search for the first match on or below the given line
+    private int firstMatchAtOrAfter(int line) {
+        int low = 0;
+        int high = matchLines.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (matchLines[mid] < line) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private double gutterWidth() {
+        int digits = Math.max(3, Integer.toString(Math.max(1, lines.size())).length());
+        return digits * charWidth + 2 * PADDING;
+    }
+
+    private LineLayout getLayout(int index) {
+        LineLayout layout = layoutCache.get(index);
+        if (layout == null) {
+            layout = buildLayout(lines.get(index), tokenCache != null ? tokenCache.getRuns(index) : new int[0]);
+            layoutCache.put(index, layout);
+            if (layout.width > maxColumns) {
+                // Tabs made the line wider than its character count
+                maxColumns = layout.width;
+                updateScrollRanges();
+            }
+        }
+        return layout;
+    }
+
+    /**
+     * Expands tabs and merges adjacent runs with the same colour into drawable segments
+     */
+    private LineLayout buildLayout(String line, int[] runs) {
+        if (runs.length == 0) {
+            runs = new int[] {0, line.length(), JavaLexer.TokenType.IDENTIFIER.ordinal()};
+        }
+        int segmentCount = runs.length / 3;
+        String[] texts = new String[segmentCount];
+        int[] columns = new int[segmentCount];
+        byte[] types = new byte[segmentCount];
+        int count = 0;
+        int column = 0;
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < runs.length; r += 3) {
+            int colorType = runs[r + 2] == JavaLexer.TokenType.WHITESPACE.ordinal()
+                ? JavaLexer.TokenType.IDENTIFIER.ordinal() : runs[r + 2];
+            boolean merge = count > 0 && tokenColors[types[count - 1]].equals(tokenColors[colorType]);
+            if (!merge) {
+                if (count > 0) texts[count - 1] = sb.toString();
+                sb.setLength(0);
+                columns[count] = column;
+                types[count] = (byte) colorType;
+                count++;
+            }
+            for (int k = runs[r]; k < runs[r + 1]; k++) {
+                char c = line.charAt(k);
+                if (c == '\t') {
+                    int spaces = TAB_WIDTH - (column % TAB_WIDTH);
+                    for (int t = 0; t < spaces; t++) sb.append(' ');
+                    column += spaces;
+                } else {
+                    sb.append(c);
+                    column++;
+                }
+            }
+        }
+        if (count > 0) texts[count - 1] = sb.toString();
+
+        int indent = 0;
+        int indentColumns = 0;
+        while (indent < line.length() && (line.charAt(indent) == ' ' || line.charAt(indent) == '\t')) {
+            indentColumns += line.charAt(indent) == '\t' ? TAB_WIDTH - (indentColumns % TAB_WIDTH) : 1;
+            indent++;
+        }
+        return new LineLayout(java.util.Arrays.copyOf(texts, count), java.util.Arrays.copyOf(columns, count),
+            java.util.Arrays.copyOf(types, count), column, indentColumns);
+    }
+
+    private static double clamp(double value, double max) {
+        return Math.max(0, Math.min(max, value));
+    }
+
+    /**
+     * Cached drawing layout of a single line
+     */
+    private static class LineLayout {
+        final String[] texts;
+        final int[] columns;
+        final byte[] types;
+        final int width;
+        final int indentColumns;
+
+        LineLayout(String[] texts, int[] columns, byte[] types, int width, int indentColumns) {
+            this.texts = texts;
+            this.columns = columns;
+            this.types = types;
+            this.width = width;
+            this.indentColumns = indentColumns;
+        }
+    }
+}
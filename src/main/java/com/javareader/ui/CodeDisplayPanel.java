@@ -1,34 +1,79 @@
 package com.javareader.ui;
 
 import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.DocumentSaver;
+import com.javareader.logic.HighlightUtil;
+import com.javareader.logic.JavaLexer;
+import com.javareader.logic.LineTokenCache;
+import com.javareader.logic.LiveAnalyzer;
+import com.javareader.logic.PieceTable;
+import com.javareader.logic.TextFileFormat;
+import com.javareader.logic.ViewCache;
+import javafx.animation.AnimationTimer;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.scene.control.Label;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
+import javafx.scene.control.TextFormatter;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
+import javafx.util.Duration;
 import javafx.scene.layout.Region;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 /**
  * Panel for displaying Java code with syntax highlighting and violation markers (word-level)
  */
 public class CodeDisplayPanel extends VBox {
 
+    private static final Font CODE_FONT = Font.font("Consolas", FontWeight.NORMAL, 12);
+    private static final Font LINE_NUMBER_FONT = Font.font("Consolas", FontWeight.BOLD, 12);
+    private static final PseudoClass HIGHLIGHTED = PseudoClass.getPseudoClass("highlighted");
+    private static final PseudoClass FIND_MATCH = PseudoClass.getPseudoClass("find-match");
+    private static final CodeAnalyzer.ViolationType[] VIOLATION_TYPES = CodeAnalyzer.ViolationType.values();
+    // Height of every line node; lets the scroll range cover lines that are not built yet
+    private static final double LINE_HEIGHT = 24;
+    // Time spent building line nodes per animation pulse once the first screen is shown
+    private static final long RENDER_BUDGET_NANOS = 6_000_000L;
+    private static final int FALLBACK_SCREEN_LINES = 60;
+    // Lines per chunk container; a chunk's line nodes are built together or not at all
+    private static final int CHUNK_LINES = 64;
+    // Chunks on either side of the viewport that renderTimer builds ahead of scrolling
+    private static final int PREFETCH_CHUNKS = 8;
+    // Most chunks holding line nodes at once; the ones farthest from the viewport are released first
+    private static final int MAX_BUILT_CHUNKS = 4 * PREFETCH_CHUNKS;
+    // Rough heap cost of one built line node with its text nodes
+    private static final long LINE_NODE_COST = 2048;
+    // Share of the maximum heap the cached file views may use, and the heap fill that halves them
+    private static final long VIEW_CACHE_BUDGET = Runtime.getRuntime().maxMemory() / 8;
+    private static final double LOW_MEMORY_FRACTION = 0.8;
+    // Quiet time after the last keystroke before the edited text is analyzed
+    private static final Duration LIVE_ANALYSIS_DELAY = Duration.millis(150);
+
     private final ScrollPane scrollPane;
     private final VBox codeLinesBox;
     private final TextArea editTextArea;
     private final Label fileNameLabel;
+    private final TextField findField = new TextField();
+    private final Label findStatus = new Label();
     // No local refreshButton; will use the one from FileUploadUI
     private Path currentFilePath;
     private List<String> originalLines;
@@ -36,15 +81,77 @@ public class CodeDisplayPanel extends VBox {
     private boolean isEditMode = false;
     private int highlightedLine = -1;
     private final StackPane codeAreaStack;
+    private final ViolationOverviewRuler overviewRuler;
+    private final CanvasCodeView canvasView;
+    private boolean canvasRendering = false;
     private boolean isScrapMode = false;
+    private final HighlightUtil highlightUtil = new HighlightUtil();
+    private final LineTokenCache tokenCache = new LineTokenCache();
+    private Path tokenCacheSource;
+    private boolean tokenCacheInitialized = false;
+    private final LineNumberGutter editGutter;
+    private final javafx.scene.layout.HBox editPane;
+    // Document shared by display and edit modes; the TextArea mirrors it once populated
+    private PieceTable document;
+    private Path documentPath;
+    private FileTime documentStamp;
+    private TextFileFormat documentFormat = TextFileFormat.defaultFormat();
+    private final DocumentSaver documentSaver = new DocumentSaver();
+    // Lines of recently shown files, so browsing back to a file does not read it again
+    private final ViewCache<Path, CachedView> viewCache = new ViewCache<>(VIEW_CACHE_BUDGET);
+    // True while originalLines is the copy held by viewCache, so it is not reserved twice
+    private boolean linesCached;
+    private boolean editAreaHoldsDocument = false;
+    private boolean syncingEditArea = false;
+    // codeLinesBox holds one container per CHUNK_LINES lines, sized for its lines whether built or not;
+    // only the chunks in builtChunks hold line nodes
+    private final BitSet builtChunks = new BitSet();
+    // Find matches in document order: 0-based line and column of each, plus the lines holding any
+    private int[] matchLines = new int[0];
+    private int[] matchColumns = new int[0];
+    private final BitSet matchLineSet = new BitSet();
+    private int currentMatch = -1;
+    // Set by edits in the TextArea; the next search step finds the matches again
+    private boolean matchesStale = false;
+    // Live analysis of the edit area: keystrokes restart liveDelay, which submits one snapshot
+    private final PauseTransition liveDelay = new PauseTransition(LIVE_ANALYSIS_DELAY);
+    private LiveAnalyzer liveAnalyzer;
+    private Consumer<CodeAnalyzer.AnalysisResult> onLiveResult;
+    private long editVersion;
+    private long submittedVersion;
+    private long submittedGeneration = -1;
+    // Sorted (line << 8 | type) of the violations shown, and the most severe type per line, or -1
+    private long[] liveKeys = new long[0];
+    private byte[] liveLineTypes = new byte[0];
+    private Map<Integer, List<CodeAnalyzer.Violation>> liveViolationsByLine;
+    // True when liveViolationsByLine belongs to the text currently in the edit area
+    private boolean liveFresh = false;
+    private final AnimationTimer renderTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            renderPulse();
+        }
+    };
 
     public CodeDisplayPanel() {
         this.codeLinesBox = new VBox(0);
         this.editTextArea = new TextArea();
         this.scrollPane = new ScrollPane(codeLinesBox);
         this.fileNameLabel = new Label("No file selected");
-        this.codeAreaStack = new StackPane(scrollPane, editTextArea);
+        this.canvasView = new CanvasCodeView();
+        this.editGutter = new LineNumberGutter(editTextArea, CODE_FONT);
+        this.editPane = new javafx.scene.layout.HBox(0, editGutter, editTextArea);
+        this.codeAreaStack = new StackPane(scrollPane, editPane, canvasView);
+        this.overviewRuler = new ViolationOverviewRuler();
         this.highlightedLine = -1;
+        // The heap listener lives only while the panel is in a scene, so a discarded panel leaves none behind
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) {
+                viewCache.watch(ViewCache.heapThreshold(LOW_MEMORY_FRACTION));
+            } else {
+                viewCache.unwatch();
+            }
+        });
         setupCodeDisplay();
         // setupLayout() will be called by FileUploadUI after injecting the refresh button
     }
@@ -52,17 +159,142 @@ public class CodeDisplayPanel extends VBox {
 
 
     private void setupCodeDisplay() {
-        codeLinesBox.setStyle("-fx-background-color: #f8f8f8;");
-        editTextArea.setFont(Font.font("Consolas", FontWeight.NORMAL, 12));
+        codeLinesBox.getStyleClass().add("code-lines");
+        editTextArea.setFont(CODE_FONT);
         editTextArea.setStyle("-fx-background-color: #f8f8f8; -fx-text-fill: #333; -fx-control-inner-background: #f8f8f8;");
         editTextArea.setEditable(true);
         editTextArea.setWrapText(false);
-        editTextArea.setVisible(false);
+        editTextArea.setTextFormatter(new TextFormatter<String>(this::trackEdit));
+        javafx.scene.layout.HBox.setHgrow(editTextArea, Priority.ALWAYS);
+        editPane.setVisible(false);
+        canvasView.setVisible(false);
         scrollPane.setFitToWidth(false); // allow horizontal scrolling
         scrollPane.setFitToHeight(true);
         scrollPane.setStyle("-fx-background-color: transparent;");
         scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
         scrollPane.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        overviewRuler.setOnLineSelected(this::scrollToLine);
+        // A clicked line is already in view, so it only takes the highlight
+        canvasView.setOnLineClicked(this::setHighlightedLine);
+        canvasView.setOnViewportChanged(this::updateRulerViewport);
+        scrollPane.vvalueProperty().addListener((obs, oldValue, newValue) -> {
+            // Only the chunks coming into view are built at once; their neighbours follow on later pulses
+            if (originalLines != null && !canvasRendering && !isEditMode) {
+                renderVisible();
+            }
+            updateRulerViewport();
+        });
+        scrollPane.viewportBoundsProperty().addListener((obs, oldValue, newValue) -> updateRulerViewport());
+        findField.setPromptText("Find");
+        findField.setPrefColumnCount(14);
+        findField.textProperty().addListener((obs, oldValue, newValue) -> refreshFind());
+        findField.setOnAction(e -> nextMatch());
+        codeLinesBox.heightProperty().addListener((obs, oldValue, newValue) -> updateRulerViewport());
+        liveDelay.setOnFinished(e -> submitLiveAnalysis());
+    }
+
+    /**
+     * Analyzes the edit area as the user types: keystrokes are coalesced, the analysis runs off
+     * the FX thread and {@code onResult} is called on the FX thread with each new result, after
+     * the gutter and overview ruler are updated
+     */
+    public void setLiveAnalysis(LiveAnalyzer.Analysis analysis, Consumer<CodeAnalyzer.AnalysisResult> onResult) {
+        if (liveAnalyzer != null) liveAnalyzer.shutdown();
+        this.onLiveResult = onResult;
+        this.liveAnalyzer = new LiveAnalyzer(analysis,
+            (generation, result) -> Platform.runLater(() -> applyLiveResult(generation, result)));
+    }
+
+    // Snapshots the edit area once the typing pauses and hands it to the live analyzer
+    private void submitLiveAnalysis() {
+        if (liveAnalyzer == null || !editPane.isVisible()) return;
+        submittedVersion = editVersion;
+        if (editAreaHoldsDocument) {
+            // Only the piece list is copied here; the text is built on the worker
+            PieceTable.Snapshot snapshot = document.snapshot();
+            submittedGeneration = liveAnalyzer.submit(snapshot::getText);
+        } else {
+            submittedGeneration = liveAnalyzer.submit(editTextArea.getText());
+        }
+    }
+
+    // Shows a live result unless a newer snapshot was submitted; lines whose state is unchanged are not repainted
+    private void applyLiveResult(long generation, CodeAnalyzer.AnalysisResult result) {
+        if (generation != submittedGeneration || !liveAnalyzer.isCurrent(generation) || !editPane.isVisible()) return;
+        liveFresh = submittedVersion == editVersion;
+        liveViolationsByLine = result.getViolations().stream()
+                .collect(Collectors.groupingBy(CodeAnalyzer.Violation::getLineNumber));
+        if (showLiveViolations(liveViolationsByLine) && onLiveResult != null) {
+            onLiveResult.accept(result);
+        }
+    }
+
+    // Moves the gutter and ruler to the given violations; returns false when nothing changed
+    private boolean showLiveViolations(Map<Integer, List<CodeAnalyzer.Violation>> byLine) {
+        int count = 0;
+        if (byLine != null) {
+            for (List<CodeAnalyzer.Violation> violations : byLine.values()) count += violations.size();
+        }
+        long[] keys = new long[count];
+        int lineCount = editGutter.getLineCount();
+        int k = 0;
+        if (byLine != null) {
+            for (List<CodeAnalyzer.Violation> violations : byLine.values()) {
+                for (CodeAnalyzer.Violation v : violations) {
+                    keys[k++] = (long) v.getLineNumber() << 8 | v.getType().ordinal();
+                    lineCount = Math.max(lineCount, v.getLineNumber());
+                }
+            }
+        }
+        Arrays.sort(keys);
+        if (Arrays.equals(keys, liveKeys) && liveLineTypes.length == lineCount) return false;
+
+        byte[] types = new byte[lineCount];
+        Arrays.fill(types, (byte) -1);
+        for (long key : keys) {
+            int line = (int) (key >>> 8) - 1;
+            byte type = (byte) (key & 0xFF);
+            if (types[line] < 0 || VIOLATION_TYPES[type].getSeverity() < VIOLATION_TYPES[types[line]].getSeverity()) {
+                types[line] = type;
+            }
+        }
+        BitSet changed = new BitSet();
+        for (int line = 0; line < Math.max(types.length, liveLineTypes.length); line++) {
+            byte before = line < liveLineTypes.length ? liveLineTypes[line] : -1;
+            byte after = line < types.length ? types[line] : -1;
+            if (before != after) changed.set(line);
+        }
+        boolean resized = types.length != liveLineTypes.length;
+        liveKeys = keys;
+        liveLineTypes = types;
+        editGutter.setViolationTypes(types, changed);
+        if (!changed.isEmpty() || resized) {
+            overviewRuler.setViolations(lineCount, byLine);
+        }
+        return true;
+    }
+
+    // Starts live analysis over for newly shown edit-area text; known violations are shown at once
+    private void resetLiveAnalysis(Map<Integer, List<CodeAnalyzer.Violation>> known) {
+        liveDelay.stop();
+        if (liveAnalyzer != null) liveAnalyzer.cancel();
+        liveKeys = new long[0];
+        liveLineTypes = new byte[0];
+        liveViolationsByLine = known;
+        liveFresh = known != null;
+        showLiveViolations(known);
+        // The gutter and ruler may still show another text's violations
+        editGutter.redraw();
+        overviewRuler.setViolations(liveLineTypes.length, known);
+        if (known == null && liveAnalyzer != null) {
+            liveDelay.playFromStart();
+        }
+    }
+
+    private void stopLiveAnalysis() {
+        liveDelay.stop();
+        if (liveAnalyzer != null) liveAnalyzer.cancel();
+        submittedGeneration = -1;
     }
 
     /**
@@ -76,25 +308,27 @@ public class CodeDisplayPanel extends VBox {
         Button closeButton = new Button("Close");
         closeButton.setStyle("-fx-background-color: #e53935; -fx-text-fill: white; -fx-font-size: 12px; -fx-padding: 4 12;");
         closeButton.setOnAction(e -> { if (onClose != null) onClose.run(); });
-        javafx.scene.layout.HBox topBar = new javafx.scene.layout.HBox(8, fileNameLabel, refreshButton, closeButton);
+        javafx.scene.layout.HBox topBar = new javafx.scene.layout.HBox(8, fileNameLabel, refreshButton, closeButton, findField, findStatus);
         topBar.setAlignment(javafx.geometry.Pos.CENTER_LEFT);
+        javafx.scene.layout.HBox codeRow = new javafx.scene.layout.HBox(0, codeAreaStack, overviewRuler);
+        javafx.scene.layout.HBox.setHgrow(codeAreaStack, Priority.ALWAYS);
         getChildren().clear();
-        getChildren().addAll(topBar, codeAreaStack);
+        getChildren().addAll(topBar, codeRow);
+        VBox.setVgrow(codeRow, Priority.ALWAYS);
         VBox.setVgrow(codeAreaStack, Priority.ALWAYS);
         VBox.setVgrow(scrollPane, Priority.ALWAYS);
-        VBox.setVgrow(editTextArea, Priority.ALWAYS);
+        VBox.setVgrow(editPane, Priority.ALWAYS);
         codeAreaStack.setMinHeight(0);
         codeAreaStack.setMaxHeight(Double.MAX_VALUE);
         codeAreaStack.setPrefHeight(Region.USE_COMPUTED_SIZE);
         scrollPane.setMinHeight(0);
         scrollPane.setMaxHeight(Double.MAX_VALUE);
         scrollPane.setPrefHeight(Region.USE_COMPUTED_SIZE);
-        editTextArea.setMinHeight(0);
-        editTextArea.setMaxHeight(Double.MAX_VALUE);
-        editTextArea.setPrefHeight(Region.USE_COMPUTED_SIZE);
+        editPane.setMinHeight(0);
+        editPane.setMaxHeight(Double.MAX_VALUE);
+        editPane.setPrefHeight(Region.USE_COMPUTED_SIZE);
         // Only one should be visible at a time
-        scrollPane.setVisible(true);
-        editTextArea.setVisible(false);
+        showCodeArea(false);
     }
     /**
      * Refreshes the file from disk and re-runs the analysis if possible.
@@ -104,49 +338,16 @@ public class CodeDisplayPanel extends VBox {
         // Try to re-analyze and reload the file
         try {
             // You may want to trigger a re-analysis here. For now, just reload the file and clear highlights.
-            java.util.List<String> lines = Files.readAllLines(currentFilePath);
+            java.util.List<String> lines = documentFormat.readLines(currentFilePath);
             this.originalLines = lines;
+            this.linesCached = false;
             // If you have a way to re-run the analyzer, do it here. For now, just clear highlights and reload.
             this.highlightedLine = -1;
             this.violationsByLine = null;
             codeLinesBox.getChildren().clear();
-            codeLinesBox.setStyle("-fx-background-color: #f8f8f8;");
-            for (int i = 0; i < originalLines.size(); i++) {
-                int lineNumber = i + 1;
-                String line = originalLines.get(i);
-                TextFlow textFlow = new TextFlow();
-                textFlow.setLineSpacing(0.0);
-                Text lineNum = new Text(String.format("%3d: ", lineNumber));
-                lineNum.setFont(Font.font("Consolas", FontWeight.BOLD, 12));
-                lineNum.setStyle("-fx-fill: #666;");
-                textFlow.getChildren().add(lineNum);
-                textFlow.getChildren().add(makeNormalText(line));
-                javafx.scene.layout.HBox lineBox = new javafx.scene.layout.HBox(textFlow);
-                lineBox.setMinHeight(24);
-                lineBox.setPrefWidth(Double.MAX_VALUE);
-                lineBox.setMaxWidth(Double.MAX_VALUE);
-                javafx.scene.layout.HBox.setHgrow(textFlow, javafx.scene.layout.Priority.ALWAYS);
-                javafx.scene.layout.HBox.setHgrow(lineBox, javafx.scene.layout.Priority.ALWAYS);
-                lineBox.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-                StringBuilder style = new StringBuilder();
-                // 1. Violation background color
-                if (violationsByLine != null && violationsByLine.containsKey(lineNumber)) {
-                    List<CodeAnalyzer.Violation> lineViolations = violationsByLine.get(lineNumber);
-                    CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                    style.append("-fx-background-color: ").append(getLineHighlightColor(mainType)).append(";");
-                }
-                // 2. Highlighted line: always add blue border and light blue background if no violation
-                if (highlightedLine == lineNumber) {
-                    if (violationsByLine == null || violationsByLine.get(lineNumber) == null || violationsByLine.get(lineNumber).isEmpty()) {
-                        style.append("-fx-background-color: #E3F2FD;");
-                    }
-                    style.append("-fx-border-color: #2196F3; -fx-border-width: 3; -fx-border-radius: 8; -fx-background-radius: 8; -fx-padding: 4 8 4 8;");
-                } else {
-                    style.append("-fx-background-radius: 8; -fx-padding: 4 8 4 8;");
-                }
-                lineBox.setStyle(style.toString());
-                codeLinesBox.getChildren().add(lineBox);
-            }
+            syncTokenCache(currentFilePath);
+            overviewRuler.setViolations(originalLines.size(), null);
+            renderLines();
             setEditMode(false);
         } catch (IOException e) {
             codeLinesBox.getChildren().setAll(new Label("Error reading file: " + e.getMessage()));
@@ -159,10 +360,16 @@ public class CodeDisplayPanel extends VBox {
     public void displayCodeWithViolations(CodeAnalyzer.AnalysisResult result, Path filePath) {
         try {
             // Clear everything first to prevent duplicates
-            clear();
+            resetDisplay();
+            // Redisplaying the file we just saved keeps the document and the populated TextArea
+            boolean sameDocument = document != null && !document.isModified() && filePath.equals(documentPath)
+                    && Files.getLastModifiedTime(filePath).equals(documentStamp);
+            if (!sameDocument) {
+                releaseDocument();
+            }
             
             this.currentFilePath = filePath;
-            this.originalLines = Files.readAllLines(filePath);
+            this.originalLines = loadLines(filePath, sameDocument);
             this.violationsByLine = result.getViolations().stream()
                     .collect(Collectors.groupingBy(CodeAnalyzer.Violation::getLineNumber));
             
@@ -170,93 +377,11 @@ public class CodeDisplayPanel extends VBox {
             
             // Ensure the codeLinesBox is completely empty
             codeLinesBox.getChildren().clear();
-            codeLinesBox.setStyle("-fx-background-color: #f8f8f8;");
-
-            for (int i = 0; i < originalLines.size(); i++) {
-                int lineNumber = i + 1;
-                String line = originalLines.get(i);
-                List<CodeAnalyzer.Violation> lineViolations = violationsByLine.get(lineNumber);
-
-                TextFlow textFlow = new TextFlow();
-                textFlow.setLineSpacing(0.0);
-                textFlow.setPrefWidth(Region.USE_COMPUTED_SIZE);
-                textFlow.setMaxWidth(Double.MAX_VALUE);
-                textFlow.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-
-                // Add line number
-                Text lineNum = new Text(String.format("%3d: ", lineNumber));
-                lineNum.setFont(Font.font("Consolas", FontWeight.BOLD, 12));
-                // Default style for line number
-                lineNum.setStyle("-fx-fill: #666;");
-                // Highlight line number if this is the highlighted line (display or edit mode)
-                if (highlightedLine == lineNumber) {
-                    lineNum.setStyle("-fx-fill: white; -fx-font-weight: bold; -fx-background-color: #2196F3; -fx-padding: 2 8 2 8; -fx-background-radius: 6;");
-                }
-                textFlow.getChildren().add(lineNum);
-
-                // Add the actual line content
-                // If improper indentation, highlight only the leading whitespace and dot
-                boolean highlightIndentOnly = false;
-                if (lineViolations != null && !lineViolations.isEmpty()) {
-                    CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                    if (mainType == CodeAnalyzer.ViolationType.IMPROPER_INDENTATION) {
-                        highlightIndentOnly = true;
-                    }
-                }
-                if (highlightIndentOnly) {
-                    String original = line != null ? line : "";
-                    int iws = 0;
-                    while (iws < original.length() && (original.charAt(iws) == ' ' || original.charAt(iws) == '\t')) iws++;
-                    String ws = original.substring(0, iws);
-                    String rest = original.substring(iws);
-                    int semiIdx = rest.indexOf(';');
-                    textFlow.getChildren().add(makeHighlightedText(ws));
-                    if (rest.startsWith(".")) {
-                        textFlow.getChildren().add(makeHighlightedText("."));
-                        rest = rest.substring(1);
-                    }
-                    if (semiIdx != -1) {
-                        String toSemi, afterSemi;
-                        if (semiIdx + 1 <= rest.length()) {
-                            toSemi = rest.substring(0, semiIdx + 1);
-                            afterSemi = rest.substring(semiIdx + 1);
-                        } else {
-                            toSemi = rest;
-                            afterSemi = "";
-                        }
-                        textFlow.getChildren().add(makeHighlightedText(toSemi));
-                        textFlow.getChildren().add(makeNormalText(afterSemi));
-                    } else {
-                        textFlow.getChildren().add(makeHighlightedText(rest));
-                    }
-                } else {
-                    textFlow.getChildren().add(makeNormalText(line));
-                }
 
-                if (!isEditMode) {
-                    javafx.scene.layout.HBox lineBox = new javafx.scene.layout.HBox(textFlow);
-                    lineBox.setMinHeight(24);
-                    lineBox.setPrefWidth(Region.USE_COMPUTED_SIZE);
-                    lineBox.setMaxWidth(Double.MAX_VALUE);
-                    lineBox.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-                    StringBuilder style = new StringBuilder();
-                    // 1. Violation background color
-                    if (lineViolations != null && !lineViolations.isEmpty()) {
-                        CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                        style.append("-fx-background-color: ").append(getLineHighlightColor(mainType)).append(";");
-                    }
-                    // 2. Highlighted line: always add blue border and light blue background if no violation
-                    if (highlightedLine == lineNumber) {
-                        if (lineViolations == null || lineViolations.isEmpty()) {
-                            style.append("-fx-background-color: #E3F2FD;");
-                        }
-                        style.append("-fx-border-color: #2196F3; -fx-border-width: 3; -fx-border-radius: 8; -fx-background-radius: 8; -fx-padding: 4 8 4 8;");
-                    } else {
-                        style.append("-fx-background-radius: 8; -fx-padding: 4 8 4 8;");
-                    }
-                    lineBox.setStyle(style.toString());
-                    codeLinesBox.getChildren().add(lineBox);
-                }
+            syncTokenCache(filePath);
+            overviewRuler.setViolations(originalLines.size(), violationsByLine);
+            if (!isEditMode) {
+                renderLines();
             }
             
             // Switch to display mode
@@ -267,102 +392,351 @@ public class CodeDisplayPanel extends VBox {
         }
     }
 
+    // Returns the file's lines from the view cache while the file is unchanged, reading and caching them otherwise
+    private List<String> loadLines(Path filePath, boolean keepFormat) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+        CachedView cached = viewCache.get(filePath);
+        // A same-second rewrite can keep the modification time on coarse file systems, so the size is compared too
+        if (cached != null && cached.stamp.equals(attributes.lastModifiedTime()) && cached.size == attributes.size()) {
+            if (!keepFormat) documentFormat = cached.format;
+            linesCached = true;
+            return cached.lines;
+        }
+        if (!keepFormat) {
+            documentFormat = TextFileFormat.detect(filePath);
+        }
+        List<String> lines = Collections.unmodifiableList(documentFormat.readLines(filePath));
+        viewCache.put(filePath, new CachedView(attributes.lastModifiedTime(), attributes.size(), documentFormat, lines),
+            ViewCache.estimateLines(lines));
+        linesCached = viewCache.contains(filePath);
+        return lines;
+    }
+
+    /**
+     * Reserves the part of the view cache's budget taken by the view on screen: its line nodes, and
+     * its lines unless they are the cached copy
+     */
+    private void updateCacheReserve() {
+        long shown = builtChunks.cardinality() * (long) CHUNK_LINES * LINE_NODE_COST;
+        if (originalLines != null && !(linesCached && viewCache.contains(currentFilePath))) {
+            shown += ViewCache.estimateLines(originalLines);
+        }
+        viewCache.setReserved(shown);
+    }
+
     /**
      * Displays code from a String with violations (for Scrap feature)
      * After analysis, shows the code with highlights in display mode (codeLinesBox), not the TextArea.
      */
     public void displayScrapCodeWithViolations(CodeAnalyzer.AnalysisResult result, String code) {
         // Switch to display mode: show codeLinesBox, hide editTextArea
-        scrollPane.setVisible(true);
-        editTextArea.setVisible(false);
+        showCodeArea(false);
         fileNameLabel.setText("Scrap Code");
         this.currentFilePath = null;
         this.originalLines = Arrays.asList(code.split("\r?\n"));
+        this.linesCached = false;
         this.violationsByLine = result.getViolations().stream()
                 .collect(Collectors.groupingBy(CodeAnalyzer.Violation::getLineNumber));
         codeLinesBox.getChildren().clear();
-        codeLinesBox.setStyle("-fx-background-color: #f8f8f8;");
-        for (int i = 0; i < originalLines.size(); i++) {
-            int lineNumber = i + 1;
-            String line = originalLines.get(i);
-            List<CodeAnalyzer.Violation> lineViolations = violationsByLine.get(lineNumber);
-            TextFlow textFlow = new TextFlow();
-            textFlow.setLineSpacing(0.0);
-            textFlow.setPrefWidth(Region.USE_COMPUTED_SIZE);
-            textFlow.setMaxWidth(Double.MAX_VALUE);
-            textFlow.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-            // Add line number
-            Text lineNum = new Text(String.format("%3d: ", lineNumber));
-            lineNum.setFont(Font.font("Consolas", FontWeight.BOLD, 12));
-            lineNum.setStyle("-fx-fill: #666;");
-            if (highlightedLine == lineNumber) {
-                lineNum.setStyle("-fx-fill: white; -fx-font-weight: bold; -fx-background-color: #2196F3; -fx-padding: 2 8 2 8; -fx-background-radius: 6;");
+        syncTokenCache(null);
+        overviewRuler.setViolations(originalLines.size(), violationsByLine);
+        renderLines();
+    }
+
+    /**
+     * Renders originalLines with the active engine: one node per line, or the canvas renderer.
+     * Line nodes exist only around the viewport: the lines are grouped into fixed-height chunk
+     * containers, the chunks in view are built at once and their neighbours in time-budgeted
+     * batches on later animation pulses, so jumping anywhere in a large file builds one screen.
+     */
+    private void renderLines() {
+        renderTimer.stop();
+        codeLinesBox.getChildren().clear();
+        builtChunks.clear();
+        // Line nodes pick up their match state as they are built
+        refreshFind();
+        if (canvasRendering) {
+            codeLinesBox.setMinHeight(Region.USE_COMPUTED_SIZE);
+            canvasView.setDocument(originalLines, tokenCache);
+            canvasView.setViolations(violationsByLine);
+            canvasView.setHighlightedLine(highlightedLine);
+            return;
+        }
+        canvasView.setDocument(null, null);
+        codeLinesBox.setMinHeight(originalLines.size() * LINE_HEIGHT);
+        int chunkCount = (originalLines.size() + CHUNK_LINES - 1) / CHUNK_LINES;
+        List<javafx.scene.Node> chunks = new ArrayList<>(chunkCount);
+        for (int c = 0; c < chunkCount; c++) {
+            VBox chunk = new VBox(0);
+            chunk.setMinHeight(Math.min(CHUNK_LINES, originalLines.size() - c * CHUNK_LINES) * LINE_HEIGHT);
+            chunks.add(chunk);
+        }
+        codeLinesBox.getChildren().setAll(chunks);
+        updateCacheReserve();
+        renderVisible();
+    }
+
+    // Builds the chunks in the viewport and lets renderTimer build the ones around it
+    private void renderVisible() {
+        renderRange(firstVisibleLine(), lastVisibleLine());
+    }
+
+    // Builds the chunks holding the 1-based lines [first, last], then prefetches around them
+    private void renderRange(int first, int last) {
+        int chunkCount = codeLinesBox.getChildren().size();
+        if (originalLines == null || chunkCount == 0) return;
+        int firstChunk = Math.max(0, (first - 1) / CHUNK_LINES);
+        int lastChunk = Math.min(chunkCount - 1, (Math.max(first, last) - 1) / CHUNK_LINES);
+        for (int c = firstChunk; c <= lastChunk; c++) {
+            buildChunk(c);
+        }
+        if (nextChunkToPrefetch() >= 0) {
+            renderTimer.start();
+        }
+    }
+
+    private void buildChunk(int chunk) {
+        if (builtChunks.get(chunk)) return;
+        int start = chunk * CHUNK_LINES;
+        int end = Math.min(originalLines.size(), start + CHUNK_LINES);
+        List<javafx.scene.Node> nodes = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            nodes.add(buildLineNode(i));
+        }
+        ((VBox) codeLinesBox.getChildren().get(chunk)).getChildren().setAll(nodes);
+        builtChunks.set(chunk);
+        if (builtChunks.cardinality() > MAX_BUILT_CHUNKS) {
+            releaseFarthestChunk(chunk);
+        }
+        updateCacheReserve();
+    }
+
+    // Empties the built chunk farthest from the viewport, keeping the one just built
+    private void releaseFarthestChunk(int keep) {
+        int center = ((firstVisibleLine() + lastVisibleLine()) / 2 - 1) / CHUNK_LINES;
+        int farthest = -1;
+        for (int c = builtChunks.nextSetBit(0); c >= 0; c = builtChunks.nextSetBit(c + 1)) {
+            if (c != keep && (farthest < 0 || Math.abs(c - center) > Math.abs(farthest - center))) {
+                farthest = c;
             }
-            textFlow.getChildren().add(lineNum);
-            // If improper indentation, highlight only the leading whitespace and dot
-            boolean highlightIndentOnly = false;
-            if (lineViolations != null && !lineViolations.isEmpty()) {
-                CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                if (mainType == CodeAnalyzer.ViolationType.IMPROPER_INDENTATION) {
-                    highlightIndentOnly = true;
-                }
+        }
+        if (farthest < 0) return;
+        ((VBox) codeLinesBox.getChildren().get(farthest)).getChildren().clear();
+        builtChunks.clear(farthest);
+    }
+
+    // The unbuilt chunk within PREFETCH_CHUNKS of the viewport that is nearest to it, or -1
+    private int nextChunkToPrefetch() {
+        int chunkCount = codeLinesBox.getChildren().size();
+        int firstChunk = (firstVisibleLine() - 1) / CHUNK_LINES;
+        int lastChunk = (lastVisibleLine() - 1) / CHUNK_LINES;
+        for (int distance = 0; distance <= PREFETCH_CHUNKS; distance++) {
+            int after = lastChunk + distance;
+            if (after < chunkCount && !builtChunks.get(after)) return after;
+            int before = firstChunk - distance;
+            if (before >= 0 && before < chunkCount && !builtChunks.get(before)) return before;
+        }
+        return -1;
+    }
+
+    // Builds chunks near the viewport for one pulse's time budget and stops the timer when none are left
+    private void renderPulse() {
+        if (originalLines == null || canvasRendering) {
+            renderTimer.stop();
+            return;
+        }
+        long deadline = System.nanoTime() + RENDER_BUDGET_NANOS;
+        int chunk = nextChunkToPrefetch();
+        while (chunk >= 0) {
+            buildChunk(chunk);
+            if (System.nanoTime() >= deadline) return;
+            chunk = nextChunkToPrefetch();
+        }
+        renderTimer.stop();
+    }
+
+    private javafx.scene.layout.HBox buildLineNode(int index) {
+        int lineNumber = index + 1;
+        return buildLineNode(lineNumber, originalLines.get(index),
+            violationsByLine != null ? violationsByLine.get(lineNumber) : null);
+    }
+
+    // Node of the 1-based line, or null when its chunk is not built
+    private javafx.scene.Node lineNode(int lineNumber) {
+        if (originalLines == null || lineNumber <= 0 || lineNumber > originalLines.size()) return null;
+        int chunk = (lineNumber - 1) / CHUNK_LINES;
+        if (!builtChunks.get(chunk)) return null;
+        return ((VBox) codeLinesBox.getChildren().get(chunk)).getChildren().get((lineNumber - 1) % CHUNK_LINES);
+    }
+
+    // Top of the scroll pane's viewport within the content, measured on the full line height
+    private double viewportTop() {
+        double viewportHeight = scrollPane.getViewportBounds().getHeight();
+        double contentHeight = originalLines.size() * LINE_HEIGHT;
+        return Math.max(0, scrollPane.getVvalue() * (contentHeight - viewportHeight));
+    }
+
+    // 1-based number of the first line in the scroll pane's viewport
+    private int firstVisibleLine() {
+        if (scrollPane.getViewportBounds().getHeight() <= 0 || originalLines == null) {
+            return 1;
+        }
+        return (int) (viewportTop() / LINE_HEIGHT) + 1;
+    }
+
+    // 1-based number of the last line in the scroll pane's viewport
+    private int lastVisibleLine() {
+        double viewportHeight = scrollPane.getViewportBounds().getHeight();
+        if (viewportHeight <= 0 || originalLines == null) {
+            return FALLBACK_SCREEN_LINES;
+        }
+        return (int) Math.ceil((viewportTop() + viewportHeight) / LINE_HEIGHT);
+    }
+
+    /**
+     * Switches between the node-per-line renderer and the canvas renderer
+     */
+    public void setCanvasRendering(boolean enabled) {
+        if (this.canvasRendering == enabled) return;
+        this.canvasRendering = enabled;
+        if (!isEditMode && !editPane.isVisible()) {
+            if (originalLines != null) {
+                renderLines();
             }
-            if (highlightIndentOnly) {
-                String original = line != null ? line : "";
-                int iws = 0;
-                while (iws < original.length() && (original.charAt(iws) == ' ' || original.charAt(iws) == '\t')) iws++;
-                String ws = original.substring(0, iws);
-                String rest = original.substring(iws);
-                int semiIdx = rest.indexOf(';');
-                textFlow.getChildren().add(makeHighlightedText(ws));
-                if (rest.startsWith(".")) {
-                    textFlow.getChildren().add(makeHighlightedText("."));
-                    rest = rest.substring(1);
-                }
-                if (semiIdx != -1) {
-                    String toSemi, afterSemi;
-                    if (semiIdx + 1 <= rest.length()) {
-                        toSemi = rest.substring(0, semiIdx + 1);
-                        afterSemi = rest.substring(semiIdx + 1);
-                    } else {
-                        toSemi = rest;
-                        afterSemi = "";
-                    }
-                    textFlow.getChildren().add(makeHighlightedText(toSemi));
-                    textFlow.getChildren().add(makeNormalText(afterSemi));
-                } else {
-                    textFlow.getChildren().add(makeHighlightedText(rest));
-                }
-            } else {
-                textFlow.getChildren().add(makeNormalText(line));
+            showCodeArea(false);
+        }
+    }
+
+    public boolean isCanvasRendering() {
+        return canvasRendering;
+    }
+
+    // Shows either the edit TextArea or the active display renderer
+    private void showCodeArea(boolean editing) {
+        if (!editing) {
+            stopLiveAnalysis();
+        }
+        editPane.setVisible(editing);
+        scrollPane.setVisible(!editing && !canvasRendering);
+        canvasView.setVisible(!editing && canvasRendering);
+    }
+
+    /**
+     * Builds the display node for a single line: line number, code text and violation background
+     */
+    private javafx.scene.layout.HBox buildLineNode(int lineNumber, String line, List<CodeAnalyzer.Violation> lineViolations) {
+        TextFlow textFlow = new TextFlow();
+        textFlow.setLineSpacing(0.0);
+        textFlow.setPrefWidth(Region.USE_COMPUTED_SIZE);
+        textFlow.setMaxWidth(Double.MAX_VALUE);
+
+        // Add line number
+        Text lineNum = new Text(String.format("%3d: ", lineNumber));
+        lineNum.setFont(LINE_NUMBER_FONT);
+        lineNum.getStyleClass().add("line-number");
+        textFlow.getChildren().add(lineNum);
+
+        // Add the actual line content
+        // If improper indentation, highlight only the leading whitespace and dot
+        boolean highlightIndentOnly = false;
+        if (lineViolations != null && !lineViolations.isEmpty()) {
+            CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
+            if (mainType == CodeAnalyzer.ViolationType.IMPROPER_INDENTATION) {
+                highlightIndentOnly = true;
             }
-            javafx.scene.layout.HBox lineBox = new javafx.scene.layout.HBox(textFlow);
-            lineBox.setMinHeight(24);
-            lineBox.setPrefWidth(Region.USE_COMPUTED_SIZE);
-            lineBox.setMaxWidth(Double.MAX_VALUE);
-            lineBox.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-            StringBuilder style = new StringBuilder();
-            if (lineViolations != null && !lineViolations.isEmpty()) {
-                CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                style.append("-fx-background-color: ").append(getLineHighlightColor(mainType)).append(";");
+        }
+        if (highlightIndentOnly) {
+            String original = line != null ? line : "";
+            int iws = 0;
+            while (iws < original.length() && (original.charAt(iws) == ' ' || original.charAt(iws) == '\t')) iws++;
+            String ws = original.substring(0, iws);
+            String rest = original.substring(iws);
+            int semiIdx = rest.indexOf(';');
+            textFlow.getChildren().add(makeHighlightedText(ws));
+            if (rest.startsWith(".")) {
+                textFlow.getChildren().add(makeHighlightedText("."));
+                rest = rest.substring(1);
             }
-            if (highlightedLine == lineNumber) {
-                if (lineViolations == null || lineViolations.isEmpty()) {
-                    style.append("-fx-background-color: #E3F2FD;");
+            if (semiIdx != -1) {
+                String toSemi, afterSemi;
+                if (semiIdx + 1 <= rest.length()) {
+                    toSemi = rest.substring(0, semiIdx + 1);
+                    afterSemi = rest.substring(semiIdx + 1);
+                } else {
+                    toSemi = rest;
+                    afterSemi = "";
                 }
-                style.append("-fx-border-color: #2196F3; -fx-border-width: 3; -fx-border-radius: 8; -fx-background-radius: 8; -fx-padding: 4 8 4 8;");
+                textFlow.getChildren().add(makeHighlightedText(toSemi));
+                textFlow.getChildren().add(makeNormalText(afterSemi));
             } else {
-                style.append("-fx-background-radius: 8; -fx-padding: 4 8 4 8;");
+                textFlow.getChildren().add(makeHighlightedText(rest));
+            }
+        } else {
+            appendSyntaxText(textFlow, lineNumber - 1, line);
+        }
+
+        javafx.scene.layout.HBox lineBox = new javafx.scene.layout.HBox(textFlow);
+        lineBox.setMinHeight(LINE_HEIGHT);
+        lineBox.setPrefWidth(Region.USE_COMPUTED_SIZE);
+        lineBox.setMaxWidth(Double.MAX_VALUE);
+        lineBox.getStyleClass().add("code-line");
+        // Violation background and the highlighted-line border come from styles/style.css
+        if (lineViolations != null && !lineViolations.isEmpty()) {
+            lineBox.getStyleClass().add(highlightUtil.getStyleClassForViolation(getMostSevereViolation(lineViolations)));
+        }
+        lineBox.pseudoClassStateChanged(HIGHLIGHTED, highlightedLine == lineNumber);
+        lineBox.pseudoClassStateChanged(FIND_MATCH, matchLineSet.get(lineNumber - 1));
+        return lineBox;
+    }
+
+    /**
+     * Appends the line as syntax-colored text, using the cached token runs for that line.
+     * Adjacent tokens with the same color are merged into one Text node.
+     */
+    private void appendSyntaxText(TextFlow textFlow, int lineIndex, String line) {
+        int[] runs = tokenCache.getRuns(lineIndex);
+        if (line == null || runs.length == 0) {
+            textFlow.getChildren().add(makeNormalText(line));
+            return;
+        }
+        int segmentStart = 0;
+        Color segmentColor = null;
+        for (int r = 0; r < runs.length; r += 3) {
+            Color color = highlightUtil.getColorForToken(JavaLexer.TokenType.fromOrdinal(runs[r + 2]));
+            if (segmentColor != null && !color.equals(segmentColor)) {
+                textFlow.getChildren().add(makeTokenText(line.substring(segmentStart, runs[r]), segmentColor));
+                segmentStart = runs[r];
             }
-            lineBox.setStyle(style.toString());
-            codeLinesBox.getChildren().add(lineBox);
+            segmentColor = color;
+        }
+        textFlow.getChildren().add(makeTokenText(line.substring(segmentStart), segmentColor));
+    }
+
+    /**
+     * Keeps the token cache in step with originalLines: the same source is updated incrementally,
+     * a different source starts a fresh cache.
+     */
+    private void syncTokenCache(Path source) {
+        if (tokenCacheInitialized && Objects.equals(source, tokenCacheSource)) {
+            tokenCache.update(originalLines);
+        } else {
+            tokenCache.reset(originalLines);
         }
+        tokenCacheSource = source;
+        tokenCacheInitialized = true;
+    }
+
+    private Text makeTokenText(String s, Color color) {
+        Text t = new Text(s);
+        t.setFont(CODE_FONT);
+        t.setFill(color);
+        return t;
     }
 
     private Text makeNormalText(String s) {
         Text t = new Text(s);
-        t.setFont(Font.font("Consolas", FontWeight.NORMAL, 12));
-        t.setStyle("-fx-fill: #333;");
+        t.setFont(CODE_FONT);
+        t.getStyleClass().add("code-text");
         return t;
     }
 
@@ -370,14 +744,25 @@ public class CodeDisplayPanel extends VBox {
      * Clears the code display
      */
     public void clear() {
-        // Clear all children and reset state
-        codeLinesBox.getChildren().clear();
-        editTextArea.clear();
+        resetDisplay();
+        releaseDocument();
         fileNameLabel.setText("No file selected");
         currentFilePath = null;
+    }
+
+    // Resets the rendered lines and violation state, leaving the document alone
+    private void resetDisplay() {
+        renderTimer.stop();
+        builtChunks.clear();
+        codeLinesBox.getChildren().clear();
+        codeLinesBox.setMinHeight(Region.USE_COMPUTED_SIZE);
+        linesCached = false;
+        viewCache.setReserved(0);
+        canvasView.setDocument(null, null);
         originalLines = null;
         violationsByLine = null;
         highlightedLine = -1;
+        overviewRuler.setViolations(0, null);
         setEditMode(false);
         
         // Force layout update
@@ -391,68 +776,217 @@ public class CodeDisplayPanel extends VBox {
      * Scrolls to the given line and highlights it with a blue background
      */
     public void scrollToLineAndHighlight(int lineNumber, CodeAnalyzer.ViolationType type) {
-        if (lineNumber <= 0 || lineNumber > codeLinesBox.getChildren().size()) return;
+        if (lineNumber <= 0 || originalLines == null || lineNumber > originalLines.size()) return;
 
         if (isEditMode) {
-            // Remove highlight from all line numbers
-            for (javafx.scene.Node node : codeLinesBox.getChildren()) {
-                if (node instanceof TextFlow) {
-                    TextFlow tf = (TextFlow) node;
-                    if (!tf.getChildren().isEmpty() && tf.getChildren().get(0) instanceof Text) {
-                        Text lineNum = (Text) tf.getChildren().get(0);
-                        // Reset to default style
-                        lineNum.setStyle("-fx-fill: #666;");
-                    }
-                }
-            }
-            // Highlight the line number of the selected line
-            TextFlow tf = (TextFlow) codeLinesBox.getChildren().get(lineNumber - 1);
-            if (!tf.getChildren().isEmpty() && tf.getChildren().get(0) instanceof Text) {
-                Text lineNum = (Text) tf.getChildren().get(0);
-                // Set highlight style (blue background, white text)
-                lineNum.setStyle("-fx-fill: white; -fx-font-weight: bold; -fx-background-color: #2196F3; -fx-padding: 2 6 2 6; -fx-background-radius: 4;");
-            }
+            setHighlightedLine(lineNumber);
             highlightLineInTextArea(lineNumber);
+        } else if (canvasRendering) {
+            // The canvas repaints only the viewport, so no rebuild is needed
+            setHighlightedLine(lineNumber);
+            canvasView.scrollToLine(lineNumber);
         } else {
-            // In display mode, set highlightedLine and refresh the code display
-            this.highlightedLine = lineNumber;
-            // Rebuild the code display to show the border
-            if (violationsByLine != null && currentFilePath != null) {
-                // Reconstruct the analysis result from violationsByLine
-                java.util.List<com.javareader.logic.CodeAnalyzer.Violation> allViolations = new java.util.ArrayList<>();
-                for (java.util.List<com.javareader.logic.CodeAnalyzer.Violation> vlist : violationsByLine.values()) {
-                    allViolations.addAll(vlist);
-                }
-                com.javareader.logic.CodeAnalyzer.AnalysisResult result = new com.javareader.logic.CodeAnalyzer.AnalysisResult(allViolations);
-                displayCodeWithViolations(result, currentFilePath);
-            }
-            double total = codeLinesBox.getChildren().size();
+            // Only the previously and newly highlighted line nodes change state
+            renderRange(lineNumber, lineNumber + FALLBACK_SCREEN_LINES);
+            setHighlightedLine(lineNumber);
+            double total = originalLines.size();
             double frac = (lineNumber - 1) / Math.max(1.0, total - 1);
             scrollPane.setVvalue(frac);
         }
     }
+
+    // Moves the highlighted-line pseudo-class from the old line node to the new one
+    private void setHighlightedLine(int lineNumber) {
+        javafx.scene.Node previous = lineNode(highlightedLine);
+        if (previous != null) {
+            previous.pseudoClassStateChanged(HIGHLIGHTED, false);
+        }
+        this.highlightedLine = lineNumber;
+        javafx.scene.Node current = lineNode(lineNumber);
+        if (current != null) {
+            current.pseudoClassStateChanged(HIGHLIGHTED, true);
+        }
+        canvasView.setHighlightedLine(lineNumber);
+    }
     
-    private void highlightLineInTextArea(int lineNumber) {
-        if (lineNumber <= 0 || originalLines == null || lineNumber > originalLines.size()) return;
-        
-        // Calculate the position in the TextArea
-        int position = 0;
-        for (int i = 0; i < lineNumber - 1; i++) {
-            position += String.format("%3d: %s\n", i + 1, originalLines.get(i)).length();
+    /**
+     * Scrolls the display so the given line is in view without changing the highlight
+     */
+    public void scrollToLine(int lineNumber) {
+        if (isEditMode) {
+            highlightLineInTextArea(lineNumber);
+            return;
+        }
+        if (canvasRendering) {
+            canvasView.scrollToLine(lineNumber);
+            return;
+        }
+        if (originalLines == null || lineNumber <= 0 || lineNumber > originalLines.size()) return;
+        renderRange(lineNumber, lineNumber + FALLBACK_SCREEN_LINES);
+        scrollPane.setVvalue((lineNumber - 1) / Math.max(1.0, originalLines.size() - 1.0));
+    }
+
+    // Mirrors the visible part of the scroll pane onto the overview ruler
+    private void updateRulerViewport() {
+        if (canvasRendering) {
+            double[] fraction = canvasView.getViewportFraction();
+            overviewRuler.setViewport(fraction[0], fraction[1]);
+            return;
         }
+        double contentHeight = codeLinesBox.getHeight();
+        double viewportHeight = scrollPane.getViewportBounds().getHeight();
+        if (contentHeight <= 0 || viewportHeight >= contentHeight) {
+            overviewRuler.setViewport(0, contentHeight > 0 ? 1 : 0);
+            return;
+        }
+        double start = scrollPane.getVvalue() * (contentHeight - viewportHeight) / contentHeight;
+        overviewRuler.setViewport(start, start + viewportHeight / contentHeight);
+    }
+
+    private void highlightLineInTextArea(int lineNumber) {
+        if (lineNumber <= 0 || !editAreaHoldsDocument || lineNumber > document.getLineCount()) return;
         
-        // Select the entire line
-        int lineStart = position;
-        int lineEnd = position + String.format("%3d: %s", lineNumber, originalLines.get(lineNumber - 1)).length();
+        // The TextArea holds the plain document text, so offsets come straight from the document
+        int lineStart = document.getLineStart(lineNumber - 1);
+        int lineEnd = lineNumber < document.getLineCount()
+                ? document.getLineStart(lineNumber) - 1
+                : document.length();
         
         editTextArea.selectRange(lineStart, lineEnd);
         editTextArea.requestFocus();
-        
-        // Calculate scroll position
-        double totalLines = originalLines.size();
-        double targetLine = lineNumber - 1;
-        double scrollValue = targetLine / Math.max(1.0, totalLines - 1);
-        // Note: TextArea doesn't have direct scroll control, so we'll just select the text
+    }
+
+    /**
+     * Finds every occurrence of the find field's text in the shown code and marks the lines holding
+     * them: a pseudo-class on line nodes, a band on the canvas and a mark in the edit gutter.
+     * In edit mode the document is searched and each match mapped to its line through the
+     * document's line index.
+     */
+    private void refreshFind() {
+        String query = findField.getText();
+        int[] lines = new int[0];
+        int[] columns = new int[0];
+        if (query != null && !query.isEmpty()) {
+            if (isEditMode && editAreaHoldsDocument) {
+                int[] offsets = document.findAll(query);
+                lines = new int[offsets.length];
+                columns = new int[offsets.length];
+                for (int i = 0; i < offsets.length; i++) {
+                    lines[i] = document.getLineOfOffset(offsets[i]);
+                    columns[i] = offsets[i] - document.getLineStart(lines[i]);
+                }
+            } else if (originalLines != null && !isEditMode) {
+                int count = 0;
+                lines = new int[16];
+                columns = new int[16];
+                for (int line = 0; line < originalLines.size(); line++) {
+                    String text = originalLines.get(line);
+                    for (int at = text.indexOf(query); at >= 0; at = text.indexOf(query, at + query.length())) {
+                        if (count == lines.length) {
+                            lines = Arrays.copyOf(lines, count * 2);
+                            columns = Arrays.copyOf(columns, count * 2);
+                        }
+                        lines[count] = line;
+                        columns[count++] = at;
+                    }
+                }
+                lines = Arrays.copyOf(lines, count);
+                columns = Arrays.copyOf(columns, count);
+            }
+        }
+        setMatches(lines, columns, query == null ? 0 : query.length());
+    }
+
+    private void setMatches(int[] lines, int[] columns, int length) {
+        // Unbuilt lines pick up their match state when their chunk is built
+        for (int line = matchLineSet.nextSetBit(0); line >= 0; line = matchLineSet.nextSetBit(line + 1)) {
+            javafx.scene.Node node = lineNode(line + 1);
+            if (node != null) node.pseudoClassStateChanged(FIND_MATCH, false);
+        }
+        matchLineSet.clear();
+        for (int line : lines) {
+            matchLineSet.set(line);
+        }
+        for (int line = matchLineSet.nextSetBit(0); line >= 0; line = matchLineSet.nextSetBit(line + 1)) {
+            javafx.scene.Node node = lineNode(line + 1);
+            if (node != null) node.pseudoClassStateChanged(FIND_MATCH, true);
+        }
+        this.matchLines = lines;
+        this.matchColumns = columns;
+        this.currentMatch = -1;
+        this.matchesStale = false;
+        canvasView.setFindMatches(lines, columns, length);
+        editGutter.setMarkedLines(matchLineSet);
+        String query = findField.getText();
+        findStatus.setText(query == null || query.isEmpty() ? "" : lines.length + (lines.length == 1 ? " match" : " matches"));
+    }
+
+    // Moves to the next match, wrapping at the end; in edit mode the match itself is selected
+    private void nextMatch() {
+        if (matchesStale) {
+            refreshFind();
+        }
+        if (matchLines.length == 0) return;
+        currentMatch = (currentMatch + 1) % matchLines.length;
+        int line = matchLines[currentMatch];
+        if (isEditMode && editAreaHoldsDocument) {
+            int start = document.getLineStart(line) + matchColumns[currentMatch];
+            editTextArea.selectRange(start, start + findField.getText().length());
+        } else if (!isEditMode) {
+            scrollToLineAndHighlight(line + 1, null);
+        }
+        findStatus.setText((currentMatch + 1) + " of " + matchLines.length);
+    }
+
+    // Applies each TextArea edit to the bound document and keeps the gutter's line count current
+    private TextFormatter.Change trackEdit(TextFormatter.Change change) {
+        if (syncingEditArea || !change.isContentChange()) return change;
+        int start = change.getRangeStart();
+        int end = change.getRangeEnd();
+        String removed = end > start ? editTextArea.getText(start, end) : "";
+        String inserted = change.getText();
+        if (editAreaHoldsDocument) {
+            document.replace(start, end - start, inserted);
+        }
+        if (matchLines.length > 0) {
+            matchesStale = true;
+        }
+        editGutter.setLineCount(editGutter.getLineCount() + countLineBreaks(inserted) - countLineBreaks(removed));
+        editVersion++;
+        liveFresh = false;
+        if (liveAnalyzer != null) {
+            liveDelay.playFromStart();
+        }
+        return change;
+    }
+
+    // Replaces the TextArea content without treating it as a user edit
+    private void setEditAreaText(String text) {
+        syncingEditArea = true;
+        try {
+            editTextArea.setText(text);
+        } finally {
+            syncingEditArea = false;
+        }
+        editGutter.setLineCount(countLineBreaks(text) + 1);
+    }
+
+    // Drops the document and empties the TextArea that mirrored it
+    private void releaseDocument() {
+        document = null;
+        documentPath = null;
+        documentStamp = null;
+        documentFormat = TextFileFormat.defaultFormat();
+        editAreaHoldsDocument = false;
+        setEditAreaText("");
+    }
+
+    private static int countLineBreaks(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') count++;
+        }
+        return count;
     }
 
     /**
@@ -461,32 +995,31 @@ public class CodeDisplayPanel extends VBox {
     public void setEditMode(boolean editMode) {
         this.isEditMode = editMode;
         if (editMode) {
-            scrollPane.setVisible(false);
-            editTextArea.setVisible(true);
-            // Only populate ONCE, clear before setting
-            editTextArea.clear();
-            StringBuilder codeBuilder = new StringBuilder();
-            for (int i = 0; i < originalLines.size(); i++) {
-                int lineNumber = i + 1;
-                String line = originalLines.get(i);
-                // Only append line number and code, no color comments
-                codeBuilder.append(String.format("%3d: %s\n", lineNumber, line));
+            showCodeArea(true);
+            if (document == null && currentFilePath != null && originalLines != null) {
+                document = PieceTable.fromLines(originalLines);
+                documentPath = currentFilePath;
+                documentStamp = readStamp(currentFilePath);
+            }
+            // The TextArea is populated from the document once; later edits flow into the document
+            if (document != null && !editAreaHoldsDocument) {
+                setEditAreaText(document.getText());
+                editAreaHoldsDocument = true;
             }
-            editTextArea.setText(codeBuilder.toString());
+            refreshFind();
+            // Unsaved edits from an earlier session may have moved the violations; analyze them again
+            resetLiveAnalysis(document != null && document.isModified() ? null : violationsByLine);
         } else {
-            scrollPane.setVisible(true);
-            editTextArea.setVisible(false);
-            // Force refresh of highlighted line in display mode
-            if (highlightedLine > 0) {
-                // Rebuild the code display to show the border
-                if (violationsByLine != null && currentFilePath != null) {
-                    java.util.List<com.javareader.logic.CodeAnalyzer.Violation> allViolations = new java.util.ArrayList<>();
-                    for (java.util.List<com.javareader.logic.CodeAnalyzer.Violation> vlist : violationsByLine.values()) {
-                        allViolations.addAll(vlist);
-                    }
-                    com.javareader.logic.CodeAnalyzer.AnalysisResult result = new com.javareader.logic.CodeAnalyzer.AnalysisResult(allViolations);
-                    displayCodeWithViolations(result, currentFilePath);
+            showCodeArea(false);
+            if (document != null && document.isModified() && originalLines != null) {
+                // Unsaved edits are shown in display mode too, with the live violations when they are current
+                if (liveFresh && liveViolationsByLine != null) {
+                    violationsByLine = liveViolationsByLine;
                 }
+                originalLines = document.toLines();
+                syncTokenCache(currentFilePath);
+                overviewRuler.setViolations(originalLines.size(), violationsByLine);
+                renderLines();
             }
         }
         this.requestLayout();
@@ -500,13 +1033,11 @@ public class CodeDisplayPanel extends VBox {
      */
     public void showScrapEditArea(String code) {
         fileNameLabel.setText("Scrap Code");
-        scrollPane.setVisible(false);
-        editTextArea.setVisible(true);
-        if (code != null) {
-            editTextArea.setText(code);
-        } else {
-            editTextArea.clear();
-        }
+        showCodeArea(true);
+        // Scrap text is not a file document; the document is re-populated on the next file edit
+        editAreaHoldsDocument = false;
+        setEditAreaText(code != null ? code : "");
+        resetLiveAnalysis(null);
     }
 
     /**
@@ -514,89 +1045,16 @@ public class CodeDisplayPanel extends VBox {
      */
     public void showScrapDisplayArea(String code, CodeAnalyzer.AnalysisResult result) {
         fileNameLabel.setText("Scrap Code");
-        scrollPane.setVisible(true);
-        editTextArea.setVisible(false);
+        showCodeArea(false);
         this.currentFilePath = null;
         this.originalLines = Arrays.asList(code.split("\r?\n"));
+        this.linesCached = false;
         this.violationsByLine = result.getViolations().stream()
                 .collect(Collectors.groupingBy(CodeAnalyzer.Violation::getLineNumber));
         codeLinesBox.getChildren().clear();
-        codeLinesBox.setStyle("-fx-background-color: #f8f8f8;");
-        for (int i = 0; i < originalLines.size(); i++) {
-            int lineNumber = i + 1;
-            String line = originalLines.get(i);
-            List<CodeAnalyzer.Violation> lineViolations = violationsByLine.get(lineNumber);
-            TextFlow textFlow = new TextFlow();
-            textFlow.setLineSpacing(0.0);
-            textFlow.setPrefWidth(Region.USE_COMPUTED_SIZE);
-            textFlow.setMaxWidth(Double.MAX_VALUE);
-            textFlow.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-            // Add line number
-            Text lineNum = new Text(String.format("%3d: ", lineNumber));
-            lineNum.setFont(Font.font("Consolas", FontWeight.BOLD, 12));
-            lineNum.setStyle("-fx-fill: #666;");
-            if (highlightedLine == lineNumber) {
-                lineNum.setStyle("-fx-fill: white; -fx-font-weight: bold; -fx-background-color: #2196F3; -fx-padding: 2 8 2 8; -fx-background-radius: 6;");
-            }
-            textFlow.getChildren().add(lineNum);
-            // If improper indentation, highlight only the leading whitespace and dot
-            boolean highlightIndentOnly = false;
-            if (lineViolations != null && !lineViolations.isEmpty()) {
-                CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                if (mainType == CodeAnalyzer.ViolationType.IMPROPER_INDENTATION) {
-                    highlightIndentOnly = true;
-                }
-            }
-            if (highlightIndentOnly) {
-                String original = line != null ? line : "";
-                int iws = 0;
-                while (iws < original.length() && (original.charAt(iws) == ' ' || original.charAt(iws) == '\t')) iws++;
-                String ws = original.substring(0, iws);
-                String rest = original.substring(iws);
-                int semiIdx = rest.indexOf(';');
-                textFlow.getChildren().add(makeHighlightedText(ws));
-                if (rest.startsWith(".")) {
-                    textFlow.getChildren().add(makeHighlightedText("."));
-                    rest = rest.substring(1);
-                }
-                if (semiIdx != -1) {
-                    String toSemi, afterSemi;
-                    if (semiIdx + 1 <= rest.length()) {
-                        toSemi = rest.substring(0, semiIdx + 1);
-                        afterSemi = rest.substring(semiIdx + 1);
-                    } else {
-                        toSemi = rest;
-                        afterSemi = "";
-                    }
-                    textFlow.getChildren().add(makeHighlightedText(toSemi));
-                    textFlow.getChildren().add(makeNormalText(afterSemi));
-                } else {
-                    textFlow.getChildren().add(makeHighlightedText(rest));
-                }
-            } else {
-                textFlow.getChildren().add(makeNormalText(line));
-            }
-            javafx.scene.layout.HBox lineBox = new javafx.scene.layout.HBox(textFlow);
-            lineBox.setMinHeight(24);
-            lineBox.setPrefWidth(Region.USE_COMPUTED_SIZE);
-            lineBox.setMaxWidth(Double.MAX_VALUE);
-            lineBox.setStyle("-fx-wrap-text: false; -fx-background-color: transparent;");
-            StringBuilder style = new StringBuilder();
-            if (lineViolations != null && !lineViolations.isEmpty()) {
-                CodeAnalyzer.ViolationType mainType = getMostSevereViolation(lineViolations);
-                style.append("-fx-background-color: ").append(getLineHighlightColor(mainType)).append(";");
-            }
-            if (highlightedLine == lineNumber) {
-                if (lineViolations == null || lineViolations.isEmpty()) {
-                    style.append("-fx-background-color: #E3F2FD;");
-                }
-                style.append("-fx-border-color: #2196F3; -fx-border-width: 3; -fx-border-radius: 8; -fx-background-radius: 8; -fx-padding: 4 8 4 8;");
-            } else {
-                style.append("-fx-background-radius: 8; -fx-padding: 4 8 4 8;");
-            }
-            lineBox.setStyle(style.toString());
-            codeLinesBox.getChildren().add(lineBox);
-        }
+        syncTokenCache(null);
+        overviewRuler.setViolations(originalLines.size(), violationsByLine);
+        renderLines();
     }
 
     /**
@@ -612,31 +1070,36 @@ public class CodeDisplayPanel extends VBox {
     public boolean saveFile() {
         if (currentFilePath == null) return false;
         try {
-            String content;
-            if (isEditMode) {
-                content = editTextArea.getText();
-            } else {
-                // Reconstruct content from display mode
-                StringBuilder sb = new StringBuilder();
-                for (int i = 0; i < originalLines.size(); i++) {
-                    sb.append(originalLines.get(i)).append("\n");
-                }
-                content = sb.toString();
+            if (document == null) {
+                if (originalLines == null) return false;
+                document = PieceTable.fromLines(originalLines);
+                documentPath = currentFilePath;
             }
-            // Remove line numbers (with any spaces) before saving
-            String[] lines = content.split("\n");
-            StringBuilder cleanContent = new StringBuilder();
-            for (String line : lines) {
-                // Remove leading spaces, digits, colon, and space (e.g., '  1: ')
-                cleanContent.append(line.replaceFirst("^\\s*\\d+:\\s", "")).append("\n");
-            }
-            Files.write(currentFilePath, cleanContent.toString().getBytes());
+            // Streams the pieces to a temporary file in the original charset and line endings, then swaps it in
+            documentSaver.save(document, currentFilePath, documentFormat);
+            document.markSaved();
+            documentStamp = readStamp(currentFilePath);
             return true;
         } catch (IOException e) {
             return false;
         }
     }
     
+    private static FileTime readStamp(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * True when the open file has edits that are not saved yet
+     */
+    public boolean hasUnsavedChanges() {
+        return document != null && document.isModified();
+    }
+
     /**
      * Gets the current file path
      */
@@ -644,42 +1107,33 @@ public class CodeDisplayPanel extends VBox {
         return currentFilePath;
     }
 
-    // Returns the most severe violation type (priority order)
+    // Returns the most severe violation type
     private CodeAnalyzer.ViolationType getMostSevereViolation(List<CodeAnalyzer.Violation> violations) {
-        if (violations == null || violations.isEmpty()) return null;
-        java.util.List<CodeAnalyzer.ViolationType> priority = java.util.Arrays.asList(
-            CodeAnalyzer.ViolationType.LINE_TOO_LONG,
-            CodeAnalyzer.ViolationType.IMPROPER_INDENTATION,
-            CodeAnalyzer.ViolationType.REPEATED_STRING,
-            CodeAnalyzer.ViolationType.EMPTY_LINE,
-            CodeAnalyzer.ViolationType.NAMING_CONVENTION
-        );
-        for (CodeAnalyzer.ViolationType t : priority) {
-            for (CodeAnalyzer.Violation v : violations) {
-                if (v.getType() == t) return t;
-            }
-        }
-        return violations.get(0).getType();
-    }
-
-    // Returns a solid, bold color for line highlight
-    private String getLineHighlightColor(CodeAnalyzer.ViolationType type) {
-        if (type == null) return "transparent";
-        switch (type) {
-            case LINE_TOO_LONG: return "#FF1744"; // Bold Red
-            case IMPROPER_INDENTATION: return "#FF9100"; // Bold Orange
-            case REPEATED_STRING: return "#2979FF"; // Bold Blue
-            case EMPTY_LINE: return "#FFD600"; // Bold Yellow
-            case NAMING_CONVENTION: return "#00C853"; // Bold Green
-            default: return "transparent";
-        }
+        return CodeAnalyzer.ViolationType.mostSevere(violations);
     }
 
     // Helper for orange highlight
     private Text makeHighlightedText(String s) {
         Text t = new Text(s);
-        t.setFont(Font.font("Consolas", FontWeight.NORMAL, 12));
-        t.setStyle("-fx-background-color: orange; -fx-fill: #333;");
+        t.setFont(CODE_FONT);
+        t.getStyleClass().add("indent-highlight");
         return t;
     }
-}
\ No newline at end of file
+
+    /**
+     * Lines of a file as read at the given modification time and size
+     */
+    private static class CachedView {
+        final FileTime stamp;
+        final long size;
+        final TextFileFormat format;
+        final List<String> lines;
+
+        CachedView(FileTime stamp, long size, TextFileFormat format, List<String> lines) {
+            this.stamp = stamp;
+            this.size = size;
+            this.format = format;
+            this.lines = lines;
+        }
+    }
+}
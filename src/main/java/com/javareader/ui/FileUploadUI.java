@@ -1,20 +1,37 @@
 package com.javareader.ui;
 
+import com.javareader.logic.AutoFixer;
+import com.javareader.logic.BatchAnalyzer;
 import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.DuplicateBlockDetector;
+import com.javareader.logic.SourceFile;
+import com.javareader.logic.TextFileFormat;
+import com.javareader.logic.ViolationBaseline;
+import com.javareader.logic.rules.RuleFailureException;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.scene.Scene;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
+import javafx.stage.Stage;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +60,28 @@ public class FileUploadUI extends VBox {
     private String scrapContent = "";
     private TextField filePathField;
     private Button openPathButton;
+    private ProjectDashboard projectDashboard;
+    // Known violations hidden from the results, or null to show everything
+    private volatile ViolationBaseline baseline;
+    // The baseline file; its folder is the project root that baseline paths are relative to
+    private volatile Path baselinePath;
+    private Stage projectStage;
+    private final ProgressBar analysisProgress = new ProgressBar(0);
+    private final Button cancelButton = new Button("Cancel");
+    // Cancellation flag of the analysis in progress, or null
+    private AtomicBoolean runningAnalysis;
+    private BatchAnalyzer batchAnalyzer;
+    private BatchAnalyzer.Batch currentBatch;
+    private final Label batchLabel = new Label("Files:");
+    private final ListView<BatchItem> batchList = new ListView<>();
+    // Finished batch items waiting for the next FX pulse, flushed together
+    private final ConcurrentLinkedQueue<BatchItem> pendingBatchItems = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean batchFlushScheduled = new AtomicBoolean();
+    private List<DuplicateBlockDetector.DuplicateBlock> batchDuplicates = new ArrayList<>();
+    // Used only on the live analysis thread, so it never races the file analyses
+    private final CodeAnalyzer liveCodeAnalyzer = new CodeAnalyzer();
+    // Name the baseline matches live results against: the edited file or the scrap path
+    private volatile Path liveSourcePath;
     
     private static final String READ_BUTTON_STYLE = "-fx-background-color: #1976D2; -fx-text-fill: white; -fx-font-size: 12px; -fx-pref-width: 100px; -fx-pref-height: 28px; -fx-padding: 0 10;";
     private static final String WRITE_BUTTON_STYLE = "-fx-background-color: #FF9800; -fx-text-fill: white; -fx-font-size: 12px; -fx-pref-width: 100px; -fx-pref-height: 28px; -fx-padding: 0 10;";
@@ -65,6 +104,7 @@ public class FileUploadUI extends VBox {
         
         setupLayout();
         setupStyles();
+        codeDisplayPanel.setLiveAnalysis(this::analyzeLive, this::showLiveResult);
         // Move the refresh button from the header to the code view area beside the filename
         codeDisplayPanel.setupLayoutWithRefreshButton(refreshButton, () -> handleCloseAllFiles());
 
@@ -101,7 +141,37 @@ public class FileUploadUI extends VBox {
         MenuItem newFileItem = new MenuItem("New File");
         newFileItem.setOnAction(e -> {/* Optionally implement new file logic */});
         fileMenu.getItems().addAll(openFileItem, closeFileItem, newFileItem);
-        menuBar.getMenus().add(fileMenu);
+        Menu viewMenu = new Menu("View");
+        CheckMenuItem canvasRendererItem = new CheckMenuItem("Canvas Renderer");
+        canvasRendererItem.setSelected(codeDisplayPanel.isCanvasRendering());
+        canvasRendererItem.setOnAction(e -> codeDisplayPanel.setCanvasRendering(canvasRendererItem.isSelected()));
+        viewMenu.getItems().add(canvasRendererItem);
+        Menu projectMenu = new Menu("Project");
+        MenuItem openProjectItem = new MenuItem("Open Project...");
+        openProjectItem.setOnAction(e -> handleOpenProject());
+        MenuItem showDashboardItem = new MenuItem("Show Dashboard");
+        showDashboardItem.setOnAction(e -> showProjectDashboard().refresh());
+        projectMenu.getItems().addAll(openProjectItem, showDashboardItem);
+        Menu baselineMenu = new Menu("Baseline");
+        MenuItem loadBaselineItem = new MenuItem("Load Baseline...");
+        loadBaselineItem.setOnAction(e -> handleLoadBaseline());
+        MenuItem recordBaselineItem = new MenuItem("Add Current File to Baseline");
+        recordBaselineItem.setOnAction(e -> handleRecordBaseline());
+        MenuItem clearBaselineItem = new MenuItem("Clear Baseline");
+        clearBaselineItem.setOnAction(e -> {
+            baseline = null;
+            baselinePath = null;
+            statusLabel.setText("Baseline cleared");
+            handleRefreshFile();
+        });
+        baselineMenu.getItems().addAll(loadBaselineItem, recordBaselineItem, clearBaselineItem);
+        Menu fixMenu = new Menu("Fix");
+        MenuItem fixFileItem = new MenuItem("Fix Current File");
+        fixFileItem.setOnAction(e -> handleFixCurrentFile());
+        MenuItem fixFolderItem = new MenuItem("Fix Folder...");
+        fixFolderItem.setOnAction(e -> handleFixFolder());
+        fixMenu.getItems().addAll(fixFileItem, fixFolderItem);
+        menuBar.getMenus().addAll(fileMenu, viewMenu, projectMenu, baselineMenu, fixMenu);
 
         // --- Toolbar (edit, compile, status) ---
         ToolBar toolBar = new ToolBar();
@@ -110,7 +180,15 @@ public class FileUploadUI extends VBox {
         filePathField.setPrefWidth(120);
         filePathField.setStyle("-fx-font-size: 12px; -fx-pref-height: 22px;");
         filePathField.setOnAction(e -> handleOpenPath());
-        toolBar.getItems().addAll(uploadButton, editButton, saveButton, scrapButton, analyzeScrapButton, editScrapButton, new Separator(), filePathField, openPathButton, new Separator(), statusLabel);
+        toolBar.getItems().addAll(uploadButton, editButton, saveButton, scrapButton, analyzeScrapButton, editScrapButton, new Separator(), filePathField, openPathButton, new Separator(), statusLabel, analysisProgress, cancelButton);
+        analysisProgress.setPrefWidth(120);
+        analysisProgress.setVisible(false);
+        cancelButton.setStyle(READ_BUTTON_STYLE);
+        cancelButton.setVisible(false);
+        cancelButton.setOnAction(e -> {
+            if (runningAnalysis != null) runningAnalysis.set(true);
+            if (currentBatch != null) currentBatch.cancel();
+        });
 
         // --- Main content area ---
         javafx.scene.control.SplitPane mainContent = new javafx.scene.control.SplitPane();
@@ -124,7 +202,8 @@ public class FileUploadUI extends VBox {
         // Attach drag-and-drop to both mainContent (SplitPane) and codeSection
         javafx.event.EventHandler<javafx.scene.input.DragEvent> dragOverHandler = event -> {
             if (event.getGestureSource() != mainContent && event.getDragboard().hasFiles()) {
-                boolean hasJava = event.getDragboard().getFiles().stream().anyMatch(f -> f.getName().endsWith(".java"));
+                boolean hasJava = event.getDragboard().getFiles().stream()
+                    .anyMatch(f -> f.getName().endsWith(".java") || f.isDirectory() || BatchAnalyzer.isArchive(f.toPath()));
                 if (hasJava) {
                     event.acceptTransferModes(javafx.scene.input.TransferMode.COPY);
                 }
@@ -135,9 +214,14 @@ public class FileUploadUI extends VBox {
             javafx.scene.input.Dragboard db = event.getDragboard();
             boolean success = false;
             if (db.hasFiles()) {
-                File javaFile = db.getFiles().stream().filter(f -> f.getName().endsWith(".java")).findFirst().orElse(null);
-                if (javaFile != null && javaFile.isFile()) {
-                    analyzeFile(javaFile.toPath());
+                List<File> dropped = db.getFiles();
+                if (dropped.size() == 1 && dropped.get(0).isFile() && dropped.get(0).getName().endsWith(".java")) {
+                    analyzeFile(dropped.get(0).toPath());
+                    success = true;
+                } else if (dropped.stream().anyMatch(f -> f.isDirectory() || f.getName().endsWith(".java")
+                        || BatchAnalyzer.isArchive(f.toPath()))) {
+                    // Folders, archives and multi-file selections go to the parallel batch queue
+                    analyzeBatch(dropped.stream().map(File::toPath).collect(Collectors.toList()));
                     success = true;
                 } else {
                     showError("Please drop a valid .java file.");
@@ -177,7 +261,16 @@ public class FileUploadUI extends VBox {
         tableSection.setMinWidth(220);
         tableSection.setMaxWidth(Double.MAX_VALUE);
         tableSection.setPrefWidth(Region.USE_COMPUTED_SIZE);
+        batchList.setPrefHeight(160);
+        batchList.setStyle("-fx-font-size: 11px;");
+        batchList.setOnMouseClicked(event -> openBatchItem(batchList.getSelectionModel().getSelectedItem()));
+        batchLabel.managedProperty().bind(batchLabel.visibleProperty());
+        batchList.managedProperty().bind(batchList.visibleProperty());
+        batchList.visibleProperty().bind(batchLabel.visibleProperty());
+        batchLabel.setVisible(false);
         tableSection.getChildren().addAll(
+            batchLabel,
+            batchList,
             new Label("Violations Summary:"),
             violationTable,
             new Label("Violation Descriptions:"),
@@ -200,7 +293,7 @@ public class FileUploadUI extends VBox {
         violationTable.setOnMouseClicked(event -> {
             ViolationTableItem selected = violationTable.getSelectionModel().getSelectedItem();
             if (selected != null && lastViolations != null) {
-                CodeAnalyzer.ViolationType type = getViolationTypeByDescription(selected.typeProperty().get());
+                CodeAnalyzer.ViolationType type = selected.getViolationType();
                 if (type != null) {
                     List<CodeAnalyzer.Violation> matches = lastViolations.stream()
                         .filter(v -> v.getType() == type)
@@ -209,6 +302,9 @@ public class FileUploadUI extends VBox {
                         int idx = violationNavIndex.getOrDefault(type, 0) % matches.size();
                         CodeAnalyzer.Violation v = matches.get(idx);
                         codeDisplayPanel.scrollToLineAndHighlight(v.getLineNumber(), type);
+                        if (v.getDetail() != null) {
+                            statusLabel.setText("Line " + v.getLineNumber() + ": " + v.getDetail());
+                        }
                         violationNavIndex.put(type, idx + 1);
                     }
                 }
@@ -260,8 +356,9 @@ public class FileUploadUI extends VBox {
     }
     private void openScrapFile() {
         scrapContent = "";
+        liveSourcePath = virtualScrapPath;
         codeDisplayPanel.showScrapEditArea(scrapContent);
-        statusLabel.setText("Scrap mode: Paste or type code and click Analyze");
+        statusLabel.setText("Scrap mode: Violations update as you type; click Analyze to highlight them");
         violationTable.getItems().clear();
         scrapButton.setVisible(false);
         analyzeScrapButton.setVisible(true);
@@ -284,11 +381,12 @@ public class FileUploadUI extends VBox {
     }
     private void enterScrapEditMode() {
         isScrapEditMode = true;
+        liveSourcePath = virtualScrapPath;
         scrapButton.setVisible(false);
         analyzeScrapButton.setVisible(true);
         editScrapButton.setVisible(false);
         codeDisplayPanel.showScrapEditArea(lastScrapCode);
-        statusLabel.setText("Scrap mode: Paste or type code and click Analyze");
+        statusLabel.setText("Scrap mode: Violations update as you type; click Analyze to highlight them");
         violationTable.getItems().clear();
     }
     private void analyzeScrapCode() {
@@ -304,7 +402,9 @@ public class FileUploadUI extends VBox {
         editButton.setDisable(true);
         new Thread(() -> {
             try {
-                CodeAnalyzer.AnalysisResult result = codeAnalyzer.analyzeString(code);
+                CodeAnalyzer.AnalysisResult analyzed = codeAnalyzer.analyzeString(code);
+                CodeAnalyzer.AnalysisResult result = baseline != null
+                    ? applyBaseline(analyzed, virtualScrapPath, java.util.Arrays.asList(code.split("\r?\n"))) : analyzed;
                 Platform.runLater(() -> {
                     codeDisplayPanel.showScrapDisplayArea(code, result);
                     updateViolationTable(result);
@@ -327,6 +427,21 @@ public class FileUploadUI extends VBox {
         }).start();
     }
 
+    // Runs on the live analysis thread; the baseline is applied as for a full analysis
+    private CodeAnalyzer.AnalysisResult analyzeLive(String text, CodeAnalyzer.ProgressListener cancelCheck) {
+        List<String> lines = java.util.Arrays.asList(text.split("\r?\n"));
+        CodeAnalyzer.AnalysisResult analyzed = liveCodeAnalyzer.analyzeLines(lines, cancelCheck);
+        Path source = liveSourcePath;
+        return baseline != null && source != null ? applyBaseline(analyzed, source, lines) : analyzed;
+    }
+
+    // Called on the FX thread when the violations of the edited text changed
+    private void showLiveResult(CodeAnalyzer.AnalysisResult result) {
+        updateViolationTable(result);
+        int count = result.getViolations().size();
+        statusLabel.setText(count + (count == 1 ? " violation" : " violations") + " in the edited code");
+    }
+
     // Helper to update the violation table (extracted from displayResults)
     private void updateViolationTable(CodeAnalyzer.AnalysisResult result) {
         violationTable.getItems().clear();
@@ -350,6 +465,7 @@ public class FileUploadUI extends VBox {
     
     private void handleEditFile() {
         if (codeDisplayPanel.getCurrentFilePath() != null) {
+            liveSourcePath = codeDisplayPanel.getCurrentFilePath();
             codeDisplayPanel.setEditMode(true);
             saveButton.setDisable(false);
         }
@@ -404,30 +520,62 @@ public class FileUploadUI extends VBox {
         uploadButton.setDisable(true);
         saveButton.setDisable(true);
         editButton.setDisable(true);
+        // A newer analysis supersedes the running one
+        if (runningAnalysis != null) runningAnalysis.set(true);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        runningAnalysis = cancelled;
+        CoalescedProgress progress = new CoalescedProgress(cancelled);
+        analysisProgress.setProgress(0);
+        analysisProgress.setVisible(true);
+        cancelButton.setVisible(true);
         
         // Run analysis in background thread
         new Thread(() -> {
             try {
-                CodeAnalyzer.AnalysisResult result = codeAnalyzer.analyzeFile(filePath);
+                // The baseline fingerprints the same lines that were analyzed
+                SourceFile source = CodeAnalyzer.readJavaFile(filePath, progress);
+                CodeAnalyzer.AnalysisResult analyzed = codeAnalyzer.analyzeSource(source, progress);
+                if (progress.isCancelled()) throw new CancellationException();
+                CodeAnalyzer.AnalysisResult result = baseline != null
+                    ? applyBaseline(analyzed, filePath, source.getLines()) : analyzed;
                 
                 // Update UI on JavaFX thread
                 Platform.runLater(() -> {
+                    if (!finishAnalysis(cancelled)) return;
                     displayResults(result, filePath);
                     statusLabel.setText("Analysis complete: " + filePath.getFileName());
                     uploadButton.setDisable(false);
                     editButton.setDisable(false);
                 });
                 
+            } catch (CancellationException e) {
+                Platform.runLater(() -> {
+                    if (!finishAnalysis(cancelled)) return;
+                    statusLabel.setText("Analysis cancelled: " + filePath.getFileName());
+                    uploadButton.setDisable(false);
+                });
             } catch (IOException e) {
                 Platform.runLater(() -> {
+                    if (!finishAnalysis(cancelled)) return;
                     showError("Error reading file: " + e.getMessage());
                     statusLabel.setText("Error analyzing file");
                     uploadButton.setDisable(false);
                     saveButton.setDisable(true);
                     editButton.setDisable(true);
                 });
+            } catch (RuleFailureException e) {
+                // A pluggable rule broke, not the file
+                Platform.runLater(() -> {
+                    if (!finishAnalysis(cancelled)) return;
+                    showError("Error in a pluggable rule: " + e.getMessage());
+                    statusLabel.setText("Rule " + e.getRuleName() + " failed on " + filePath.getFileName());
+                    uploadButton.setDisable(false);
+                    saveButton.setDisable(true);
+                    editButton.setDisable(true);
+                });
             } catch (IllegalArgumentException e) {
                 Platform.runLater(() -> {
+                    if (!finishAnalysis(cancelled)) return;
                     showError("Invalid file: " + e.getMessage());
                     statusLabel.setText("Invalid file selected");
                     uploadButton.setDisable(false);
@@ -437,11 +585,223 @@ public class FileUploadUI extends VBox {
             }
         }).start();
     }
+
+    // Hides the progress controls if this is still the current analysis; false if it was superseded
+    private boolean finishAnalysis(AtomicBoolean cancelled) {
+        if (runningAnalysis != cancelled) return false;
+        runningAnalysis = null;
+        analysisProgress.setVisible(false);
+        cancelButton.setVisible(false);
+        return true;
+    }
+
+    // Shows running counts while the table has no final result yet; rows are found by type, as the user may have sorted them
+    private void showRunningCounts(Map<CodeAnalyzer.ViolationType, Integer> counts) {
+        if (violationTable.getItems().size() != CodeAnalyzer.ViolationType.values().length) {
+            violationTable.getItems().clear();
+            for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+                violationTable.getItems().add(new ViolationTableItem(type, 0));
+            }
+        }
+        lastViolations = null;
+        for (ViolationTableItem item : violationTable.getItems()) {
+            item.countProperty().set(counts.getOrDefault(item.getViolationType(), 0));
+        }
+    }
+
+    /**
+     * Forwards analyzer progress to the FX thread with at most one pending update: reports that
+     * arrive while one is queued only replace the snapshot it will show
+     */
+    private class CoalescedProgress implements CodeAnalyzer.ProgressListener {
+        private final AtomicBoolean cancelled;
+        private final AtomicReference<ProgressSnapshot> latest = new AtomicReference<>();
+
+        CoalescedProgress(AtomicBoolean cancelled) {
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public void progress(int linesDone, int totalLines, Map<CodeAnalyzer.ViolationType, Integer> counts) {
+            double fraction = totalLines == 0 ? 1 : (double) linesDone / totalLines;
+            if (latest.getAndSet(new ProgressSnapshot(fraction, counts)) == null) {
+                Platform.runLater(this::apply);
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        private void apply() {
+            ProgressSnapshot snapshot = latest.getAndSet(null);
+            if (snapshot == null || runningAnalysis != cancelled) return;
+            analysisProgress.setProgress(snapshot.fraction);
+            showRunningCounts(snapshot.counts);
+        }
+    }
+
+    private static class ProgressSnapshot {
+        final double fraction;
+        final Map<CodeAnalyzer.ViolationType, Integer> counts;
+
+        ProgressSnapshot(double fraction, Map<CodeAnalyzer.ViolationType, Integer> counts) {
+            this.fraction = fraction;
+            this.counts = counts;
+        }
+    }
     
+    /**
+     * Expands the dropped files, folders and archives and analyzes every .java file on the batch
+     * pool; each result is listed as soon as it is done
+     */
+    private void analyzeBatch(List<Path> dropped) {
+        if (currentBatch != null) {
+            try {
+                currentBatch.close();
+            } catch (IOException e) {
+                // The old batch's archives are only read from
+            }
+            currentBatch = null;
+        }
+        if (batchAnalyzer == null) batchAnalyzer = new BatchAnalyzer();
+        batchList.getItems().clear();
+        pendingBatchItems.clear();
+        batchDuplicates = new ArrayList<>();
+        batchLabel.setVisible(true);
+        statusLabel.setText("Collecting files...");
+        cancelButton.setVisible(true);
+        analysisProgress.setProgress(ProgressBar.INDETERMINATE_PROGRESS);
+        analysisProgress.setVisible(true);
+        new Thread(() -> {
+            try {
+                List<Path> files = BatchAnalyzer.expand(dropped);
+                Platform.runLater(() -> startBatch(files));
+            } catch (IOException e) {
+                Platform.runLater(() -> {
+                    finishBatchControls();
+                    showError("Error reading folder: " + e.getMessage());
+                });
+            }
+        }).start();
+    }
+
+    private void startBatch(List<Path> files) {
+        if (files.isEmpty()) {
+            finishBatchControls();
+            statusLabel.setText("No .java files found");
+            return;
+        }
+        statusLabel.setText("Analyzing " + files.size() + " files...");
+        analysisProgress.setProgress(0);
+        // The batch is published before it starts, so every callback sees it
+        BatchAnalyzer.Batch batch = batchAnalyzer.newBatch(files);
+        currentBatch = batch;
+        batch.start(new BatchAnalyzer.Listener() {
+            @Override
+            public void fileAnalyzed(Path file, String name, CodeAnalyzer.AnalysisResult result) {
+                queueBatchItem(new BatchItem(batch, file, name, result, null));
+            }
+
+            @Override
+            public void fileFailed(Path file, String name, Exception error) {
+                queueBatchItem(new BatchItem(batch, file, name, null, error.getMessage()));
+            }
+
+            @Override
+            public void finished(List<DuplicateBlockDetector.DuplicateBlock> crossFileDuplicates, boolean cancelled) {
+                Platform.runLater(() -> {
+                    if (currentBatch != batch) return;
+                    flushBatchItems();
+                    batchDuplicates = crossFileDuplicates;
+                    finishBatchControls();
+                    statusLabel.setText((cancelled ? "Batch cancelled: " : "Batch complete: ")
+                        + batchList.getItems().size() + " of " + batch.getTotalCount() + " files, "
+                        + crossFileDuplicates.size() + " blocks duplicated across files");
+                });
+            }
+        });
+    }
+
+    // Called on worker threads; at most one flush is pending on the FX thread at a time
+    private void queueBatchItem(BatchItem item) {
+        pendingBatchItems.add(item);
+        if (batchFlushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flushBatchItems);
+        }
+    }
+
+    // Lists the queued items of the current batch; items of batches replaced since are dropped
+    private void flushBatchItems() {
+        batchFlushScheduled.set(false);
+        BatchAnalyzer.Batch batch = currentBatch;
+        List<BatchItem> items = new ArrayList<>();
+        for (BatchItem item; (item = pendingBatchItems.poll()) != null; ) {
+            if (item.batch == batch) items.add(item);
+        }
+        if (batch == null || items.isEmpty()) return;
+        batchList.getItems().addAll(items);
+        int total = batch.getTotalCount();
+        analysisProgress.setProgress((double) batchList.getItems().size() / Math.max(1, total));
+        statusLabel.setText("Analyzed " + batchList.getItems().size() + " of " + total + " files");
+    }
+
+    private void finishBatchControls() {
+        analysisProgress.setVisible(false);
+        cancelButton.setVisible(false);
+    }
+
+    // Shows a batch result in the main view, adding the blocks it shares with other files
+    private void openBatchItem(BatchItem item) {
+        if (item == null) return;
+        if (item.result == null) {
+            statusLabel.setText(item.name + ": " + item.error);
+            return;
+        }
+        CodeAnalyzer.AnalysisResult result = item.result;
+        if (!batchDuplicates.isEmpty()) {
+            try {
+                List<CodeAnalyzer.Violation> violations = new ArrayList<>(result.getViolations());
+                violations.addAll(DuplicateBlockDetector.violationsFor(item.name, readLines(item.file), batchDuplicates));
+                result = new CodeAnalyzer.AnalysisResult(violations);
+            } catch (IOException e) {
+                showError("Error reading file: " + e.getMessage());
+                return;
+            }
+        }
+        displayResults(result, item.file);
+        statusLabel.setText("Showing " + item.name);
+        // Archive entries are read-only
+        editButton.setDisable(item.file.getFileSystem() != FileSystems.getDefault());
+    }
+
+    /**
+     * Entry of the batch file list
+     */
+    private static class BatchItem {
+        final BatchAnalyzer.Batch batch;
+        final Path file;
+        final String name;
+        final CodeAnalyzer.AnalysisResult result;
+        final String error;
+
+        BatchItem(BatchAnalyzer.Batch batch, Path file, String name, CodeAnalyzer.AnalysisResult result, String error) {
+            this.batch = batch;
+            this.file = file;
+            this.name = name;
+            this.result = result;
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return result != null ? name + " (" + result.getViolations().size() + ")" : name + " (error)";
+        }
+    }
+
     private void displayResults(CodeAnalyzer.AnalysisResult result, Path filePath) {
-        // Clear the code display panel first to prevent duplicates
-        codeDisplayPanel.clear();
-        
+        // displayCodeWithViolations resets the display itself and keeps the document of a just-saved file
         // Update violation table - show ALL violation types with counts
         updateViolationTable(result);
         
@@ -468,6 +828,225 @@ public class FileUploadUI extends VBox {
         return box;
     }
     
+    // Drops the violations already recorded in the baseline, if one is loaded
+    private CodeAnalyzer.AnalysisResult applyBaseline(CodeAnalyzer.AnalysisResult result, Path filePath, List<String> lines) {
+        ViolationBaseline current = baseline;
+        if (current == null || current.isEmpty()) {
+            return result;
+        }
+        return new CodeAnalyzer.AnalysisResult(
+            current.filterNew(baselineKey(filePath), result.getViolations(), lines));
+    }
+
+    private String baselineKey(Path filePath) {
+        Path savedAt = baselinePath;
+        return ViolationBaseline.fileKey(savedAt != null ? savedAt.toAbsolutePath().getParent() : null, filePath);
+    }
+
+    private static List<String> readLines(Path filePath) throws IOException {
+        return TextFileFormat.detect(filePath).readLines(filePath);
+    }
+
+    private void handleLoadBaseline() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Load Baseline");
+        File selectedFile = fileChooser.showOpenDialog(getScene().getWindow());
+        if (selectedFile == null) return;
+        try {
+            baseline = ViolationBaseline.load(selectedFile.toPath());
+            baselinePath = selectedFile.toPath();
+            statusLabel.setText("Baseline loaded: " + baseline.size() + " known violations");
+            handleRefreshFile();
+        } catch (IOException e) {
+            showError("Error reading baseline: " + e.getMessage());
+        }
+    }
+
+    // Records every current violation of the open file and saves the baseline, asking where on first use
+    private void handleRecordBaseline() {
+        Path filePath = codeDisplayPanel.getCurrentFilePath();
+        if (filePath == null) {
+            showError("Open a file to add its violations to the baseline.");
+            return;
+        }
+        if (baselinePath == null) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Save Baseline");
+            fileChooser.setInitialFileName("javareader-baseline.bin");
+            File selectedFile = fileChooser.showSaveDialog(getScene().getWindow());
+            if (selectedFile == null) return;
+            baselinePath = selectedFile.toPath();
+        }
+        ViolationBaseline target = baseline != null ? baseline : new ViolationBaseline();
+        Path savePath = baselinePath;
+        String fileKey = baselineKey(filePath);
+        statusLabel.setText("Recording baseline: " + filePath.getFileName());
+        new Thread(() -> {
+            try {
+                SourceFile source = SourceFile.read(filePath);
+                CodeAnalyzer.AnalysisResult result = codeAnalyzer.analyzeSource(source);
+                // Recording the file again replaces its earlier entries
+                target.record(fileKey, result.getViolations(), source.getLines());
+                target.save(savePath);
+                Platform.runLater(() -> {
+                    baseline = target;
+                    statusLabel.setText("Baseline saved: " + target.size() + " known violations");
+                    analyzeFile(filePath);
+                });
+            } catch (IOException | IllegalArgumentException | RuleFailureException e) {
+                Platform.runLater(() -> showError("Error recording baseline: " + e.getMessage()));
+            }
+        }).start();
+    }
+
+    // Rewrites the open file with its indentation and repeated-literal fixes, then analyzes it again
+    private void handleFixCurrentFile() {
+        Path filePath = codeDisplayPanel.getCurrentFilePath();
+        if (filePath == null || !filePath.getFileSystem().equals(FileSystems.getDefault())) {
+            showError("Open a file to fix it.");
+            return;
+        }
+        if (codeDisplayPanel.hasUnsavedChanges()) {
+            showError("Save or discard your edits before fixing the file.");
+            return;
+        }
+        runFixes(Collections.singletonList(filePath), filePath);
+    }
+
+    private void handleFixFolder() {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Folder to Fix");
+        File selectedDirectory = directoryChooser.showDialog(getScene().getWindow());
+        if (selectedDirectory == null) return;
+        Path current = codeDisplayPanel.getCurrentFilePath();
+        if (current != null && codeDisplayPanel.hasUnsavedChanges()
+                && current.toAbsolutePath().startsWith(selectedDirectory.toPath().toAbsolutePath())) {
+            showError("Save or discard your edits before fixing the folder.");
+            return;
+        }
+        previewFolderFixes(selectedDirectory.toPath(), current);
+    }
+
+    // Counts the edits a folder would get without writing, then asks before rewriting any file
+    private void previewFolderFixes(Path folder, Path reopen) {
+        statusLabel.setText("Checking files to fix...");
+        new Thread(() -> {
+            try {
+                List<Path> files = fixableFiles(Collections.singletonList(folder));
+                List<AutoFixer.FileResult> preview = new AutoFixer().previewAll(files, Runtime.getRuntime().availableProcessors());
+                List<Path> toFix = new ArrayList<>();
+                List<String> details = new ArrayList<>();
+                int edits = 0;
+                for (AutoFixer.FileResult result : preview) {
+                    if (result.getError() != null) {
+                        details.add(folder.relativize(result.getFile()) + ": " + result.getError().getMessage());
+                    } else if (result.getEditCount() > 0) {
+                        toFix.add(result.getFile());
+                        edits += result.getEditCount();
+                        details.add(folder.relativize(result.getFile()) + ": " + result.getEditCount()
+                            + (result.getEditCount() == 1 ? " edit" : " edits"));
+                    }
+                }
+                int editCount = edits;
+                Platform.runLater(() -> {
+                    if (toFix.isEmpty()) {
+                        statusLabel.setText("Nothing to fix in " + files.size() + " files");
+                        if (!details.isEmpty()) {
+                            showError("Some files could not be read:\n" + String.join("\n", details));
+                        }
+                        return;
+                    }
+                    Alert confirm = new Alert(Alert.AlertType.CONFIRMATION);
+                    confirm.setTitle("Fix Folder");
+                    confirm.setHeaderText("Rewrite " + toFix.size() + " of " + files.size() + " files with "
+                        + editCount + (editCount == 1 ? " edit?" : " edits?"));
+                    confirm.setContentText("Indentation is normalized and repeated string literals become constants. "
+                        + "Files are overwritten in place.");
+                    TextArea list = new TextArea(String.join("\n", details));
+                    list.setEditable(false);
+                    confirm.getDialogPane().setExpandableContent(list);
+                    if (confirm.showAndWait().filter(button -> button == ButtonType.OK).isPresent()) {
+                        runFixes(toFix, reopen);
+                    } else {
+                        statusLabel.setText("Fix cancelled");
+                    }
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> showError("Error reading folder: " + e.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).start();
+    }
+
+    // The .java files under the paths; archives are left alone
+    private static List<Path> fixableFiles(List<Path> paths) throws IOException {
+        return BatchAnalyzer.expand(paths).stream()
+            .filter(file -> !BatchAnalyzer.isArchive(file))
+            .collect(Collectors.toList());
+    }
+
+    // Fixes the .java files under the paths on a background pool
+    private void runFixes(List<Path> paths, Path reopen) {
+        statusLabel.setText("Fixing files...");
+        new Thread(() -> {
+            try {
+                List<Path> files = fixableFiles(paths);
+                List<AutoFixer.FileResult> results = new AutoFixer().fixAll(files, Runtime.getRuntime().availableProcessors());
+                int changed = 0;
+                int edits = 0;
+                List<String> failures = new ArrayList<>();
+                for (AutoFixer.FileResult result : results) {
+                    if (result.getError() != null) {
+                        failures.add(result.getFile().getFileName() + ": " + result.getError().getMessage());
+                    } else if (result.getEditCount() > 0) {
+                        changed++;
+                        edits += result.getEditCount();
+                    }
+                }
+                String summary = "Fixed " + changed + " of " + files.size() + " files (" + edits + " edits)";
+                Platform.runLater(() -> {
+                    statusLabel.setText(summary);
+                    if (!failures.isEmpty()) {
+                        showError("Some files could not be fixed:\n" + String.join("\n", failures));
+                    }
+                    if (reopen != null && reopen.equals(codeDisplayPanel.getCurrentFilePath())) {
+                        analyzeFile(reopen);
+                    }
+                });
+            } catch (IOException e) {
+                Platform.runLater(() -> showError("Error reading folder: " + e.getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }).start();
+    }
+
+    private void handleOpenProject() {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Project Folder");
+        File selectedDirectory = directoryChooser.showDialog(getScene().getWindow());
+        if (selectedDirectory != null) {
+            showProjectDashboard().openProject(selectedDirectory.toPath());
+        }
+    }
+
+    // Creates the dashboard window on first use and brings it to the front
+    private ProjectDashboard showProjectDashboard() {
+        if (projectDashboard == null) {
+            projectDashboard = new ProjectDashboard(codeAnalyzer, this::analyzeFile);
+            projectStage = new Stage();
+            projectStage.initOwner(getScene().getWindow());
+            projectStage.setTitle("Project Dashboard");
+            Scene scene = new Scene(projectDashboard, 1000, 600);
+            scene.getStylesheets().addAll(getScene().getStylesheets());
+            projectStage.setScene(scene);
+        }
+        projectStage.show();
+        projectStage.toFront();
+        return projectDashboard;
+    }
+
     private Button createOpenPathButton() {
         Button button = new Button("Open");
         button.setStyle(READ_BUTTON_STYLE);
@@ -496,22 +1075,18 @@ public class FileUploadUI extends VBox {
      * Table item for displaying violations
      */
     public static class ViolationTableItem {
+        private final CodeAnalyzer.ViolationType violationType;
         private final javafx.beans.property.SimpleStringProperty type;
         private final javafx.beans.property.SimpleIntegerProperty count;
         
         public ViolationTableItem(CodeAnalyzer.ViolationType type, int count) {
+            this.violationType = type;
             this.type = new javafx.beans.property.SimpleStringProperty(type.getDescription());
             this.count = new javafx.beans.property.SimpleIntegerProperty(count);
         }
         
+        public CodeAnalyzer.ViolationType getViolationType() { return violationType; }
         public javafx.beans.property.StringProperty typeProperty() { return type; }
         public javafx.beans.property.IntegerProperty countProperty() { return count; }
     }
-    
-    private CodeAnalyzer.ViolationType getViolationTypeByDescription(String desc) {
-        for (CodeAnalyzer.ViolationType t : CodeAnalyzer.ViolationType.values()) {
-            if (t.getDescription().equals(desc)) return t;
-        }
-        return null;
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,165 @@
+package com.javareader.ui;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.HighlightUtil;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.TextArea;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+
+import java.util.BitSet;
+
+/**
+ * Line-number gutter drawn beside the edit TextArea, so line numbers are never part of the edited text.
+ * Only the numbers of the visible lines are painted, following the TextArea's scroll position.
+ * Lines with violations get a bar in the colour of their most severe violation.
+ */
+public class LineNumberGutter extends Canvas {
+
+    private static final Font GUTTER_FONT = Font.font("Consolas", FontWeight.BOLD, 12);
+    private static final double PADDING = 6;
+    // Top inset of the TextArea content area (see .text-area .content in modena)
+    private static final double CONTENT_INSET = 4;
+    private static final Color BACKGROUND_COLOR = Color.web("#eeeeee");
+    private static final Color LINE_NUMBER_COLOR = Color.web("#666666");
+    private static final Color MARK_COLOR = Color.web("#FFE082");
+    private static final double VIOLATION_BAR_WIDTH = 3;
+
+    private final TextArea textArea;
+    private final double lineHeight;
+    private final double charWidth;
+    private int lineCount = 1;
+    private BitSet markedLines = new BitSet();
+    // Most severe violation type ordinal per 0-based line, or -1
+    private byte[] violationTypes = new byte[0];
+    private final Color[] palette;
+
+    public LineNumberGutter(TextArea textArea, Font textFont) {
+        this.textArea = textArea;
+        HighlightUtil highlightUtil = new HighlightUtil();
+        CodeAnalyzer.ViolationType[] types = CodeAnalyzer.ViolationType.values();
+        this.palette = new Color[types.length];
+        for (CodeAnalyzer.ViolationType type : types) {
+            palette[type.ordinal()] = highlightUtil.getColorForViolation(type);
+        }
+        Text probe = new Text("M");
+        probe.setFont(textFont);
+        this.lineHeight = probe.getLayoutBounds().getHeight();
+        probe.setFont(GUTTER_FONT);
+        this.charWidth = probe.getLayoutBounds().getWidth();
+        textArea.scrollTopProperty().addListener((obs, oldValue, newValue) -> redraw());
+    }
+
+    /**
+     * Sets the number of lines in the edited text and repaints
+     */
+    public void setLineCount(int lineCount) {
+        int oldDigits = digits(this.lineCount);
+        this.lineCount = Math.max(1, lineCount);
+        if (digits(this.lineCount) != oldDigits) {
+            if (getParent() != null) getParent().requestLayout();
+        }
+        redraw();
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Sets the 0-based lines whose numbers get a marker background, such as find matches
+     */
+    public void setMarkedLines(BitSet lines) {
+        this.markedLines = lines != null ? (BitSet) lines.clone() : new BitSet();
+        redraw();
+    }
+
+    /**
+     * Sets the most severe violation type ordinal of each 0-based line (-1 for none). The gutter is
+     * only repainted when one of the {@code changedLines} is visible.
+     */
+    public void setViolationTypes(byte[] types, BitSet changedLines) {
+        this.violationTypes = types;
+        int first = firstVisibleLine();
+        int changed = changedLines.nextSetBit(first);
+        if (changed >= 0 && changed <= lastVisibleLine()) {
+            redraw();
+        }
+    }
+
+    private int firstVisibleLine() {
+        return Math.max(0, (int) ((textArea.getScrollTop() - CONTENT_INSET) / lineHeight));
+    }
+
+    private int lastVisibleLine() {
+        return Math.min(lineCount - 1, (int) ((textArea.getScrollTop() + getHeight()) / lineHeight) + 1);
+    }
+
+    public void redraw() {
+        double width = getWidth();
+        double height = getHeight();
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(0, 0, width, height);
+        if (height <= 0) return;
+        double scrollTop = textArea.getScrollTop();
+        int first = firstVisibleLine();
+        int last = lastVisibleLine();
+        gc.setFont(GUTTER_FONT);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int index = first; index <= last; index++) {
+            String number = Integer.toString(index + 1);
+            double top = CONTENT_INSET + index * lineHeight - scrollTop;
+            if (markedLines.get(index)) {
+                gc.setFill(MARK_COLOR);
+                gc.fillRect(0, top, width, lineHeight);
+            }
+            if (index < violationTypes.length && violationTypes[index] >= 0) {
+                gc.setFill(palette[violationTypes[index]]);
+                gc.fillRect(0, top, VIOLATION_BAR_WIDTH, lineHeight);
+            }
+            gc.setFill(LINE_NUMBER_COLOR);
+            gc.fillText(number, width - PADDING - number.length() * charWidth, top + lineHeight / 2);
+        }
+    }
+
+    private static int digits(int value) {
+        return Math.max(3, Integer.toString(value).length());
+    }
+
+    @Override
+    public boolean isResizable() {
+        return true;
+    }
+
+    @Override
+    public double prefWidth(double height) {
+        return digits(lineCount) * charWidth + 2 * PADDING;
+    }
+
+    @Override
+    public double prefHeight(double width) {
+        return 0;
+    }
+
+    @Override
+    public double minHeight(double width) {
+        return 0;
+    }
+
+    @Override
+    public double maxHeight(double width) {
+        return Double.MAX_VALUE;
+    }
+
+    @Override
+    public void resize(double width, double height) {
+        setWidth(width);
+        setHeight(height);
+        redraw();
+    }
+}
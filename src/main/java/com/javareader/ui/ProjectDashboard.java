@@ -0,0 +1,279 @@
+package com.javareader.ui;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.ProjectAggregates;
+import com.javareader.logic.ProjectIndex;
+import javafx.application.Platform;
+import javafx.beans.Observable;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import javafx.geometry.Insets;
+import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Project view listing violation totals per file and per package, with sorting and filtering.
+ * The project is indexed on a background thread through the ProjectIndex, so only changed files
+ * are analyzed again; the totals come from ProjectAggregates and only the rows whose totals
+ * changed are updated on the FX thread.
+ */
+public class ProjectDashboard extends VBox {
+
+    private final CodeAnalyzer codeAnalyzer;
+    private final Consumer<Path> openFile;
+    private final ProjectAggregates aggregates = new ProjectAggregates();
+    private final ObservableList<SummaryRow> fileRows = FXCollections.observableArrayList(SummaryRow::observables);
+    private final ObservableList<SummaryRow> packageRows = FXCollections.observableArrayList(SummaryRow::observables);
+    private final Map<String, SummaryRow> fileRowsByPath = new HashMap<>();
+    private final Map<String, SummaryRow> packageRowsByName = new HashMap<>();
+    private final TextField filterField = new TextField();
+    private final Button refreshButton = new Button("Refresh");
+    private final Label statusLabel = new Label("No project open");
+    private Path projectRoot;
+    private boolean indexing;
+
+    public ProjectDashboard(CodeAnalyzer codeAnalyzer, Consumer<Path> openFile) {
+        this.codeAnalyzer = codeAnalyzer;
+        this.openFile = openFile;
+        setSpacing(4);
+        setPadding(new Insets(4));
+
+        filterField.setPromptText("Filter by file or package...");
+        refreshButton.setDisable(true);
+        refreshButton.setOnAction(e -> refresh());
+        HBox toolBar = new HBox(6, filterField, refreshButton, statusLabel);
+        HBox.setHgrow(filterField, Priority.ALWAYS);
+
+        TableView<SummaryRow> fileTable = createTable(fileRows, "File");
+        fileTable.setOnMouseClicked(event -> {
+            SummaryRow selected = fileTable.getSelectionModel().getSelectedItem();
+            if (event.getClickCount() == 2 && selected != null && projectRoot != null) {
+                openFile.accept(projectRoot.resolve(selected.name));
+            }
+        });
+        TableView<SummaryRow> packageTable = createTable(packageRows, "Package");
+        TabPane tabs = new TabPane(new Tab("Files", fileTable), new Tab("Packages", packageTable));
+        tabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+
+        getChildren().addAll(toolBar, tabs);
+        VBox.setVgrow(tabs, Priority.ALWAYS);
+    }
+
+    /**
+     * Shows the given project, replacing the current one
+     */
+    public void openProject(Path root) {
+        if (indexing) {
+            statusLabel.setText("Still indexing " + projectRoot.getFileName());
+            return;
+        }
+        projectRoot = root;
+        aggregates.clear();
+        fileRows.clear();
+        packageRows.clear();
+        fileRowsByPath.clear();
+        packageRowsByName.clear();
+        refresh();
+    }
+
+    /**
+     * Re-indexes the project; only files changed since the last run are analyzed
+     */
+    public void refresh() {
+        if (projectRoot == null || indexing) return;
+        Path root = projectRoot;
+        indexing = true;
+        refreshButton.setDisable(true);
+        statusLabel.setText("Indexing " + root.getFileName() + "...");
+        new Thread(() -> {
+            try {
+                ProjectIndex index = ProjectIndex.forProject(root);
+                int analyzed;
+                List<ProjectIndex.Entry> entries;
+                try {
+                    analyzed = index.reindex(root, codeAnalyzer);
+                    entries = index.getEntries();
+                } finally {
+                    index.close();
+                }
+                // Fold the entries into the aggregates here, off the FX thread, and hand over only what changed
+                Set<String> seen = new HashSet<>();
+                List<String> changedFiles = new ArrayList<>();
+                for (ProjectIndex.Entry entry : entries) {
+                    seen.add(entry.getPath());
+                    if (aggregates.update(entry.getPath(), entry.getLineCount(), entry.getViolationCounts())) {
+                        changedFiles.add(entry.getPath());
+                    }
+                }
+                List<String> removedFiles = new ArrayList<>();
+                for (String path : aggregates.getFilePaths()) {
+                    if (!seen.contains(path) && aggregates.remove(path)) {
+                        removedFiles.add(path);
+                    }
+                }
+                int fileCount = entries.size();
+                Platform.runLater(() -> {
+                    applyChanges(changedFiles, removedFiles);
+                    statusLabel.setText(fileCount + " files, " + aggregates.getPackageCount() + " packages ("
+                        + analyzed + " analyzed)");
+                    finishIndexing();
+                });
+            } catch (Exception e) {
+                Platform.runLater(() -> {
+                    statusLabel.setText("Error indexing project: " + e.getMessage());
+                    finishIndexing();
+                });
+            }
+        }).start();
+    }
+
+    private void finishIndexing() {
+        indexing = false;
+        refreshButton.setDisable(false);
+    }
+
+    private void applyChanges(List<String> changedFiles, List<String> removedFiles) {
+        Set<String> changedPackages = new HashSet<>();
+        List<SummaryRow> addedFileRows = new ArrayList<>();
+        for (String path : changedFiles) {
+            changedPackages.add(ProjectAggregates.packageOf(path));
+            SummaryRow row = fileRowsByPath.get(path);
+            if (row == null) {
+                row = new SummaryRow(path, ProjectAggregates.packageOf(path));
+                fileRowsByPath.put(path, row);
+                addedFileRows.add(row);
+            }
+            row.set(aggregates.getFile(path));
+        }
+        fileRows.addAll(addedFileRows);
+
+        Set<SummaryRow> removedRows = new HashSet<>();
+        for (String path : removedFiles) {
+            changedPackages.add(ProjectAggregates.packageOf(path));
+            SummaryRow row = fileRowsByPath.remove(path);
+            if (row != null) removedRows.add(row);
+        }
+        if (!removedRows.isEmpty()) fileRows.removeAll(removedRows);
+
+        List<SummaryRow> addedPackageRows = new ArrayList<>();
+        Set<SummaryRow> removedPackageRows = new HashSet<>();
+        for (String name : changedPackages) {
+            ProjectAggregates.Totals totals = aggregates.getPackage(name);
+            SummaryRow row = packageRowsByName.get(name);
+            if (totals == null) {
+                if (row != null) {
+                    packageRowsByName.remove(name);
+                    removedPackageRows.add(row);
+                }
+                continue;
+            }
+            if (row == null) {
+                row = new SummaryRow(name, name);
+                packageRowsByName.put(name, row);
+                addedPackageRows.add(row);
+            }
+            row.set(totals);
+        }
+        packageRows.addAll(addedPackageRows);
+        if (!removedPackageRows.isEmpty()) packageRows.removeAll(removedPackageRows);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TableView<SummaryRow> createTable(ObservableList<SummaryRow> rows, String nameHeader) {
+        // TableView only creates cells for the visible rows, so 10k+ rows stay cheap
+        TableView<SummaryRow> table = new TableView<>();
+        FilteredList<SummaryRow> filtered = new FilteredList<>(rows);
+        filterField.textProperty().addListener((obs, oldText, text) -> {
+            String needle = text == null ? "" : text.trim().toLowerCase();
+            filtered.setPredicate(needle.isEmpty() ? null : row -> row.matches(needle));
+        });
+        SortedList<SummaryRow> sorted = new SortedList<>(filtered);
+        sorted.comparatorProperty().bind(table.comparatorProperty());
+        table.setItems(sorted);
+
+        TableColumn<SummaryRow, String> nameColumn = new TableColumn<>(nameHeader);
+        nameColumn.setCellValueFactory(data -> new javafx.beans.property.ReadOnlyStringWrapper(data.getValue().name));
+        nameColumn.setPrefWidth(280);
+        table.getColumns().add(nameColumn);
+        if (nameHeader.equals("Package")) {
+            table.getColumns().add(countColumn("Files", row -> row.fileCount));
+        }
+        table.getColumns().addAll(countColumn("Lines", row -> row.lineCount), countColumn("Total", row -> row.total));
+        for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+            TableColumn<SummaryRow, Integer> column = countColumn(type.getDescription(), row -> row.counts[type.ordinal()]);
+            column.setPrefWidth(90);
+            table.getColumns().add(column);
+        }
+        table.setPlaceholder(new Label("Open a project folder to see its totals"));
+        return table;
+    }
+
+    private static TableColumn<SummaryRow, Integer> countColumn(String header,
+                                                               java.util.function.Function<SummaryRow, IntegerProperty> property) {
+        TableColumn<SummaryRow, Integer> column = new TableColumn<>(header);
+        column.setCellValueFactory(data -> property.apply(data.getValue()).asObject());
+        column.setPrefWidth(70);
+        return column;
+    }
+
+    /**
+     * Table row for one file or package
+     */
+    public static class SummaryRow {
+        private final String name;
+        private final String packageName;
+        private final IntegerProperty fileCount = new SimpleIntegerProperty();
+        private final IntegerProperty lineCount = new SimpleIntegerProperty();
+        private final IntegerProperty total = new SimpleIntegerProperty();
+        private final IntegerProperty[] counts = new IntegerProperty[CodeAnalyzer.ViolationType.values().length];
+
+        public SummaryRow(String name, String packageName) {
+            this.name = name;
+            this.packageName = packageName;
+            for (int t = 0; t < counts.length; t++) {
+                counts[t] = new SimpleIntegerProperty();
+            }
+        }
+
+        void set(ProjectAggregates.Totals totals) {
+            fileCount.set(totals.getFileCount());
+            lineCount.set(totals.getLineCount());
+            total.set(totals.getTotal());
+            for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+                counts[type.ordinal()].set(totals.getCount(type));
+            }
+        }
+
+        boolean matches(String needle) {
+            return name.toLowerCase().contains(needle) || packageName.toLowerCase().contains(needle);
+        }
+
+        // Lets the sorted view re-sort when a row's totals change in place
+        Observable[] observables() {
+            Observable[] observables = new Observable[3 + counts.length];
+            observables[0] = fileCount;
+            observables[1] = lineCount;
+            observables[2] = total;
+            System.arraycopy(counts, 0, observables, 3, counts.length);
+            return observables;
+        }
+
+        public String getName() { return name; }
+        public String getPackageName() { return packageName; }
+    }
+}
@@ -0,0 +1,165 @@
+package com.javareader.ui;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.HighlightUtil;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Overview ruler shown beside the code view: one colour mark per line bucket for the whole file,
+ * drawn on a single Canvas. Clicking or dragging on it jumps to the corresponding region.
+ */
+public class ViolationOverviewRuler extends Canvas {
+
+    private static final double RULER_WIDTH = 14;
+    private static final double MARK_HEIGHT = 3;
+    private static final Color BACKGROUND_COLOR = Color.web("#f0f0f0");
+    private static final Color VIEWPORT_COLOR = Color.rgb(33, 150, 243, 0.18);
+
+    private static final CodeAnalyzer.ViolationType[] TYPES = CodeAnalyzer.ViolationType.values();
+
+    private final Color[] palette;
+    private int lineCount;
+    // Sorted line numbers (1-based) that have violations, with the most severe type ordinal per line
+    private int[] markedLines = new int[0];
+    private byte[] markedTypes = new byte[0];
+    private byte[] bucketTypes = new byte[0];
+    private double viewportStart = 0;
+    private double viewportEnd = 0;
+    private IntConsumer onLineSelected;
+
+    public ViolationOverviewRuler() {
+        super(RULER_WIDTH, 0);
+        HighlightUtil highlightUtil = new HighlightUtil();
+        this.palette = new Color[TYPES.length];
+        for (CodeAnalyzer.ViolationType type : TYPES) {
+            palette[type.ordinal()] = highlightUtil.getColorForViolation(type);
+        }
+        setOnMousePressed(this::handleMouse);
+        setOnMouseDragged(this::handleMouse);
+    }
+
+    /**
+     * Sets the handler called with the 1-based line number the user clicked on
+     */
+    public void setOnLineSelected(IntConsumer onLineSelected) {
+        this.onLineSelected = onLineSelected;
+    }
+
+    /**
+     * Rebuilds the per-line index from the violations grouped by line and redraws
+     */
+    public void setViolations(int lineCount, Map<Integer, List<CodeAnalyzer.Violation>> violationsByLine) {
+        this.lineCount = lineCount;
+        int size = violationsByLine == null ? 0 : violationsByLine.size();
+        int[] lines = new int[size];
+        int n = 0;
+        if (violationsByLine != null) {
+            for (Integer line : violationsByLine.keySet()) {
+                lines[n++] = line;
+            }
+        }
+        Arrays.sort(lines);
+        byte[] types = new byte[size];
+        for (int k = 0; k < size; k++) {
+            types[k] = (byte) CodeAnalyzer.ViolationType.mostSevere(violationsByLine.get(lines[k])).ordinal();
+        }
+        this.markedLines = lines;
+        this.markedTypes = types;
+        redraw();
+    }
+
+    /**
+     * Updates the visible region indicator; values are fractions of the whole document
+     */
+    public void setViewport(double start, double end) {
+        this.viewportStart = start;
+        this.viewportEnd = end;
+        redraw();
+    }
+
+    /**
+     * Redraws the ruler in a single pass over the marked lines
+     */
+    public void redraw() {
+        double width = getWidth();
+        double height = getHeight();
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setFill(BACKGROUND_COLOR);
+        gc.fillRect(0, 0, width, height);
+        if (height <= 0 || lineCount <= 0) return;
+
+        if (viewportEnd > viewportStart) {
+            gc.setFill(VIEWPORT_COLOR);
+            gc.fillRect(0, viewportStart * height, width, Math.max(MARK_HEIGHT, (viewportEnd - viewportStart) * height));
+        }
+
+        int buckets = Math.max(1, (int) (height / MARK_HEIGHT));
+        if (bucketTypes.length != buckets) {
+            bucketTypes = new byte[buckets];
+        }
+        Arrays.fill(bucketTypes, (byte) -1);
+        for (int k = 0; k < markedLines.length; k++) {
+            int bucket = (int) ((long) (markedLines[k] - 1) * buckets / lineCount);
+            if (bucket >= buckets) bucket = buckets - 1;
+            byte type = markedTypes[k];
+            if (bucketTypes[bucket] < 0 || TYPES[type].getSeverity() < TYPES[bucketTypes[bucket]].getSeverity()) {
+                bucketTypes[bucket] = type;
+            }
+        }
+        double bucketHeight = height / buckets;
+        for (int b = 0; b < buckets; b++) {
+            if (bucketTypes[b] >= 0) {
+                gc.setFill(palette[bucketTypes[b]]);
+                gc.fillRect(2, b * bucketHeight, width - 4, Math.max(2, bucketHeight - 1));
+            }
+        }
+    }
+
+    private void handleMouse(MouseEvent event) {
+        if (onLineSelected == null || lineCount <= 0 || getHeight() <= 0) return;
+        double fraction = Math.max(0, Math.min(1, event.getY() / getHeight()));
+        int line = Math.min(lineCount, 1 + (int) (fraction * lineCount));
+        onLineSelected.accept(line);
+        event.consume();
+    }
+
+    @Override
+    public boolean isResizable() {
+        return true;
+    }
+
+    @Override
+    public double prefWidth(double height) {
+        return RULER_WIDTH;
+    }
+
+    @Override
+    public double prefHeight(double width) {
+        return 0;
+    }
+
+    @Override
+    public double minHeight(double width) {
+        return 0;
+    }
+
+    @Override
+    public double maxHeight(double width) {
+        return Double.MAX_VALUE;
+    }
+
+    @Override
+    public void resize(double width, double height) {
+        setWidth(width);
+        setHeight(height);
+        redraw();
+    }
+}
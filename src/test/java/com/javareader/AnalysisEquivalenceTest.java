@@ -0,0 +1,656 @@
+package com.javareader;
+
+import com.javareader.logic.BatchAnalyzer;
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.DuplicateBlockDetector;
+import com.javareader.logic.JavaLexer;
+import com.javareader.logic.LineTokenCache;
+import com.javareader.logic.LiveAnalyzer;
+import com.javareader.logic.RepeatedStringDetector;
+import com.javareader.logic.RuleChecker;
+import com.javareader.logic.rules.Cost;
+import com.javareader.logic.rules.LineContext;
+import com.javareader.logic.rules.Locality;
+import com.javareader.logic.rules.Reporter;
+import com.javareader.logic.rules.Rule;
+import com.javareader.logic.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Differential test class: random Java-like inputs are run through the reference analysis and
+ * through every optimized path (string, stream, file, batch, live and with pluggable rules), which
+ * must report exactly the same violations. A failure names
+ * the seed that reproduces it.
+ */
+public class AnalysisEquivalenceTest {
+
+    private static final int SEEDS = 200;
+    private static final String[] LITERALS = {"abc", "Hello World", "say \\\"hi\\\"", "x", "a/b/c", "café", "%s=%d"};
+    private static final String[] NAMES = {"value", "bad_name", "Other", "count2", "MAX_SIZE", "for_each", "x"};
+    private static final String[] INDENTS = {"", "", "  ", "    ", "    ", "      ", "        ", "            ", "\t", "  \t"};
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+        "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+        "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float",
+        "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native",
+        "new", "package", "private", "protected", "public", "return", "short", "static", "strictfp",
+        "super", "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void",
+        "volatile", "while", "true", "false", "null", "var", "record", "yield"));
+    // One token of code per match, tried in order; the operator alternative takes any other char
+    private static final Pattern CODE_TOKEN = Pattern.compile(
+        "(?<space>[ \\t\\f]+)"
+        + "|(?<comment>//.*)"
+        + "|(?<string>\"(?:\\\\.|\\\\$|[^\"\\\\])*+\"?)"
+        + "|(?<char>'(?:\\\\.|\\\\$|[^'\\\\])*+'?)"
+        + "|(?<number>\\.?[0-9](?:[eEpP][+-]|[0-9._\\p{L}])*+)"
+        + "|(?<word>\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)"
+        + "|(?<annotation>@\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)"
+        + "|(?<punctuation>\\.\\.\\.|[(){}\\[\\];,.@])"
+        + "|(?<operator>>>>=|<<=|>>=|>>>|->|::|\\+\\+|--|&&|\\|\\||==|!=|<=|>=|\\+=|-=|\\*=|/=|&=|\\|=|\\^=|%=|<<|>>|.)",
+        Pattern.DOTALL);
+    private static final Pattern COMMENT_END = Pattern.compile(".*?\\*/", Pattern.DOTALL);
+    private static final Pattern TEXT_BLOCK_END = Pattern.compile("(?:\\\\.|\\\\$|[^\"\\\\]|\"(?!\"\"))*+\"\"\"", Pattern.DOTALL);
+
+    @TempDir
+    Path tempDir;
+
+    private final CodeAnalyzer codeAnalyzer = new CodeAnalyzer();
+    private final RuleChecker ruleChecker = new RuleChecker();
+
+    @Test
+    void testStringAndFileAnalysisMatchReference() throws IOException {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            List<String> lines = generate(new Random(seed));
+            String code = String.join("\n", lines);
+            List<String> expected = referenceViolations(lines);
+
+            assertEquals(expected, describe(codeAnalyzer.analyzeString(code)), "analyzeString, seed " + seed);
+            assertEquals(expected, describe(codeAnalyzer.analyzeString(String.join("\r\n", lines) + "\r\n")),
+                "analyzeString with CRLF, seed " + seed);
+            List<CodeAnalyzer.Violation> streamed = new ArrayList<>();
+            CodeAnalyzer.AnalysisResult streamResult = codeAnalyzer.analyzeStream(
+                new BufferedReader(new StringReader(String.join("\r\n", lines))), streamed::add);
+            assertEquals(expected, describe(streamResult), "analyzeStream, seed " + seed);
+            assertEquals(expected, describe(new CodeAnalyzer.AnalysisResult(streamed)), "streamed violations, seed " + seed);
+
+            Path file = tempDir.resolve("Seed" + seed + ".java");
+            Files.write(file, (code + "\n").getBytes(StandardCharsets.UTF_8));
+            assertEquals(expected, describe(codeAnalyzer.analyzeFile(file)), "analyzeFile, seed " + seed);
+            byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+            Files.write(file, concat(bom, String.join("\r\n", lines).getBytes(StandardCharsets.UTF_8)));
+            assertEquals(expected, describe(codeAnalyzer.analyzeFile(file)), "analyzeFile with BOM and CRLF, seed " + seed);
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void testBatchAnalysisMatchesReference() throws Exception {
+        Map<Path, List<String>> expected = new HashMap<>();
+        for (int seed = 0; seed < SEEDS / 4; seed++) {
+            List<String> lines = generate(new Random(seed));
+            Path file = tempDir.resolve("Seed" + seed + ".java");
+            Files.write(file, lines, StandardCharsets.UTF_8);
+            expected.put(file, referenceViolations(lines));
+        }
+        Map<Path, CodeAnalyzer.AnalysisResult> results = new ConcurrentHashMap<>();
+        List<String> failures = new CopyOnWriteArrayList<>();
+        BatchAnalyzer batchAnalyzer = new BatchAnalyzer(4);
+        try {
+            BatchAnalyzer.Batch batch = batchAnalyzer.analyze(new ArrayList<>(expected.keySet()), new BatchAnalyzer.Listener() {
+                @Override
+                public void fileAnalyzed(Path file, String name, CodeAnalyzer.AnalysisResult result) {
+                    results.put(file, result);
+                }
+
+                @Override
+                public void fileFailed(Path file, String name, Exception error) {
+                    failures.add(name + ": " + error);
+                }
+
+                @Override
+                public void finished(List<DuplicateBlockDetector.DuplicateBlock> crossFileDuplicates, boolean cancelled) {
+                }
+            });
+            assertTrue(batch.await(30, TimeUnit.SECONDS));
+        } finally {
+            batchAnalyzer.shutdown();
+        }
+        assertEquals(Collections.emptyList(), failures);
+        for (Map.Entry<Path, List<String>> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), describe(results.get(entry.getKey())), "BatchAnalyzer, " + entry.getKey().getFileName());
+        }
+    }
+
+    @Test
+    void testLiveAnalysisMatchesReference() throws InterruptedException {
+        BlockingQueue<CodeAnalyzer.AnalysisResult> results = new LinkedBlockingQueue<>();
+        LiveAnalyzer live = new LiveAnalyzer(codeAnalyzer::analyzeString, (generation, result) -> results.add(result));
+        try {
+            for (int seed = 0; seed < SEEDS / 4; seed++) {
+                List<String> lines = generate(new Random(seed));
+                live.submit(String.join("\n", lines));
+                CodeAnalyzer.AnalysisResult result = results.poll(5, TimeUnit.SECONDS);
+                assertNotNull(result, "seed " + seed);
+                assertEquals(referenceViolations(lines), describe(result), "LiveAnalyzer, seed " + seed);
+            }
+        } finally {
+            live.shutdown();
+        }
+    }
+
+    @Test
+    void testPluggableRulesLeaveBuiltInResultsUnchanged() {
+        CodeAnalyzer withRules = new CodeAnalyzer(new RuleSet(Arrays.asList(new TabIndentRule(), new SameAsAboveRule(), new LongestLineRule())));
+        for (int seed = 0; seed < SEEDS; seed++) {
+            List<String> lines = generate(new Random(seed));
+            CodeAnalyzer.AnalysisResult result = withRules.analyzeString(String.join("\n", lines));
+
+            List<CodeAnalyzer.Violation> builtIn = new ArrayList<>();
+            List<String> custom = new ArrayList<>();
+            for (CodeAnalyzer.Violation violation : result.getViolations()) {
+                if (violation.getType() == CodeAnalyzer.ViolationType.CUSTOM) {
+                    custom.add(violation.getDetail() + "@" + violation.getLineNumber());
+                } else {
+                    builtIn.add(violation);
+                }
+            }
+            Collections.sort(custom);
+            assertEquals(referenceViolations(lines), describe(new CodeAnalyzer.AnalysisResult(builtIn)), "built-in rules, seed " + seed);
+            assertEquals(referenceCustomViolations(lines), custom, "pluggable rules, seed " + seed);
+        }
+    }
+
+    @Test
+    void testRepeatedStringsMatchNaiveReference() {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            List<String> lines = generate(new Random(seed));
+            RepeatedStringDetector detector = new RepeatedStringDetector();
+            detector.addLines(lines);
+            assertEquals(naiveRepeatedStrings(lines), detector.findRepeated(n -> lines.get(n - 1)), "seed " + seed);
+        }
+    }
+
+    @Test
+    void testIncrementalTokenCacheMatchesFullLex() {
+        JavaLexer lexer = new JavaLexer();
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        for (int seed = 0; seed < SEEDS / 4; seed++) {
+            Random random = new Random(seed);
+            List<String> lines = generate(random);
+            LineTokenCache cache = new LineTokenCache();
+            cache.reset(lines);
+            for (int edit = 0; edit < 20; edit++) {
+                // Replace, insert or delete a few lines, then read the cache from a random point
+                List<String> edited = new ArrayList<>(lines);
+                int at = random.nextInt(edited.size() + 1);
+                int removed = Math.min(random.nextInt(3), edited.size() - at);
+                edited.subList(at, at + removed).clear();
+                List<String> inserted = generate(random).subList(0, random.nextInt(4));
+                edited.addAll(at, inserted);
+                lines = edited;
+                cache.update(lines);
+                cache.getRuns(random.nextInt(Math.max(1, lines.size())));
+
+                int state = JavaLexer.STATE_CODE;
+                for (int i = 0; i < lines.size(); i++) {
+                    String where = "seed " + seed + ", edit " + edit + ", line " + (i + 1);
+                    assertEquals(state, cache.getStartState(i), "start state, " + where);
+                    state = lexer.lexLine(lines.get(i), state, tokens);
+                    assertArrayEquals(tokens.toRuns(), cache.getRuns(i), "runs, " + where);
+                }
+            }
+        }
+    }
+
+    /**
+     * The original string-based analyzer, kept independent of the code under test: the line-length,
+     * indentation and empty-line rules use the string overloads of the RuleChecker, in the order and
+     * with the run propagation of the original analyzeString; naming, '=' endings, repeated literals
+     * and duplicate blocks are recomputed here from a regex tokenizer and plain list comparisons.
+     * No JavaLexer, no token overloads, no hashing detectors.
+     */
+    private List<String> referenceViolations(List<String> lines) {
+        List<CodeAnalyzer.Violation> violations = new ArrayList<>();
+        List<List<Token>> lexed = tokenize(lines);
+
+        int i = 0;
+        while (i < lines.size()) {
+            String line = lines.get(i);
+            int lineNumber = i + 1;
+            if (ruleChecker.checkLineLength(line)) {
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.LINE_TOO_LONG, lineNumber, line));
+            }
+            int indentCheck = ruleChecker.checkIndentationType(line, lines, i);
+            if (indentCheck == 1) {
+                int badIndent = ruleChecker.getIndentationLevel(line);
+                int j = i;
+                while (j < lines.size() && ruleChecker.getIndentationLevel(lines.get(j)) == badIndent && !lines.get(j).trim().isEmpty()) {
+                    violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.IMPROPER_INDENTATION, j + 1, lines.get(j)));
+                    j++;
+                }
+                i = j;
+                continue;
+            } else if (indentCheck == 2) {
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.IMPROPER_INDENTATION, lineNumber, line));
+            }
+            if (ruleChecker.checkConsecutiveEmptyLines(lines, i)) {
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.EMPTY_LINE, lineNumber, line));
+            }
+            List<Token> code = code(lexed.get(i));
+            if (namingViolation(code)) {
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.NAMING_CONVENTION, lineNumber, line));
+            }
+            if (!code.isEmpty() && code.get(code.size() - 1).kind == Kind.OPERATOR && code.get(code.size() - 1).text.endsWith("=")) {
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.LINE_ENDS_WITH_EQUALS, lineNumber, line));
+            }
+            i++;
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : naiveRepeatedStrings(lines).entrySet()) {
+            for (Integer lineNumber : entry.getValue()) {
+                violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.REPEATED_STRING, lineNumber, lines.get(lineNumber - 1)));
+            }
+        }
+        for (Integer lineNumber : naiveDuplicatedLines(lexed)) {
+            violations.add(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK, lineNumber, lines.get(lineNumber - 1)));
+        }
+        return describe(new CodeAnalyzer.AnalysisResult(violations));
+    }
+
+    // What the three pluggable rules below report, computed over the whole list at once
+    private static List<String> referenceCustomViolations(List<String> lines) {
+        List<String> expected = new ArrayList<>();
+        int longest = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.startsWith("\t")) {
+                expected.add("tab-indent@" + (i + 1));
+            }
+            if (i > 0 && !line.trim().isEmpty() && line.equals(lines.get(i - 1))) {
+                expected.add("same-as-above@" + (i + 1));
+            }
+            if (line.length() > lines.get(longest).length()) {
+                longest = i;
+            }
+        }
+        expected.add("longest-line: " + lines.get(longest).length() + " chars@" + (longest + 1));
+        Collections.sort(expected);
+        return expected;
+    }
+
+    // The declared name before the first '=' and the method named before the first '(' of the line's code
+    private static boolean namingViolation(List<Token> code) {
+        int assign = indexOf(code, Kind.OPERATOR, "=");
+        if (assign >= 2 && code.get(assign - 1).kind == Kind.WORD) {
+            String name = code.get(assign - 1).text;
+            Token type = code.get(assign - 2);
+            boolean typed = type.kind == Kind.WORD || type.kind == Kind.KEYWORD || type.text.endsWith(">") || type.text.endsWith("]");
+            boolean isFinal = indexOf(code.subList(0, assign), Kind.KEYWORD, "final") >= 0;
+            if (typed && !name.matches("[a-z][a-zA-Z0-9]*") && !(isFinal && name.matches("[A-Z][A-Z0-9_]*"))) {
+                return true;
+            }
+        }
+        int call = indexOf(code, Kind.PUNCTUATION, "(");
+        if (call >= 1 && code.get(call - 1).kind == Kind.WORD) {
+            String name = code.get(call - 1).text;
+            String before = call >= 2 ? code.get(call - 2).text : "";
+            boolean qualified = before.equals(".") || before.equals("::") || before.equals("new");
+            return !qualified && !Character.isUpperCase(name.charAt(0)) && !name.matches("[a-z][a-zA-Z0-9]*");
+        }
+        return false;
+    }
+
+    // Text between the quotes of every string literal; unterminated literals run to the line end
+    private static Map<String, List<Integer>> naiveRepeatedStrings(List<String> lines) {
+        Map<String, List<Integer>> occurrences = new HashMap<>();
+        List<List<Token>> lexed = tokenize(lines);
+        for (int i = 0; i < lexed.size(); i++) {
+            for (Token token : lexed.get(i)) {
+                if (token.kind != Kind.STRING) continue;
+                String text = token.text.substring(1);
+                if (text.endsWith("\"")) text = text.substring(0, text.length() - 1);
+                if (text.length() >= 3) {
+                    occurrences.computeIfAbsent(text, key -> new ArrayList<>()).add(i + 1);
+                }
+            }
+        }
+        occurrences.values().removeIf(lineNumbers -> lineNumbers.size() < 2);
+        return occurrences;
+    }
+
+    /**
+     * Lines of every window of code lines that repeats an earlier window with the same tokens, literals
+     * masked; each window is paired with the first earlier copy only, and never with one it overlaps
+     * or one it matches only because the lines between them repeat a unit shorter than a window
+     */
+    private static Set<Integer> naiveDuplicatedLines(List<List<Token>> lexed) {
+        List<List<String>> keys = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        for (int i = 0; i < lexed.size(); i++) {
+            List<String> key = new ArrayList<>();
+            boolean hasCode = false;
+            for (Token token : code(lexed.get(i))) {
+                if (token.kind == Kind.STRING || token.kind == Kind.CHAR || token.kind == Kind.TEXT_BLOCK || token.kind == Kind.NUMBER) {
+                    key.add("\u0000literal");
+                } else if (token.kind == Kind.PUNCTUATION) {
+                    key.add(token.text.substring(0, 1));
+                } else {
+                    key.add(token.text);
+                    hasCode = true;
+                }
+            }
+            if (hasCode) {
+                keys.add(key);
+                lineNumbers.add(i + 1);
+            }
+        }
+        int window = DuplicateBlockDetector.DEFAULT_WINDOW_LINES;
+        Set<Integer> duplicated = new TreeSet<>();
+        for (int b = 0; b + window <= keys.size(); b++) {
+            for (int a = 0; a < b; a++) {
+                if (keys.subList(a, a + window).equals(keys.subList(b, b + window))) {
+                    if (b - a >= window && !periodic(keys.subList(a, b + window), window)) {
+                        for (int line = lineNumbers.get(a); line <= lineNumbers.get(a + window - 1); line++) duplicated.add(line);
+                        for (int line = lineNumbers.get(b); line <= lineNumbers.get(b + window - 1); line++) duplicated.add(line);
+                    }
+                    break;
+                }
+            }
+        }
+        return duplicated;
+    }
+
+    // Whether some period shorter than the window repeats across all of the given lines
+    private static boolean periodic(List<List<String>> keys, int window) {
+        for (int period = 1; period < window; period++) {
+            boolean repeats = true;
+            for (int i = 0; i + period < keys.size() && repeats; i++) {
+                repeats = keys.get(i).equals(keys.get(i + period));
+            }
+            if (repeats) return true;
+        }
+        return false;
+    }
+
+    private static int indexOf(List<Token> tokens, Kind kind, String text) {
+        for (int t = 0; t < tokens.size(); t++) {
+            if (tokens.get(t).kind == kind && tokens.get(t).text.equals(text)) return t;
+        }
+        return -1;
+    }
+
+    // Tokens other than whitespace and comments
+    private static List<Token> code(List<Token> tokens) {
+        List<Token> code = new ArrayList<>();
+        for (Token token : tokens) {
+            if (token.kind != Kind.SPACE && token.kind != Kind.COMMENT) code.add(token);
+        }
+        return code;
+    }
+
+    /**
+     * Splits the lines into tokens with regular expressions, carrying block comments and text
+     * blocks over to the following lines
+     */
+    private static List<List<Token>> tokenize(List<String> lines) {
+        List<List<Token>> lexed = new ArrayList<>();
+        Kind open = null;
+        for (String line : lines) {
+            List<Token> tokens = new ArrayList<>();
+            int i = 0;
+            if (open != null) {
+                Matcher close = (open == Kind.COMMENT ? COMMENT_END : TEXT_BLOCK_END).matcher(line);
+                boolean closed = close.lookingAt();
+                i = closed ? close.end() : line.length();
+                tokens.add(new Token(open, line.substring(0, i)));
+                if (closed) open = null;
+            }
+            Matcher matcher = CODE_TOKEN.matcher(line);
+            while (i < line.length()) {
+                if (line.startsWith("/*", i) || line.startsWith("\"\"\"", i)) {
+                    Kind kind = line.startsWith("/*", i) ? Kind.COMMENT : Kind.TEXT_BLOCK;
+                    Matcher close = (kind == Kind.COMMENT ? COMMENT_END : TEXT_BLOCK_END).matcher(line);
+                    close.region(i + (kind == Kind.COMMENT ? 2 : 3), line.length());
+                    boolean closed = close.lookingAt();
+                    int end = closed ? close.end() : line.length();
+                    tokens.add(new Token(kind, line.substring(i, end)));
+                    if (!closed) open = kind;
+                    i = end;
+                    continue;
+                }
+                matcher.region(i, line.length());
+                matcher.lookingAt();
+                tokens.add(new Token(kindOf(matcher), matcher.group()));
+                i = matcher.end();
+            }
+            lexed.add(tokens);
+        }
+        return lexed;
+    }
+
+    private static Kind kindOf(Matcher matcher) {
+        if (matcher.group("space") != null) return Kind.SPACE;
+        if (matcher.group("comment") != null) return Kind.COMMENT;
+        if (matcher.group("string") != null) return Kind.STRING;
+        if (matcher.group("char") != null) return Kind.CHAR;
+        if (matcher.group("number") != null) return Kind.NUMBER;
+        if (matcher.group("word") != null) return KEYWORDS.contains(matcher.group()) ? Kind.KEYWORD : Kind.WORD;
+        if (matcher.group("annotation") != null) return Kind.ANNOTATION;
+        if (matcher.group("punctuation") != null) return Kind.PUNCTUATION;
+        return Kind.OPERATOR;
+    }
+
+    private abstract static class TestRule implements Rule {
+        private final String name;
+        private final Locality locality;
+
+        TestRule(String name, Locality locality) {
+            this.name = name;
+            this.locality = locality;
+        }
+
+        @Override
+        public String getName() { return name; }
+
+        @Override
+        public String getDescription() { return name; }
+
+        @Override
+        public Locality getLocality() { return locality; }
+
+        @Override
+        public Cost getCost() { return Cost.CHEAP; }
+    }
+
+    private static class TabIndentRule extends TestRule {
+        TabIndentRule() {
+            super("tab-indent", Locality.LINE);
+        }
+
+        @Override
+        public void checkLine(LineContext context, Reporter reporter) {
+            if (context.getLine().startsWith("\t")) {
+                reporter.report(context.getLineNumber(), null);
+            }
+        }
+    }
+
+    private static class SameAsAboveRule extends TestRule {
+        SameAsAboveRule() {
+            super("same-as-above", Locality.WINDOW);
+        }
+
+        @Override
+        public int getWindow() {
+            return 1;
+        }
+
+        @Override
+        public void checkLine(LineContext context, Reporter reporter) {
+            String line = context.getLine();
+            if (!line.trim().isEmpty() && line.equals(context.getPreviousLine(1))) {
+                reporter.report(context.getLineNumber(), null);
+            }
+        }
+    }
+
+    private static class LongestLineRule extends TestRule {
+        LongestLineRule() {
+            super("longest-line", Locality.FILE);
+        }
+
+        @Override
+        public void checkFile(List<String> lines, Reporter reporter) {
+            int longest = 0;
+            for (int i = 1; i < lines.size(); i++) {
+                if (lines.get(i).length() > lines.get(longest).length()) longest = i;
+            }
+            reporter.report(longest + 1, lines.get(longest).length() + " chars");
+        }
+    }
+
+    private enum Kind { SPACE, COMMENT, STRING, CHAR, TEXT_BLOCK, NUMBER, WORD, KEYWORD, ANNOTATION, PUNCTUATION, OPERATOR }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+
+        Token(Kind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+    }
+
+    // Order-independent form of a result: sorted "TYPE@line" entries
+    private static List<String> describe(CodeAnalyzer.AnalysisResult result) {
+        List<String> described = new ArrayList<>();
+        for (CodeAnalyzer.Violation violation : result.getViolations()) {
+            described.add(violation.getType() + "@" + violation.getLineNumber());
+        }
+        Collections.sort(described);
+        return described;
+    }
+
+    /**
+     * Random Java-like lines: varied indentation and tabs, blank and whitespace-only runs, repeated
+     * and escaped literals, comments and text blocks spanning lines, '=' endings, leading dots,
+     * long lines, non-ASCII text, copied runs of lines and tables of same-shaped lines. The last line
+     * is never blank, so every path sees the same lines.
+     */
+    static List<String> generate(Random random) {
+        int count = 20 + random.nextInt(100);
+        List<String> lines = new ArrayList<>();
+        while (lines.size() < count) {
+            String indent = INDENTS[random.nextInt(INDENTS.length)];
+            String name = NAMES[random.nextInt(NAMES.length)];
+            String literal = "\"" + LITERALS[random.nextInt(LITERALS.length)] + "\"";
+            switch (random.nextInt(18)) {
+                case 0:
+                    for (int k = random.nextInt(4); k >= 0; k--) lines.add("");
+                    break;
+                case 1:
+                    lines.add(random.nextBoolean() ? "   " : "\t ");
+                    break;
+                case 2:
+                    lines.add(indent + "String " + name + " = " + literal + ";");
+                    break;
+                case 3:
+                    lines.add(indent + name + "(" + literal + ", " + NAMES[random.nextInt(NAMES.length)] + ");");
+                    break;
+                case 4:
+                    lines.add(indent + "int " + name + " =" + (random.nextBoolean() ? "" : " // continued"));
+                    break;
+                case 5:
+                    lines.add(indent + "boolean same = a ==");
+                    break;
+                case 6:
+                    lines.add(indent + "String longLine = " + literal + " + \"" + repeat('y', 100 + random.nextInt(40)) + "\";");
+                    break;
+                case 7:
+                    lines.add(indent + "." + name + "()");
+                    break;
+                case 8:
+                    lines.add(indent + "/* " + literal + " start");
+                    break;
+                case 9:
+                    lines.add(indent + "end */ int " + name + " = 1;");
+                    break;
+                case 10:
+                    lines.add(indent + "String block = \"\"\"");
+                    break;
+                case 11:
+                    lines.add(indent + "  " + literal + " \"\"\";");
+                    break;
+                case 12:
+                    lines.add(indent + "// café 🎉 " + literal);
+                    break;
+                case 13:
+                    lines.add(indent + "char quote = '\"'; String open = " + literal.substring(0, literal.length() - 1));
+                    break;
+                case 14:
+                    lines.add(indent + (random.nextBoolean() ? "}" : "public void " + name + "() {"));
+                    break;
+                case 15:
+                    int length = 6 + random.nextInt(10);
+                    if (lines.size() >= length) {
+                        int from = random.nextInt(lines.size() - length + 1);
+                        lines.addAll(new ArrayList<>(lines.subList(from, from + length)));
+                    }
+                    break;
+                case 16:
+                    // A table: a short unit of same-shaped lines repeated with different literals
+                    int unit = 1 + random.nextInt(3);
+                    for (int row = 6 + random.nextInt(30); row > 0; row--) {
+                        String value = "\"" + LITERALS[random.nextInt(LITERALS.length)] + "\"";
+                        lines.add(indent + (row % unit == 0 ? "map.put(" + value + ", " + row + ");" : name + ".add(" + value + ");"));
+                    }
+                    break;
+                default:
+                    lines.add(indent + "x = " + literal + "; // " + literal);
+                    break;
+            }
+        }
+        while (lines.get(lines.size() - 1).trim().isEmpty()) {
+            lines.remove(lines.size() - 1);
+        }
+        lines.add("}");
+        return lines;
+    }
+
+    private static String repeat(char c, int times) {
+        char[] chars = new char[times];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+}
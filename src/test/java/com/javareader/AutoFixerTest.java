@@ -0,0 +1,185 @@
+package com.javareader;
+
+import com.javareader.logic.AutoFixer;
+import com.javareader.logic.CodeAnalyzer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class for the auto-fix edits and their parallel application to files
+ */
+public class AutoFixerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AutoFixer fixer = new AutoFixer();
+    private final CodeAnalyzer analyzer = new CodeAnalyzer();
+
+    @Test
+    void testOverlappingEditsAreDropped() {
+        List<AutoFixer.TextEdit> edits = Arrays.asList(
+            new AutoFixer.TextEdit(6, 3, "X"),
+            new AutoFixer.TextEdit(0, 2, "ab"),
+            new AutoFixer.TextEdit(7, 1, "Y"),
+            new AutoFixer.TextEdit(9, 0, "!"),
+            new AutoFixer.TextEdit(9, 0, "?"));
+        assertEquals("ab2345X!9", AutoFixer.apply("0123456789", edits));
+        assertEquals(3, AutoFixer.nonOverlapping(edits).size());
+    }
+
+    @Test
+    void testIndentationIsFixedWithoutNewViolations() {
+        List<String> lines = Arrays.asList(
+            "class A {",
+            "    int a;",
+            "    void run() {",
+            "        a = 1;",
+            "        if (a > 0) {",
+            "\t\t\ta++;",
+            "        }",
+            "    }",
+            "}");
+        String fixed = fix(lines);
+        assertEquals("class A {\n  int a;\n  void run() {\n    a = 1;\n    if (a > 0) {\n      a++;\n    }\n  }\n}\n", fixed);
+        assertEquals(0, count(analyzer.analyzeString(fixed), CodeAnalyzer.ViolationType.IMPROPER_INDENTATION));
+    }
+
+    @Test
+    void testWellIndentedCodeIsLeftAlone() {
+        List<String> lines = Arrays.asList("class A {", "  int a;", "   // odd", "  int b;", "}");
+        assertTrue(fixer.collectEdits(lines).isEmpty());
+    }
+
+    @Test
+    void testRepeatedLiteralsBecomeConstants() {
+        List<String> lines = Arrays.asList(
+            "class A {",
+            "  void a() { log(\"hello world\"); }",
+            "  void b() { log(\"hello world\"); log(\"once\"); }",
+            "}");
+        String fixed = fix(lines);
+        assertEquals("class A {\n  private static final String HELLO_WORLD = \"hello world\";\n"
+            + "  void a() { log(HELLO_WORLD); }\n  void b() { log(HELLO_WORLD); log(\"once\"); }\n}\n", fixed);
+        assertEquals(0, count(analyzer.analyzeString(fixed), CodeAnalyzer.ViolationType.REPEATED_STRING));
+    }
+
+    @Test
+    void testLiteralsOutsideTheClassOrWithTakenNamesAreKept() {
+        List<String> lines = Arrays.asList(
+            "@Tag(\"abc\")",
+            "class A {",
+            "  String ABC = \"abc\";",
+            "  String x = \"abc\" + \"text\";",
+            "  String y = \"text\";",
+            "  String z = \"\\\"quoted\";",
+            "}",
+            "class B { String t = \"text\"; }");
+        String fixed = fix(lines);
+        assertTrue(fixed.contains("private static final String TEXT = \"text\";"));
+        assertTrue(fixed.contains("String x = \"abc\" + TEXT;"));
+        assertTrue(fixed.contains("class B { String t = \"text\"; }"));
+        assertFalse(fixed.contains("private static final String ABC"));
+    }
+
+    @Test
+    void testOnlyOccurrencesInsideTheClassCount() {
+        List<String> lines = Arrays.asList(
+            "@Tag(\"once inside\")",
+            "class A {",
+            "  String a = \"once inside\";",
+            "}",
+            "class B { String b = \"once inside\"; }");
+        assertTrue(fixer.collectEdits(lines).isEmpty());
+    }
+
+    @Test
+    void testTextBlocksAreNotReindented() {
+        List<String> lines = Arrays.asList(
+            "class A {",
+            "  String s = \"\"\"",
+            "        keep",
+            "      \"\"\";",
+            "}");
+        assertTrue(fixer.collectEdits(lines).isEmpty());
+    }
+
+    @Test
+    void testFixAllWritesFilesInParallel() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int f = 0; f < 12; f++) {
+            Path file = tempDir.resolve("F" + f + ".java");
+            String separator = f % 2 == 0 ? "\r\n" : "\n";
+            Files.write(file, ("class F" + f + " {" + separator + "    int a;" + separator + "}" + separator)
+                .getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+        Path clean = tempDir.resolve("Clean.java");
+        Files.write(clean, "class Clean {\n  int a;\n}\n".getBytes(StandardCharsets.UTF_8));
+        files.add(clean);
+        Path missing = tempDir.resolve("Missing.java");
+        files.add(missing);
+        long cleanModified = Files.getLastModifiedTime(clean).toMillis();
+
+        List<AutoFixer.FileResult> results = fixer.fixAll(files, 4);
+        assertEquals(files.size(), results.size());
+        for (int f = 0; f < 12; f++) {
+            assertEquals(files.get(f), results.get(f).getFile());
+            assertNull(results.get(f).getError());
+            assertEquals(1, results.get(f).getEditCount());
+            String separator = f % 2 == 0 ? "\r\n" : "\n";
+            assertEquals("class F" + f + " {" + separator + "  int a;" + separator + "}" + separator,
+                new String(Files.readAllBytes(files.get(f)), StandardCharsets.UTF_8));
+        }
+        assertEquals(0, results.get(12).getEditCount());
+        assertEquals(cleanModified, Files.getLastModifiedTime(clean).toMillis());
+        assertTrue(results.get(13).getError() instanceof IOException);
+        // Only the fixed files remain, no temporary files
+        try (java.util.stream.Stream<Path> listed = Files.list(tempDir)) {
+            assertEquals(13, listed.count());
+        }
+    }
+
+    @Test
+    void testPreviewCountsEditsWithoutWriting() throws Exception {
+        Path file = tempDir.resolve("P.java");
+        byte[] content = "class P {\n    int a;\n    int b;\n}\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, content);
+        Path clean = tempDir.resolve("Clean.java");
+        Files.write(clean, "class Clean {\n  int a;\n}\n".getBytes(StandardCharsets.UTF_8));
+
+        List<AutoFixer.FileResult> preview = fixer.previewAll(Arrays.asList(file, clean), 2);
+        assertEquals(2, preview.get(0).getEditCount());
+        assertEquals(0, preview.get(1).getEditCount());
+        assertArrayEquals(content, Files.readAllBytes(file));
+        assertEquals(preview.get(0).getEditCount(), fixer.fixFile(file));
+    }
+
+    @Test
+    void testEmptyInput() throws Exception {
+        assertTrue(fixer.collectEdits(Collections.<String>emptyList()).isEmpty());
+        assertTrue(fixer.fixAll(Collections.<Path>emptyList(), 2).isEmpty());
+    }
+
+    private String fix(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append('\n');
+        }
+        return AutoFixer.apply(text, fixer.collectEdits(lines));
+    }
+
+    private static long count(CodeAnalyzer.AnalysisResult result, CodeAnalyzer.ViolationType type) {
+        return result.getViolations().stream().filter(v -> v.getType() == type).count();
+    }
+}
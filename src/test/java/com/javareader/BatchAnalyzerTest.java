@@ -0,0 +1,222 @@
+package com.javareader;
+
+import com.javareader.logic.BatchAnalyzer;
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.DuplicateBlockDetector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class for parallel batch analysis of files and folders
+ */
+public class BatchAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BatchAnalyzer batchAnalyzer = new BatchAnalyzer(4);
+
+    @AfterEach
+    void tearDown() {
+        batchAnalyzer.shutdown();
+    }
+
+    @Test
+    void testBatchMatchesSequentialAnalysis() throws Exception {
+        List<Path> written = new CorpusGenerator(11).linesPerFile(300).fileCount(12).densityForAll(0.03)
+            .writeTree(tempDir.resolve("src"));
+        Files.write(tempDir.resolve("src/notes.txt"), Arrays.asList("not java"));
+
+        List<Path> files = BatchAnalyzer.expand(Arrays.asList(tempDir.resolve("src"), written.get(0)));
+        assertEquals(12, files.size());
+
+        Recorder recorder = new Recorder();
+        BatchAnalyzer.Batch batch = batchAnalyzer.analyze(files, recorder);
+        assertTrue(batch.await(30, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), recorder.failures);
+        assertFalse(recorder.cancelled.get());
+        assertEquals(12, batch.getCompletedCount());
+
+        CodeAnalyzer codeAnalyzer = new CodeAnalyzer();
+        for (Path file : files) {
+            assertEquals(describe(codeAnalyzer.analyzeFile(file)), describe(recorder.results.get(file)), file.toString());
+        }
+    }
+
+    @Test
+    void testBlocksDuplicatedAcrossFilesAreReported() throws Exception {
+        List<String> block = new ArrayList<>();
+        for (int k = 0; k < 10; k++) {
+            block.add("  total += items.get(" + k + ").getPrice() * factor;");
+        }
+        Path first = tempDir.resolve("a/First.java");
+        Path second = tempDir.resolve("b/Second.java");
+        Files.createDirectories(first.getParent());
+        Files.createDirectories(second.getParent());
+        writeClass(first, "First", block);
+        writeClass(second, "Second", block);
+
+        Recorder recorder = new Recorder();
+        BatchAnalyzer.Batch batch = batchAnalyzer.analyze(BatchAnalyzer.expand(Arrays.asList(tempDir)), recorder);
+        assertTrue(batch.await(30, TimeUnit.SECONDS));
+        assertEquals(Collections.emptyList(), recorder.failures);
+
+        List<DuplicateBlockDetector.DuplicateBlock> duplicates = recorder.duplicates.get();
+        assertFalse(duplicates.isEmpty());
+        DuplicateBlockDetector.DuplicateBlock duplicate = duplicates.get(0);
+        List<String> names = Arrays.asList(duplicate.getFileA(), duplicate.getFileB());
+        assertTrue(names.contains("a/First.java"), names.toString());
+        assertTrue(names.contains("b/Second.java"), names.toString());
+    }
+
+    @Test
+    void testArchiveEntriesAreAnalyzedInPlace() throws Exception {
+        CorpusGenerator generator = new CorpusGenerator(23).linesPerFile(250).densityForAll(0.03);
+        Path archive = tempDir.resolve("code-sources.jar");
+        Map<String, String> env = new HashMap<>();
+        env.put("create", "true");
+        try (FileSystem zip = FileSystems.newFileSystem(URI.create("jar:" + archive.toUri()), env)) {
+            for (int index = 0; index < 5; index++) {
+                Path entry = zip.getPath("/pkg/sub" + index % 2 + "/Generated" + index + ".java");
+                Files.createDirectories(entry.getParent());
+                CorpusGenerator.write(entry, generator.generateFile(index));
+            }
+            Files.createDirectories(zip.getPath("/META-INF"));
+            Files.write(zip.getPath("/META-INF/MANIFEST.MF"), Arrays.asList("Manifest-Version: 1.0"));
+        }
+        Path loose = tempDir.resolve("Loose.java");
+        CorpusGenerator.write(loose, generator.generateFile(9));
+
+        Recorder recorder = new Recorder();
+        try (BatchAnalyzer.Batch batch = batchAnalyzer.analyze(BatchAnalyzer.expand(Arrays.asList(tempDir)), recorder)) {
+            assertTrue(batch.await(30, TimeUnit.SECONDS));
+            assertEquals(Collections.emptyList(), recorder.failures);
+            assertEquals(6, batch.getTotalCount());
+            assertEquals(6, batch.getCompletedCount());
+            assertTrue(recorder.names.contains("code-sources.jar!/pkg/sub1/Generated3.java"), recorder.names.toString());
+            assertTrue(recorder.names.contains("Loose.java"));
+        }
+
+        CodeAnalyzer codeAnalyzer = new CodeAnalyzer();
+        for (Map.Entry<Path, CodeAnalyzer.AnalysisResult> result : recorder.results.entrySet()) {
+            String fileName = result.getKey().getFileName().toString();
+            int index = fileName.equals("Loose.java") ? 9 : Integer.parseInt(fileName.replaceAll("\\D", ""));
+            String code = String.join("\n", generator.generateFile(index));
+            assertEquals(describe(codeAnalyzer.analyzeString(code)), describe(result.getValue()), fileName);
+        }
+    }
+
+    @Test
+    void testCancelledBatchStillFinishes() throws Exception {
+        List<Path> files = new CorpusGenerator(5).linesPerFile(2000).fileCount(40).writeTree(tempDir);
+        Recorder recorder = new Recorder();
+        BatchAnalyzer.Batch batch = batchAnalyzer.analyze(files, recorder);
+        batch.cancel();
+
+        assertTrue(batch.await(30, TimeUnit.SECONDS));
+        assertTrue(batch.isCancelled());
+        assertTrue(recorder.cancelled.get());
+        assertTrue(recorder.duplicates.get().isEmpty());
+        assertTrue(batch.getCompletedCount() < files.size());
+    }
+
+    @Test
+    void testUnreadableFilesAreReportedAsFailures() throws Exception {
+        Path good = tempDir.resolve("Good.java");
+        Path missing = tempDir.resolve("Missing.java");
+        CorpusGenerator.write(good, Arrays.asList("class Good {", "}"));
+        Recorder recorder = new Recorder();
+        BatchAnalyzer.Batch batch = batchAnalyzer.analyze(Arrays.asList(good, missing), recorder);
+        assertTrue(batch.await(30, TimeUnit.SECONDS));
+        assertEquals(1, recorder.failures.size());
+        assertTrue(recorder.failures.get(0).startsWith("Missing.java: "), recorder.failures.toString());
+        assertEquals(1, batch.getCompletedCount());
+    }
+
+    @Test
+    void testNewBatchWaitsForStart() throws Exception {
+        Path file = tempDir.resolve("Only.java");
+        CorpusGenerator.write(file, Arrays.asList("class Only {", "}"));
+        BatchAnalyzer.Batch batch = batchAnalyzer.newBatch(Collections.singletonList(file));
+        assertFalse(batch.await(100, TimeUnit.MILLISECONDS));
+        Recorder recorder = new Recorder();
+        batch.start(recorder);
+        assertTrue(batch.await(30, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList("Only.java"), recorder.names);
+        assertThrows(IllegalStateException.class, () -> batch.start(recorder));
+    }
+
+    @Test
+    void testEmptyBatchFinishesAtOnce() throws Exception {
+        Recorder recorder = new Recorder();
+        BatchAnalyzer.Batch batch = batchAnalyzer.analyze(new ArrayList<>(), recorder);
+        assertTrue(batch.await(1, TimeUnit.SECONDS));
+        assertTrue(recorder.duplicates.get().isEmpty());
+    }
+
+    private static void writeClass(Path file, String name, List<String> body) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("public class " + name + " {");
+        lines.add("int sum(List<Item> items, int factor) {");
+        lines.add("  int total = 0;");
+        lines.addAll(body);
+        lines.add("  return total;");
+        lines.add("}");
+        lines.add("}");
+        CorpusGenerator.write(file, lines);
+    }
+
+    private static List<String> describe(CodeAnalyzer.AnalysisResult result) {
+        List<String> described = new ArrayList<>();
+        for (CodeAnalyzer.Violation violation : result.getViolations()) {
+            described.add(violation.getType() + "@" + violation.getLineNumber());
+        }
+        return described;
+    }
+
+    private static class Recorder implements BatchAnalyzer.Listener {
+        final Map<Path, CodeAnalyzer.AnalysisResult> results = new ConcurrentHashMap<>();
+        final List<String> names = new CopyOnWriteArrayList<>();
+        final AtomicReference<List<DuplicateBlockDetector.DuplicateBlock>> duplicates = new AtomicReference<>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        // Failures are asserted on the test thread; an assertion on a worker thread would be lost
+        final List<String> failures = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void fileAnalyzed(Path file, String name, CodeAnalyzer.AnalysisResult result) {
+            results.put(file, result);
+            names.add(name);
+        }
+
+        @Override
+        public void fileFailed(Path file, String name, Exception error) {
+            failures.add(name + ": " + error);
+        }
+
+        @Override
+        public void finished(List<DuplicateBlockDetector.DuplicateBlock> crossFileDuplicates, boolean cancelled) {
+            this.duplicates.set(crossFileDuplicates);
+            this.cancelled.set(cancelled);
+        }
+    }
+}
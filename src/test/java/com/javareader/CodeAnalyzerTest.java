@@ -9,6 +9,8 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -55,6 +57,32 @@ public class CodeAnalyzerTest {
         assertTrue(ruleChecker.checkNamingConventions("String " + underscoreVariable + " = value;"));
     }
     
+    @Test
+    void testNamingConventionUsesTokens() {
+        // Keywords inside identifiers, constructors, qualified calls and comments are not method names
+        assertFalse(ruleChecker.checkNamingConventions("String text = format(value);"));
+        assertFalse(ruleChecker.checkNamingConventions("Widget widget = new Widget_Impl();"));
+        assertFalse(ruleChecker.checkNamingConventions("System.out.println(bad_name);"));
+        assertFalse(ruleChecker.checkNamingConventions("// call some_method() here"));
+        assertFalse(ruleChecker.checkNamingConventions("private static final int MAX_SIZE = 10;"));
+        assertTrue(ruleChecker.checkNamingConventions("int informed_value = 1; // for"));
+        assertTrue(ruleChecker.checkNamingConventions("public void method_with_poor_naming() {"));
+    }
+
+    @Test
+    void testRepeatedStringsIgnoreCommentsAndKeepEscapes() {
+        List<String> lines = java.util.Arrays.asList(
+            "String a = \"say \\\"hi\\\"\"; // \"not a literal\"",
+            "String b = \"say \\\"hi\\\"\";",
+            "/* \"not a literal\" */ char c = '\"';"
+        );
+
+        java.util.Map<String, java.util.List<Integer>> repeatedStrings = ruleChecker.findRepeatedStrings(lines);
+
+        assertEquals(1, repeatedStrings.size());
+        assertEquals(java.util.Arrays.asList(1, 2), repeatedStrings.get("say \\\"hi\\\""));
+    }
+
     @Test
     void testRepeatedStringDetection() {
         List<String> lines = java.util.Arrays.asList(
@@ -72,6 +100,60 @@ public class CodeAnalyzerTest {
         assertFalse(repeatedStrings.containsKey("Different String"));
     }
     
+    @Test
+    void testProgressReportsRunningCountsAndCancels() {
+        String code = String.join("\n", new CorpusGenerator(3).linesPerFile(10000).densityForAll(0.02).generateFile(0));
+        List<Integer> linesDone = new java.util.ArrayList<>();
+        java.util.Map<CodeAnalyzer.ViolationType, Integer> lastCounts = new java.util.HashMap<>();
+        CodeAnalyzer.AnalysisResult result = codeAnalyzer.analyzeString(code, (done, total, counts) -> {
+            assertEquals(10000, total);
+            linesDone.add(done);
+            lastCounts.putAll(counts);
+        });
+
+        assertTrue(linesDone.size() > 2);
+        assertEquals(10000, (int) linesDone.get(linesDone.size() - 1));
+        for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+            assertEquals(result.getViolationCounts().getOrDefault(type, 0), lastCounts.get(type));
+        }
+
+        assertThrows(java.util.concurrent.CancellationException.class,
+            () -> codeAnalyzer.analyzeString(code, new CodeAnalyzer.ProgressListener() {
+                @Override
+                public void progress(int done, int total, java.util.Map<CodeAnalyzer.ViolationType, Integer> counts) {
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return true;
+                }
+            }));
+    }
+
+    @Test
+    void testSeverityOrderRanksEveryType() {
+        List<CodeAnalyzer.ViolationType> bySeverity = new ArrayList<>(Arrays.asList(CodeAnalyzer.ViolationType.values()));
+        bySeverity.sort(CodeAnalyzer.ViolationType.SEVERITY_ORDER);
+        assertEquals(CodeAnalyzer.ViolationType.LINE_TOO_LONG, bySeverity.get(0));
+        assertEquals(CodeAnalyzer.ViolationType.CUSTOM, bySeverity.get(bySeverity.size() - 1));
+        for (int k = 1; k < bySeverity.size(); k++) {
+            assertTrue(bySeverity.get(k - 1).getSeverity() < bySeverity.get(k).getSeverity(), bySeverity.toString());
+        }
+    }
+
+    @Test
+    void testMostSevereFollowsSeverityNotDeclarationOrder() {
+        // DUPLICATE_BLOCK is declared after LINE_ENDS_WITH_EQUALS but ranks as more severe
+        List<CodeAnalyzer.Violation> violations = Arrays.asList(
+            new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.LINE_ENDS_WITH_EQUALS, 3, "int x ="),
+            new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK, 3, "int x ="));
+        assertEquals(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK, CodeAnalyzer.ViolationType.mostSevere(violations));
+        assertEquals(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK,
+            CodeAnalyzer.ViolationType.mostSevere(Arrays.asList(violations.get(1), violations.get(0))));
+        assertNull(CodeAnalyzer.ViolationType.mostSevere(new ArrayList<>()));
+        assertNull(CodeAnalyzer.ViolationType.mostSevere(null));
+    }
+
     @Test
     void testConstantNameSuggestion() {
         String input = "Hello World";
@@ -80,6 +162,32 @@ public class CodeAnalyzerTest {
         assertEquals(expected, ruleChecker.suggestConstantName(input));
     }
     
+    @Test
+    void testCancelledFileIsNotAnalyzed() throws IOException {
+        Path tempFile = Files.createTempFile("cancelled", ".java");
+        try {
+            Files.write(tempFile, new CorpusGenerator(4).linesPerFile(20000).generateFile(0));
+            List<Integer> linesDone = new java.util.ArrayList<>();
+            int[] polls = new int[1];
+            // Cancelled while the file is read and scanned, before any line is checked
+            assertThrows(java.util.concurrent.CancellationException.class,
+                () -> codeAnalyzer.analyzeFile(tempFile, new CodeAnalyzer.ProgressListener() {
+                    @Override
+                    public void progress(int done, int total, java.util.Map<CodeAnalyzer.ViolationType, Integer> counts) {
+                        linesDone.add(done);
+                    }
+
+                    @Override
+                    public boolean isCancelled() {
+                        return ++polls[0] > 1;
+                    }
+                }));
+            assertTrue(linesDone.isEmpty());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
     @Test
     void testAnalyzerWithSampleFile() throws IOException {
         // Create a temporary test file
@@ -0,0 +1,194 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeded generator of synthetic Java sources for stress and timing tests. Files are classes of
+ * methods with clean two-space indentation; each body line plants a violation of a given type with
+ * that type's density. Trees spread the files over nested package directories. The same seed and
+ * settings always produce the same bytes.
+ */
+public class CorpusGenerator {
+
+    // One body line expands to at most 10 lines, plus the method's return and closing brace
+    private static final int MAX_METHOD_TAIL = 13;
+    private static final String[] SHARED_LITERALS = {"shared-one", "shared-two", "shared-three"};
+
+    private final long seed;
+    private int linesPerFile = 200;
+    private int fileCount = 10;
+    private int nestingDepth = 2;
+    private final Map<CodeAnalyzer.ViolationType, Double> densities = new EnumMap<>(CodeAnalyzer.ViolationType.class);
+
+    public CorpusGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public CorpusGenerator linesPerFile(int lines) {
+        this.linesPerFile = lines;
+        return this;
+    }
+
+    public CorpusGenerator fileCount(int files) {
+        this.fileCount = files;
+        return this;
+    }
+
+    public CorpusGenerator nestingDepth(int depth) {
+        this.nestingDepth = depth;
+        return this;
+    }
+
+    /**
+     * Probability that a body line plants a violation of the type
+     */
+    public CorpusGenerator density(CodeAnalyzer.ViolationType type, double density) {
+        densities.put(type, density);
+        return this;
+    }
+
+    /**
+     * Same density for every type
+     */
+    public CorpusGenerator densityForAll(double density) {
+        for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+            densities.put(type, density);
+        }
+        return this;
+    }
+
+    /**
+     * Lines of the class with the given index; exactly {@code linesPerFile} of them when that
+     * leaves room for the class header
+     */
+    public List<String> generateFile(int index) {
+        Random random = new Random(seed * 31 + index);
+        String className = "Generated" + index;
+        List<String> lines = new ArrayList<>();
+        lines.add("package " + packageName(index) + ";");
+        lines.add("");
+        lines.add("public class " + className + " {");
+        List<String> emitted = new ArrayList<>();
+        int method = 0;
+        // Stop methods early enough that the largest planted expansion still fits, then pad with fields
+        while (lines.size() < linesPerFile - MAX_METHOD_TAIL) {
+            lines.add("  public int method" + method + "(int input) {");
+            int bodyLines = 5 + random.nextInt(20);
+            for (int k = 0; k < bodyLines && lines.size() < linesPerFile - MAX_METHOD_TAIL; k++) {
+                addBodyLine(lines, emitted, random, method, k);
+            }
+            lines.add("    return input;");
+            lines.add("  }");
+            method++;
+        }
+        while (lines.size() < linesPerFile - 1) {
+            lines.add("  int field" + lines.size() + " = " + lines.size() + ";");
+        }
+        lines.add("}");
+        return lines;
+    }
+
+    private void addBodyLine(List<String> lines, List<String> emitted, Random random, int method, int k) {
+        String name = "value" + method + "x" + k;
+        if (planted(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK, random) && emitted.size() >= 8) {
+            int from = random.nextInt(emitted.size() - 7);
+            lines.addAll(emitted.subList(from, from + 8));
+            return;
+        }
+        String line;
+        if (planted(CodeAnalyzer.ViolationType.NAMING_CONVENTION, random)) {
+            line = "int bad_" + name + " = input + " + k + ";";
+        } else if (planted(CodeAnalyzer.ViolationType.REPEATED_STRING, random)) {
+            line = "String " + name + " = \"" + SHARED_LITERALS[random.nextInt(SHARED_LITERALS.length)] + "\";";
+        } else if (planted(CodeAnalyzer.ViolationType.LINE_ENDS_WITH_EQUALS, random)) {
+            lines.add("    int " + name + " =");
+            line = "  input * " + k + ";";
+        } else {
+            line = "int " + name + " = input * " + (method * 1000 + k) + "; // step " + (method * 1000 + k);
+        }
+        if (planted(CodeAnalyzer.ViolationType.LINE_TOO_LONG, random)) {
+            line += " // " + repeat('-', 120);
+        }
+        String indent = planted(CodeAnalyzer.ViolationType.IMPROPER_INDENTATION, random) ? "        " : "    ";
+        lines.add(indent + line);
+        emitted.add(indent + line);
+        if (planted(CodeAnalyzer.ViolationType.EMPTY_LINE, random)) {
+            lines.add("");
+            lines.add("");
+        }
+    }
+
+    private boolean planted(CodeAnalyzer.ViolationType type, Random random) {
+        Double density = densities.get(type);
+        return density != null && random.nextDouble() < density;
+    }
+
+    private String packageName(int index) {
+        StringBuilder name = new StringBuilder("corpus");
+        for (int level = 0; level < nestingDepth; level++) {
+            name.append(".p").append(level).append('_').append((index >> level) % 3);
+        }
+        return name.toString();
+    }
+
+    /**
+     * Writes {@code fileCount} classes under the root, one directory level per package segment,
+     * and returns their paths
+     */
+    public List<Path> writeTree(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int index = 0; index < fileCount; index++) {
+            Path directory = root.resolve(packageName(index).replace('.', '/'));
+            Files.createDirectories(directory);
+            Path file = directory.resolve("Generated" + index + ".java");
+            write(file, generateFile(index));
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * A class holding one line of the given length
+     */
+    public static List<String> longLineFile(int length) {
+        return Arrays.asList("public class LongLine {", "  String s = \"" + repeat('z', length) + "\";", "}");
+    }
+
+    /**
+     * A class with a table of {@code entries} literals where every {@code repeatEvery}-th entry
+     * reuses the same literal, and all others are distinct
+     */
+    public static List<String> literalTableFile(int entries, int repeatEvery) {
+        List<String> lines = new ArrayList<>();
+        lines.add("public class LiteralTable {");
+        lines.add("  static final String[] TABLE = {");
+        for (int k = 0; k < entries; k++) {
+            String literal = k % repeatEvery == 0 ? "repeated entry" : "entry number " + k;
+            lines.add("    \"" + literal + "\",");
+        }
+        lines.add("  };");
+        lines.add("}");
+        return lines;
+    }
+
+    public static void write(Path file, List<String> lines) throws IOException {
+        Files.write(file, (String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String repeat(char c, int times) {
+        char[] chars = new char[times];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,78 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.ProjectIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Stress test class running generated corpora and pathological inputs through the analyzer
+ */
+public class CorpusStressTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CodeAnalyzer codeAnalyzer = new CodeAnalyzer();
+
+    @Test
+    void testGeneratorIsReproducibleAndCleanWithoutDensity() {
+        CorpusGenerator generator = new CorpusGenerator(7).linesPerFile(400);
+        assertEquals(generator.generateFile(3), new CorpusGenerator(7).linesPerFile(400).generateFile(3));
+        assertNotEquals(generator.generateFile(3), new CorpusGenerator(8).linesPerFile(400).generateFile(3));
+
+        List<String> clean = generator.generateFile(0);
+        assertEquals(400, clean.size());
+        assertTrue(codeAnalyzer.analyzeString(String.join("\n", clean)).getViolations().isEmpty());
+    }
+
+    @Test
+    void testGeneratedTreePlantsEveryTypeAndIndexes() throws IOException {
+        List<Path> files = new CorpusGenerator(42).linesPerFile(1500).fileCount(30).nestingDepth(3)
+            .densityForAll(0.02).writeTree(tempDir);
+        assertEquals(30, files.size());
+
+        int[] totals = new int[CodeAnalyzer.ViolationType.values().length];
+        for (Path file : files) {
+            CodeAnalyzer.AnalysisResult result = codeAnalyzer.analyzeFile(file);
+            for (CodeAnalyzer.Violation violation : result.getViolations()) {
+                totals[violation.getType().ordinal()]++;
+            }
+        }
+        for (CodeAnalyzer.ViolationType type : CodeAnalyzer.ViolationType.values()) {
+            // No pluggable rules are installed in the tests
+            if (type == CodeAnalyzer.ViolationType.CUSTOM) continue;
+            assertTrue(totals[type.ordinal()] > 0, "no " + type + " planted");
+        }
+
+        ProjectIndex index = ProjectIndex.forProject(tempDir);
+        try {
+            assertEquals(30, index.reindex(tempDir, codeAnalyzer));
+            assertEquals(0, index.reindex(tempDir, codeAnalyzer));
+        } finally {
+            index.close();
+        }
+    }
+
+    @Test
+    void testPathologicalInputsFinish() throws IOException {
+        Path longLine = tempDir.resolve("LongLine.java");
+        CorpusGenerator.write(longLine, CorpusGenerator.longLineFile(2_000_000));
+        CodeAnalyzer.AnalysisResult result = assertTimeoutPreemptively(Duration.ofSeconds(30),
+            () -> codeAnalyzer.analyzeFile(longLine));
+        assertEquals(1, result.getViolationsByType(CodeAnalyzer.ViolationType.LINE_TOO_LONG).size());
+
+        Path table = tempDir.resolve("LiteralTable.java");
+        CorpusGenerator.write(table, CorpusGenerator.literalTableFile(100_000, 10));
+        result = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> codeAnalyzer.analyzeFile(table));
+        assertEquals(10_000, result.getViolationsByType(CodeAnalyzer.ViolationType.REPEATED_STRING).size());
+        assertTrue(Files.size(table) > 1_000_000);
+    }
+}
@@ -0,0 +1,60 @@
+package com.javareader;
+
+import com.javareader.logic.DocumentSaver;
+import com.javareader.logic.PieceTable;
+import com.javareader.logic.TextFileFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test class for format detection and the atomic document save
+ */
+public class DocumentSaverTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testRoundTripKeepsCharsetAndLineEndings() throws IOException {
+        Path file = tempDir.resolve("Latin.java");
+        byte[] original = "// café\r\nint a;\r\nint b;".getBytes(StandardCharsets.ISO_8859_1);
+        Files.write(file, original);
+
+        TextFileFormat format = TextFileFormat.detect(file);
+        assertEquals(StandardCharsets.ISO_8859_1, format.getCharset());
+        assertEquals("\r\n", format.getLineSeparator());
+        assertFalse(format.endsWithLineSeparator());
+
+        PieceTable document = PieceTable.fromLines(format.readLines(file));
+        new DocumentSaver().save(document, file, format);
+        assertArrayEquals(original, Files.readAllBytes(file));
+
+        document.insert(document.getLineStart(2), "int c;\n");
+        new DocumentSaver().save(document, file, format);
+        assertArrayEquals("// café\r\nint a;\r\nint c;\r\nint b;".getBytes(StandardCharsets.ISO_8859_1),
+                Files.readAllBytes(file));
+        try (java.util.stream.Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void testByteOrderMarkIsPreserved() throws IOException {
+        Path file = tempDir.resolve("Bom.java");
+        byte[] original = "\uFEFFclass A {}\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, original);
+
+        TextFileFormat format = TextFileFormat.detect(file);
+        assertTrue(format.hasBom());
+        assertEquals("class A {}", format.readLines(file).get(0));
+
+        new DocumentSaver().save(PieceTable.fromLines(format.readLines(file)), file, format);
+        assertArrayEquals(original, Files.readAllBytes(file));
+    }
+}
@@ -0,0 +1,116 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.DuplicateBlockDetector;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for the rolling-hash duplicate block detector
+ */
+public class DuplicateBlockDetectorTest {
+
+    private static final List<String> BLOCK = Arrays.asList(
+        "int total = 0;",
+        "for (int i = 0; i < items.size(); i++) {",
+        "    Item item = items.get(i);",
+        "    if (item.isActive()) {",
+        "        total += item.getPrice() * 2;",
+        "        log(\"active item\");",
+        "    }",
+        "}",
+        "return total;"
+    );
+
+    @Test
+    void testBlockFoundAcrossFilesDespiteLayoutAndLiterals() {
+        List<String> first = new ArrayList<>(Arrays.asList("class A {", "int sum(List<Item> items) {"));
+        first.addAll(BLOCK);
+        first.add("}");
+
+        List<String> second = new ArrayList<>(Arrays.asList("class B {", "", "// copied", "int sum2(List<Item> items) {"));
+        for (String line : BLOCK) {
+            // Different indentation, literal values and trailing comments still match
+            second.add("  " + line.replace("2;", "3; // tweak").replace("active item", "other"));
+        }
+
+        DuplicateBlockDetector detector = new DuplicateBlockDetector();
+        detector.addFile("A.java", first);
+        detector.addFile("B.java", second);
+        List<DuplicateBlockDetector.DuplicateBlock> blocks = detector.findDuplicates();
+
+        assertEquals(1, blocks.size());
+        DuplicateBlockDetector.DuplicateBlock block = blocks.get(0);
+        assertEquals("A.java", block.getFileA());
+        assertEquals(3, block.getStartLineA());
+        assertEquals(11, block.getEndLineA());
+        assertEquals(5, block.getStartLineB());
+        assertEquals(13, block.getEndLineB());
+
+        List<CodeAnalyzer.Violation> violations = DuplicateBlockDetector.violationsFor("B.java", second, blocks);
+        assertEquals(9, violations.size());
+        assertEquals("Duplicate of A.java:3-11", violations.get(0).getDetail());
+    }
+
+    @Test
+    void testShortOrDifferentBlocksAreIgnored() {
+        DuplicateBlockDetector detector = new DuplicateBlockDetector();
+        detector.addFile("A.java", BLOCK.subList(0, 5));
+        detector.addFile("B.java", BLOCK.subList(0, 5));
+        assertTrue(detector.findDuplicates().isEmpty());
+
+        List<String> renamed = new ArrayList<>(BLOCK);
+        renamed.set(4, "        total -= item.getPrice();");
+        detector = new DuplicateBlockDetector(6);
+        detector.addFile("A.java", BLOCK);
+        detector.addFile("B.java", renamed);
+        assertTrue(detector.findDuplicates().isEmpty());
+    }
+
+    @Test
+    void testTablesOfSameShapedLinesAreNotDuplicates() {
+        StringBuilder code = new StringBuilder("void fill(Map<String, Integer> map) {\n");
+        for (int row = 0; row < 40; row++) {
+            code.append("    map.put(\"key").append(row).append("\", ").append(row).append(");\n");
+        }
+        for (int row = 0; row < 20; row++) {
+            // A two-line unit repeats just the same
+            code.append("    builder.add(\"item").append(row).append("\");\n");
+            code.append("    builder.setWeight(").append(row).append(");\n");
+        }
+        code.append("}\n");
+        CodeAnalyzer.AnalysisResult result = new CodeAnalyzer().analyzeString(code.toString());
+        assertTrue(result.getViolationsByType(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK).isEmpty());
+
+        // A real block copied below a table is still found
+        for (int copy = 0; copy < 2; copy++) {
+            code.append("void method").append(copy).append("() {\n");
+            for (String line : BLOCK) {
+                code.append("    ").append(line).append('\n');
+            }
+            code.append("}\n");
+        }
+        result = new CodeAnalyzer().analyzeString(code.toString());
+        assertEquals(2 * BLOCK.size(), result.getViolationsByType(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK).size());
+    }
+
+    @Test
+    void testAnalyzerReportsDuplicatesWithinFile() {
+        StringBuilder code = new StringBuilder();
+        for (int copy = 0; copy < 2; copy++) {
+            code.append("void method").append(copy).append("() {\n");
+            for (String line : BLOCK) {
+                code.append("    ").append(line).append('\n');
+            }
+            code.append("}\n");
+        }
+        CodeAnalyzer.AnalysisResult result = new CodeAnalyzer().analyzeString(code.toString());
+        List<CodeAnalyzer.Violation> duplicates = result.getViolationsByType(CodeAnalyzer.ViolationType.DUPLICATE_BLOCK);
+        assertEquals(2 * BLOCK.size(), duplicates.size());
+        assertEquals("Duplicate of lines 13-21", duplicates.get(0).getDetail());
+    }
+}
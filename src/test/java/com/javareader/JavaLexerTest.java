@@ -0,0 +1,98 @@
+package com.javareader;
+
+import com.javareader.logic.JavaLexer;
+import com.javareader.logic.LineTokenCache;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for the line-oriented lexer and its per-line token cache
+ */
+public class JavaLexerTest {
+
+    private final JavaLexer lexer = new JavaLexer();
+
+    @Test
+    void testTokenTypes() {
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        String line = "String s = \"a \\\"quoted\\\" word\"; // format(x)";
+        int state = lexer.lexLine(line, JavaLexer.STATE_CODE, tokens);
+
+        assertEquals(JavaLexer.STATE_CODE, state);
+        assertEquals(JavaLexer.TokenType.IDENTIFIER, tokens.type(0));
+        assertEquals(JavaLexer.TokenType.OPERATOR, tokens.type(4));
+        assertEquals(JavaLexer.TokenType.STRING, tokens.type(6));
+        assertEquals("\"a \\\"quoted\\\" word\"", line.substring(tokens.start(6), tokens.end(6)));
+        assertEquals(JavaLexer.TokenType.COMMENT, tokens.type(tokens.size() - 1));
+    }
+
+    @Test
+    void testMultiLineStates() {
+        JavaLexer.Tokens tokens = new JavaLexer.Tokens();
+        assertEquals(JavaLexer.STATE_BLOCK_COMMENT, lexer.lexLine("int x; /* start", JavaLexer.STATE_CODE, tokens));
+        assertEquals(JavaLexer.STATE_CODE, lexer.lexLine("end */ int y;", JavaLexer.STATE_BLOCK_COMMENT, tokens));
+        assertEquals(JavaLexer.TokenType.COMMENT, tokens.type(0));
+        assertEquals(JavaLexer.STATE_TEXT_BLOCK, lexer.lexLine("String t = \"\"\"", JavaLexer.STATE_CODE, tokens));
+        assertEquals(JavaLexer.STATE_TEXT_BLOCK, lexer.lexLine("  still \" text", JavaLexer.STATE_TEXT_BLOCK, tokens));
+        assertEquals(JavaLexer.STATE_CODE, lexer.lexLine("  \"\"\";", JavaLexer.STATE_TEXT_BLOCK, tokens));
+    }
+
+    @Test
+    void testEditRelexesOnlyUntilStatesConverge() {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            lines.add("int value" + i + " = " + i + ";");
+        }
+        LineTokenCache cache = new LineTokenCache();
+        cache.reset(lines);
+        cache.getRuns(lines.size() - 1);
+
+        // Changing one line without touching comment state re-lexes just that line
+        List<String> edited = new ArrayList<>(lines);
+        edited.set(500, "int changed = 1;");
+        assertEquals(1, cache.linesReplaced(edited, 500, 1, 1));
+
+        // Opening a block comment invalidates lines until it is closed again
+        List<String> commented = new ArrayList<>(edited);
+        commented.set(10, "/* open");
+        commented.set(20, "close */");
+        cache.update(commented);
+        assertEquals(JavaLexer.STATE_BLOCK_COMMENT, cache.getStartState(15));
+        assertEquals(JavaLexer.STATE_CODE, cache.getStartState(21));
+
+        // Inserting lines shifts the cached tail instead of re-lexing it
+        List<String> inserted = new ArrayList<>(commented);
+        inserted.addAll(30, Arrays.asList("int a;", "int b;"));
+        assertEquals(2, cache.linesReplaced(inserted, 30, 0, 2));
+        assertEquals(inserted.size(), cache.getLineCount());
+        assertArrayEquals(freshRuns(inserted, 900), cache.getRuns(900));
+    }
+
+    @Test
+    void testStartStateOutsideTheDocumentIsClamped() {
+        LineTokenCache cache = new LineTokenCache();
+        assertEquals(JavaLexer.STATE_CODE, cache.getStartState(5));
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lines.add("int value" + i + ";");
+        }
+        lines.add("/* left open");
+        cache.reset(lines);
+        // Far past the end, and past the capacity of the state array
+        assertEquals(JavaLexer.STATE_BLOCK_COMMENT, cache.getStartState(lines.size()));
+        assertEquals(JavaLexer.STATE_BLOCK_COMMENT, cache.getStartState(10_000));
+        assertEquals(JavaLexer.STATE_CODE, cache.getStartState(-1));
+        assertArrayEquals(new int[0], cache.getRuns(lines.size()));
+    }
+
+    private int[] freshRuns(List<String> lines, int line) {
+        LineTokenCache fresh = new LineTokenCache();
+        fresh.reset(lines);
+        return fresh.getRuns(line);
+    }
+}
@@ -0,0 +1,75 @@
+package com.javareader;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the jar entry point's headless --stdin mode
+ */
+public class LauncherTest {
+
+    private static final String CODE = "class A {\n  int bad_name = 1;\n}\n";
+
+    @Test
+    void testStdinModeReportsViolations() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int status = Launcher.runStdin(new ByteArrayInputStream(CODE.getBytes(StandardCharsets.UTF_8)), out,
+            new PrintStream(err));
+        assertEquals(1, status);
+        String output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(output.contains("\"type\":\"NAMING_CONVENTION\""), output);
+        assertTrue(output.endsWith("{\"done\":true,\"violations\":1}\n"), output);
+        assertEquals(0, err.size());
+    }
+
+    @Test
+    void testUnreadableInputExitsWithTwo() {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("broken pipe");
+            }
+        };
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        assertEquals(2, Launcher.runStdin(broken, new ByteArrayOutputStream(), new PrintStream(err)));
+        assertTrue(new String(err.toByteArray(), StandardCharsets.UTF_8).contains("broken pipe"));
+    }
+
+    @Test
+    void testCommandLineRunsWithoutDisplay() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        ProcessBuilder builder = new ProcessBuilder(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+            Launcher.class.getName(), "--stdin"));
+        builder.environment().remove("DISPLAY");
+        builder.environment().remove("WAYLAND_DISPLAY");
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(CODE.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream stdout = process.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            for (int read; (read = stdout.read(buffer)) > 0; ) {
+                output.write(buffer, 0, read);
+            }
+        }
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        String text = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(1, process.exitValue(), text);
+        assertTrue(text.startsWith("{\"line\":2,\"type\":\"NAMING_CONVENTION\""), text);
+        assertTrue(text.endsWith("{\"done\":true,\"violations\":1}\n"), text);
+    }
+}
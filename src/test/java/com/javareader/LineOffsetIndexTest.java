@@ -0,0 +1,92 @@
+package com.javareader;
+
+import com.javareader.logic.LineOffsetIndex;
+import com.javareader.logic.PieceTable;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for the line-offset index kept under edits
+ */
+public class LineOffsetIndexTest {
+
+    @Test
+    void testLineStartsAndLineOfOffset() {
+        LineOffsetIndex index = new LineOffsetIndex("ab\n\ncde\n");
+        assertEquals(4, index.getLineCount());
+        assertEquals(0, index.getLineStart(0));
+        assertEquals(3, index.getLineStart(1));
+        assertEquals(4, index.getLineStart(2));
+        assertEquals(8, index.getLineStart(3));
+        assertEquals(0, index.getLineOfOffset(2));
+        assertEquals(1, index.getLineOfOffset(3));
+        assertEquals(2, index.getLineOfOffset(7));
+        assertEquals(3, index.getLineOfOffset(8));
+        assertThrows(IndexOutOfBoundsException.class, () -> index.getLineStart(4));
+    }
+
+    @Test
+    void testRandomEditsMatchRescannedText() {
+        Random random = new Random(45);
+        StringBuilder text = new StringBuilder("class A {\n  int x;\n}\n");
+        LineOffsetIndex index = new LineOffsetIndex(text);
+        String[] fragments = {"a", "\n", "xy\nz", "\n\n", "  int y;\n", "q"};
+        for (int step = 0; step < 3000; step++) {
+            if (text.length() > 0 && random.nextInt(3) == 0) {
+                int offset = random.nextInt(text.length());
+                int count = random.nextInt(Math.min(12, text.length() - offset) + 1);
+                text.delete(offset, offset + count);
+                index.delete(offset, count);
+            } else {
+                int offset = random.nextInt(text.length() + 1);
+                String fragment = fragments[random.nextInt(fragments.length)];
+                text.insert(offset, fragment);
+                index.insert(offset, fragment);
+            }
+            // Every step, as the partial tree rebuild after a line-break edit must leave no stale node
+            assertMatches(text, index);
+        }
+    }
+
+    @Test
+    void testPieceTableFindsMatchesAndTheirLines() {
+        List<String> lines = new ArrayList<>();
+        for (int k = 0; k < 100_000; k++) {
+            lines.add(k % 1000 == 0 ? "int marker" + k + " = 0;" : "int value" + k + " = " + k + ";");
+        }
+        PieceTable document = PieceTable.fromLines(lines);
+        document.insert(document.getLineStart(5), "// marker here\n");
+
+        int[] matches = document.findAll("marker");
+        assertEquals(101, matches.length);
+        assertEquals(0, document.getLineOfOffset(matches[0]));
+        assertEquals(5, document.getLineOfOffset(matches[1]));
+        assertEquals(90_001, document.getLineOfOffset(matches[91]));
+        assertEquals("int marker90000 = 0;", document.toLines().get(90_001));
+        assertEquals(0, document.findAll("").length);
+        // Matches do not overlap
+        assertEquals(2, new PieceTable("aaaaa").findAll("aa").length);
+    }
+
+    private static void assertMatches(CharSequence text, LineOffsetIndex index) {
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int k = 0; k < text.length(); k++) {
+            if (text.charAt(k) == '\n') starts.add(k + 1);
+        }
+        assertEquals(starts.size(), index.getLineCount());
+        assertEquals(text.length(), index.length());
+        for (int line = 0; line < starts.size(); line++) {
+            assertEquals((int) starts.get(line), index.getLineStart(line));
+        }
+        for (int offset = 0; offset <= text.length(); offset++) {
+            int expected = 0;
+            while (expected + 1 < starts.size() && starts.get(expected + 1) <= offset) expected++;
+            assertEquals(expected, index.getLineOfOffset(offset), "offset " + offset);
+        }
+    }
+}
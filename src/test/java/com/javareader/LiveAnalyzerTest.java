@@ -0,0 +1,158 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.LiveAnalyzer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the live analysis worker that drops superseded snapshots
+ */
+public class LiveAnalyzerTest {
+
+    private final CodeAnalyzer analyzer = new CodeAnalyzer();
+
+    @Test
+    void testNewestSnapshotIsReported() throws InterruptedException {
+        BlockingQueue<CodeAnalyzer.AnalysisResult> results = new LinkedBlockingQueue<>();
+        LiveAnalyzer live = new LiveAnalyzer(analyzer::analyzeString, (generation, result) -> results.add(result));
+        try {
+            String code = "class A {\n  int bad_name;\n}";
+            long generation = live.submit(code);
+            CodeAnalyzer.AnalysisResult result = results.poll(5, TimeUnit.SECONDS);
+            assertNotNull(result);
+            assertTrue(live.isCurrent(generation));
+            assertEquals(new CodeAnalyzer().analyzeString(code).getViolations().size(), result.getViolations().size());
+        } finally {
+            live.shutdown();
+        }
+    }
+
+    @Test
+    void testSnapshotsReplacedWhileWaitingAreNeverAnalyzed() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> analyzed = Collections.synchronizedList(new ArrayList<>());
+        BlockingQueue<Long> reported = new LinkedBlockingQueue<>();
+        LiveAnalyzer live = new LiveAnalyzer((text, cancelCheck) -> {
+            analyzed.add(text);
+            if (text.equals("first")) {
+                started.countDown();
+                awaitQuietly(release);
+            }
+            return analyzer.analyzeString(text);
+        }, (generation, result) -> reported.add(generation));
+        try {
+            live.submit("first");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            live.submit("second");
+            live.submit("third");
+            long last = live.submit("fourth");
+            release.countDown();
+            assertEquals(Long.valueOf(last), reported.poll(5, TimeUnit.SECONDS));
+            assertNull(reported.poll(200, TimeUnit.MILLISECONDS));
+            assertEquals(Arrays.asList("first", "fourth"), analyzed);
+        } finally {
+            live.shutdown();
+        }
+    }
+
+    @Test
+    void testReplacedSnapshotTextIsNeverBuilt() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> built = Collections.synchronizedList(new ArrayList<>());
+        BlockingQueue<Long> reported = new LinkedBlockingQueue<>();
+        LiveAnalyzer live = new LiveAnalyzer((text, cancelCheck) -> {
+            if (text.equals("first")) {
+                started.countDown();
+                awaitQuietly(release);
+            }
+            return analyzer.analyzeString(text);
+        }, (generation, result) -> reported.add(generation));
+        try {
+            live.submit("first");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            live.submit(() -> {
+                built.add("second");
+                return "second";
+            });
+            long last = live.submit(() -> {
+                built.add("third");
+                return "third";
+            });
+            release.countDown();
+            assertEquals(Long.valueOf(last), reported.poll(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList("third"), built);
+        } finally {
+            live.shutdown();
+        }
+    }
+
+    @Test
+    void testRunningAnalysisIsCancelledByNewerSnapshot() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        BlockingQueue<Long> reported = new LinkedBlockingQueue<>();
+        LiveAnalyzer live = new LiveAnalyzer((text, cancelCheck) -> {
+            if (text.equals("slow")) {
+                started.countDown();
+                while (!cancelCheck.isCancelled()) {
+                    Thread.yield();
+                }
+                cancelled.countDown();
+                throw new CancellationException();
+            }
+            return analyzer.analyzeString(text, cancelCheck);
+        }, (generation, result) -> reported.add(generation));
+        try {
+            live.submit("slow");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            long next = live.submit("class B {}");
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+            assertEquals(Long.valueOf(next), reported.poll(5, TimeUnit.SECONDS));
+        } finally {
+            live.shutdown();
+        }
+    }
+
+    @Test
+    void testCancelDropsEverythingSubmitted() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<Long> reported = new LinkedBlockingQueue<>();
+        LiveAnalyzer live = new LiveAnalyzer((text, cancelCheck) -> {
+            started.countDown();
+            awaitQuietly(release);
+            return analyzer.analyzeString(text);
+        }, (generation, result) -> reported.add(generation));
+        try {
+            long generation = live.submit("class C {}");
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            live.cancel();
+            assertFalse(live.isCurrent(generation));
+            release.countDown();
+            assertNull(reported.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            live.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.javareader;
+
+import com.javareader.logic.Hashing;
+import com.javareader.logic.LongCountTable;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the primitive hash count table
+ */
+public class LongCountTableTest {
+
+    @Test
+    void testCountsSurviveGrowth() {
+        LongCountTable table = new LongCountTable();
+        for (int i = 0; i < 10000; i++) {
+            table.increment(Hashing.mix(i));
+            if (i % 3 == 0) table.increment(Hashing.mix(i));
+        }
+        assertEquals(10000, table.size());
+        assertEquals(2, table.count(Hashing.mix(9999)));
+        assertEquals(1, table.count(Hashing.mix(9998)));
+        assertEquals(0, table.count(Hashing.mix(10000)));
+    }
+
+    @Test
+    void testZeroKeyAndSaturation() {
+        LongCountTable table = new LongCountTable();
+        assertEquals(1, table.increment(0L));
+        for (int i = 0; i < 500; i++) {
+            table.increment(42L);
+        }
+        assertEquals(1, table.count(0L));
+        assertEquals(LongCountTable.MAX_COUNT, table.count(42L));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void testHashIgnoresSurroundingText() {
+        assertEquals(Hashing.hash64("\"abc\"", 1, 4), Hashing.hash64("x = abc;", 4, 7));
+        assertNotEquals(Hashing.hash64("abc", 0, 3), Hashing.hash64("abd", 0, 3));
+    }
+}
@@ -0,0 +1,83 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.NdjsonReport;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for the streaming analysis and its NDJSON output
+ */
+public class NdjsonReportTest {
+
+    private final CodeAnalyzer codeAnalyzer = new CodeAnalyzer();
+
+    @Test
+    void testLineViolationsArriveBeforeEndOfInput() throws IOException {
+        StringBuilder code = new StringBuilder("class A {\n  int bad_name = 1;\n");
+        for (int k = 0; k < 5000; k++) {
+            code.append("  int value").append(k).append(" = ").append(k).append(";\n");
+        }
+        code.append("  String a = \"repeated\";\n  String b = \"repeated\";\n}\n");
+
+        // Record how many characters had been read when each violation came out
+        StringReader source = new StringReader(code.toString());
+        int[] consumed = new int[1];
+        Reader counting = new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                int read = source.read(buffer, offset, Math.min(length, 64));
+                if (read > 0) consumed[0] += read;
+                return read;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<Integer> consumedAt = new ArrayList<>();
+        List<CodeAnalyzer.Violation> violations = new ArrayList<>();
+        codeAnalyzer.analyzeStream(new BufferedReader(counting, 64), violation -> {
+            violations.add(violation);
+            consumedAt.add(consumed[0]);
+        });
+
+        assertEquals(CodeAnalyzer.ViolationType.NAMING_CONVENTION, violations.get(0).getType());
+        assertTrue(consumedAt.get(0) < 200, "first violation after " + consumedAt.get(0) + " chars");
+        // The whole-file rule only fires at the end
+        CodeAnalyzer.Violation last = violations.get(violations.size() - 1);
+        assertEquals(CodeAnalyzer.ViolationType.REPEATED_STRING, last.getType());
+        assertEquals(code.length(), (int) consumedAt.get(consumedAt.size() - 1));
+    }
+
+    @Test
+    void testRecordsAreEscapedJsonLines() throws IOException {
+        String code = "class A {\n  String bad_name = \"tab\\there\";\n}\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int status = NdjsonReport.analyze(codeAnalyzer,
+            new ByteArrayInputStream(code.getBytes(StandardCharsets.UTF_8)), out);
+        String[] records = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(1, status);
+        assertEquals("{\"line\":2,\"type\":\"NAMING_CONVENTION\",\"text\":\"  String bad_name = \\\"tab\\\\there\\\";\"}", records[0]);
+        assertEquals("{\"done\":true,\"violations\":1}", records[records.length - 1]);
+
+        StringWriter writer = new StringWriter();
+        new NdjsonReport(writer).write(new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.LINE_TOO_LONG, 3, "a\tb\u0001", "why"));
+        assertEquals("{\"line\":3,\"type\":\"LINE_TOO_LONG\",\"text\":\"a\\tb\\u0001\",\"detail\":\"why\"}\n", writer.toString());
+
+        out.reset();
+        assertEquals(0, NdjsonReport.analyze(codeAnalyzer, new ByteArrayInputStream("class A {\n}\n".getBytes(StandardCharsets.UTF_8)), out));
+    }
+}
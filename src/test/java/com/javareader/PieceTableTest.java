@@ -0,0 +1,81 @@
+package com.javareader;
+
+import com.javareader.logic.PieceTable;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+/**
+ * Test class for the piece-table document model
+ */
+public class PieceTableTest {
+
+    @Test
+    void testEditsMatchStringEdits() {
+        PieceTable document = PieceTable.fromLines(Arrays.asList("int a = 1;", "int b = 2;"));
+        StringBuilder expected = new StringBuilder("int a = 1;\nint b = 2;\n");
+
+        document.insert(11, "// c\n");
+        expected.insert(11, "// c\n");
+        document.delete(4, 1);
+        expected.delete(4, 5);
+        document.replace(0, 3, "long");
+        expected.replace(0, 3, "long");
+        // Consecutive typing at the end extends a single piece
+        document.insert(document.length(), "x");
+        document.insert(document.length(), "y");
+        expected.append("xy");
+
+        assertEquals(expected.toString(), document.getText());
+        assertEquals(expected.length(), document.length());
+        assertEquals(4, document.getLineCount());
+        assertTrue(document.isModified());
+        document.markSaved();
+        assertFalse(document.isModified());
+    }
+
+    @Test
+    void testLinesAndLineStarts() {
+        PieceTable document = PieceTable.fromLines(Arrays.asList("first", "", "third"));
+        document.insert(6, "second");
+
+        assertEquals(Arrays.asList("first", "second", "third"), document.toLines());
+        assertEquals(0, document.getLineStart(0));
+        assertEquals(6, document.getLineStart(1));
+        assertEquals(13, document.getLineStart(2));
+        assertEquals(document.length(), document.getLineStart(3));
+    }
+
+    @Test
+    void testSnapshotKeepsItsContentWhileEditing() {
+        PieceTable document = PieceTable.fromLines(Arrays.asList("int a = 1;"));
+        document.insert(0, "// x\n");
+        PieceTable.Snapshot snapshot = document.snapshot();
+        String expected = document.getText();
+
+        // Enough typing to move the add buffer, plus edits inside the pieces the snapshot points to
+        for (int k = 0; k < 200; k++) {
+            document.insert(document.length(), "y");
+        }
+        document.delete(0, 3);
+        document.insert(2, "z");
+
+        assertEquals(expected, snapshot.getText());
+        assertEquals(expected.length(), snapshot.length());
+        assertNotEquals(expected, document.getText());
+    }
+
+    @Test
+    void testSearchesFollowEdits() {
+        PieceTable document = PieceTable.fromLines(Arrays.asList("int a = 1;", "int b = 2;"));
+        assertArrayEquals(new int[] {0, 11}, document.findAll("int"));
+        assertSame(document.getText(), document.getText());
+
+        document.insert(0, "int ");
+        assertArrayEquals(new int[] {0, 4, 15}, document.findAll("int"));
+        document.delete(0, 8);
+        assertArrayEquals(new int[] {7}, document.findAll("int"));
+        assertEquals("a = 1;\nint b = 2;\n", document.getText());
+    }
+}
@@ -0,0 +1,58 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.ProjectAggregates;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Test class for the incrementally maintained project totals
+ */
+public class ProjectAggregatesTest {
+
+    @Test
+    void testPackageTotalsFollowFileUpdates() {
+        ProjectAggregates aggregates = new ProjectAggregates();
+        assertTrue(aggregates.update("src/main/java/a/b/One.java", 10, counts(2, 1)));
+        assertTrue(aggregates.update("src/main/java/a/b/Two.java", 20, counts(3, 0)));
+        assertTrue(aggregates.update("Top.java", 5, counts(0, 4)));
+
+        ProjectAggregates.Totals pkg = aggregates.getPackage("a.b");
+        assertEquals(2, pkg.getFileCount());
+        assertEquals(30, pkg.getLineCount());
+        assertEquals(5, pkg.getCount(CodeAnalyzer.ViolationType.LINE_TOO_LONG));
+        assertEquals(6, pkg.getTotal());
+        assertEquals(4, aggregates.getPackage("(default)").getTotal());
+
+        // Unchanged counts are reported as no change; a new count replaces the old one in its package
+        assertFalse(aggregates.update("src/main/java/a/b/One.java", 10, counts(2, 1)));
+        assertTrue(aggregates.update("src/main/java/a/b/One.java", 12, counts(0, 1)));
+        pkg = aggregates.getPackage("a.b");
+        assertEquals(32, pkg.getLineCount());
+        assertEquals(3, pkg.getCount(CodeAnalyzer.ViolationType.LINE_TOO_LONG));
+
+        assertTrue(aggregates.remove("src/main/java/a/b/One.java"));
+        assertTrue(aggregates.remove("src/main/java/a/b/Two.java"));
+        assertFalse(aggregates.remove("src/main/java/a/b/Two.java"));
+        assertNull(aggregates.getPackage("a.b"));
+        assertEquals(1, aggregates.getFileCount());
+    }
+
+    @Test
+    void testPackageOf() {
+        assertEquals("com.example", ProjectAggregates.packageOf("module/src/main/java/com/example/A.java"));
+        assertEquals("com.example", ProjectAggregates.packageOf("src/test/java/com/example/ATest.java"));
+        assertEquals("tools", ProjectAggregates.packageOf("tools/Script.java"));
+        assertEquals("(default)", ProjectAggregates.packageOf("A.java"));
+    }
+
+    private static Map<CodeAnalyzer.ViolationType, Integer> counts(int tooLong, int naming) {
+        Map<CodeAnalyzer.ViolationType, Integer> counts = new EnumMap<>(CodeAnalyzer.ViolationType.class);
+        counts.put(CodeAnalyzer.ViolationType.LINE_TOO_LONG, tooLong);
+        counts.put(CodeAnalyzer.ViolationType.NAMING_CONVENTION, naming);
+        return counts;
+    }
+}
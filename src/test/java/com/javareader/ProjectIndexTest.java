@@ -0,0 +1,187 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.Hashing;
+import com.javareader.logic.ProjectIndex;
+import com.javareader.logic.rules.Cost;
+import com.javareader.logic.rules.LineContext;
+import com.javareader.logic.rules.Locality;
+import com.javareader.logic.rules.Reporter;
+import com.javareader.logic.rules.Rule;
+import com.javareader.logic.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Test class for the persistent project index
+ */
+public class ProjectIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReindexOnlyRewritesChangedFiles() throws IOException {
+        Path source = Files.createDirectories(tempDir.resolve("src/demo"));
+        Files.write(source.resolve("A.java"), "class A {\n    String s = \"xyz\";\n    String t = \"xyz\";\n}\n".getBytes());
+        Files.write(source.resolve("B.java"), "class B {\n    int bad_name = 1;\n}\n".getBytes());
+        CodeAnalyzer analyzer = new CodeAnalyzer();
+
+        ProjectIndex index = ProjectIndex.forProject(tempDir);
+        assertEquals(2, index.reindex(tempDir, analyzer));
+        ProjectIndex.Entry a = index.get("src/demo/A.java");
+        assertEquals(4, a.getLineCount());
+        // The hash covers the same bytes the summary was computed from, as earlier index files stored it
+        byte[] content = Files.readAllBytes(source.resolve("A.java"));
+        assertEquals(Hashing.hash64(content, 0, content.length), a.getContentHash());
+        assertEquals(2, a.getCount(CodeAnalyzer.ViolationType.REPEATED_STRING));
+        assertEquals(1, index.getLiteralHashes(a).length);
+        assertEquals("src/demo/A.java", index.topOffenders(1).get(0).getPath());
+        index.close();
+
+        // Reopening reads the same summaries back; nothing changed so nothing is re-analyzed
+        index = ProjectIndex.forProject(tempDir);
+        assertEquals(2, index.getEntries().size());
+        assertEquals(0, index.reindex(tempDir, analyzer));
+        long sizeBefore = Files.size(tempDir.resolve(ProjectIndex.DEFAULT_FILE_NAME));
+
+        // Touching a file without changing it keeps its summary; editing it re-analyzes only that file
+        Path b = source.resolve("B.java");
+        Files.setLastModifiedTime(b, FileTime.fromMillis(Files.getLastModifiedTime(b).toMillis() + 5000));
+        assertEquals(0, index.reindex(tempDir, analyzer));
+        Files.write(b, "class B {\n    int goodName = 1;\n}\n".getBytes());
+        assertEquals(1, index.reindex(tempDir, analyzer));
+        assertEquals(0, index.get("src/demo/B.java").getCount(CodeAnalyzer.ViolationType.NAMING_CONVENTION));
+        assertTrue(Files.size(tempDir.resolve(ProjectIndex.DEFAULT_FILE_NAME)) > sizeBefore);
+        index.close();
+
+        index = ProjectIndex.forProject(tempDir);
+        assertEquals(0, index.get("src/demo/B.java").getCount(CodeAnalyzer.ViolationType.NAMING_CONVENTION));
+        assertEquals(2, index.get("src/demo/A.java").getCount(CodeAnalyzer.ViolationType.REPEATED_STRING));
+
+        // Deleted files drop out, and compaction keeps the live records
+        Files.delete(source.resolve("A.java"));
+        index.reindex(tempDir, analyzer);
+        index.compact();
+        assertNull(index.get("src/demo/A.java"));
+        assertNotNull(index.get("src/demo/B.java"));
+        index.close();
+        assertEquals(1, ProjectIndex.forProject(tempDir).getEntries().size());
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws IOException {
+        Files.write(tempDir.resolve("C.java"), "class C {}\n".getBytes());
+        ProjectIndex index = ProjectIndex.forProject(tempDir);
+        index.reindex(tempDir, new CodeAnalyzer());
+        index.close();
+
+        Path file = tempDir.resolve(ProjectIndex.DEFAULT_FILE_NAME);
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] torn = java.util.Arrays.copyOf(bytes, bytes.length + 6);
+        torn[bytes.length + 3] = 40; // length of a record that was never finished
+        Files.write(file, torn);
+
+        index = ProjectIndex.forProject(tempDir);
+        assertEquals(1, index.getEntries().size());
+        assertEquals(bytes.length, Files.size(file));
+        index.close();
+    }
+
+    @Test
+    void testIndexOfAnotherAnalyzerIsRebuilt() throws IOException {
+        Files.write(tempDir.resolve("D.java"), "class D {\n    int x = 1; // TODO\n}\n".getBytes());
+        Files.write(tempDir.resolve("E.java"), "class E {}\n".getBytes());
+        ProjectIndex index = ProjectIndex.forProject(tempDir);
+        assertEquals(2, index.reindex(tempDir, new CodeAnalyzer(RuleSet.empty())));
+        assertEquals(0, index.reindex(tempDir, new CodeAnalyzer(RuleSet.empty())));
+        assertEquals(0, index.get("D.java").getCount(CodeAnalyzer.ViolationType.CUSTOM));
+        index.close();
+
+        // Same files, but an added rule changes the results: everything is analyzed again
+        CodeAnalyzer withRule = new CodeAnalyzer(new RuleSet(Collections.singletonList(new TodoRule())));
+        assertNotEquals(new CodeAnalyzer(RuleSet.empty()).getFingerprint(), withRule.getFingerprint());
+        index = ProjectIndex.forProject(tempDir);
+        assertEquals(2, index.reindex(tempDir, withRule));
+        assertEquals(1, index.get("D.java").getCount(CodeAnalyzer.ViolationType.CUSTOM));
+        index.close();
+
+        index = ProjectIndex.forProject(tempDir);
+        assertEquals(withRule.getFingerprint(), index.getFingerprint());
+        assertEquals(0, index.reindex(tempDir, withRule));
+        index.close();
+    }
+
+    @Test
+    void testIndexOfAnotherVersionIsDiscarded() throws IOException {
+        Files.write(tempDir.resolve("F.java"), "class F {}\n".getBytes());
+        ProjectIndex index = ProjectIndex.forProject(tempDir);
+        index.reindex(tempDir, new CodeAnalyzer());
+        index.close();
+
+        Path file = tempDir.resolve(ProjectIndex.DEFAULT_FILE_NAME);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Files.write(file, bytes);
+
+        index = ProjectIndex.forProject(tempDir);
+        assertTrue(index.getEntries().isEmpty());
+        assertEquals(1, index.reindex(tempDir, new CodeAnalyzer()));
+        index.close();
+    }
+
+    @Test
+    void testCountsAreReadBackByTypeName() throws IOException {
+        // An index written when the types were RETIRED_RULE and NAMING_CONVENTION, in that order
+        byte[] path = "G.java".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer file = ByteBuffer.allocate(256);
+        file.putInt(0x4A524958).putInt(2).putLong(7L).putShort((short) 2);
+        for (String name : Arrays.asList("RETIRED_RULE", "NAMING_CONVENTION")) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            file.putShort((short) bytes.length).put(bytes);
+        }
+        int length = 1 + 2 + path.length + 8 * 3 + 4 + 4 * 2 + 4;
+        file.putInt(length).put((byte) 0).putShort((short) path.length).put(path);
+        file.putLong(1L).putLong(11L).putLong(12L).putInt(3).putInt(5).putInt(4).putInt(0);
+        Path indexFile = tempDir.resolve(ProjectIndex.DEFAULT_FILE_NAME);
+        Files.write(indexFile, Arrays.copyOf(file.array(), file.position()));
+
+        ProjectIndex index = ProjectIndex.forProject(tempDir);
+        ProjectIndex.Entry entry = index.get("G.java");
+        assertEquals(3, entry.getLineCount());
+        assertEquals(4, entry.getCount(CodeAnalyzer.ViolationType.NAMING_CONVENTION));
+        assertEquals(4, entry.getTotalViolations());
+        assertEquals(7L, index.getFingerprint());
+        index.close();
+
+        // The file was rewritten with the current types and still reads the same
+        index = ProjectIndex.forProject(tempDir);
+        assertEquals(4, index.get("G.java").getCount(CodeAnalyzer.ViolationType.NAMING_CONVENTION));
+        assertEquals(7L, index.getFingerprint());
+        index.close();
+    }
+
+    private static class TodoRule implements Rule {
+        @Override public String getName() { return "todo"; }
+        @Override public String getDescription() { return "TODO comment"; }
+        @Override public Locality getLocality() { return Locality.LINE; }
+        @Override public Cost getCost() { return Cost.CHEAP; }
+
+        @Override
+        public void checkLine(LineContext context, Reporter reporter) {
+            if (context.getLine().contains("TODO")) {
+                reporter.report(context.getLineNumber(), null);
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.rules.Cost;
+import com.javareader.logic.rules.LineContext;
+import com.javareader.logic.rules.Locality;
+import com.javareader.logic.rules.Reporter;
+import com.javareader.logic.rules.Rule;
+import com.javareader.logic.rules.RuleFailureException;
+import com.javareader.logic.rules.RuleSet;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test class for pluggable rules and their scheduling
+ */
+public class RuleSetTest {
+
+    private static final String CODE = "class A {\n"
+        + "      int a = 1;\n"
+        + "      int b = 2; // TODO\n"
+        + "      int b2 = 2; // TODO\n"
+        + "}";
+
+    @Test
+    void testRulesAreOrderedByLocalityAndCost() {
+        Rule expensiveLine = new TestRule("expensive-line", Locality.LINE, Cost.EXPENSIVE);
+        Rule window = new TestRule("window", Locality.WINDOW, Cost.MODERATE);
+        Rule cheapLine = new TestRule("cheap-line", Locality.LINE, Cost.CHEAP);
+        Rule cheapFile = new TestRule("cheap-file", Locality.FILE, Cost.CHEAP);
+        Rule expensiveFile = new TestRule("expensive-file", Locality.FILE, Cost.EXPENSIVE);
+        RuleSet rules = new RuleSet(Arrays.asList(expensiveLine, window, cheapFile, cheapLine, expensiveFile));
+
+        assertEquals(Arrays.asList(cheapLine, window, expensiveLine), rules.getLineRules());
+        assertEquals(Arrays.asList(expensiveFile, cheapFile), rules.getFileRules());
+        assertTrue(RuleSet.empty().isEmpty());
+    }
+
+    @Test
+    void testInstalledRulesAreDiscoveredAndRun() {
+        // The test resources list ServiceLoadedRule under META-INF/services
+        List<Rule> installed = RuleSet.installed().getLineRules();
+        assertTrue(installed.stream().anyMatch(rule -> rule instanceof ServiceLoadedRule), installed.toString());
+
+        CodeAnalyzer.AnalysisResult result = new CodeAnalyzer().analyzeString(
+            "class A {\n  // " + ServiceLoadedRule.MARKER + "\n}");
+        List<CodeAnalyzer.Violation> custom = result.getViolationsByType(CodeAnalyzer.ViolationType.CUSTOM);
+        assertEquals(1, custom.size());
+        assertEquals(2, custom.get(0).getLineNumber());
+        assertEquals(ServiceLoadedRule.NAME, custom.get(0).getDetail());
+    }
+
+    @Test
+    void testCustomViolationsAreReportedOnEveryLine() throws IOException {
+        RuleSet rules = new RuleSet(Arrays.asList(new TodoRule(), new RepeatedLineRule(), new LongestLineRule(), new CountRule()));
+        CodeAnalyzer analyzer = new CodeAnalyzer(rules);
+        CodeAnalyzer.AnalysisResult result = analyzer.analyzeString(CODE);
+
+        List<String> custom = result.getViolationsByType(CodeAnalyzer.ViolationType.CUSTOM).stream()
+            .map(v -> v.getLineNumber() + " " + v.getDetail())
+            .collect(Collectors.toList());
+        // Lines 3 and 4 continue an improper-indentation run, which skips the built-in rules only
+        assertEquals(Arrays.asList(
+            "3 todo", "4 todo", "4 same-as-previous: differs only in names",
+            "5 line-count: 5 lines", "4 longest-line"), custom);
+        assertEquals(3, result.getViolationsByType(CodeAnalyzer.ViolationType.IMPROPER_INDENTATION).size());
+
+        // The built-in results are unchanged by the custom rules
+        List<CodeAnalyzer.Violation> builtIn = new ArrayList<>(result.getViolations());
+        builtIn.removeIf(v -> v.getType() == CodeAnalyzer.ViolationType.CUSTOM);
+        assertEquals(new CodeAnalyzer(RuleSet.empty()).analyzeString(CODE).getViolations().size(), builtIn.size());
+
+        // Streaming reports the same custom violations
+        List<CodeAnalyzer.Violation> streamed = new ArrayList<>();
+        analyzer.analyzeStream(new BufferedReader(new StringReader(CODE)), streamed::add);
+        assertEquals(result.getViolations().size(), streamed.size());
+    }
+
+    @Test
+    void testOutOfRangeLineIsRejected() {
+        Rule broken = new TestRule("broken", Locality.FILE, Cost.CHEAP) {
+            @Override
+            public void checkFile(List<String> lines, Reporter reporter) {
+                reporter.report(lines.size() + 1, null);
+            }
+        };
+        CodeAnalyzer analyzer = new CodeAnalyzer(new RuleSet(Collections.singletonList(broken)));
+        RuleFailureException failure = assertThrows(RuleFailureException.class, () -> analyzer.analyzeString(CODE));
+        assertEquals("broken", failure.getRuleName());
+    }
+
+    @Test
+    void testThrowingRuleIsNamed() {
+        Rule throwing = new TestRule("throwing", Locality.LINE, Cost.CHEAP) {
+            @Override
+            public void checkLine(LineContext context, Reporter reporter) {
+                if (context.getLineNumber() == 3) {
+                    throw new IllegalArgumentException("bad state");
+                }
+            }
+        };
+        Rule other = new TestRule("other", Locality.FILE, Cost.CHEAP);
+        CodeAnalyzer analyzer = new CodeAnalyzer(new RuleSet(Arrays.asList(throwing, other)));
+        RuleFailureException failure = assertThrows(RuleFailureException.class, () -> analyzer.analyzeString(CODE));
+        assertEquals("throwing", failure.getRuleName());
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    void testWholeFileRulesRunOffTheCommonPool() {
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        List<Rule> rules = new ArrayList<>();
+        for (String name : Arrays.asList("first", "second", "third")) {
+            rules.add(new TestRule(name, Locality.FILE, Cost.CHEAP) {
+                @Override
+                public void checkFile(List<String> lines, Reporter reporter) {
+                    threads.add(Thread.currentThread().getName());
+                    reporter.report(1, getName());
+                }
+            });
+        }
+        CodeAnalyzer analyzer = new CodeAnalyzer(new RuleSet(rules));
+        List<String> details = analyzer.analyzeString(CODE).getViolationsByType(CodeAnalyzer.ViolationType.CUSTOM)
+            .stream().map(CodeAnalyzer.Violation::getDetail).collect(Collectors.toList());
+
+        // Violations still arrive in start order
+        assertEquals(Arrays.asList("first: first", "second: second", "third: third"), details);
+        assertEquals(3, threads.size());
+        for (String thread : threads) {
+            assertTrue(thread.startsWith("file-rule-"), thread);
+        }
+    }
+
+    private static class TestRule implements Rule {
+        private final String name;
+        private final Locality locality;
+        private final Cost cost;
+
+        TestRule(String name, Locality locality, Cost cost) {
+            this.name = name;
+            this.locality = locality;
+            this.cost = cost;
+        }
+
+        @Override public String getName() { return name; }
+        @Override public String getDescription() { return name; }
+        @Override public Locality getLocality() { return locality; }
+        @Override public Cost getCost() { return cost; }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class TodoRule extends TestRule {
+        TodoRule() {
+            super("todo", Locality.LINE, Cost.CHEAP);
+        }
+
+        @Override
+        public void checkLine(LineContext context, Reporter reporter) {
+            if (context.getLine().contains("TODO")) {
+                reporter.report(context.getLineNumber(), null);
+            }
+        }
+    }
+
+    private static class RepeatedLineRule extends TestRule {
+        RepeatedLineRule() {
+            super("same-as-previous", Locality.WINDOW, Cost.MODERATE);
+        }
+
+        @Override
+        public int getWindow() {
+            return 1;
+        }
+
+        @Override
+        public void checkLine(LineContext context, Reporter reporter) {
+            String previous = context.getPreviousLine(1);
+            if (previous != null && previous.replaceAll("\\w+\\s*=", "").equals(context.getLine().replaceAll("\\w+\\s*=", ""))) {
+                reporter.report(context.getLineNumber(), "differs only in names");
+            }
+        }
+    }
+
+    private static class CountRule extends TestRule {
+        CountRule() {
+            super("line-count", Locality.FILE, Cost.EXPENSIVE);
+        }
+
+        @Override
+        public void checkFile(List<String> lines, Reporter reporter) {
+            reporter.report(lines.size(), lines.size() + " lines");
+        }
+    }
+
+    private static class LongestLineRule extends TestRule {
+        LongestLineRule() {
+            super("longest-line", Locality.FILE, Cost.CHEAP);
+        }
+
+        @Override
+        public void checkFile(List<String> lines, Reporter reporter) {
+            int longest = 0;
+            for (int i = 1; i < lines.size(); i++) {
+                if (lines.get(i).length() > lines.get(longest).length()) longest = i;
+            }
+            reporter.report(longest + 1, null);
+        }
+    }
+}
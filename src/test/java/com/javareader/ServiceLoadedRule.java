@@ -0,0 +1,44 @@
+package com.javareader;
+
+import com.javareader.logic.rules.Cost;
+import com.javareader.logic.rules.LineContext;
+import com.javareader.logic.rules.Locality;
+import com.javareader.logic.rules.Reporter;
+import com.javareader.logic.rules.Rule;
+
+/**
+ * Test rule installed through META-INF/services in the test resources. It only reports lines
+ * holding its marker, so other tests using the installed rules are not affected.
+ */
+public class ServiceLoadedRule implements Rule {
+
+    public static final String NAME = "service-loaded";
+    public static final String MARKER = "@service-loaded-rule-probe";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Lines holding " + MARKER;
+    }
+
+    @Override
+    public Locality getLocality() {
+        return Locality.LINE;
+    }
+
+    @Override
+    public Cost getCost() {
+        return Cost.CHEAP;
+    }
+
+    @Override
+    public void checkLine(LineContext context, Reporter reporter) {
+        if (context.getLine().contains(MARKER)) {
+            reporter.report(context.getLineNumber(), null);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.javareader;
+
+import com.javareader.logic.ViewCache;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test class for the cost-bounded LRU view cache
+ */
+public class ViewCacheTest {
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedOverBudget() {
+        ViewCache<String, String> cache = new ViewCache<>(100);
+        cache.put("a", "A", 40);
+        cache.put("b", "B", 40);
+        assertEquals("A", cache.get("a"));
+
+        // "b" is now the least recently used entry
+        cache.put("c", "C", 40);
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(80, cache.getWeight());
+
+        // Replacing an entry replaces its cost; an entry larger than the budget is not kept
+        cache.put("a", "A2", 10);
+        assertEquals(50, cache.getWeight());
+        cache.put("huge", "H", 101);
+        assertNull(cache.get("huge"));
+        assertEquals(2, cache.size());
+
+        cache.setBudget(20);
+        assertEquals(1, cache.size());
+        assertEquals("A2", cache.get("a"));
+    }
+
+    @Test
+    void testLowMemoryHalvesTheCache() {
+        ViewCache<Integer, String> cache = new ViewCache<>(1000);
+        for (int k = 0; k < 10; k++) {
+            cache.put(k, "v" + k, 50);
+        }
+        cache.get(0);
+        cache.onLowMemory();
+        assertEquals(250, cache.getWeight());
+        // The most recently used entries stay
+        assertNotNull(cache.get(0));
+        assertNotNull(cache.get(9));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void testLowMemorySignalEvictsUntilUnwatched() {
+        List<Runnable> listeners = new ArrayList<>();
+        ViewCache.LowMemorySignal signal = listener -> {
+            listeners.add(listener);
+            return () -> listeners.remove(listener);
+        };
+        ViewCache<Integer, String> cache = new ViewCache<>(1000);
+        for (int k = 0; k < 8; k++) {
+            cache.put(k, "v" + k, 100);
+        }
+        cache.watch(signal);
+        cache.watch(signal);
+        assertTrue(cache.isWatching());
+        assertEquals(1, listeners.size());
+
+        listeners.get(0).run();
+        assertEquals(400, cache.getWeight());
+        assertNull(cache.get(3));
+        assertNotNull(cache.get(4));
+
+        // Unwatching removes the listener, so later signals no longer reach the cache
+        cache.unwatch();
+        cache.unwatch();
+        assertFalse(cache.isWatching());
+        assertTrue(listeners.isEmpty());
+        assertEquals(400, cache.getWeight());
+    }
+
+    @Test
+    void testReservedMemoryShrinksTheBudget() {
+        ViewCache<String, String> cache = new ViewCache<>(100);
+        cache.put("a", "A", 40);
+        cache.put("b", "B", 40);
+        cache.setReserved(50);
+        assertEquals(1, cache.size());
+        assertEquals("B", cache.get("b"));
+        assertTrue(cache.contains("b"));
+        assertFalse(cache.contains("a"));
+
+        // An entry larger than what is left is not kept; releasing the reserve makes room again
+        cache.put("c", "C", 60);
+        assertFalse(cache.contains("c"));
+        cache.setReserved(0);
+        cache.put("c", "C", 60);
+        assertEquals(100, cache.getWeight());
+    }
+
+    @Test
+    void testLineEstimateGrowsWithText() {
+        long empty = ViewCache.estimateLines(Collections.<String>emptyList());
+        long small = ViewCache.estimateLines(Arrays.asList("a", "b"));
+        long large = ViewCache.estimateLines(Arrays.asList("a", "bbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbbb"));
+        assertTrue(empty < small && small < large);
+    }
+}
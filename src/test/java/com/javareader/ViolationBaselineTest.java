@@ -0,0 +1,111 @@
+package com.javareader;
+
+import com.javareader.logic.CodeAnalyzer;
+import com.javareader.logic.ViolationBaseline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test class for baseline fingerprints and new-violation filtering
+ */
+public class ViolationBaselineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final CodeAnalyzer codeAnalyzer = new CodeAnalyzer();
+
+    @Test
+    void testShiftedViolationsStayKnownAndEditedOnesAreNew() throws IOException {
+        String original = "class A {\n    int bad_one = 1;\n    int bad_two = 2;\n}";
+        List<String> lines = lines(original);
+        ViolationBaseline baseline = new ViolationBaseline();
+        baseline.record("A.java", codeAnalyzer.analyzeString(original).getViolations(), lines);
+        assertFalse(baseline.isEmpty());
+
+        Path file = tempDir.resolve("baseline.bin");
+        baseline.save(file);
+        ViolationBaseline loaded = ViolationBaseline.load(file);
+        assertEquals(baseline.size(), loaded.size());
+
+        // Lines moved down by a new import and a reformatted line keep their fingerprints
+        String shifted = "import java.util.List;\n\nclass A {\n    int   bad_one = 1;\n    int bad_two = 2;\n}";
+        assertEquals(0, newViolations(loaded, "A.java", shifted).size());
+
+        // The same code in another file, or an edited line, is reported
+        assertFalse(newViolations(loaded, "B.java", shifted).isEmpty());
+        List<CodeAnalyzer.Violation> edited = newViolations(loaded, "A.java",
+            "class A {\n    int bad_one = 1;\n    int bad_three = 3;\n}");
+        assertTrue(edited.stream().allMatch(v -> v.getLineNumber() >= 2));
+        assertTrue(edited.stream().anyMatch(v -> v.getLineNumber() == 3));
+    }
+
+    @Test
+    void testRepeatedFingerprintsAreCounted() {
+        List<String> lines = Arrays.asList("x", "int a_b;", "x");
+        CodeAnalyzer.Violation violation = new CodeAnalyzer.Violation(CodeAnalyzer.ViolationType.NAMING_CONVENTION, 2, "int a_b;");
+        ViolationBaseline baseline = new ViolationBaseline();
+        baseline.record("A.java", Arrays.asList(violation), lines);
+
+        // One occurrence is known; a second identical one in the same file is new
+        assertEquals(0, baseline.filterNew("A.java", Arrays.asList(violation), lines).size());
+        assertEquals(1, baseline.filterNew("A.java", Arrays.asList(violation, violation), lines).size());
+    }
+
+    @Test
+    void testRecordingAFileAgainReplacesItsEntries() throws IOException {
+        String code = "class A {\n    int bad_one = 1;\n    int bad_two = 2;\n}";
+        List<CodeAnalyzer.Violation> violations = codeAnalyzer.analyzeString(code).getViolations();
+        ViolationBaseline baseline = new ViolationBaseline();
+        baseline.record("src/A.java", violations, lines(code));
+        int size = baseline.size();
+        baseline.record("src/A.java", violations, lines(code));
+        assertEquals(size, baseline.size());
+
+        // A second copy of a violation is still new after recording twice
+        List<CodeAnalyzer.Violation> doubled = new java.util.ArrayList<>(violations);
+        doubled.addAll(violations);
+        assertEquals(violations.size(), baseline.filterNew("src/A.java", doubled, lines(code)).size());
+
+        // Recording the fixed file forgets its old violations
+        String fixed = "class A {\n  int goodOne = 1;\n}";
+        baseline.record("src/A.java", java.util.Collections.<CodeAnalyzer.Violation>emptyList(), lines(fixed));
+        assertTrue(baseline.isEmpty());
+        assertEquals(violations.size(), baseline.filterNew("src/A.java", violations, lines(code)).size());
+
+        baseline.record("src/A.java", violations, lines(code));
+        Path file = tempDir.resolve("baseline.bin");
+        baseline.save(file);
+        assertEquals(size, ViolationBaseline.load(file).size());
+    }
+
+    @Test
+    void testFilesAreKeyedByProjectRelativePath() {
+        Path root = tempDir.resolve("project");
+        assertEquals("a/Util.java", ViolationBaseline.fileKey(root, root.resolve("a/Util.java")));
+        assertEquals("Scrap.java", ViolationBaseline.fileKey(root, java.nio.file.Paths.get("Scrap.java")));
+        String outside = ViolationBaseline.fileKey(root, tempDir.resolve("Other.java"));
+        assertTrue(outside.endsWith("/Other.java") && !outside.startsWith("Other"), outside);
+
+        // Files sharing a name in different packages do not share their baseline entries
+        String code = "class Util {\n    int bad_name = 1;\n}";
+        ViolationBaseline baseline = new ViolationBaseline();
+        baseline.record("a/Util.java", codeAnalyzer.analyzeString(code).getViolations(), lines(code));
+        assertTrue(newViolations(baseline, "a/Util.java", code).isEmpty());
+        assertFalse(newViolations(baseline, "b/Util.java", code).isEmpty());
+    }
+
+    private List<CodeAnalyzer.Violation> newViolations(ViolationBaseline baseline, String fileName, String code) {
+        return baseline.filterNew(fileName, codeAnalyzer.analyzeString(code).getViolations(), lines(code));
+    }
+
+    private static List<String> lines(String code) {
+        return Arrays.asList(code.split("\r?\n"));
+    }
+}